@@ -1,5 +1,6 @@
 package bpmnProject.akon.bpmnJavaBackend.Auditing;
 
+import bpmnProject.akon.bpmnJavaBackend.Config.JwtPrincipal;
 import bpmnProject.akon.bpmnJavaBackend.User.User;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
@@ -22,6 +23,9 @@ public class ApplicationAuditAware implements AuditorAware<Integer> {
             return Optional.empty();
         }
 
+        if (authentication.getPrincipal() instanceof JwtPrincipal jwtPrincipal) {
+            return Optional.ofNullable(jwtPrincipal.getUserId());
+        }
         User userPrincipal = (User) authentication.getPrincipal();
         return Optional.ofNullable(userPrincipal.getId());
     }
@@ -1,5 +1,7 @@
 package bpmnProject.akon.bpmnJavaBackend.Auth;
 
+import bpmnProject.akon.bpmnJavaBackend.Config.TokenInvalidationService;
+import bpmnProject.akon.bpmnJavaBackend.Config.TokenRevocationRegistry;
 import bpmnProject.akon.bpmnJavaBackend.Config.JwtService;
 import bpmnProject.akon.bpmnJavaBackend.Token.Token;
 import bpmnProject.akon.bpmnJavaBackend.Token.TokenRepository;
@@ -16,6 +18,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -29,6 +33,8 @@ public class AuthenticationService {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final UserDetailsService userDetailsService;
+    private final TokenInvalidationService tokenInvalidationService;
+    private final TokenRevocationRegistry revocationRegistry;
 
     @Transactional
     public AuthenticationResponse register(RegisterRequest request) {
@@ -138,26 +144,26 @@ public class AuthenticationService {
 
     @Transactional
     public void logout(String token) {
-        var storedToken = tokenRepository.findByToken(token).orElse(null);
-        if (storedToken != null) {
-            storedToken.setExpired(true);
-            storedToken.setRevoked(true);
-            tokenRepository.save(storedToken);
-        }
+        tokenInvalidationService.tokenRevoked(token);
     }
 
     public boolean validateToken(String token) {
         try {
-            var storedToken = tokenRepository.findByToken(token);
+            var verifiedToken = jwtService.parseToken(token);
+            if (revocationRegistry.isRevoked(verifiedToken)) {
+                return false;
+            }
+            var storedToken = verifiedToken.getJti() != null
+                    ? tokenRepository.findByJti(verifiedToken.getJti())
+                    : tokenRepository.findByToken(token);
             if (storedToken.isPresent()) {
                 var tokenEntity = storedToken.get();
                 if (tokenEntity.isExpired() || tokenEntity.isRevoked()) {
                     return false;
                 }
 
-                String username = jwtService.extractUsername(token);
-                var userDetails = userDetailsService.loadUserByUsername(username);
-                return jwtService.isTokenValid(token, userDetails);
+                var userDetails = userDetailsService.loadUserByUsername(verifiedToken.getUsername());
+                return jwtService.isTokenValid(verifiedToken, userDetails);
             }
             return false;
         } catch (Exception e) {
@@ -193,9 +199,12 @@ public class AuthenticationService {
     }
 
     private void saveUserToken(User user, String jwtToken) {
+        var verifiedToken = jwtService.parseToken(jwtToken);
         var token = Token.builder()
                 .user(user)
                 .token(jwtToken)
+                .jti(verifiedToken.getJti())
+                .expiresAt(LocalDateTime.ofInstant(verifiedToken.getExpiration().toInstant(), ZoneId.systemDefault()))
                 .tokenType(TokenType.BEARER)
                 .expired(false)
                 .revoked(false)
@@ -209,13 +218,7 @@ public class AuthenticationService {
         if (validUserTokens.isEmpty()) {
             return;
         }
-
-        validUserTokens.forEach(token -> {
-            token.setExpired(true);
-            token.setRevoked(true);
-        });
-
-        tokenRepository.saveAll(validUserTokens);
-        tokenRepository.flush();
+        // Persisted in batches by the revocation registry
+        tokenInvalidationService.tokensRevoked(user.getUsername(), validUserTokens);
     }
 }
\ No newline at end of file
@@ -0,0 +1,455 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.camunda.bpm.model.bpmn.impl.BpmnModelConstants.*;
+
+/**
+ * Renders the BPMNDI part of a BPMN document onto a {@link DiagramCanvas}.
+ *
+ * Works from a parsed {@link BpmnModel}: pools and lanes are drawn first, then the remaining
+ * shapes and edges in document order. Callers that render the same content repeatedly should
+ * pass a model from {@link BpmnModelCache}.
+ */
+@Component
+public class BpmnDiagramRenderer {
+
+    private static final double PADDING = 20;
+    private static final double LABEL_FONT_SIZE = 11;
+    private static final double POOL_HEADER_WIDTH = 30;
+
+    private static final Set<String> ACTIVITIES = Set.of(
+            BPMN_ELEMENT_TASK, BPMN_ELEMENT_USER_TASK, BPMN_ELEMENT_SERVICE_TASK, BPMN_ELEMENT_SCRIPT_TASK,
+            BPMN_ELEMENT_SEND_TASK, BPMN_ELEMENT_RECEIVE_TASK, BPMN_ELEMENT_MANUAL_TASK,
+            BPMN_ELEMENT_BUSINESS_RULE_TASK, BPMN_ELEMENT_CALL_ACTIVITY, BPMN_ELEMENT_SUB_PROCESS,
+            BPMN_ELEMENT_TRANSACTION, "adHocSubProcess");
+
+    private static final Set<String> EVENTS = Set.of(
+            BPMN_ELEMENT_START_EVENT, BPMN_ELEMENT_END_EVENT, BPMN_ELEMENT_INTERMEDIATE_CATCH_EVENT,
+            BPMN_ELEMENT_INTERMEDIATE_THROW_EVENT, BPMN_ELEMENT_BOUNDARY_EVENT);
+
+    /**
+     * Parse and render in one go, without caching the model
+     */
+    public void render(BpmnSource source, DiagramCanvas canvas) throws IOException {
+        render(BpmnModelReader.read(source), canvas);
+    }
+
+    public void render(BpmnModel model, DiagramCanvas canvas) {
+        if (!model.hasBounds()) {
+            canvas.begin(0, 0, 400, 100);
+            canvas.text(List.of("No diagram information"), 200, 50, 14, false);
+            canvas.end();
+            return;
+        }
+
+        canvas.begin(model.getMinX() - PADDING, model.getMinY() - PADDING,
+                model.getMaxX() - model.getMinX() + 2 * PADDING, model.getMaxY() - model.getMinY() + 2 * PADDING);
+        drawPass(model, canvas, true);
+        drawPass(model, canvas, false);
+        canvas.end();
+    }
+
+    /**
+     * Draw either only the containers (pools, lanes) or everything else
+     */
+    private void drawPass(BpmnModel model, DiagramCanvas canvas, boolean containers) {
+        for (BpmnModel.DiagramItem item : model.getDiagram()) {
+            if (item instanceof BpmnModel.Shape) {
+                if (isContainer(item.getElement().getType()) == containers) {
+                    drawShape((BpmnModel.Shape) item, canvas);
+                }
+            } else if (!containers && ((BpmnModel.Edge) item).getPoints().length >= 4) {
+                drawEdge((BpmnModel.Edge) item, canvas);
+            }
+        }
+    }
+
+    private static boolean isContainer(String type) {
+        return BPMN_ELEMENT_PARTICIPANT.equals(type) || BPMN_ELEMENT_LANE.equals(type);
+    }
+
+    // ---------------------------------------------------------------- shapes
+
+    private void drawShape(BpmnModel.Shape shape, DiagramCanvas canvas) {
+        String type = shape.getElement().getType();
+        if (BPMN_ELEMENT_PARTICIPANT.equals(type) || BPMN_ELEMENT_LANE.equals(type)) {
+            drawSwimlane(shape, canvas, BPMN_ELEMENT_PARTICIPANT.equals(type));
+        } else if (EVENTS.contains(type)) {
+            drawEvent(shape, canvas);
+        } else if (type.endsWith("Gateway")) {
+            drawGateway(shape, canvas);
+        } else if (ACTIVITIES.contains(type)) {
+            drawActivity(shape, canvas);
+        } else if (BPMN_ELEMENT_DATA_OBJECT_REFERENCE.equals(type) || BPMN_ELEMENT_DATA_OBJECT.equals(type)
+                || BPMN_ELEMENT_DATA_INPUT.equals(type) || BPMN_ELEMENT_DATA_OUTPUT.equals(type)) {
+            drawDataObject(shape, canvas);
+        } else if (BPMN_ELEMENT_DATA_STORE_REFERENCE.equals(type)) {
+            drawDataStore(shape, canvas);
+        } else if (BPMN_ELEMENT_TEXT_ANNOTATION.equals(type)) {
+            drawTextAnnotation(shape, canvas);
+        } else if (BPMN_ELEMENT_GROUP.equals(type)) {
+            double[] b = shape.getBounds();
+            canvas.rect(b[0], b[1], b[2], b[3], 10, DiagramStyle.GROUP);
+            drawExternalLabel(shape, canvas, b[0] + b[2] / 2, b[1] - 10);
+        } else {
+            double[] b = shape.getBounds();
+            canvas.rect(b[0], b[1], b[2], b[3], 0, DiagramStyle.OUTLINE);
+            canvas.text(wrap(shape.getElement().getName(), b[2] - 10), b[0] + b[2] / 2, b[1] + b[3] / 2, LABEL_FONT_SIZE, false);
+        }
+    }
+
+    private void drawSwimlane(BpmnModel.Shape shape, DiagramCanvas canvas, boolean pool) {
+        double[] b = shape.getBounds();
+        boolean horizontal = shape.isHorizontal();
+        canvas.rect(b[0], b[1], b[2], b[3], 0, pool ? DiagramStyle.CONTAINER : DiagramStyle.THIN);
+        if (horizontal) {
+            canvas.polyline(new double[]{b[0] + POOL_HEADER_WIDTH, b[1], b[0] + POOL_HEADER_WIDTH, b[1] + b[3]},
+                    pool ? DiagramStyle.CONTAINER : DiagramStyle.THIN);
+            canvas.text(wrap(shape.getElement().getName(), b[3] - 10), b[0] + POOL_HEADER_WIDTH / 2, b[1] + b[3] / 2,
+                    LABEL_FONT_SIZE + 1, true);
+        } else {
+            canvas.polyline(new double[]{b[0], b[1] + POOL_HEADER_WIDTH, b[0] + b[2], b[1] + POOL_HEADER_WIDTH},
+                    pool ? DiagramStyle.CONTAINER : DiagramStyle.THIN);
+            canvas.text(wrap(shape.getElement().getName(), b[2] - 10), b[0] + b[2] / 2, b[1] + POOL_HEADER_WIDTH / 2,
+                    LABEL_FONT_SIZE + 1, false);
+        }
+    }
+
+    private void drawActivity(BpmnModel.Shape shape, DiagramCanvas canvas) {
+        double[] b = shape.getBounds();
+        BpmnModel.Element element = shape.getElement();
+        String type = element.getType();
+
+        DiagramStyle style = DiagramStyle.SHAPE;
+        if (element.isTriggeredByEvent()) {
+            style = DiagramStyle.DOTTED_SHAPE;
+        } else if (BPMN_ELEMENT_CALL_ACTIVITY.equals(type)) {
+            style = DiagramStyle.THICK;
+        }
+        canvas.rect(b[0], b[1], b[2], b[3], 10, style);
+        if (BPMN_ELEMENT_TRANSACTION.equals(type)) {
+            canvas.rect(b[0] + 3, b[1] + 3, b[2] - 6, b[3] - 6, 8, DiagramStyle.THIN);
+        }
+
+        boolean container = BPMN_ELEMENT_SUB_PROCESS.equals(type) || BPMN_ELEMENT_TRANSACTION.equals(type)
+                || "adHocSubProcess".equals(type);
+        boolean expanded = container && shape.isExpanded();
+        if (expanded) {
+            canvas.text(wrap(element.getName(), b[2] - 20), b[0] + b[2] / 2, b[1] + 15, LABEL_FONT_SIZE, false);
+            return;
+        }
+
+        canvas.text(wrap(element.getName(), b[2] - 10), b[0] + b[2] / 2, b[1] + b[3] / 2, LABEL_FONT_SIZE + 1, false);
+        drawTaskMarker(type, b[0] + 8, b[1] + 6, canvas);
+        if (container || BPMN_ELEMENT_CALL_ACTIVITY.equals(type)) {
+            // Collapsed marker: a small boxed plus at the bottom center
+            double cx = b[0] + b[2] / 2;
+            double y = b[1] + b[3] - 16;
+            canvas.rect(cx - 7, y, 14, 14, 0, DiagramStyle.THIN);
+            canvas.polyline(new double[]{cx - 4, y + 7, cx + 4, y + 7}, DiagramStyle.THIN);
+            canvas.polyline(new double[]{cx, y + 3, cx, y + 11}, DiagramStyle.THIN);
+        }
+    }
+
+    private void drawTaskMarker(String type, double x, double y, DiagramCanvas canvas) {
+        switch (type) {
+            case BPMN_ELEMENT_USER_TASK:
+                canvas.ellipse(x + 7, y + 4, 3.5, 3.5, DiagramStyle.THIN);
+                canvas.polyline(new double[]{x, y + 15, x + 1, y + 9, x + 13, y + 9, x + 14, y + 15}, DiagramStyle.THIN);
+                break;
+            case BPMN_ELEMENT_SERVICE_TASK:
+                canvas.ellipse(x + 7, y + 7, 7, 7, DiagramStyle.THIN);
+                canvas.ellipse(x + 7, y + 7, 3, 3, DiagramStyle.THIN);
+                break;
+            case BPMN_ELEMENT_SEND_TASK:
+                drawEnvelope(x, y + 2, 16, 11, true, canvas);
+                break;
+            case BPMN_ELEMENT_RECEIVE_TASK:
+                drawEnvelope(x, y + 2, 16, 11, false, canvas);
+                break;
+            case BPMN_ELEMENT_SCRIPT_TASK:
+                canvas.rect(x, y, 12, 15, 0, DiagramStyle.THIN);
+                canvas.polyline(new double[]{x + 3, y + 5, x + 9, y + 5}, DiagramStyle.THIN);
+                canvas.polyline(new double[]{x + 3, y + 9, x + 9, y + 9}, DiagramStyle.THIN);
+                break;
+            case BPMN_ELEMENT_BUSINESS_RULE_TASK:
+                canvas.rect(x, y, 16, 12, 0, DiagramStyle.THIN);
+                canvas.polyline(new double[]{x, y + 4, x + 16, y + 4}, DiagramStyle.THIN);
+                canvas.polyline(new double[]{x + 5, y + 4, x + 5, y + 12}, DiagramStyle.THIN);
+                break;
+            case BPMN_ELEMENT_MANUAL_TASK:
+                canvas.polyline(new double[]{x, y + 12, x, y + 6, x + 5, y + 2, x + 14, y + 2, x + 14, y + 12, x, y + 12},
+                        DiagramStyle.THIN);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void drawEvent(BpmnModel.Shape shape, DiagramCanvas canvas) {
+        double[] b = shape.getBounds();
+        BpmnModel.Element element = shape.getElement();
+        double cx = b[0] + b[2] / 2;
+        double cy = b[1] + b[3] / 2;
+        double r = Math.min(b[2], b[3]) / 2;
+
+        boolean throwing = BPMN_ELEMENT_END_EVENT.equals(element.getType())
+                || BPMN_ELEMENT_INTERMEDIATE_THROW_EVENT.equals(element.getType());
+        if (BPMN_ELEMENT_START_EVENT.equals(element.getType())) {
+            canvas.ellipse(cx, cy, r, r, element.isNonInterrupting() ? DiagramStyle.DASHED_SHAPE : DiagramStyle.SHAPE);
+        } else if (BPMN_ELEMENT_END_EVENT.equals(element.getType())) {
+            canvas.ellipse(cx, cy, r, r, DiagramStyle.THICK);
+        } else {
+            DiagramStyle style = element.isNonInterrupting() ? DiagramStyle.DASHED_SHAPE : DiagramStyle.THIN;
+            canvas.ellipse(cx, cy, r, r, style);
+            canvas.ellipse(cx, cy, r - 3, r - 3, style);
+        }
+
+        if (element.getEventDefinition() != null) {
+            drawEventDefinition(element.getEventDefinition(), cx, cy, r * 0.55, throwing, canvas);
+        }
+        drawExternalLabel(shape, canvas, cx, b[1] + b[3] + 12);
+    }
+
+    private void drawEventDefinition(String definition, double cx, double cy, double s, boolean filled, DiagramCanvas canvas) {
+        DiagramStyle style = filled ? DiagramStyle.MARKER : DiagramStyle.THIN;
+        switch (definition) {
+            case BPMN_ELEMENT_MESSAGE_EVENT_DEFINITION:
+                drawEnvelope(cx - s, cy - s * 0.7, 2 * s, 1.4 * s, filled, canvas);
+                break;
+            case BPMN_ELEMENT_TIMER_EVENT_DEFINITION:
+                canvas.ellipse(cx, cy, s * 1.1, s * 1.1, DiagramStyle.THIN);
+                canvas.polyline(new double[]{cx, cy - s * 0.8, cx, cy, cx + s * 0.6, cy}, DiagramStyle.THIN);
+                break;
+            case BPMN_ELEMENT_TERMINATE_EVENT_DEFINITION:
+                canvas.ellipse(cx, cy, s * 1.1, s * 1.1, DiagramStyle.MARKER);
+                break;
+            case BPMN_ELEMENT_SIGNAL_EVENT_DEFINITION:
+                canvas.polygon(new double[]{cx, cy - s, cx + s, cy + s * 0.8, cx - s, cy + s * 0.8}, style);
+                break;
+            case BPMN_ELEMENT_ESCALATION_EVENT_DEFINITION:
+                canvas.polygon(new double[]{cx, cy - s, cx + s * 0.7, cy + s, cx, cy + s * 0.3, cx - s * 0.7, cy + s}, style);
+                break;
+            case BPMN_ELEMENT_ERROR_EVENT_DEFINITION:
+                canvas.polygon(new double[]{cx - s, cy + s, cx - s * 0.4, cy - s, cx + s * 0.2, cy + s * 0.1,
+                        cx + s, cy - s, cx + s * 0.4, cy + s, cx - s * 0.2, cy - s * 0.1}, style);
+                break;
+            case BPMN_ELEMENT_CONDITIONAL_EVENT_DEFINITION:
+                canvas.rect(cx - s * 0.7, cy - s, s * 1.4, s * 2, 0, DiagramStyle.THIN);
+                for (int i = -1; i <= 1; i++) {
+                    canvas.polyline(new double[]{cx - s * 0.5, cy + i * s * 0.5, cx + s * 0.5, cy + i * s * 0.5}, DiagramStyle.THIN);
+                }
+                break;
+            case BPMN_ELEMENT_LINK_EVENT_DEFINITION:
+                canvas.polygon(new double[]{cx - s, cy - s * 0.4, cx + s * 0.2, cy - s * 0.4, cx + s * 0.2, cy - s * 0.9,
+                        cx + s, cy, cx + s * 0.2, cy + s * 0.9, cx + s * 0.2, cy + s * 0.4, cx - s, cy + s * 0.4}, style);
+                break;
+            case BPMN_ELEMENT_COMPENSATE_EVENT_DEFINITION:
+                canvas.polygon(new double[]{cx - s, cy, cx, cy - s * 0.7, cx, cy + s * 0.7}, style);
+                canvas.polygon(new double[]{cx, cy, cx + s, cy - s * 0.7, cx + s, cy + s * 0.7}, style);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void drawGateway(BpmnModel.Shape shape, DiagramCanvas canvas) {
+        double[] b = shape.getBounds();
+        double cx = b[0] + b[2] / 2;
+        double cy = b[1] + b[3] / 2;
+        canvas.polygon(new double[]{cx, b[1], b[0] + b[2], cy, cx, b[1] + b[3], b[0], cy}, DiagramStyle.SHAPE);
+
+        double s = Math.min(b[2], b[3]) * 0.2;
+        DiagramStyle marker = DiagramStyle.THICK;
+        switch (shape.getElement().getType()) {
+            case BPMN_ELEMENT_EXCLUSIVE_GATEWAY:
+                canvas.polyline(new double[]{cx - s, cy - s, cx + s, cy + s}, marker);
+                canvas.polyline(new double[]{cx - s, cy + s, cx + s, cy - s}, marker);
+                break;
+            case BPMN_ELEMENT_PARALLEL_GATEWAY:
+                canvas.polyline(new double[]{cx - s * 1.2, cy, cx + s * 1.2, cy}, marker);
+                canvas.polyline(new double[]{cx, cy - s * 1.2, cx, cy + s * 1.2}, marker);
+                break;
+            case BPMN_ELEMENT_INCLUSIVE_GATEWAY:
+                canvas.ellipse(cx, cy, s * 1.2, s * 1.2, DiagramStyle.SHAPE);
+                break;
+            case BPMN_ELEMENT_COMPLEX_GATEWAY:
+                canvas.polyline(new double[]{cx - s * 1.2, cy, cx + s * 1.2, cy}, marker);
+                canvas.polyline(new double[]{cx, cy - s * 1.2, cx, cy + s * 1.2}, marker);
+                canvas.polyline(new double[]{cx - s * 0.85, cy - s * 0.85, cx + s * 0.85, cy + s * 0.85}, marker);
+                canvas.polyline(new double[]{cx - s * 0.85, cy + s * 0.85, cx + s * 0.85, cy - s * 0.85}, marker);
+                break;
+            case BPMN_ELEMENT_EVENT_BASED_GATEWAY:
+                canvas.ellipse(cx, cy, s * 1.4, s * 1.4, DiagramStyle.THIN);
+                canvas.ellipse(cx, cy, s * 1.15, s * 1.15, DiagramStyle.THIN);
+                canvas.polygon(pentagon(cx, cy, s * 0.75), DiagramStyle.THIN);
+                break;
+            default:
+                break;
+        }
+        drawExternalLabel(shape, canvas, cx, b[1] + b[3] + 12);
+    }
+
+    private void drawDataObject(BpmnModel.Shape shape, DiagramCanvas canvas) {
+        double[] b = shape.getBounds();
+        double fold = Math.min(10, b[2] / 3);
+        canvas.polygon(new double[]{b[0], b[1], b[0] + b[2] - fold, b[1], b[0] + b[2], b[1] + fold,
+                b[0] + b[2], b[1] + b[3], b[0], b[1] + b[3]}, DiagramStyle.THIN);
+        canvas.polyline(new double[]{b[0] + b[2] - fold, b[1], b[0] + b[2] - fold, b[1] + fold, b[0] + b[2], b[1] + fold},
+                DiagramStyle.THIN);
+        drawExternalLabel(shape, canvas, b[0] + b[2] / 2, b[1] + b[3] + 12);
+    }
+
+    private void drawDataStore(BpmnModel.Shape shape, DiagramCanvas canvas) {
+        double[] b = shape.getBounds();
+        double rx = b[2] / 2;
+        double ry = Math.min(6, b[3] / 6);
+        double cx = b[0] + rx;
+        canvas.ellipse(cx, b[1] + b[3] - ry, rx, ry, DiagramStyle.THIN);
+        canvas.rect(b[0], b[1] + ry, b[2], b[3] - 2 * ry, 0, DiagramStyle.THIN);
+        canvas.ellipse(cx, b[1] + ry, rx, ry, DiagramStyle.THIN);
+        drawExternalLabel(shape, canvas, cx, b[1] + b[3] + 12);
+    }
+
+    private void drawTextAnnotation(BpmnModel.Shape shape, DiagramCanvas canvas) {
+        double[] b = shape.getBounds();
+        canvas.polyline(new double[]{b[0] + 10, b[1], b[0], b[1], b[0], b[1] + b[3], b[0] + 10, b[1] + b[3]},
+                DiagramStyle.THIN);
+        canvas.text(wrap(shape.getElement().getName(), b[2] - 10), b[0] + b[2] / 2, b[1] + b[3] / 2, LABEL_FONT_SIZE, false);
+    }
+
+    /**
+     * Label placed by DI label bounds when present, otherwise centered at the fallback position
+     */
+    private void drawExternalLabel(BpmnModel.Shape shape, DiagramCanvas canvas, double fallbackX, double fallbackY) {
+        String name = shape.getElement().getName();
+        if (name == null || name.isBlank()) {
+            return;
+        }
+        if (shape.getLabel() != null) {
+            double[] l = shape.getLabel();
+            canvas.text(wrap(name, Math.max(l[2], 40)), l[0] + l[2] / 2, l[1] + l[3] / 2, LABEL_FONT_SIZE, false);
+        } else {
+            canvas.text(wrap(name, 90), fallbackX, fallbackY, LABEL_FONT_SIZE, false);
+        }
+    }
+
+    private static void drawEnvelope(double x, double y, double w, double h, boolean filled, DiagramCanvas canvas) {
+        canvas.rect(x, y, w, h, 0, filled ? DiagramStyle.MARKER : DiagramStyle.THIN);
+        canvas.polyline(new double[]{x, y, x + w / 2, y + h / 2, x + w, y},
+                filled ? DiagramStyle.INVERSE_MARKER : DiagramStyle.THIN);
+    }
+
+    private static double[] pentagon(double cx, double cy, double r) {
+        double[] points = new double[10];
+        for (int i = 0; i < 5; i++) {
+            double angle = -Math.PI / 2 + i * 2 * Math.PI / 5;
+            points[2 * i] = cx + r * Math.cos(angle);
+            points[2 * i + 1] = cy + r * Math.sin(angle);
+        }
+        return points;
+    }
+
+    // ---------------------------------------------------------------- edges
+
+    private void drawEdge(BpmnModel.Edge edge, DiagramCanvas canvas) {
+        double[] points = edge.getPoints();
+        String type = edge.getElement().getType();
+        int n = points.length;
+
+        if (BPMN_ELEMENT_MESSAGE_FLOW.equals(type)) {
+            canvas.polyline(points, DiagramStyle.MESSAGE_FLOW);
+            canvas.ellipse(points[0], points[1], 4, 4, DiagramStyle.THIN);
+            canvas.polygon(arrowHead(points[n - 4], points[n - 3], points[n - 2], points[n - 1]), DiagramStyle.THIN);
+        } else if (BPMN_ELEMENT_ASSOCIATION.equals(type)) {
+            canvas.polyline(points, DiagramStyle.ASSOCIATION);
+        } else if (BPMN_ELEMENT_DATA_INPUT_ASSOCIATION.equals(type) || BPMN_ELEMENT_DATA_OUTPUT_ASSOCIATION.equals(type)) {
+            canvas.polyline(points, DiagramStyle.ASSOCIATION);
+            double[] head = arrowHead(points[n - 4], points[n - 3], points[n - 2], points[n - 1]);
+            canvas.polyline(new double[]{head[2], head[3], head[0], head[1], head[4], head[5]}, DiagramStyle.THIN);
+        } else {
+            canvas.polyline(points, DiagramStyle.FLOW);
+            canvas.polygon(arrowHead(points[n - 4], points[n - 3], points[n - 2], points[n - 1]), DiagramStyle.MARKER);
+            if (edge.isDefaultFlow()) {
+                // Default flow: short slash across the first segment
+                double[] u = unit(points[0], points[1], points[2], points[3]);
+                double mx = points[0] + u[0] * 10;
+                double my = points[1] + u[1] * 10;
+                canvas.polyline(new double[]{mx - u[0] * 4 - u[1] * 6, my - u[1] * 4 + u[0] * 6,
+                        mx + u[0] * 4 + u[1] * 6, my + u[1] * 4 - u[0] * 6}, DiagramStyle.FLOW);
+            }
+        }
+
+        String name = edge.getElement().getName();
+        if (name != null && !name.isBlank()) {
+            if (edge.getLabel() != null) {
+                double[] l = edge.getLabel();
+                canvas.text(wrap(name, Math.max(l[2], 40)), l[0] + l[2] / 2, l[1] + l[3] / 2, LABEL_FONT_SIZE, false);
+            } else {
+                int mid = (n / 4) * 2;
+                double mx = (points[mid - 2] + points[mid]) / 2;
+                double my = (points[mid - 1] + points[mid + 1]) / 2;
+                canvas.text(wrap(name, 90), mx, my - 8, LABEL_FONT_SIZE, false);
+            }
+        }
+    }
+
+    /**
+     * Triangle tip, left and right corners for an arrow ending at (x2, y2)
+     */
+    private static double[] arrowHead(double x1, double y1, double x2, double y2) {
+        double[] u = unit(x1, y1, x2, y2);
+        double bx = x2 - u[0] * 10;
+        double by = y2 - u[1] * 10;
+        return new double[]{x2, y2, bx - u[1] * 4, by + u[0] * 4, bx + u[1] * 4, by - u[0] * 4};
+    }
+
+    private static double[] unit(double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double length = Math.sqrt(dx * dx + dy * dy);
+        if (length == 0) {
+            return new double[]{1, 0};
+        }
+        return new double[]{dx / length, dy / length};
+    }
+
+    // ---------------------------------------------------------------- helpers
+
+    /**
+     * Greedy word wrap using an average glyph width estimate
+     */
+    static List<String> wrap(String text, double maxWidth) {
+        List<String> lines = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return lines;
+        }
+        int maxChars = Math.max(4, (int) (maxWidth / (LABEL_FONT_SIZE * 0.6)));
+        for (String paragraph : text.split("\\R")) {
+            StringBuilder line = new StringBuilder();
+            for (String word : paragraph.trim().split("\\s+")) {
+                if (word.isEmpty()) {
+                    continue;
+                }
+                if (line.length() > 0 && line.length() + 1 + word.length() > maxChars) {
+                    lines.add(line.toString());
+                    line.setLength(0);
+                }
+                if (line.length() > 0) {
+                    line.append(' ');
+                }
+                line.append(word);
+            }
+            if (line.length() > 0) {
+                lines.add(line.toString());
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,288 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, compact in-memory form of a BPMN document: the semantic elements in document
+ * order, their diagram shapes and edges, and the overall diagram bounds.
+ *
+ * Only what the renderer, validator, search index and diff need is kept. Built by
+ * {@link BpmnModelReader} and shared through {@link BpmnModelCache}, so each content hash
+ * is parsed once no matter how many features look at it.
+ */
+public final class BpmnModel {
+
+    private final List<Element> elements;
+    private final Map<String, Element> elementsById;
+    private final List<DiagramItem> diagram;
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+    private final long estimatedSize;
+
+    BpmnModel(List<Element> elements, Map<String, Element> elementsById, List<DiagramItem> diagram,
+              double minX, double minY, double maxX, double maxY, long estimatedSize) {
+        this.elements = Collections.unmodifiableList(elements);
+        this.elementsById = Collections.unmodifiableMap(elementsById);
+        this.diagram = Collections.unmodifiableList(diagram);
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.estimatedSize = estimatedSize;
+    }
+
+    /**
+     * Semantic elements with an id, in document order
+     */
+    public List<Element> getElements() {
+        return elements;
+    }
+
+    /**
+     * Element with the given id, or {@link Element#UNKNOWN}
+     */
+    public Element lookup(String id) {
+        Element element = id != null ? elementsById.get(id) : null;
+        return element != null ? element : Element.UNKNOWN;
+    }
+
+    /**
+     * Diagram shapes and edges in document order
+     */
+    public List<DiagramItem> getDiagram() {
+        return diagram;
+    }
+
+    public boolean hasBounds() {
+        return minX <= maxX && minY <= maxY;
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * Rough heap footprint in bytes, used to weigh cache entries
+     */
+    public long getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    /**
+     * A semantic BPMN element. Type is the local element name, e.g. userTask or sequenceFlow.
+     */
+    public static final class Element {
+
+        static final Element UNKNOWN = new Element(null, "", null, null, null, -1, -1);
+
+        private final String id;
+        private final String type;
+        private final String parentId;
+        // Nearest enclosing process or sub-process, null for elements outside any process
+        private final String scopeId;
+        private final String sourceRef;
+        private final int line;
+        private final int column;
+        String name;
+        String targetRef;
+        String defaultFlow;
+        String attachedTo;
+        String eventDefinition;
+        String condition;
+        String documentation;
+        // Id of the innermost lane listing this element
+        String lane;
+        boolean nonInterrupting;
+        boolean triggeredByEvent;
+        boolean forCompensation;
+        boolean instantiate;
+
+        Element(String id, String type, String parentId, String scopeId, String sourceRef, int line, int column) {
+            this.id = id;
+            this.type = type;
+            this.parentId = parentId;
+            this.scopeId = scopeId;
+            this.sourceRef = sourceRef;
+            this.line = line;
+            this.column = column;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getParentId() {
+            return parentId;
+        }
+
+        public String getScopeId() {
+            return scopeId;
+        }
+
+        public String getSourceRef() {
+            return sourceRef;
+        }
+
+        public String getTargetRef() {
+            return targetRef;
+        }
+
+        public String getDefaultFlow() {
+            return defaultFlow;
+        }
+
+        public String getAttachedTo() {
+            return attachedTo;
+        }
+
+        /**
+         * Local name of the first event definition, e.g. timerEventDefinition
+         */
+        public String getEventDefinition() {
+            return eventDefinition;
+        }
+
+        /**
+         * Condition expression text of a sequence flow
+         */
+        public String getCondition() {
+            return condition;
+        }
+
+        public String getDocumentation() {
+            return documentation;
+        }
+
+        /**
+         * Id of the innermost lane that lists this element, or null
+         */
+        public String getLane() {
+            return lane;
+        }
+
+        public boolean isNonInterrupting() {
+            return nonInterrupting;
+        }
+
+        public boolean isTriggeredByEvent() {
+            return triggeredByEvent;
+        }
+
+        public boolean isForCompensation() {
+            return forCompensation;
+        }
+
+        public boolean isInstantiate() {
+            return instantiate;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+    }
+
+    /**
+     * A BPMNDI shape or edge, resolved to the element it shows
+     */
+    public abstract static class DiagramItem {
+
+        private final Element element;
+        private final double[] label;
+
+        DiagramItem(Element element, double[] label) {
+            this.element = element;
+            this.label = label;
+        }
+
+        public Element getElement() {
+            return element;
+        }
+
+        /**
+         * Label bounds as x, y, width, height, or null
+         */
+        public double[] getLabel() {
+            return label;
+        }
+    }
+
+    public static final class Shape extends DiagramItem {
+
+        private final double[] bounds;
+        private final boolean expanded;
+        private final boolean horizontal;
+
+        Shape(Element element, double[] bounds, double[] label, boolean expanded, boolean horizontal) {
+            super(element, label);
+            this.bounds = bounds;
+            this.expanded = expanded;
+            this.horizontal = horizontal;
+        }
+
+        /**
+         * x, y, width, height
+         */
+        public double[] getBounds() {
+            return bounds;
+        }
+
+        public boolean isExpanded() {
+            return expanded;
+        }
+
+        public boolean isHorizontal() {
+            return horizontal;
+        }
+    }
+
+    public static final class Edge extends DiagramItem {
+
+        private final double[] points;
+        private final boolean defaultFlow;
+
+        Edge(Element element, double[] points, double[] label, boolean defaultFlow) {
+            super(element, label);
+            this.points = points;
+            this.defaultFlow = defaultFlow;
+        }
+
+        /**
+         * Waypoints as x0, y0, x1, y1, ...
+         */
+        public double[] getPoints() {
+            return points;
+        }
+
+        public boolean isDefaultFlow() {
+            return defaultFlow;
+        }
+    }
+}
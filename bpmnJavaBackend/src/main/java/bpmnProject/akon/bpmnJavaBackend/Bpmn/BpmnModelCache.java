@@ -0,0 +1,146 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parsed {@link BpmnModel}s by content hash, shared by rendering, validation, search and diff.
+ *
+ * An LRU bounded by the models' estimated heap size rather than by entry count, so a few huge
+ * diagrams cannot crowd out memory while many small ones still fit. Concurrent requests for the
+ * same hash share one parse. Content hashes never change meaning, so entries are only dropped
+ * to reclaim space.
+ */
+@Component
+public class BpmnModelCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, BpmnModel> models = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private final Map<String, CompletableFuture<BpmnModel>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public BpmnModelCache(@Value("${application.bpmn.model-cache.max-bytes:67108864}") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Model for the content, parsing it on a miss. A null hash parses without caching.
+     */
+    public BpmnModel get(String contentHash, BpmnSource source) throws IOException {
+        if (contentHash == null) {
+            return BpmnModelReader.read(source);
+        }
+        BpmnModel cached = peek(contentHash);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<BpmnModel> mine = new CompletableFuture<>();
+        CompletableFuture<BpmnModel> running = inFlight.putIfAbsent(contentHash, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            misses.incrementAndGet();
+            BpmnModel model = BpmnModelReader.read(source);
+            put(contentHash, model);
+            mine.complete(model);
+            return model;
+        } catch (IOException e) {
+            mine.completeExceptionally(new UncheckedIOException(e));
+            throw e;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(contentHash, mine);
+        }
+    }
+
+    /**
+     * Cached model, or null without parsing
+     */
+    public BpmnModel peek(String contentHash) {
+        synchronized (models) {
+            BpmnModel model = models.get(contentHash);
+            if (model != null) {
+                hits.incrementAndGet();
+            }
+            return model;
+        }
+    }
+
+    /**
+     * Store a model built elsewhere, e.g. alongside a validation pass
+     */
+    public void put(String contentHash, BpmnModel model) {
+        long size = model.getEstimatedSize();
+        if (contentHash == null || size > maxBytes / 4) {
+            // A single huge model would evict everything else for little gain
+            return;
+        }
+        synchronized (models) {
+            BpmnModel previous = models.put(contentHash, model);
+            if (previous != null) {
+                bytes -= previous.getEstimatedSize();
+            }
+            bytes += size;
+            Iterator<Map.Entry<String, BpmnModel>> it = models.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, BpmnModel> eldest = it.next();
+                bytes -= eldest.getValue().getEstimatedSize();
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public void invalidate(String contentHash) {
+        if (contentHash == null) {
+            return;
+        }
+        synchronized (models) {
+            BpmnModel removed = models.remove(contentHash);
+            if (removed != null) {
+                bytes -= removed.getEstimatedSize();
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long total = hits.get() + misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hits.get() / total);
+        stats.put("evictions", evictions.get());
+        synchronized (models) {
+            stats.put("entries", models.size());
+            stats.put("bytes", bytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        return stats;
+    }
+}
@@ -0,0 +1,365 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.camunda.bpm.model.bpmn.impl.BpmnModelConstants.*;
+
+/**
+ * Builds a {@link BpmnModel} from StAX events in one pass.
+ *
+ * The reader only observes events, it never pulls them itself, so it can ride along with
+ * another consumer of the same stream (the XSD validator) as well as run on its own via
+ * {@link #read}. Diagram shapes and edges are resolved to their elements once the document
+ * has been read, so DI may come before or after the semantic part.
+ */
+public class BpmnModelReader {
+
+    private static final XMLInputFactory INPUT_FACTORY = newInputFactory();
+
+    private static final Set<String> SCOPES = Set.of(
+            BPMN_ELEMENT_PROCESS, BPMN_ELEMENT_SUB_PROCESS, BPMN_ELEMENT_TRANSACTION, "adHocSubProcess");
+
+    // Per-object overheads used for the size estimate (header, fields, references)
+    private static final int ELEMENT_OVERHEAD = 120;
+    private static final int ITEM_OVERHEAD = 64;
+    private static final int ARRAY_OVERHEAD = 16;
+
+    private final List<BpmnModel.Element> elements = new ArrayList<>();
+    private final Map<String, BpmnModel.Element> elementsById = new HashMap<>();
+    private final Deque<Frame> stack = new ArrayDeque<>();
+    private final Deque<String> scopes = new ArrayDeque<>();
+    private final List<PendingItem> pending = new ArrayList<>();
+    private final Set<String> defaultFlows = new HashSet<>();
+    // flowNodeRef text to lane id, in document order so nested lanes win over their parents
+    private final Map<String, String> laneRefs = new HashMap<>();
+    private final Map<String, String> strings = new HashMap<>();
+
+    private PendingItem item;
+    private boolean inLabel;
+    // Text content being collected for the element that owns it
+    private StringBuilder text;
+    private BpmnModel.Element textOwner;
+    private TextTarget textTarget;
+
+    private double minX = Double.MAX_VALUE;
+    private double minY = Double.MAX_VALUE;
+    private double maxX = -Double.MAX_VALUE;
+    private double maxY = -Double.MAX_VALUE;
+    private long estimatedSize;
+
+    /**
+     * Parse a whole document on its own
+     */
+    public static BpmnModel read(BpmnSource source) throws IOException {
+        BpmnModelReader modelReader = new BpmnModelReader();
+        try (InputStream in = source.open()) {
+            XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    modelReader.accept(reader, reader.next());
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid BPMN XML: " + e.getMessage(), e);
+        }
+        return modelReader.build();
+    }
+
+    /**
+     * Observe the event the reader is positioned on
+     */
+    public void accept(XMLStreamReader reader, int event) {
+        switch (event) {
+            case XMLStreamConstants.START_ELEMENT:
+                startElement(reader);
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                endElement(reader);
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                if (text != null) {
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    public BpmnModel build() {
+        for (Map.Entry<String, String> ref : laneRefs.entrySet()) {
+            BpmnModel.Element element = elementsById.get(ref.getKey());
+            if (element != null) {
+                element.lane = ref.getValue();
+            }
+        }
+        List<BpmnModel.DiagramItem> diagram = new ArrayList<>(pending.size());
+        for (PendingItem p : pending) {
+            BpmnModel.Element element = lookup(p.elementId);
+            if (p.edge) {
+                diagram.add(new BpmnModel.Edge(element, Arrays.copyOf(p.points, p.size), p.label,
+                        p.elementId != null && defaultFlows.contains(p.elementId)));
+            } else if (p.bounds != null) {
+                diagram.add(new BpmnModel.Shape(element, p.bounds, p.label, p.expanded, p.horizontal));
+            }
+        }
+        long size = estimatedSize + 48L * elementsById.size() + 8L * (elements.size() + diagram.size());
+        return new BpmnModel(elements, elementsById, diagram, minX, minY, maxX, maxY, size);
+    }
+
+    private void startElement(XMLStreamReader reader) {
+        String ns = reader.getNamespaceURI();
+        String local = reader.getLocalName();
+        if (BPMN20_NS.equals(ns)) {
+            BpmnModel.Element parent = stack.isEmpty() ? BpmnModel.Element.UNKNOWN : stack.peek().element;
+            if (BPMN_ELEMENT_TEXT.equals(local) && BPMN_ELEMENT_TEXT_ANNOTATION.equals(parent.getType())) {
+                collectText(parent, TextTarget.NAME);
+            } else if (BPMN_ELEMENT_CONDITION_EXPRESSION.equals(local) && parent != BpmnModel.Element.UNKNOWN) {
+                collectText(parent, TextTarget.CONDITION);
+            } else if (BPMN_ELEMENT_DOCUMENTATION.equals(local) && parent != BpmnModel.Element.UNKNOWN
+                    && parent.documentation == null) {
+                collectText(parent, TextTarget.DOCUMENTATION);
+            } else if (BPMN_ELEMENT_FLOW_NODE_REF.equals(local) && BPMN_ELEMENT_LANE.equals(parent.getType())) {
+                collectText(parent, TextTarget.LANE_REF);
+            } else if (local.endsWith("EventDefinition") && parent != BpmnModel.Element.UNKNOWN
+                    && parent.eventDefinition == null) {
+                parent.eventDefinition = intern(local);
+            }
+            BpmnModel.Element element = recordElement(reader, local, parent);
+            stack.push(element != null ? new Frame(element, true) : new Frame(parent, false));
+        } else if (BPMNDI_NS.equals(ns)) {
+            if (BPMNDI_ELEMENT_BPMN_SHAPE.equals(local)) {
+                item = new PendingItem(reader.getAttributeValue(null, "bpmnElement"), false);
+                item.expanded = "true".equals(reader.getAttributeValue(null, "isExpanded"));
+                item.horizontal = !"false".equals(reader.getAttributeValue(null, "isHorizontal"));
+                pending.add(item);
+            } else if (BPMNDI_ELEMENT_BPMN_EDGE.equals(local)) {
+                item = new PendingItem(reader.getAttributeValue(null, "bpmnElement"), true);
+                pending.add(item);
+            } else if (BPMNDI_ELEMENT_BPMN_LABEL.equals(local)) {
+                inLabel = true;
+            }
+        } else if (DC_NS.equals(ns) && DC_ELEMENT_BOUNDS.equals(local)) {
+            double[] bounds = {attr(reader, "x"), attr(reader, "y"), attr(reader, "width"), attr(reader, "height")};
+            include(bounds[0], bounds[1]);
+            include(bounds[0] + bounds[2], bounds[1] + bounds[3]);
+            if (item != null) {
+                if (inLabel) {
+                    item.label = bounds;
+                } else if (!item.edge && item.bounds == null) {
+                    item.bounds = bounds;
+                }
+                estimatedSize += ARRAY_OVERHEAD + 32;
+            }
+        } else if (DI_NS.equals(ns) && DI_ELEMENT_WAYPOINT.equals(local)) {
+            double x = attr(reader, "x");
+            double y = attr(reader, "y");
+            include(x, y);
+            if (item != null && item.edge) {
+                item.add(x, y);
+            }
+        }
+    }
+
+    private void endElement(XMLStreamReader reader) {
+        String ns = reader.getNamespaceURI();
+        if (BPMN20_NS.equals(ns)) {
+            Frame closed = stack.pop();
+            String local = reader.getLocalName();
+            if (text != null && textTarget.closedBy(local)) {
+                String value = text.toString().trim();
+                switch (textTarget) {
+                    case NAME:
+                        // Annotation text is shown where other elements show their name
+                        textOwner.name = value;
+                        break;
+                    case CONDITION:
+                        textOwner.condition = value;
+                        break;
+                    case DOCUMENTATION:
+                        textOwner.documentation = value;
+                        break;
+                    default:
+                        laneRefs.put(value, textOwner.getId());
+                        break;
+                }
+                estimatedSize += 40 + 2L * value.length();
+                text = null;
+                textOwner = null;
+            }
+            if (closed.opened && SCOPES.contains(closed.element.getType())) {
+                scopes.pop();
+            }
+        } else if (BPMNDI_NS.equals(ns)) {
+            String local = reader.getLocalName();
+            if (BPMNDI_ELEMENT_BPMN_LABEL.equals(local)) {
+                inLabel = false;
+            } else if (BPMNDI_ELEMENT_BPMN_SHAPE.equals(local) || BPMNDI_ELEMENT_BPMN_EDGE.equals(local)) {
+                if (item != null) {
+                    estimatedSize += ITEM_OVERHEAD + (item.edge ? ARRAY_OVERHEAD + 8L * item.size : 0);
+                }
+                item = null;
+            }
+        }
+    }
+
+    /**
+     * Collect the text content of the current element for the element that owns it
+     */
+    private void collectText(BpmnModel.Element owner, TextTarget target) {
+        text = new StringBuilder();
+        textOwner = owner;
+        textTarget = target;
+    }
+
+    private BpmnModel.Element recordElement(XMLStreamReader reader, String local, BpmnModel.Element parent) {
+        String id = reader.getAttributeValue(null, "id");
+        if (id == null) {
+            // Not recorded; its children attach to the nearest identified ancestor
+            return null;
+        }
+        Location location = reader.getLocation();
+        BpmnModel.Element element = new BpmnModel.Element(id, intern(local), parent.getId(), scopes.peek(),
+                reader.getAttributeValue(null, BPMN_ATTRIBUTE_SOURCE_REF),
+                location != null ? location.getLineNumber() : -1,
+                location != null ? location.getColumnNumber() : -1);
+        element.name = reader.getAttributeValue(null, "name");
+        element.targetRef = reader.getAttributeValue(null, BPMN_ATTRIBUTE_TARGET_REF);
+        element.defaultFlow = reader.getAttributeValue(null, BPMN_ATTRIBUTE_DEFAULT);
+        element.attachedTo = reader.getAttributeValue(null, BPMN_ATTRIBUTE_ATTACHED_TO_REF);
+        element.nonInterrupting = "false".equals(reader.getAttributeValue(null, "cancelActivity"))
+                || "false".equals(reader.getAttributeValue(null, "isInterrupting"));
+        element.triggeredByEvent = "true".equals(reader.getAttributeValue(null, BPMN_ATTRIBUTE_TRIGGERED_BY_EVENT));
+        element.forCompensation = "true".equals(reader.getAttributeValue(null, BPMN_ATTRIBUTE_IS_FOR_COMPENSATION));
+        element.instantiate = "true".equals(reader.getAttributeValue(null, "instantiate"));
+        if (element.defaultFlow != null) {
+            defaultFlows.add(element.defaultFlow);
+        }
+
+        estimatedSize += ELEMENT_OVERHEAD + sizeOf(id) + sizeOf(element.name) + sizeOf(element.getSourceRef())
+                + sizeOf(element.targetRef) + sizeOf(element.defaultFlow) + sizeOf(element.attachedTo);
+        elements.add(element);
+        elementsById.put(id, element);
+        if (SCOPES.contains(local)) {
+            scopes.push(id);
+        }
+        return element;
+    }
+
+    private BpmnModel.Element lookup(String id) {
+        BpmnModel.Element element = id != null ? elementsById.get(id) : null;
+        return element != null ? element : BpmnModel.Element.UNKNOWN;
+    }
+
+    /**
+     * Element type names repeat across the document; keep one copy of each
+     */
+    private String intern(String value) {
+        return strings.computeIfAbsent(value, v -> v);
+    }
+
+    private void include(double x, double y) {
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+    }
+
+    private static long sizeOf(String value) {
+        return value == null ? 0 : 40 + value.length();
+    }
+
+    private static double attr(XMLStreamReader reader, String name) {
+        String value = reader.getAttributeValue(null, name);
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Where collected text ends up, and which element closes it
+     */
+    private enum TextTarget {
+        NAME(BPMN_ELEMENT_TEXT),
+        CONDITION(BPMN_ELEMENT_CONDITION_EXPRESSION),
+        DOCUMENTATION(BPMN_ELEMENT_DOCUMENTATION),
+        LANE_REF(BPMN_ELEMENT_FLOW_NODE_REF);
+
+        private final String element;
+
+        TextTarget(String element) {
+            this.element = element;
+        }
+
+        boolean closedBy(String local) {
+            return element.equals(local);
+        }
+    }
+
+    private static final class Frame {
+        private final BpmnModel.Element element;
+        // False for elements without an id, which stand in with their nearest identified ancestor
+        private final boolean opened;
+
+        private Frame(BpmnModel.Element element, boolean opened) {
+            this.element = element;
+            this.opened = opened;
+        }
+    }
+
+    private static final class PendingItem {
+        private final String elementId;
+        private final boolean edge;
+        private double[] bounds;
+        private double[] label;
+        private boolean expanded;
+        private boolean horizontal;
+        private double[] points;
+        private int size;
+
+        private PendingItem(String elementId, boolean edge) {
+            this.elementId = elementId;
+            this.edge = edge;
+            this.points = edge ? new double[8] : null;
+        }
+
+        private void add(double x, double y) {
+            if (size + 2 > points.length) {
+                points = Arrays.copyOf(points, points.length * 2);
+            }
+            points[size++] = x;
+            points[size++] = y;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Re-openable source of BPMN XML. Streaming consumers may open it more than once.
+ */
+@FunctionalInterface
+public interface BpmnSource {
+    InputStream open() throws IOException;
+}
@@ -0,0 +1,669 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.xml.ModelException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import javax.xml.transform.stax.StAXSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.camunda.bpm.model.bpmn.impl.BpmnModelConstants.*;
+
+/**
+ * Validates BPMN documents in a single streaming pass.
+ *
+ * The document is read once with StAX. The XSD validator pulls events from the reader, and
+ * a delegate in between records the process structure it sees: flow nodes, sequence flows,
+ * scopes and the position of each element. Schema errors come from the validator; the
+ * structural rules (dangling flows, unreachable nodes, missing start/end events, gateway
+ * fan-in/out, default flows) run over the recorded structure once the pass is over.
+ * Optionally the document is then loaded into the camunda model as well.
+ *
+ * When the parsed model of the content is not cached yet, the same pass builds it and hands
+ * it to the {@link BpmnModelCache}, so a render right after an upload does not parse again.
+ * Reports are cached per content hash, so validating the same content twice is free.
+ */
+@Component
+public class BpmnValidator {
+
+    private static final String SCHEMA_RESOURCE = "org/camunda/bpm/model/bpmn/schema/BPMN20.xsd";
+
+    private static final Set<String> GATEWAYS = Set.of(
+            BPMN_ELEMENT_EXCLUSIVE_GATEWAY, BPMN_ELEMENT_INCLUSIVE_GATEWAY, BPMN_ELEMENT_PARALLEL_GATEWAY,
+            BPMN_ELEMENT_EVENT_BASED_GATEWAY, BPMN_ELEMENT_COMPLEX_GATEWAY);
+
+    private static final Set<String> SCOPES = Set.of(
+            BPMN_ELEMENT_SUB_PROCESS, BPMN_ELEMENT_TRANSACTION, "adHocSubProcess");
+
+    private static final Set<String> FLOW_NODES = Set.of(
+            BPMN_ELEMENT_TASK, BPMN_ELEMENT_USER_TASK, BPMN_ELEMENT_SERVICE_TASK, BPMN_ELEMENT_SCRIPT_TASK,
+            BPMN_ELEMENT_SEND_TASK, BPMN_ELEMENT_RECEIVE_TASK, BPMN_ELEMENT_MANUAL_TASK,
+            BPMN_ELEMENT_BUSINESS_RULE_TASK, BPMN_ELEMENT_CALL_ACTIVITY, BPMN_ELEMENT_SUB_PROCESS,
+            BPMN_ELEMENT_TRANSACTION, "adHocSubProcess",
+            BPMN_ELEMENT_START_EVENT, BPMN_ELEMENT_END_EVENT, BPMN_ELEMENT_INTERMEDIATE_CATCH_EVENT,
+            BPMN_ELEMENT_INTERMEDIATE_THROW_EVENT, BPMN_ELEMENT_BOUNDARY_EVENT,
+            BPMN_ELEMENT_EXCLUSIVE_GATEWAY, BPMN_ELEMENT_INCLUSIVE_GATEWAY, BPMN_ELEMENT_PARALLEL_GATEWAY,
+            BPMN_ELEMENT_EVENT_BASED_GATEWAY, BPMN_ELEMENT_COMPLEX_GATEWAY);
+
+    private final XMLInputFactory inputFactory;
+    private final BpmnModelCache modelCache;
+    private final Schema schema;
+    private final int maxDiagnostics;
+    private final int cacheSize;
+    private final Map<String, ValidationReport> cache;
+
+    public BpmnValidator(BpmnModelCache modelCache,
+                         @Value("${application.validation.schema.enabled:true}") boolean schemaEnabled,
+                         @Value("${application.validation.max-diagnostics:200}") int maxDiagnostics,
+                         @Value("${application.validation.cache.max-entries:1000}") int cacheSize) {
+        this.inputFactory = XMLInputFactory.newFactory();
+        this.inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        this.inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        this.modelCache = modelCache;
+        this.schema = schemaEnabled ? loadSchema() : null;
+        this.maxDiagnostics = maxDiagnostics;
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ValidationReport> eldest) {
+                return size() > BpmnValidator.this.cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Validate the document, or return the cached report for this content hash
+     *
+     * @param contentHash hash of the content, or null to skip the cache
+     * @param fullParse   also load the document into the camunda model when the streaming pass found no errors
+     */
+    public ValidationReport validate(String contentHash, BpmnSource source, boolean fullParse) throws IOException {
+        String key = contentHash != null ? contentHash + (fullParse ? "|full" : "") : null;
+        if (key != null) {
+            synchronized (cache) {
+                ValidationReport cached = cache.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+        }
+
+        Diagnostics diagnostics = new Diagnostics(maxDiagnostics);
+        Structure structure = new Structure();
+        BpmnModelReader modelReader = contentHash != null && modelCache.peek(contentHash) == null
+                ? new BpmnModelReader() : null;
+        boolean completed = streamingPass(source, structure, modelReader, diagnostics);
+        if (completed) {
+            structure.check(diagnostics);
+            if (modelReader != null) {
+                modelCache.put(contentHash, modelReader.build());
+            }
+        }
+        boolean parsed = false;
+        if (fullParse && completed && !diagnostics.hasErrors()) {
+            parsed = true;
+            try (InputStream in = source.open()) {
+                Bpmn.readModelFromStream(in);
+            } catch (ModelException e) {
+                diagnostics.add(ValidationDiagnostic.Severity.ERROR, "MODEL", e.getMessage(), null, -1, -1);
+            }
+        }
+
+        ValidationReport report = diagnostics.toReport(contentHash, parsed);
+        structure.count(report);
+        if (key != null) {
+            synchronized (cache) {
+                cache.put(key, report);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Read the document once, validating it against the schema and recording its structure.
+     * Returns false when the document could not be read to the end.
+     */
+    private boolean streamingPass(BpmnSource source, Structure structure, BpmnModelReader modelReader,
+                                  Diagnostics diagnostics) throws IOException {
+        try (InputStream in = source.open()) {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+            StructureRecorder recorder = new StructureRecorder(reader, structure, modelReader, diagnostics);
+            try {
+                if (schema != null) {
+                    Validator validator = schema.newValidator();
+                    validator.setErrorHandler(new SchemaErrorHandler(diagnostics));
+                    validator.validate(new StAXSource(recorder));
+                } else {
+                    while (recorder.hasNext()) {
+                        recorder.next();
+                    }
+                }
+                return !recorder.rejected;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            addParseError(diagnostics, e);
+            return false;
+        } catch (SAXParseException e) {
+            // Already reported through the error handler
+            return false;
+        } catch (SAXException e) {
+            // The validator wraps reader failures, sometimes more than once
+            Throwable cause = e;
+            while (cause.getCause() != null && !(cause instanceof XMLStreamException) && !(cause instanceof NotBpmnException)) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof XMLStreamException) {
+                addParseError(diagnostics, (XMLStreamException) cause);
+            } else if (!(cause instanceof NotBpmnException)) {
+                diagnostics.add(ValidationDiagnostic.Severity.ERROR, "XML", e.getMessage(), null, -1, -1);
+            }
+            return false;
+        } catch (NotBpmnException e) {
+            return false;
+        }
+    }
+
+    private static void addParseError(Diagnostics diagnostics, XMLStreamException e) {
+        Location location = e.getLocation();
+        String message = e.getMessage();
+        // StAX prefixes the message with the position, which the diagnostic carries separately
+        int index = message != null ? message.indexOf("Message: ") : -1;
+        diagnostics.add(ValidationDiagnostic.Severity.ERROR, "XML", index >= 0 ? message.substring(index + 9) : message, null,
+                location != null ? location.getLineNumber() : -1,
+                location != null ? location.getColumnNumber() : -1);
+    }
+
+    private static Schema loadSchema() {
+        URL resource = BpmnValidator.class.getClassLoader().getResource(SCHEMA_RESOURCE);
+        if (resource == null) {
+            System.err.println("BPMN schema not found on the classpath, schema validation disabled");
+            return null;
+        }
+        try {
+            // Loaded by URL so the schema's relative imports (BPMNDI, DC, DI, Semantic) resolve
+            return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(resource);
+        } catch (SAXException e) {
+            throw new IllegalStateException("Failed to load BPMN schema", e);
+        }
+    }
+
+    // ---------------------------------------------------------------- streaming
+
+    /**
+     * Sits between the StAX reader and whoever pulls events from it, recording what passes by
+     */
+    private static final class StructureRecorder extends StreamReaderDelegate {
+
+        // Stands in for elements that open no flow node or scope
+        private static final Node OTHER = new Node(null, "", -1, -1);
+
+        private final Structure structure;
+        // Builds the shared model from the same events, or null when it is already cached
+        private final BpmnModelReader modelReader;
+        private final Diagnostics diagnostics;
+        // One entry per open element: the node it opened, or OTHER
+        private final Deque<Node> elements = new ArrayDeque<>();
+        private final Deque<Scope> scopes = new ArrayDeque<>();
+        private boolean rootSeen;
+        private boolean rejected;
+
+        StructureRecorder(XMLStreamReader reader, Structure structure, BpmnModelReader modelReader,
+                          Diagnostics diagnostics) {
+            super(reader);
+            this.structure = structure;
+            this.modelReader = modelReader;
+            this.diagnostics = diagnostics;
+        }
+
+        @Override
+        public int next() throws XMLStreamException {
+            int event = super.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                startElement();
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                Node closed = elements.pop();
+                if (closed.scope != null && !scopes.isEmpty() && scopes.peek() == closed.scope) {
+                    scopes.pop();
+                }
+            }
+            if (modelReader != null) {
+                modelReader.accept(this, event);
+            }
+            return event;
+        }
+
+        private void startElement() {
+            String ns = getNamespaceURI();
+            String local = getLocalName();
+            if (!rootSeen) {
+                rootSeen = true;
+                if (!BPMN20_NS.equals(ns) || !BPMN_ELEMENT_DEFINITIONS.equals(local)) {
+                    rejected = true;
+                    diagnostics.add(ValidationDiagnostic.Severity.ERROR, "NOT_BPMN",
+                            "Root element must be definitions in the BPMN 2.0 model namespace", null, line(), column());
+                    throw new NotBpmnException();
+                }
+            }
+            if (!BPMN20_NS.equals(ns)) {
+                elements.push(OTHER);
+                return;
+            }
+
+            Node parent = elements.isEmpty() ? OTHER : elements.peek();
+            if (BPMN_ELEMENT_PROCESS.equals(local)) {
+                Scope scope = structure.addScope(getAttributeValue(null, "id"), true, false, line(), column());
+                scopes.push(scope);
+                Node marker = new Node(null, local, line(), column());
+                marker.scope = scope;
+                elements.push(marker);
+                return;
+            }
+            if (scopes.isEmpty()) {
+                // Collaborations, choreographies and definitions-level elements carry no process flow
+                elements.push(OTHER);
+                return;
+            }
+
+            Scope scope = scopes.peek();
+            if (FLOW_NODES.contains(local)) {
+                Node node = new Node(getAttributeValue(null, "id"), local, line(), column());
+                node.defaultFlow = getAttributeValue(null, BPMN_ATTRIBUTE_DEFAULT);
+                node.attachedTo = getAttributeValue(null, BPMN_ATTRIBUTE_ATTACHED_TO_REF);
+                node.forCompensation = "true".equals(getAttributeValue(null, BPMN_ATTRIBUTE_IS_FOR_COMPENSATION));
+                node.eventSubProcess = "true".equals(getAttributeValue(null, BPMN_ATTRIBUTE_TRIGGERED_BY_EVENT));
+                node.instantiating = "true".equals(getAttributeValue(null, "instantiate"));
+                scope.add(node);
+                structure.index(node, scope);
+                if (SCOPES.contains(local)) {
+                    node.scope = structure.addScope(node.id, false, "adHocSubProcess".equals(local), node.line, node.column);
+                    scopes.push(node.scope);
+                }
+                elements.push(node);
+                return;
+            }
+            if (BPMN_ELEMENT_SEQUENCE_FLOW.equals(local)) {
+                scope.flows.add(new Flow(getAttributeValue(null, "id"), getAttributeValue(null, BPMN_ATTRIBUTE_SOURCE_REF),
+                        getAttributeValue(null, BPMN_ATTRIBUTE_TARGET_REF), scope, line(), column()));
+            } else if (BPMN_ELEMENT_LINK_EVENT_DEFINITION.equals(local) && parent != OTHER) {
+                parent.linkEvent = true;
+            }
+            elements.push(OTHER);
+        }
+
+        private int line() {
+            Location location = getLocation();
+            return location != null ? location.getLineNumber() : -1;
+        }
+
+        private int column() {
+            Location location = getLocation();
+            return location != null ? location.getColumnNumber() : -1;
+        }
+    }
+
+    /**
+     * Stops the pass early when the root element is not a BPMN definitions element
+     */
+    private static final class NotBpmnException extends RuntimeException {
+        NotBpmnException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class SchemaErrorHandler implements ErrorHandler {
+
+        private final Diagnostics diagnostics;
+
+        SchemaErrorHandler(Diagnostics diagnostics) {
+            this.diagnostics = diagnostics;
+        }
+
+        @Override
+        public void warning(SAXParseException e) {
+            add(ValidationDiagnostic.Severity.WARNING, e);
+        }
+
+        @Override
+        public void error(SAXParseException e) {
+            add(ValidationDiagnostic.Severity.ERROR, e);
+        }
+
+        @Override
+        public void fatalError(SAXParseException e) throws SAXException {
+            add(ValidationDiagnostic.Severity.ERROR, e);
+            throw e;
+        }
+
+        private void add(ValidationDiagnostic.Severity severity, SAXParseException e) {
+            diagnostics.add(severity, "SCHEMA", e.getMessage(), null, e.getLineNumber(), e.getColumnNumber());
+        }
+    }
+
+    // ---------------------------------------------------------------- structure
+
+    private static final class Node {
+        private final String id;
+        private final String type;
+        private final int line;
+        private final int column;
+        private String defaultFlow;
+        private String attachedTo;
+        private boolean forCompensation;
+        private boolean eventSubProcess;
+        private boolean instantiating;
+        private boolean linkEvent;
+        // The scope this node opens, for processes and sub-processes
+        private Scope scope;
+        private final List<Flow> incoming = new ArrayList<>(2);
+        private final List<Flow> outgoing = new ArrayList<>(2);
+
+        Node(String id, String type, int line, int column) {
+            this.id = id;
+            this.type = type;
+            this.line = line;
+            this.column = column;
+        }
+    }
+
+    private static final class Flow {
+        private final String id;
+        private final String sourceRef;
+        private final String targetRef;
+        private final Scope scope;
+        private final int line;
+        private final int column;
+
+        Flow(String id, String sourceRef, String targetRef, Scope scope, int line, int column) {
+            this.id = id;
+            this.sourceRef = sourceRef;
+            this.targetRef = targetRef;
+            this.scope = scope;
+            this.line = line;
+            this.column = column;
+        }
+    }
+
+    private static final class Scope {
+        private final String id;
+        private final boolean process;
+        private final boolean adHoc;
+        private final int line;
+        private final int column;
+        private final List<Node> nodes = new ArrayList<>();
+        private final List<Flow> flows = new ArrayList<>();
+
+        Scope(String id, boolean process, boolean adHoc, int line, int column) {
+            this.id = id;
+            this.process = process;
+            this.adHoc = adHoc;
+            this.line = line;
+            this.column = column;
+        }
+
+        void add(Node node) {
+            nodes.add(node);
+        }
+    }
+
+    /**
+     * Everything the structural rules need, recorded during the streaming pass
+     */
+    private static final class Structure {
+
+        private final List<Scope> scopes = new ArrayList<>();
+        private final Map<String, Node> nodes = new HashMap<>();
+        private final Map<String, Scope> scopeOf = new HashMap<>();
+
+        Scope addScope(String id, boolean process, boolean adHoc, int line, int column) {
+            Scope scope = new Scope(id, process, adHoc, line, column);
+            scopes.add(scope);
+            return scope;
+        }
+
+        void index(Node node, Scope scope) {
+            if (node.id != null) {
+                nodes.put(node.id, node);
+                scopeOf.put(node.id, scope);
+            }
+        }
+
+        void count(ValidationReport report) {
+            int processes = 0;
+            int flows = 0;
+            for (Scope scope : scopes) {
+                processes += scope.process ? 1 : 0;
+                flows += scope.flows.size();
+            }
+            report.setProcessCount(processes);
+            report.setFlowNodeCount(nodes.size());
+            report.setSequenceFlowCount(flows);
+        }
+
+        void check(Diagnostics diagnostics) {
+            boolean anyProcess = false;
+            for (Scope scope : scopes) {
+                anyProcess |= scope.process;
+                linkFlows(scope, diagnostics);
+            }
+            if (!anyProcess) {
+                diagnostics.add(ValidationDiagnostic.Severity.WARNING, "NO_PROCESS",
+                        "No process definition found", null, -1, -1);
+            }
+            for (Scope scope : scopes) {
+                checkEvents(scope, diagnostics);
+                checkGateways(scope, diagnostics);
+                checkReachability(scope, diagnostics);
+            }
+        }
+
+        private void linkFlows(Scope scope, Diagnostics diagnostics) {
+            for (Flow flow : scope.flows) {
+                Node source = flow.sourceRef != null ? nodes.get(flow.sourceRef) : null;
+                Node target = flow.targetRef != null ? nodes.get(flow.targetRef) : null;
+                if (source == null || target == null) {
+                    String missing = source == null ? "source '" + flow.sourceRef + "'" : "target '" + flow.targetRef + "'";
+                    diagnostics.add(ValidationDiagnostic.Severity.ERROR, "DANGLING_SEQUENCE_FLOW",
+                            "Sequence flow '" + flow.id + "' references unknown " + missing, flow.id, flow.line, flow.column);
+                    continue;
+                }
+                if (scopeOf.get(source.id) != flow.scope || scopeOf.get(target.id) != flow.scope) {
+                    diagnostics.add(ValidationDiagnostic.Severity.ERROR, "SEQUENCE_FLOW_CROSSES_SCOPE",
+                            "Sequence flow '" + flow.id + "' connects elements outside its own process or sub-process",
+                            flow.id, flow.line, flow.column);
+                    continue;
+                }
+                source.outgoing.add(flow);
+                target.incoming.add(flow);
+            }
+        }
+
+        private void checkEvents(Scope scope, Diagnostics diagnostics) {
+            boolean hasStart = false;
+            boolean hasEnd = false;
+            for (Node node : scope.nodes) {
+                if (BPMN_ELEMENT_START_EVENT.equals(node.type)) {
+                    hasStart = true;
+                    if (!node.incoming.isEmpty()) {
+                        diagnostics.add(ValidationDiagnostic.Severity.ERROR, "START_EVENT_HAS_INCOMING",
+                                "Start event '" + node.id + "' has an incoming sequence flow", node.id, node.line, node.column);
+                    }
+                } else if (BPMN_ELEMENT_END_EVENT.equals(node.type)) {
+                    hasEnd = true;
+                    if (!node.outgoing.isEmpty()) {
+                        diagnostics.add(ValidationDiagnostic.Severity.ERROR, "END_EVENT_HAS_OUTGOING",
+                                "End event '" + node.id + "' has an outgoing sequence flow", node.id, node.line, node.column);
+                    }
+                }
+                if (node.defaultFlow != null && node.outgoing.stream().noneMatch(flow -> node.defaultFlow.equals(flow.id))) {
+                    diagnostics.add(ValidationDiagnostic.Severity.ERROR, "INVALID_DEFAULT_FLOW",
+                            "Default flow '" + node.defaultFlow + "' of '" + node.id + "' is not one of its outgoing sequence flows",
+                            node.id, node.line, node.column);
+                }
+            }
+            // Sub-processes may start and end implicitly; processes are expected to be explicit
+            if (!scope.process || scope.nodes.isEmpty()) {
+                return;
+            }
+            if (!hasStart) {
+                diagnostics.add(ValidationDiagnostic.Severity.WARNING, "MISSING_START_EVENT",
+                        "Process '" + scope.id + "' has no start event", scope.id, scope.line, scope.column);
+            }
+            if (!hasEnd) {
+                diagnostics.add(ValidationDiagnostic.Severity.WARNING, "MISSING_END_EVENT",
+                        "Process '" + scope.id + "' has no end event", scope.id, scope.line, scope.column);
+            }
+        }
+
+        private void checkGateways(Scope scope, Diagnostics diagnostics) {
+            for (Node node : scope.nodes) {
+                if (!GATEWAYS.contains(node.type)) {
+                    continue;
+                }
+                int in = node.incoming.size();
+                int out = node.outgoing.size();
+                if ((in == 0 && !node.instantiating) || out == 0) {
+                    diagnostics.add(ValidationDiagnostic.Severity.ERROR, "GATEWAY_DISCONNECTED",
+                            "Gateway '" + node.id + "' has " + in + " incoming and " + out + " outgoing sequence flows",
+                            node.id, node.line, node.column);
+                } else if (BPMN_ELEMENT_EVENT_BASED_GATEWAY.equals(node.type) && out < 2) {
+                    diagnostics.add(ValidationDiagnostic.Severity.ERROR, "GATEWAY_FAN_OUT",
+                            "Event-based gateway '" + node.id + "' needs at least two outgoing sequence flows",
+                            node.id, node.line, node.column);
+                } else if (in <= 1 && out <= 1) {
+                    diagnostics.add(ValidationDiagnostic.Severity.WARNING, "GATEWAY_PASS_THROUGH",
+                            "Gateway '" + node.id + "' neither splits nor joins the flow", node.id, node.line, node.column);
+                }
+            }
+        }
+
+        /**
+         * Walk the sequence flows from every way a scope can be entered and report nodes never reached
+         */
+        private void checkReachability(Scope scope, Diagnostics diagnostics) {
+            if (scope.adHoc) {
+                // Activities of an ad-hoc sub-process run in any order, unconnected
+                return;
+            }
+            boolean hasStart = scope.nodes.stream().anyMatch(node -> BPMN_ELEMENT_START_EVENT.equals(node.type));
+            Map<String, List<Node>> boundaryEvents = new HashMap<>();
+            Deque<Node> queue = new ArrayDeque<>();
+            for (Node node : scope.nodes) {
+                if (node.attachedTo != null) {
+                    boundaryEvents.computeIfAbsent(node.attachedTo, host -> new ArrayList<>()).add(node);
+                } else if (BPMN_ELEMENT_START_EVENT.equals(node.type) || node.eventSubProcess || node.linkEvent
+                        || node.instantiating || (!hasStart && node.incoming.isEmpty() && !node.forCompensation)) {
+                    queue.add(node);
+                }
+            }
+
+            Set<Node> reached = Collections.newSetFromMap(new IdentityHashMap<>());
+            while (!queue.isEmpty()) {
+                Node node = queue.poll();
+                if (!reached.add(node)) {
+                    continue;
+                }
+                for (Flow flow : node.outgoing) {
+                    queue.add(nodes.get(flow.targetRef));
+                }
+                if (node.id != null) {
+                    queue.addAll(boundaryEvents.getOrDefault(node.id, List.of()));
+                }
+            }
+
+            for (Node node : scope.nodes) {
+                if (!reached.contains(node) && !node.forCompensation) {
+                    diagnostics.add(ValidationDiagnostic.Severity.WARNING, "UNREACHABLE_NODE",
+                            "'" + (node.id != null ? node.id : node.type) + "' can never be reached from a start event",
+                            node.id, node.line, node.column);
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects findings up to a limit, counting errors separately so validity survives truncation
+     */
+    private static final class Diagnostics {
+
+        private final int limit;
+        private final List<ValidationDiagnostic> items = new ArrayList<>();
+        private int errorCount;
+        private int warningCount;
+        private boolean truncated;
+
+        Diagnostics(int limit) {
+            this.limit = limit;
+        }
+
+        void add(ValidationDiagnostic.Severity severity, String code, String message, String elementId, int line, int column) {
+            if (severity == ValidationDiagnostic.Severity.ERROR) {
+                errorCount++;
+            } else {
+                warningCount++;
+            }
+            if (items.size() >= limit) {
+                truncated = true;
+                return;
+            }
+            items.add(new ValidationDiagnostic(severity, code, message, elementId, line, column));
+        }
+
+        boolean hasErrors() {
+            return errorCount > 0;
+        }
+
+        ValidationReport toReport(String contentHash, boolean fullParse) {
+            List<String> errors = new ArrayList<>();
+            List<String> warnings = new ArrayList<>();
+            for (ValidationDiagnostic diagnostic : items) {
+                String text = diagnostic.getLine() > 0
+                        ? "Line " + diagnostic.getLine() + ", column " + diagnostic.getColumn() + ": " + diagnostic.getMessage()
+                        : diagnostic.getMessage();
+                if (diagnostic.getSeverity() == ValidationDiagnostic.Severity.ERROR) {
+                    errors.add(text);
+                } else {
+                    warnings.add(text);
+                }
+            }
+            return ValidationReport.builder()
+                    .valid(errorCount == 0)
+                    .contentHash(contentHash)
+                    .fullParse(fullParse)
+                    .errorCount(errorCount)
+                    .warningCount(warningCount)
+                    .errors(Collections.unmodifiableList(errors))
+                    .warnings(Collections.unmodifiableList(warnings))
+                    .diagnostics(Collections.unmodifiableList(items))
+                    .truncated(truncated)
+                    .build();
+        }
+    }
+}
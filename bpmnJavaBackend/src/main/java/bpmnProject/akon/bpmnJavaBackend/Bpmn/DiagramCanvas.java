@@ -0,0 +1,34 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+import java.util.List;
+
+/**
+ * Drawing surface the diagram renderer emits primitives to. Implementations write a
+ * concrete format (SVG, PDF) as the primitives arrive, so nothing is buffered per diagram.
+ * Coordinates are BPMN DI coordinates; the canvas maps the viewport given to {@link #begin}.
+ */
+public interface DiagramCanvas {
+
+    void begin(double minX, double minY, double width, double height);
+
+    void rect(double x, double y, double width, double height, double cornerRadius, DiagramStyle style);
+
+    void ellipse(double cx, double cy, double rx, double ry, DiagramStyle style);
+
+    /**
+     * Closed shape through the given x,y pairs
+     */
+    void polygon(double[] points, DiagramStyle style);
+
+    /**
+     * Open line through the given x,y pairs; never filled, whatever the style says
+     */
+    void polyline(double[] points, DiagramStyle style);
+
+    /**
+     * Lines of text centered on (cx, cy); vertical text is rotated 90 degrees counter-clockwise
+     */
+    void text(List<String> lines, double cx, double cy, double fontSize, boolean vertical);
+
+    void end();
+}
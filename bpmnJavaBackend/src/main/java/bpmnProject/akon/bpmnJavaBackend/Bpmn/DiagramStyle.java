@@ -0,0 +1,38 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+/**
+ * Stroke and fill of a drawn primitive. Colors are CSS hex strings; a null fill means none.
+ */
+public final class DiagramStyle {
+
+    public static final DiagramStyle SHAPE = new DiagramStyle("#000000", "#ffffff", 2, null);
+    public static final DiagramStyle CONTAINER = new DiagramStyle("#000000", "#ffffff", 1.5, null);
+    public static final DiagramStyle THIN = new DiagramStyle("#000000", "#ffffff", 1, null);
+    public static final DiagramStyle THICK = new DiagramStyle("#000000", "#ffffff", 4, null);
+    public static final DiagramStyle DASHED_SHAPE = new DiagramStyle("#000000", "#ffffff", 1.5, new double[]{6, 4});
+    public static final DiagramStyle DOTTED_SHAPE = new DiagramStyle("#000000", "#ffffff", 1.5, new double[]{2, 3});
+    public static final DiagramStyle GROUP = new DiagramStyle("#000000", null, 1.5, new double[]{10, 4, 2, 4});
+    public static final DiagramStyle OUTLINE = new DiagramStyle("#000000", null, 1.5, null);
+    public static final DiagramStyle MARKER = new DiagramStyle("#000000", "#000000", 1, null);
+    public static final DiagramStyle INVERSE_MARKER = new DiagramStyle("#ffffff", null, 1, null);
+    public static final DiagramStyle FLOW = new DiagramStyle("#000000", null, 1.5, null);
+    public static final DiagramStyle MESSAGE_FLOW = new DiagramStyle("#000000", null, 1.5, new double[]{10, 6});
+    public static final DiagramStyle ASSOCIATION = new DiagramStyle("#000000", null, 1, new double[]{2, 4});
+
+    private final String stroke;
+    private final String fill;
+    private final double strokeWidth;
+    private final double[] dashArray;
+
+    public DiagramStyle(String stroke, String fill, double strokeWidth, double[] dashArray) {
+        this.stroke = stroke;
+        this.fill = fill;
+        this.strokeWidth = strokeWidth;
+        this.dashArray = dashArray;
+    }
+
+    public String getStroke() { return stroke; }
+    public String getFill() { return fill; }
+    public double getStrokeWidth() { return strokeWidth; }
+    public double[] getDashArray() { return dashArray; }
+}
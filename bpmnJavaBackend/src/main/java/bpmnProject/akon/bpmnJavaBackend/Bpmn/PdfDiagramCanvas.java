@@ -0,0 +1,179 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+
+import java.util.List;
+
+/**
+ * Draws diagram primitives as PDF vector graphics into a form XObject.
+ *
+ * The diagram is drawn once and the XObject can then be placed on a single page or on
+ * several tiles without repeating the drawing operators. Diagram coordinates are y-down,
+ * PDF is y-up, so every y is flipped against the diagram height.
+ */
+public class PdfDiagramCanvas implements DiagramCanvas {
+
+    private final PdfDocument pdfDocument;
+    private final PdfFont font;
+
+    private PdfFormXObject xObject;
+    private PdfCanvas canvas;
+    private double minX;
+    private double minY;
+    private double width;
+    private double height;
+
+    public PdfDiagramCanvas(PdfDocument pdfDocument, PdfFont font) {
+        this.pdfDocument = pdfDocument;
+        this.font = font;
+    }
+
+    @Override
+    public void begin(double minX, double minY, double width, double height) {
+        this.minX = minX;
+        this.minY = minY;
+        this.width = width;
+        this.height = height;
+        this.xObject = new PdfFormXObject(new Rectangle(0, 0, (float) width, (float) height));
+        this.canvas = new PdfCanvas(xObject, pdfDocument);
+    }
+
+    @Override
+    public void rect(double x, double y, double w, double h, double cornerRadius, DiagramStyle style) {
+        canvas.saveState();
+        applyStyle(style);
+        if (cornerRadius > 0) {
+            canvas.roundRectangle(px(x), py(y) - h, w, h, cornerRadius);
+        } else {
+            canvas.rectangle(px(x), py(y) - h, w, h);
+        }
+        paint(style, true);
+        canvas.restoreState();
+    }
+
+    @Override
+    public void ellipse(double cx, double cy, double rx, double ry, DiagramStyle style) {
+        canvas.saveState();
+        applyStyle(style);
+        canvas.ellipse(px(cx - rx), py(cy + ry), px(cx + rx), py(cy - ry));
+        paint(style, true);
+        canvas.restoreState();
+    }
+
+    @Override
+    public void polygon(double[] points, DiagramStyle style) {
+        drawPath(points, style, true);
+    }
+
+    @Override
+    public void polyline(double[] points, DiagramStyle style) {
+        drawPath(points, style, false);
+    }
+
+    @Override
+    public void text(List<String> lines, double cx, double cy, double fontSize, boolean vertical) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        double lineHeight = fontSize * 1.2;
+        double centerX = px(cx);
+        double centerY = py(cy);
+        // Text direction and up vectors; vertical labels read bottom to top
+        double ux = vertical ? 0 : 1;
+        double uy = vertical ? 1 : 0;
+        double vx = vertical ? -1 : 0;
+        double vy = vertical ? 0 : 1;
+
+        canvas.saveState();
+        canvas.setFillColor(new DeviceRgb(0, 0, 0));
+        canvas.beginText();
+        canvas.setFontAndSize(font, (float) fontSize);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            double lineWidth = font.getWidth(line, (float) fontSize);
+            // Same baseline placement as the SVG canvas, measured down from the center
+            double down = -(lines.size() - 1) * lineHeight / 2 + fontSize * 0.35 + i * lineHeight;
+            double startX = centerX - lineWidth / 2 * ux - down * vx;
+            double startY = centerY - lineWidth / 2 * uy - down * vy;
+            canvas.setTextMatrix((float) ux, (float) uy, (float) vx, (float) vy, (float) startX, (float) startY);
+            canvas.showText(line);
+        }
+        canvas.endText();
+        canvas.restoreState();
+    }
+
+    @Override
+    public void end() {
+        canvas.release();
+    }
+
+    public PdfFormXObject getXObject() {
+        return xObject;
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    private void drawPath(double[] points, DiagramStyle style, boolean closed) {
+        if (points.length < 4) {
+            return;
+        }
+        canvas.saveState();
+        applyStyle(style);
+        canvas.moveTo(px(points[0]), py(points[1]));
+        for (int i = 2; i + 1 < points.length; i += 2) {
+            canvas.lineTo(px(points[i]), py(points[i + 1]));
+        }
+        if (closed) {
+            canvas.closePath();
+        }
+        paint(style, closed);
+        canvas.restoreState();
+    }
+
+    private void applyStyle(DiagramStyle style) {
+        canvas.setStrokeColor(color(style.getStroke()));
+        canvas.setLineWidth((float) style.getStrokeWidth());
+        if (style.getFill() != null) {
+            canvas.setFillColor(color(style.getFill()));
+        }
+        if (style.getDashArray() != null) {
+            float[] dash = new float[style.getDashArray().length];
+            for (int i = 0; i < dash.length; i++) {
+                dash[i] = (float) style.getDashArray()[i];
+            }
+            canvas.setLineDash(dash, 0);
+        }
+    }
+
+    private void paint(DiagramStyle style, boolean fillable) {
+        if (fillable && style.getFill() != null) {
+            canvas.fillStroke();
+        } else {
+            canvas.stroke();
+        }
+    }
+
+    private double px(double x) {
+        return x - minX;
+    }
+
+    private double py(double y) {
+        return height - (y - minY);
+    }
+
+    private static DeviceRgb color(String hex) {
+        int rgb = Integer.parseInt(hex.substring(1), 16);
+        return new DeviceRgb((rgb >> 16) & 0xff, (rgb >> 8) & 0xff, rgb & 0xff);
+    }
+}
@@ -0,0 +1,197 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfDocumentInfo;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes a diagram as a vector PDF straight to an output stream.
+ *
+ * The diagram is drawn once into a form XObject and then placed either on a single page
+ * sized to the diagram ({@link Layout#AUTO}) or across fixed-size tiles ({@link Layout#TILED})
+ * for printing. Pages are flushed as soon as they are laid out, so the document never has to
+ * be held in memory as a whole.
+ */
+@Component
+public class PdfDiagramWriter {
+
+    public enum Layout {
+        AUTO, TILED;
+
+        public static Layout parse(String value, Layout fallback) {
+            if (value == null || value.isBlank()) {
+                return fallback;
+            }
+            return Layout.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /** Largest page side allowed by PDF viewers (200 inches) */
+    private static final float MAX_PAGE_SIDE = 14400;
+    private static final float HEADER_HEIGHT = 18;
+    private static final float HEADER_FONT_SIZE = 9;
+
+    private final BpmnDiagramRenderer diagramRenderer;
+    private final float margin;
+    private final PageSize tileSize;
+    private final String fontPath;
+
+    public PdfDiagramWriter(BpmnDiagramRenderer diagramRenderer,
+                            @Value("${application.render.pdf.margin:24}") float margin,
+                            @Value("${application.render.pdf.tile-size:A4}") String tileSize,
+                            @Value("${application.render.pdf.font:}") String fontPath) {
+        this.diagramRenderer = diagramRenderer;
+        this.margin = margin;
+        this.tileSize = pageSize(tileSize).rotate();
+        this.fontPath = fontPath;
+    }
+
+    public void write(BpmnModel model, String title, Map<String, Object> metadata, Layout layout,
+                      OutputStream out) throws IOException {
+        PdfWriter writer = new PdfWriter(new BufferedOutputStream(out, 64 * 1024),
+                new WriterProperties().setFullCompressionMode(true));
+        PdfDocument pdf = new PdfDocument(writer);
+        try {
+            writeInfo(pdf.getDocumentInfo(), title, metadata);
+            PdfFont font = createFont(pdf);
+
+            PdfDiagramCanvas canvas = new PdfDiagramCanvas(pdf, font);
+            diagramRenderer.render(model, canvas);
+
+            if (layout == Layout.TILED) {
+                layoutTiles(pdf, canvas, font, title);
+            } else {
+                layoutSinglePage(pdf, canvas, font, title);
+            }
+            canvas.getXObject().flush();
+        } finally {
+            pdf.close();
+        }
+    }
+
+    private void layoutSinglePage(PdfDocument pdf, PdfDiagramCanvas canvas, PdfFont font, String title) {
+        float width = (float) canvas.getWidth();
+        float height = (float) canvas.getHeight();
+        float pageWidth = width + 2 * margin;
+        float pageHeight = height + 2 * margin + HEADER_HEIGHT;
+
+        // Oversized diagrams are scaled down to the largest page viewers accept
+        float scale = Math.min(1, Math.min(MAX_PAGE_SIDE / pageWidth, MAX_PAGE_SIDE / pageHeight));
+        pageWidth = width * scale + 2 * margin;
+        pageHeight = height * scale + 2 * margin + HEADER_HEIGHT;
+
+        PdfPage page = pdf.addNewPage(new PageSize(pageWidth, pageHeight));
+        PdfCanvas pageCanvas = new PdfCanvas(page);
+        header(pageCanvas, font, title, margin, pageHeight - margin - HEADER_FONT_SIZE);
+        pageCanvas.addXObjectWithTransformationMatrix(canvas.getXObject(), scale, 0, 0, scale, margin, margin);
+        pageCanvas.release();
+        page.flush();
+    }
+
+    private void layoutTiles(PdfDocument pdf, PdfDiagramCanvas canvas, PdfFont font, String title) {
+        float width = (float) canvas.getWidth();
+        float height = (float) canvas.getHeight();
+        float contentWidth = tileSize.getWidth() - 2 * margin;
+        float contentHeight = tileSize.getHeight() - 2 * margin - HEADER_HEIGHT;
+        int columns = Math.max(1, (int) Math.ceil(width / contentWidth));
+        int rows = Math.max(1, (int) Math.ceil(height / contentHeight));
+        PdfFormXObject diagram = canvas.getXObject();
+
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                PdfPage page = pdf.addNewPage(tileSize);
+                PdfCanvas pageCanvas = new PdfCanvas(page);
+                String label = title + "  —  tile " + (row * columns + column + 1) + " of " + (rows * columns)
+                        + " (row " + (row + 1) + ", column " + (column + 1) + ")";
+                header(pageCanvas, font, label, margin, tileSize.getHeight() - margin - HEADER_FONT_SIZE);
+
+                pageCanvas.saveState();
+                pageCanvas.rectangle(margin, margin, contentWidth, contentHeight).clip().endPath();
+                // Shift the diagram so the (row, column) window lands in the content box;
+                // rows count from the top of the diagram, PDF y from the bottom
+                float offsetX = margin - column * contentWidth;
+                float offsetY = margin + contentHeight - (height - row * contentHeight);
+                pageCanvas.addXObjectWithTransformationMatrix(diagram, 1, 0, 0, 1, offsetX, offsetY);
+                pageCanvas.restoreState();
+                pageCanvas.release();
+                page.flush();
+            }
+        }
+    }
+
+    private static void header(PdfCanvas canvas, PdfFont font, String text, float x, float y) {
+        canvas.beginText()
+                .setFontAndSize(font, HEADER_FONT_SIZE)
+                .moveText(x, y)
+                .showText(text)
+                .endText();
+    }
+
+    private static void writeInfo(PdfDocumentInfo info, String title, Map<String, Object> metadata) {
+        info.setTitle(title);
+        info.setCreator("bpmnJavaBackend");
+        info.addCreationDate();
+        metadata.forEach((key, value) -> {
+            if (value == null) {
+                return;
+            }
+            String text = value.toString();
+            switch (key.toLowerCase(Locale.ROOT)) {
+                case "title":
+                    info.setTitle(text);
+                    break;
+                case "author":
+                    info.setAuthor(text);
+                    break;
+                case "subject":
+                    info.setSubject(text);
+                    break;
+                case "keywords":
+                    info.setKeywords(text);
+                    break;
+                default:
+                    info.setMoreInfo(key, text);
+            }
+        });
+    }
+
+    /**
+     * Embedded TrueType font when configured (needed for non-Latin labels), Helvetica otherwise
+     */
+    private PdfFont createFont(PdfDocument pdf) throws IOException {
+        if (fontPath == null || fontPath.isBlank()) {
+            return PdfFontFactory.createFont(StandardFonts.HELVETICA);
+        }
+        return PdfFontFactory.createFont(fontPath, PdfEncodings.IDENTITY_H,
+                PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED, pdf);
+    }
+
+    private static PageSize pageSize(String name) {
+        switch (name.trim().toUpperCase(Locale.ROOT)) {
+            case "A3":
+                return PageSize.A3;
+            case "LETTER":
+                return PageSize.LETTER;
+            case "A4":
+            default:
+                return PageSize.A4;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.batik.transcoder.TranscoderException;
+import org.apache.batik.transcoder.TranscoderInput;
+import org.apache.batik.transcoder.TranscoderOutput;
+import org.apache.batik.transcoder.image.PNGTranscoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns rendered diagram SVG into PNG with Batik.
+ *
+ * Transcoding is CPU heavy, so it runs on a small fixed pool with a bounded queue instead of
+ * on request threads. When the queue is full {@link java.util.concurrent.RejectedExecutionException}
+ * is thrown straight away so callers can answer 503 rather than pile up.
+ */
+@Component
+public class PngRasterizer {
+
+    /** SVG user units are CSS pixels, 96 per inch */
+    private static final float CSS_DPI = 96f;
+
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final long maxPixels;
+
+    public PngRasterizer(@Value("${application.render.raster.threads:2}") int threads,
+                         @Value("${application.render.raster.queue-capacity:32}") int queueCapacity,
+                         @Value("${application.render.raster.timeout:30000}") long timeoutMillis,
+                         @Value("${application.render.raster.max-pixels:40000000}") long maxPixels) {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "png-raster-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMillis = timeoutMillis;
+        this.maxPixels = maxPixels;
+    }
+
+    /**
+     * Rasterize at the given resolution, scaled down if it would exceed the pixel budget
+     */
+    public byte[] rasterize(byte[] svg, float dpi) {
+        float[] size = svgSize(svg);
+        float scale = dpi / CSS_DPI;
+        return transcode(svg, size[0] * scale, size[1] * scale);
+    }
+
+    /**
+     * Rasterize to fit inside a width x height box, keeping the aspect ratio
+     */
+    public byte[] thumbnail(byte[] svg, int maxWidth, int maxHeight) {
+        float[] size = svgSize(svg);
+        float scale = Math.min(maxWidth / size[0], maxHeight / size[1]);
+        return transcode(svg, size[0] * scale, size[1] * scale);
+    }
+
+    private byte[] transcode(byte[] svg, float width, float height) {
+        double pixels = (double) width * height;
+        if (pixels > maxPixels) {
+            double shrink = Math.sqrt(maxPixels / pixels);
+            width = (float) (width * shrink);
+            height = (float) (height * shrink);
+        }
+        float targetWidth = Math.max(1, Math.round(width));
+        float targetHeight = Math.max(1, Math.round(height));
+
+        Future<byte[]> task = executor.submit(() -> {
+            PNGTranscoder transcoder = new PNGTranscoder();
+            transcoder.addTranscodingHint(PNGTranscoder.KEY_WIDTH, targetWidth);
+            transcoder.addTranscodingHint(PNGTranscoder.KEY_HEIGHT, targetHeight);
+            transcoder.addTranscodingHint(PNGTranscoder.KEY_BACKGROUND_COLOR, Color.WHITE);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            transcoder.transcode(new TranscoderInput(new ByteArrayInputStream(svg)), new TranscoderOutput(out));
+            return out.toByteArray();
+        });
+
+        try {
+            return task.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            task.cancel(true);
+            throw new RuntimeException("PNG rasterization timed out after " + timeoutMillis + " ms", e);
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("PNG rasterization interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof TranscoderException ? e.getCause() : e;
+            throw new RuntimeException("PNG rasterization failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Width and height attributes of the root svg element, in user units
+     */
+    private static float[] svgSize(byte[] svg) {
+        try {
+            XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(svg));
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                        float width = parseLength(reader.getAttributeValue(null, "width"));
+                        float height = parseLength(reader.getAttributeValue(null, "height"));
+                        return new float[]{width, height};
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Invalid SVG: " + e.getMessage(), e);
+        }
+        throw new IllegalArgumentException("Empty SVG document");
+    }
+
+    private static float parseLength(String value) {
+        if (value == null) {
+            return 400;
+        }
+        try {
+            float length = Float.parseFloat(value.replace("px", "").trim());
+            return length > 0 ? length : 400;
+        } catch (NumberFormatException e) {
+            return 400;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
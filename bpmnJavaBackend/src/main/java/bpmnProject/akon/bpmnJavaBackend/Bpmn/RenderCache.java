@@ -0,0 +1,506 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Two-tier cache of rendered exports (SVG, PDF, PNG, previews).
+ *
+ * The memory tier is an LRU bounded by total bytes. The disk tier keeps every artifact under
+ * {@code root/ab/<content hash>/} so all renderings of a content hash can be dropped with one
+ * directory delete, and is trimmed back to its byte budget by a periodic sweep. Concurrent
+ * requests for the same key share one render.
+ *
+ * Keys include the content hash, so changed content never hits a stale entry; {@link #invalidate}
+ * only reclaims space once a hash is no longer referenced.
+ */
+@Component
+public class RenderCache {
+
+    private final long memoryMaxBytes;
+    private final boolean diskEnabled;
+    private final Path diskRoot;
+    private final long diskMaxBytes;
+    private final long captureMaxBytes;
+
+    private final LinkedHashMap<RenderKey, byte[]> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes;
+    private final Map<RenderKey, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong memoryEvictions = new AtomicLong();
+    private final AtomicLong diskEvictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public RenderCache(@Value("${application.render-cache.memory.max-bytes:67108864}") long memoryMaxBytes,
+                       @Value("${application.render-cache.disk.enabled:true}") boolean diskEnabled,
+                       @Value("${application.render-cache.disk.root:data/render-cache}") String diskRoot,
+                       @Value("${application.render-cache.disk.max-bytes:1073741824}") long diskMaxBytes,
+                       @Value("${application.render-cache.capture-max-bytes:33554432}") long captureMaxBytes) {
+        this.memoryMaxBytes = memoryMaxBytes;
+        this.diskEnabled = diskEnabled;
+        this.diskRoot = Paths.get(diskRoot).toAbsolutePath().normalize();
+        this.diskMaxBytes = diskMaxBytes;
+        this.captureMaxBytes = captureMaxBytes;
+    }
+
+    /**
+     * Cached artifact for the key, rendering and storing it on a miss
+     */
+    public byte[] get(RenderKey key, Supplier<byte[]> renderer) {
+        byte[] cached = fromMemory(key);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            return cached;
+        }
+
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            // Someone else is already loading or rendering this key
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            byte[] result = fromDisk(key);
+            if (result != null) {
+                diskHits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+                result = renderer.get();
+                toDisk(key, result);
+            }
+            toMemory(key, result);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Cached artifact if either tier has it, without rendering on a miss. Pair with
+     * {@link #capture} to fill the cache from a streamed render.
+     */
+    public byte[] peek(RenderKey key) {
+        byte[] cached = fromMemory(key);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            return cached;
+        }
+        cached = fromDisk(key);
+        if (cached != null) {
+            diskHits.incrementAndGet();
+            toMemory(key, cached);
+            return cached;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Write the cached artifact to the stream if either tier has it, streaming it from disk
+     * rather than loading it when it is too large for the memory tier. Returns false on a miss.
+     * Pair with {@link #capture} to fill the cache from a streamed render.
+     */
+    public boolean writeTo(RenderKey key, OutputStream target) throws IOException {
+        byte[] cached = fromMemory(key);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+        } else if (diskEnabled) {
+            Path file = diskPath(key);
+            try {
+                if (Files.size(file) > memoryEntryMaxBytes()) {
+                    Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                    Files.copy(file, target);
+                    diskHits.incrementAndGet();
+                    return true;
+                }
+            } catch (NoSuchFileException e) {
+                misses.incrementAndGet();
+                return false;
+            }
+        }
+        cached = cached != null ? cached : peek(key);
+        if (cached == null) {
+            return false;
+        }
+        target.write(cached);
+        return true;
+    }
+
+    /**
+     * Wrap a response stream so the bytes written through it are cached once
+     * {@link Capture#commit()} is called after a successful render
+     */
+    public Capture capture(RenderKey key, OutputStream target) {
+        return new Capture(key, target);
+    }
+
+    /**
+     * Drop every rendering of the given content from both tiers
+     */
+    public void invalidate(String contentHash) {
+        if (contentHash == null) {
+            return;
+        }
+        synchronized (memory) {
+            Iterator<Map.Entry<RenderKey, byte[]>> it = memory.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<RenderKey, byte[]> entry = it.next();
+                if (contentHash.equals(entry.getKey().getContentHash())) {
+                    memoryBytes -= entry.getValue().length;
+                    it.remove();
+                }
+            }
+        }
+        if (diskEnabled) {
+            Path dir = hashDirectory(contentHash);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+                Files.deleteIfExists(dir);
+            } catch (NoSuchFileException e) {
+                // nothing cached on disk
+            } catch (IOException e) {
+                System.err.println("Failed to invalidate render cache for " + contentHash + ": " + e.getMessage());
+            }
+        }
+        invalidations.incrementAndGet();
+    }
+
+    public Map<String, Object> stats() {
+        long hits = memoryHits.get() + diskHits.get();
+        long total = hits + misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("diskHits", diskHits.get());
+        stats.put("misses", misses.get());
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hits / total);
+        stats.put("memoryEvictions", memoryEvictions.get());
+        stats.put("diskEvictions", diskEvictions.get());
+        stats.put("invalidations", invalidations.get());
+        synchronized (memory) {
+            stats.put("memoryEntries", memory.size());
+            stats.put("memoryBytes", memoryBytes);
+        }
+        stats.put("memoryMaxBytes", memoryMaxBytes);
+        stats.put("diskEnabled", diskEnabled);
+        stats.put("diskMaxBytes", diskMaxBytes);
+        return stats;
+    }
+
+    /**
+     * Trim the disk tier back under its budget, least recently used files first
+     */
+    @Scheduled(fixedDelayString = "${application.render-cache.disk.sweep-interval:300000}")
+    public void sweepDisk() {
+        if (!diskEnabled || !Files.isDirectory(diskRoot)) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        long total = 0;
+        try (Stream<Path> walk = Files.walk(diskRoot)) {
+            for (Path path : (Iterable<Path>) walk::iterator) {
+                BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                if (attrs.isRegularFile() && !path.getFileName().toString().endsWith(".tmp")) {
+                    files.add(path);
+                    attributes.put(path, attrs);
+                    total += attrs.size();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Render cache sweep failed: " + e.getMessage());
+            return;
+        }
+        if (total <= diskMaxBytes) {
+            return;
+        }
+
+        files.sort(Comparator.comparing(path -> attributes.get(path).lastModifiedTime()));
+        for (Path file : files) {
+            if (total <= diskMaxBytes) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(file);
+                total -= attributes.get(file).size();
+                diskEvictions.incrementAndGet();
+            } catch (IOException e) {
+                System.err.println("Failed to evict " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- memory tier
+
+    private byte[] fromMemory(RenderKey key) {
+        synchronized (memory) {
+            return memory.get(key);
+        }
+    }
+
+    /**
+     * A single artifact larger than a quarter of the budget would flush everything else
+     */
+    private long memoryEntryMaxBytes() {
+        return memoryMaxBytes / 4;
+    }
+
+    private void toMemory(RenderKey key, byte[] value) {
+        if (value.length > memoryEntryMaxBytes()) {
+            return;
+        }
+        synchronized (memory) {
+            byte[] previous = memory.put(key, value);
+            memoryBytes += value.length - (previous != null ? previous.length : 0);
+            Iterator<Map.Entry<RenderKey, byte[]>> it = memory.entrySet().iterator();
+            while (memoryBytes > memoryMaxBytes && it.hasNext()) {
+                Map.Entry<RenderKey, byte[]> eldest = it.next();
+                memoryBytes -= eldest.getValue().length;
+                it.remove();
+                memoryEvictions.incrementAndGet();
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- disk tier
+
+    private byte[] fromDisk(RenderKey key) {
+        if (!diskEnabled) {
+            return null;
+        }
+        Path file = diskPath(key);
+        try {
+            byte[] data = Files.readAllBytes(file);
+            // Modification time doubles as last access for the sweep
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return data;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Failed to read render cache entry " + key + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void toDisk(RenderKey key, byte[] value) {
+        if (!diskEnabled) {
+            return;
+        }
+        Path file = diskPath(key);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), "render-", ".tmp");
+            try {
+                Files.write(tmp, value);
+                try {
+                    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            // The disk tier is best effort; the rendered bytes are still returned
+            System.err.println("Failed to write render cache entry " + key + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Tee to the target and to a temp file in the disk tier, which {@link #commit()} moves into
+     * place; only artifacts small enough for the memory tier are read back into it. Without a
+     * disk tier, output is buffered only up to the memory tier's entry limit. Output beyond the
+     * capture limit is streamed but not cached.
+     */
+    public final class Capture extends FilterOutputStream {
+
+        private final RenderKey key;
+        private final long limit;
+        private Path tmp;
+        private OutputStream copy;
+        private ByteArrayOutputStream buffer;
+        private long size;
+
+        private Capture(RenderKey key, OutputStream target) {
+            super(target);
+            this.key = key;
+            if (diskEnabled) {
+                this.limit = captureMaxBytes;
+                try {
+                    Path file = diskPath(key);
+                    Files.createDirectories(file.getParent());
+                    tmp = Files.createTempFile(file.getParent(), "render-", ".tmp");
+                    copy = new BufferedOutputStream(Files.newOutputStream(tmp));
+                } catch (IOException e) {
+                    System.err.println("Cannot capture render cache entry " + key + ": " + e.getMessage());
+                    discard();
+                }
+            } else {
+                this.limit = Math.min(captureMaxBytes, memoryEntryMaxBytes());
+                copy = buffer = new ByteArrayOutputStream();
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (copy != null) {
+                capture(() -> copy.write(b), 1);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (copy != null) {
+                capture(() -> copy.write(b, off, len), len);
+            }
+        }
+
+        private void capture(IOAction write, int len) {
+            size += len;
+            if (size > limit) {
+                discard();
+                return;
+            }
+            try {
+                write.run();
+            } catch (IOException e) {
+                // Caching is best effort; the response itself is unaffected
+                System.err.println("Failed to capture render cache entry " + key + ": " + e.getMessage());
+                discard();
+            }
+        }
+
+        /**
+         * Cache what was written; call only after the render completed
+         */
+        public void commit() {
+            if (copy == null) {
+                return;
+            }
+            if (buffer != null) {
+                byte[] result = buffer.toByteArray();
+                copy = buffer = null;
+                toMemory(key, result);
+                return;
+            }
+            Path file = diskPath(key);
+            try {
+                copy.close();
+                copy = null;
+                try {
+                    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+                tmp = null;
+                if (size <= memoryEntryMaxBytes()) {
+                    toMemory(key, Files.readAllBytes(file));
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to write render cache entry " + key + ": " + e.getMessage());
+            } finally {
+                discard();
+            }
+        }
+
+        /**
+         * Drop the captured copy, e.g. after a failed render; a no-op once committed
+         */
+        public void discard() {
+            buffer = null;
+            if (copy != null) {
+                try {
+                    copy.close();
+                } catch (IOException ignored) {
+                    // the temp file is deleted below
+                }
+                copy = null;
+            }
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException e) {
+                    System.err.println("Failed to delete " + tmp + ": " + e.getMessage());
+                }
+                tmp = null;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface IOAction {
+        void run() throws IOException;
+    }
+
+    private Path hashDirectory(String contentHash) {
+        if (!contentHash.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("Invalid content hash: " + contentHash);
+        }
+        return diskRoot.resolve(contentHash.substring(0, 2)).resolve(contentHash);
+    }
+
+    private Path diskPath(RenderKey key) {
+        String name = key.getFormat().replaceAll("[^A-Za-z0-9_-]", "_");
+        if (!key.getOptions().isEmpty()) {
+            name += "-" + optionsDigest(key.getOptions());
+        }
+        return hashDirectory(key.getContentHash()).resolve(name);
+    }
+
+    private static String optionsDigest(String options) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(options.getBytes(StandardCharsets.UTF_8)), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
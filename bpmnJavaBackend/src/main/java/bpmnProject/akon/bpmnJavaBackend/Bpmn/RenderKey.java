@@ -0,0 +1,29 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Identity of a rendered artifact: the diagram content, the output format and any options
+ * that change the output (page size, DPI, embedded metadata...). Options must be canonical,
+ * i.e. equal options produce an equal string.
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public class RenderKey {
+
+    private final String contentHash;
+    private final String format;
+    private final String options;
+
+    public static RenderKey of(String contentHash, String format) {
+        return new RenderKey(contentHash, format, "");
+    }
+
+    @Override
+    public String toString() {
+        return contentHash + "/" + format + (options.isEmpty() ? "" : "?" + options);
+    }
+}
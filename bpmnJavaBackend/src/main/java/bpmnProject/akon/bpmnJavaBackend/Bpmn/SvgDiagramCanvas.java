@@ -0,0 +1,178 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes diagram primitives as SVG through a StAX writer, straight to the output stream
+ */
+public class SvgDiagramCanvas implements DiagramCanvas {
+
+    private static final String SVG_NS = "http://www.w3.org/2000/svg";
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    private final XMLStreamWriter writer;
+
+    public SvgDiagramCanvas(OutputStream out) {
+        try {
+            // The JDK writer encodes one char at a time into the stream, so give it a buffer
+            Writer buffered = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+            this.writer = OUTPUT_FACTORY.createXMLStreamWriter(buffered);
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("Failed to create SVG writer", e);
+        }
+    }
+
+    @Override
+    public void begin(double minX, double minY, double width, double height) {
+        try {
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement("svg");
+            writer.writeDefaultNamespace(SVG_NS);
+            writer.writeAttribute("version", "1.1");
+            writer.writeAttribute("width", fmt(width));
+            writer.writeAttribute("height", fmt(height));
+            writer.writeAttribute("viewBox", fmt(minX) + " " + fmt(minY) + " " + fmt(width) + " " + fmt(height));
+            writer.writeAttribute("font-family", "Arial, Helvetica, sans-serif");
+        } catch (XMLStreamException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public void rect(double x, double y, double width, double height, double cornerRadius, DiagramStyle style) {
+        try {
+            writer.writeEmptyElement("rect");
+            writer.writeAttribute("x", fmt(x));
+            writer.writeAttribute("y", fmt(y));
+            writer.writeAttribute("width", fmt(width));
+            writer.writeAttribute("height", fmt(height));
+            if (cornerRadius > 0) {
+                writer.writeAttribute("rx", fmt(cornerRadius));
+                writer.writeAttribute("ry", fmt(cornerRadius));
+            }
+            writeStyle(style, true);
+        } catch (XMLStreamException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public void ellipse(double cx, double cy, double rx, double ry, DiagramStyle style) {
+        try {
+            writer.writeEmptyElement("ellipse");
+            writer.writeAttribute("cx", fmt(cx));
+            writer.writeAttribute("cy", fmt(cy));
+            writer.writeAttribute("rx", fmt(rx));
+            writer.writeAttribute("ry", fmt(ry));
+            writeStyle(style, true);
+        } catch (XMLStreamException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public void polygon(double[] points, DiagramStyle style) {
+        writePoints("polygon", points, style, true);
+    }
+
+    @Override
+    public void polyline(double[] points, DiagramStyle style) {
+        writePoints("polyline", points, style, false);
+    }
+
+    @Override
+    public void text(List<String> lines, double cx, double cy, double fontSize, boolean vertical) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        try {
+            double lineHeight = fontSize * 1.2;
+            double firstBaseline = cy - (lines.size() - 1) * lineHeight / 2 + fontSize * 0.35;
+
+            writer.writeStartElement("text");
+            writer.writeAttribute("x", fmt(cx));
+            writer.writeAttribute("y", fmt(firstBaseline));
+            writer.writeAttribute("font-size", fmt(fontSize));
+            writer.writeAttribute("text-anchor", "middle");
+            if (vertical) {
+                writer.writeAttribute("transform", "rotate(-90 " + fmt(cx) + " " + fmt(cy) + ")");
+            }
+            for (int i = 0; i < lines.size(); i++) {
+                writer.writeStartElement("tspan");
+                writer.writeAttribute("x", fmt(cx));
+                if (i > 0) {
+                    writer.writeAttribute("dy", fmt(lineHeight));
+                }
+                writer.writeCharacters(lines.get(i));
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public void end() {
+        try {
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw failure(e);
+        }
+    }
+
+    private void writePoints(String element, double[] points, DiagramStyle style, boolean filled) {
+        try {
+            StringBuilder value = new StringBuilder(points.length * 6);
+            for (int i = 0; i + 1 < points.length; i += 2) {
+                if (i > 0) {
+                    value.append(' ');
+                }
+                value.append(fmt(points[i])).append(',').append(fmt(points[i + 1]));
+            }
+            writer.writeEmptyElement(element);
+            writer.writeAttribute("points", value.toString());
+            writeStyle(style, filled);
+        } catch (XMLStreamException e) {
+            throw failure(e);
+        }
+    }
+
+    private void writeStyle(DiagramStyle style, boolean filled) throws XMLStreamException {
+        writer.writeAttribute("fill", filled && style.getFill() != null ? style.getFill() : "none");
+        writer.writeAttribute("stroke", style.getStroke());
+        writer.writeAttribute("stroke-width", fmt(style.getStrokeWidth()));
+        if (style.getDashArray() != null) {
+            StringBuilder dash = new StringBuilder();
+            for (double d : style.getDashArray()) {
+                if (dash.length() > 0) {
+                    dash.append(',');
+                }
+                dash.append(fmt(d));
+            }
+            writer.writeAttribute("stroke-dasharray", dash.toString());
+        }
+    }
+
+    private static String fmt(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(Math.round(value * 100) / 100.0);
+    }
+
+    private static IllegalStateException failure(XMLStreamException e) {
+        return new IllegalStateException("Failed to write SVG", e);
+    }
+}
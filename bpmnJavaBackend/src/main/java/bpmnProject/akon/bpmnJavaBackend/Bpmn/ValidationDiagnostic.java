@@ -0,0 +1,32 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One finding of the BPMN validator. Line and column are 1-based, or -1 when unknown.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ValidationDiagnostic {
+
+    public enum Severity {
+        ERROR,
+        WARNING
+    }
+
+    private final Severity severity;
+    // Stable identifier of the rule, e.g. SCHEMA, DANGLING_SEQUENCE_FLOW, UNREACHABLE_NODE
+    private final String code;
+    private final String message;
+    private final String elementId;
+    private final int line;
+    private final int column;
+
+    @Override
+    public String toString() {
+        return severity + " " + code + " [" + line + ":" + column + "] " + message;
+    }
+}
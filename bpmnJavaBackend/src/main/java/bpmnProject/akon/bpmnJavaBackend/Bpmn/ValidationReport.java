@@ -0,0 +1,34 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of validating one BPMN document. The errors and warnings lists carry the plain
+ * messages the validate endpoint has always returned; diagnostics has the full detail.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValidationReport {
+    private boolean valid;
+    private String contentHash;
+    // Whether the document was also loaded into the camunda model after the streaming pass
+    private boolean fullParse;
+    private int errorCount;
+    private int warningCount;
+    // Size of the process model: processes, flow nodes (activities, events, gateways) and sequence flows
+    private int processCount;
+    private int flowNodeCount;
+    private int sequenceFlowCount;
+    private List<String> errors;
+    private List<String> warnings;
+    private List<ValidationDiagnostic> diagnostics;
+    // Set when more findings existed than the configured limit
+    private boolean truncated;
+}
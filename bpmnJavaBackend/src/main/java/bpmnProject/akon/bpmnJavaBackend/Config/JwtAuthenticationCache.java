@@ -0,0 +1,109 @@
+package bpmnProject.akon.bpmnJavaBackend.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, TTL-expiring cache of already verified access tokens and the principal they
+ * authenticate. Keys are SHA-256 hashes of the token so raw JWTs are not kept in memory.
+ *
+ * Entries expire after the configured TTL or when the token itself expires, whichever is
+ * first. Anything that revokes tokens or changes a user's authorities must invalidate the
+ * affected entries.
+ */
+@Component
+public class JwtAuthenticationCache {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Entry> entries;
+
+    public JwtAuthenticationCache(@Value("${application.security.jwt.cache.max-entries:10000}") int maxEntries,
+                                  @Value("${application.security.jwt.cache.ttl:60000}") long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        // Access-ordered so the least recently used entry is evicted first
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > JwtAuthenticationCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Cached principal for the token, or null if absent or expired
+     */
+    public UserDetails get(String jwt) {
+        String key = TokenHashing.sha256Hex(jwt);
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt <= now) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.userDetails;
+        }
+    }
+
+    /**
+     * Remember a verified token. {@code tokenExpiresAt} caps the entry lifetime at the JWT expiry.
+     */
+    public void put(String jwt, UserDetails userDetails, long tokenExpiresAt) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        long expiresAt = Math.min(System.currentTimeMillis() + ttlMillis, tokenExpiresAt);
+        synchronized (entries) {
+            entries.put(TokenHashing.sha256Hex(jwt), new Entry(userDetails, expiresAt));
+        }
+    }
+
+    public void invalidateToken(String jwt) {
+        synchronized (entries) {
+            entries.remove(TokenHashing.sha256Hex(jwt));
+        }
+    }
+
+    /**
+     * Drop every cached token of the given user, e.g. after revocation or a role change
+     */
+    public void invalidateUser(String username) {
+        if (username == null) {
+            return;
+        }
+        synchronized (entries) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (username.equals(iterator.next().userDetails.getUsername())) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static final class Entry {
+        private final UserDetails userDetails;
+        private final long expiresAt;
+
+        private Entry(UserDetails userDetails, long expiresAt) {
+            this.userDetails = userDetails;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
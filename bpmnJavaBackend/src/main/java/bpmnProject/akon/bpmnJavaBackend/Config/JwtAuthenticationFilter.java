@@ -6,24 +6,46 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
     private final TokenRepository tokenRepository;
+    private final JwtAuthenticationCache authenticationCache;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final boolean claimsTrusted;
+    private final List<String> claimsTrustedPaths;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public JwtAuthenticationFilter(JwtService jwtService,
+                                   UserDetailsService userDetailsService,
+                                   TokenRepository tokenRepository,
+                                   JwtAuthenticationCache authenticationCache,
+                                   TokenRevocationRegistry revocationRegistry,
+                                   @Value("${application.security.jwt.claims-trusted.enabled:false}") boolean claimsTrusted,
+                                   @Value("${application.security.jwt.claims-trusted.paths:/api/v1/file/list,/api/v1/file/search,/api/v1/file/*,/api/v1/file/*/details,/api/v1/file/*/content,/api/v1/file/*/download,/api/v1/file/*/export/**,/api/v1/file/*/preview}") List<String> claimsTrustedPaths) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.tokenRepository = tokenRepository;
+        this.authenticationCache = authenticationCache;
+        this.revocationRegistry = revocationRegistry;
+        this.claimsTrusted = claimsTrusted;
+        this.claimsTrustedPaths = claimsTrustedPaths;
+    }
 
     @Override
     protected void doFilterInternal(
@@ -53,44 +75,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             final String jwt = authHeader.substring(7);
-            final String userEmail = jwtService.extractUsername(jwt);
-
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-
-                // Check if token exists in database and is not expired/revoked
-                var isTokenValid = tokenRepository.findByToken(jwt)
-                        .map(token -> !token.isExpired() && !token.isRevoked())
-                        .orElse(false);
-
-                if (!isTokenValid) {
-                    System.out.println("Token not found in database or is expired/revoked");
-                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                    response.getWriter().write("{\"error\":\"Token is invalid or expired\"}");
-                    response.setContentType("application/json");
-                    return;
-                }
-
-                // Load user details and validate token
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-
-                if (jwtService.isTokenValid(jwt, userDetails)) {
-                    // Token is valid, create authentication object
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-
-                    System.out.println("Authentication successful for user: " + userEmail + " on path: " + requestPath);
-                } else {
-                    System.out.println("JWT token validation failed for user: " + userEmail);
-                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                    response.getWriter().write("{\"error\":\"Invalid token\"}");
-                    response.setContentType("application/json");
-                    return;
-                }
+
+            boolean authenticated;
+            if (claimsTrusted && isClaimsTrustedRequest(request.getMethod(), requestPath)) {
+                authenticated = authenticateFromClaims(jwt, request, response);
+            } else {
+                authenticated = authenticateFromCache(jwt, request)
+                        || authenticateFromDatabase(jwt, request, response);
+            }
+            if (!authenticated) {
+                return;
             }
         } catch (Exception e) {
             System.err.println("JWT Authentication error: " + e.getMessage());
@@ -102,4 +96,113 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Claims-trusted mode: authorize from the verified token alone, no database work
+     */
+    private boolean authenticateFromClaims(String jwt, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        VerifiedToken verifiedToken = jwtService.parseToken(jwt);
+        if (verifiedToken.getJti() == null) {
+            // Issued before tokens carried a jti, so revocation can only be checked in the database
+            return authenticateFromDatabase(jwt, request, response);
+        }
+        if (verifiedToken.getUsername() == null || revocationRegistry.isRevoked(verifiedToken)) {
+            System.out.println("Token is revoked or has no subject");
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.getWriter().write("{\"error\":\"Token is invalid or expired\"}");
+            response.setContentType("application/json");
+            return false;
+        }
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            authenticate(JwtPrincipal.from(verifiedToken), request);
+        }
+        return true;
+    }
+
+    /**
+     * Tokens verified recently are served from memory without touching the database
+     */
+    private boolean authenticateFromCache(String jwt, HttpServletRequest request) {
+        UserDetails cachedUser = authenticationCache.get(jwt);
+        if (cachedUser == null) {
+            return false;
+        }
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            authenticate(cachedUser, request);
+        }
+        return true;
+    }
+
+    /**
+     * Full check against the tokens table and the current user record
+     */
+    private boolean authenticateFromDatabase(String jwt, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final String requestPath = request.getServletPath();
+
+        // Verify the signature once and reuse the claims for every check below
+        final VerifiedToken verifiedToken = jwtService.parseToken(jwt);
+        final String userEmail = verifiedToken.getUsername();
+
+        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+
+            // Revocations are visible in the registry before the write-behind reaches the table
+            var storedToken = verifiedToken.getJti() != null
+                    ? tokenRepository.findByJti(verifiedToken.getJti())
+                    : tokenRepository.findByToken(jwt);
+            var isTokenValid = !revocationRegistry.isRevoked(verifiedToken) && storedToken
+                    .map(token -> !token.isExpired() && !token.isRevoked())
+                    .orElse(false);
+
+            if (!isTokenValid) {
+                System.out.println("Token not found in database or is expired/revoked");
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                response.getWriter().write("{\"error\":\"Token is invalid or expired\"}");
+                response.setContentType("application/json");
+                return false;
+            }
+
+            // Load user details and validate token
+            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+
+            if (jwtService.isTokenValid(verifiedToken, userDetails)) {
+                // Token is valid, create authentication object
+                authenticate(userDetails, request);
+                authenticationCache.put(jwt, userDetails, verifiedToken.getExpiration().getTime());
+
+                System.out.println("Authentication successful for user: " + userEmail + " on path: " + requestPath);
+            } else {
+                System.out.println("JWT token validation failed for user: " + userEmail);
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                response.getWriter().write("{\"error\":\"Invalid token\"}");
+                response.setContentType("application/json");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Only reads are authorised from claims; anything that changes data checks the user in the database
+     */
+    private boolean isClaimsTrustedRequest(String method, String requestPath) {
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return false;
+        }
+        for (String pattern : claimsTrustedPaths) {
+            if (pathMatcher.match(pattern, requestPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void authenticate(UserDetails userDetails, HttpServletRequest request) {
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities()
+        );
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
+}
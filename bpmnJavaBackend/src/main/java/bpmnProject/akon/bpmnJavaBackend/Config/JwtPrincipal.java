@@ -0,0 +1,65 @@
+package bpmnProject.akon.bpmnJavaBackend.Config;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lightweight principal built from verified JWT claims, used when the filter runs in
+ * claims-trusted mode instead of loading the JPA User
+ */
+public class JwtPrincipal implements UserDetails {
+
+    private final Integer userId;
+    private final String username;
+    private final String email;
+    private final List<GrantedAuthority> authorities;
+
+    public JwtPrincipal(Integer userId, String username, String email, List<String> roles) {
+        this.userId = userId;
+        this.username = username;
+        this.email = email;
+        this.authorities = roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role))
+                .toList();
+    }
+
+    public static JwtPrincipal from(VerifiedToken token) {
+        return new JwtPrincipal(token.getUserId(), token.getUsername(), token.getEmail(), token.getRoles());
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return "JwtPrincipal{" +
+                "userId=" + userId +
+                ", username='" + username + '\'' +
+                ", authorities=" + authorities +
+                '}';
+    }
+}
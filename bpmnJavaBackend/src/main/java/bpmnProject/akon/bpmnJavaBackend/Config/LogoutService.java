@@ -1,6 +1,5 @@
 package bpmnProject.akon.bpmnJavaBackend.Config;
 
-import bpmnProject.akon.bpmnJavaBackend.Token.TokenRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -13,7 +12,7 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class LogoutService implements LogoutHandler {
 
-    private final TokenRepository tokenRepository;
+    private final TokenInvalidationService tokenInvalidationService;
 
     @Override
     public void logout(
@@ -27,13 +26,8 @@ public class LogoutService implements LogoutHandler {
             return;
         }
         jwt = authHeader.substring(7);
-        var storedToken = tokenRepository.findByToken(jwt)
-                .orElse(null);
-        if (storedToken != null) {
-            storedToken.setExpired(true);
-            storedToken.setRevoked(true);
-            tokenRepository.save(storedToken);
-            SecurityContextHolder.clearContext();
-        }
+        // Revocation is effective in memory immediately and persisted by the registry's write-behind
+        tokenInvalidationService.tokenRevoked(jwt);
+        SecurityContextHolder.clearContext();
     }
 }
\ No newline at end of file
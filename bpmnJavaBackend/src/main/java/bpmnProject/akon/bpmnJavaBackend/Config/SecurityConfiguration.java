@@ -57,17 +57,31 @@ public class SecurityConfiguration {
                                 .requestMatchers("/api/v1/debug/**").hasAnyRole("VIEWER", "MODELER", "ADMIN")
 
                                 // FILE ENDPOINTS - SPECIFIC PATTERNS FIRST
-                                .requestMatchers("/api/v1/file/upload").hasAnyRole("MODELER", "ADMIN")
+                                .requestMatchers("/api/v1/file/upload", "/api/v1/file/upload/**").hasAnyRole("MODELER", "ADMIN")
                                 .requestMatchers("/api/v1/file/all").hasAnyRole("VIEWER", "MODELER", "ADMIN")
+                                .requestMatchers("/api/v1/file/list").hasAnyRole("VIEWER", "MODELER", "ADMIN")
                                 .requestMatchers("/api/v1/file/delete/*").hasRole("ADMIN")
+                                .requestMatchers("/api/v1/file/render-cache/**").hasRole("ADMIN")
+                                .requestMatchers("/api/v1/file/search/rebuild", "/api/v1/file/search/stats").hasRole("ADMIN")
+                                .requestMatchers("/api/v1/file/stats/recompute").hasRole("ADMIN")
+                                .requestMatchers("/api/v1/file/storage/**").hasRole("ADMIN")
+                                .requestMatchers("/api/v1/file/search").hasAnyRole("VIEWER", "MODELER", "ADMIN")
+                                .requestMatchers("/api/v1/file/*/revisions/*/restore").hasAnyRole("MODELER", "ADMIN")
+                                .requestMatchers("/api/v1/file/*/revisions", "/api/v1/file/*/revisions/**").hasAnyRole("VIEWER", "MODELER", "ADMIN")
+                                .requestMatchers("/api/v1/file/export/bulk").hasAnyRole("VIEWER", "MODELER", "ADMIN")
                                 .requestMatchers("/api/v1/file/*/export/**").hasAnyRole("VIEWER", "MODELER", "ADMIN")
                                 .requestMatchers("/api/v1/file/*/download").hasAnyRole("VIEWER", "MODELER", "ADMIN")
                                 .requestMatchers("/api/v1/file/*/content").hasAnyRole("VIEWER", "MODELER", "ADMIN")
+                                .requestMatchers("/api/v1/file/*/diff/*").hasAnyRole("VIEWER", "MODELER", "ADMIN")
+                                .requestMatchers("/api/v1/file/*/details", "/api/v1/file/file/*/details").hasAnyRole("VIEWER", "MODELER", "ADMIN")
                                 .requestMatchers("/api/v1/file/*/validate").hasAnyRole("VIEWER", "MODELER", "ADMIN")
                                 .requestMatchers("/api/v1/file/*/preview").hasAnyRole("VIEWER", "MODELER", "ADMIN")
                                 .requestMatchers("/api/v1/file/file/*").hasAnyRole("VIEWER", "MODELER", "ADMIN")
                                 .requestMatchers("/api/v1/file/*").hasAnyRole("VIEWER", "MODELER", "ADMIN")
 
+                                // EXPORT JOB ENDPOINTS
+                                .requestMatchers("/api/v1/export/**").hasAnyRole("VIEWER", "MODELER", "ADMIN")
+
                                 // DIAGRAM ENDPOINTS (if you add them later)
                                 .requestMatchers("/api/v1/diagrams/**").hasAnyRole("VIEWER", "MODELER", "ADMIN")
 
@@ -118,14 +132,19 @@ public class SecurityConfiguration {
                 "Accept",
                 "Origin",
                 "Access-Control-Request-Method",
-                "Access-Control-Request-Headers"
+                "Access-Control-Request-Headers",
+                "Range",
+                "If-None-Match",
+                "If-Modified-Since",
+                "If-Range"
         ));
 
         // Allow credentials
         configuration.setAllowCredentials(true);
 
         // Set exposed headers
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Disposition"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Disposition", "Accept-Ranges", "Content-Range",
+                "ETag", "Last-Modified"));
 
         // Set max age for preflight requests
         configuration.setMaxAge(3600L);
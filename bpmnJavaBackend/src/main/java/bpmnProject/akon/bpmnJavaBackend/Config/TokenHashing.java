@@ -0,0 +1,24 @@
+package bpmnProject.akon.bpmnJavaBackend.Config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Hashes raw JWTs so in-memory structures never hold the bearer token itself
+ */
+public final class TokenHashing {
+
+    private TokenHashing() {
+    }
+
+    public static String sha256Hex(String jwt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(jwt.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package bpmnProject.akon.bpmnJavaBackend.Config;
+
+import bpmnProject.akon.bpmnJavaBackend.Token.Token;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+
+/**
+ * Single entry point for everything that makes an issued access token stop being valid.
+ * Keeps the verified-token cache and the revocation registry consistent with the user's
+ * current roles; the registry persists revocations to the tokens table.
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenInvalidationService {
+
+    private final JwtAuthenticationCache authenticationCache;
+    private final TokenRevocationRegistry revocationRegistry;
+
+    /**
+     * A single token was logged out or revoked
+     */
+    public void tokenRevoked(String jwt) {
+        authenticationCache.invalidateToken(jwt);
+        revocationRegistry.revoke(jwt);
+    }
+
+    /**
+     * A batch of a user's tokens was revoked
+     */
+    public void tokensRevoked(String username, Collection<Token> tokens) {
+        authenticationCache.invalidateUser(username);
+        tokens.forEach(revocationRegistry::revoke);
+    }
+
+    /**
+     * The user's roles, credentials or existence changed; claims in tokens issued so far are stale.
+     *
+     * Inside a transaction this waits for the commit: invalidated earlier, the cache would be
+     * refilled from the rows as they were before the change, and a rollback would still leave
+     * the user's tokens revoked.
+     */
+    public void userChanged(String username) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateUser(username);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateUser(username);
+            }
+        });
+    }
+
+    private void invalidateUser(String username) {
+        revocationRegistry.revokeIssuedBefore(username, System.currentTimeMillis());
+        authenticationCache.invalidateUser(username);
+    }
+}
@@ -0,0 +1,257 @@
+package bpmnProject.akon.bpmnJavaBackend.Config;
+
+import bpmnProject.akon.bpmnJavaBackend.Token.Token;
+import bpmnProject.akon.bpmnJavaBackend.Token.TokenRepository;
+import bpmnProject.akon.bpmnJavaBackend.Token.UserTokenCutoff;
+import bpmnProject.akon.bpmnJavaBackend.Token.UserTokenCutoffRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Authoritative in-memory record of revoked access tokens, keyed by the JWT {@code jti}.
+ *
+ * Revocations take effect in memory immediately and are written to the tokens table by
+ * a periodic write-behind flush in batches. On startup the set is rebuilt from revoked,
+ * not yet expired rows. A purge job deletes rows whose JWT has expired, so the table no
+ * longer grows without bound.
+ *
+ * Changes to a user's roles or credentials record a cutoff; any token of that user issued
+ * before it is treated as revoked because its claims are stale. Cutoffs are written to the
+ * user_token_cutoffs table as they are recorded and reloaded on startup with the revocations.
+ */
+@Component
+public class TokenRevocationRegistry {
+
+    private final TokenRepository tokenRepository;
+    private final UserTokenCutoffRepository cutoffRepository;
+    private final JwtService jwtService;
+    private final long jwtExpiration;
+    private final int flushBatchSize;
+    private final TransactionTemplate cutoffTransaction;
+
+    // jti -> epoch millis at which the token expires and the entry can be dropped
+    private final Map<UUID, Long> revokedTokens = new ConcurrentHashMap<>();
+    // username -> epoch millis; tokens issued before it are revoked
+    private final Map<String, Long> userCutoffs = new ConcurrentHashMap<>();
+    // revocations not yet written to the tokens table
+    private final Queue<String> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    public TokenRevocationRegistry(TokenRepository tokenRepository,
+                                   UserTokenCutoffRepository cutoffRepository,
+                                   JwtService jwtService,
+                                   @Value("${application.security.jwt.expiration}") long jwtExpiration,
+                                   @Value("${application.security.jwt.revocation.flush-batch-size:500}") int flushBatchSize,
+                                   PlatformTransactionManager transactionManager) {
+        this.tokenRepository = tokenRepository;
+        this.cutoffRepository = cutoffRepository;
+        this.jwtService = jwtService;
+        this.jwtExpiration = jwtExpiration;
+        this.flushBatchSize = flushBatchSize;
+        // Cutoffs are recorded after the user change commits, outside of any usable transaction
+        this.cutoffTransaction = new TransactionTemplate(transactionManager);
+        this.cutoffTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Revoke a raw access token
+     */
+    public void revoke(String jwt) {
+        Claims claims;
+        try {
+            claims = jwtService.extractClaim(jwt, c -> c);
+        } catch (ExpiredJwtException e) {
+            claims = e.getClaims();
+        } catch (JwtException | IllegalArgumentException e) {
+            // Not a token we issued, nothing to revoke
+            return;
+        }
+        if (claims.getId() == null) {
+            // Issued before tokens carried a jti, fall back to a direct update
+            tokenRepository.revokeByToken(jwt);
+            return;
+        }
+        revoke(claims.getId(), claims.getExpiration().getTime());
+    }
+
+    /**
+     * Revoke a stored token row
+     */
+    public void revoke(Token token) {
+        if (token.getJti() == null) {
+            tokenRepository.revokeByToken(token.getToken());
+            return;
+        }
+        long expiresAt = token.getExpiresAt() != null
+                ? toEpochMillis(token.getExpiresAt())
+                : System.currentTimeMillis() + jwtExpiration;
+        revoke(token.getJti(), expiresAt);
+    }
+
+    public void revoke(String jti, long expiresAt) {
+        UUID id = parseJti(jti);
+        if (id == null || expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        if (revokedTokens.put(id, expiresAt) == null) {
+            pendingWrites.add(jti);
+        }
+    }
+
+    /**
+     * Revoke every token of the user issued up to the given time
+     */
+    public void revokeIssuedBefore(String username, long epochMillis) {
+        if (username == null) {
+            return;
+        }
+        long cutoff = userCutoffs.merge(username, epochMillis, Math::max);
+        try {
+            // Rare and must survive a restart, so written through rather than behind
+            cutoffTransaction.executeWithoutResult(status -> cutoffRepository.save(new UserTokenCutoff(username, cutoff)));
+        } catch (Exception e) {
+            System.err.println("Failed to persist token cutoff for " + username + ": " + e.getMessage());
+        }
+    }
+
+    public boolean isRevoked(String jti) {
+        UUID id = parseJti(jti);
+        return id != null && revokedTokens.containsKey(id);
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        if (isRevoked(token.getJti())) {
+            return true;
+        }
+        Long cutoff = userCutoffs.get(token.getUsername());
+        // JWT iat has second precision, so the cutoff is truncated to match; a token issued in the
+        // same second as the change is kept, otherwise the re-login that follows it would be revoked too
+        return cutoff != null && token.getIssuedAt() != null
+                && token.getIssuedAt().getTime() / 1000 < cutoff / 1000;
+    }
+
+    /**
+     * Rebuild the in-memory state from the tokens and user_token_cutoffs tables
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        int loaded = 0;
+        for (Object[] row : tokenRepository.findActiveRevokedJtis(LocalDateTime.now())) {
+            UUID id = parseJti((String) row[0]);
+            if (id != null) {
+                revokedTokens.put(id, toEpochMillis((LocalDateTime) row[1]));
+                loaded++;
+            }
+        }
+        int cutoffs = 0;
+        for (UserTokenCutoff cutoff : cutoffRepository.findByIssuedBeforeGreaterThan(System.currentTimeMillis() - jwtExpiration)) {
+            userCutoffs.merge(cutoff.getUsername(), cutoff.getIssuedBefore(), Math::max);
+            cutoffs++;
+        }
+        System.out.println("Loaded " + loaded + " revoked tokens and " + cutoffs
+                + " user cutoffs into the revocation registry");
+    }
+
+    /**
+     * Write pending revocations to the tokens table in batches
+     */
+    @Scheduled(fixedDelayString = "${application.security.jwt.revocation.flush-interval:1000}")
+    @PreDestroy
+    public void flush() {
+        while (!pendingWrites.isEmpty()) {
+            List<String> batch = new ArrayList<>(flushBatchSize);
+            String jti;
+            while (batch.size() < flushBatchSize && (jti = pendingWrites.poll()) != null) {
+                batch.add(jti);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                tokenRepository.revokeByJtiIn(batch);
+            } catch (Exception e) {
+                System.err.println("Failed to persist " + batch.size() + " token revocations, will retry: " + e.getMessage());
+                pendingWrites.addAll(batch);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Delete token rows whose JWT has expired and drop expired in-memory entries
+     */
+    @Scheduled(cron = "${application.security.jwt.revocation.purge-cron:0 0 * * * *}")
+    public void purgeExpired() {
+        backfillExpiry();
+        int deleted = tokenRepository.deleteExpiredBefore(LocalDateTime.now());
+
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        userCutoffs.values().removeIf(cutoff -> cutoff + jwtExpiration <= now);
+        // Every token issued before these has expired
+        cutoffRepository.deleteIssuedBeforeUpTo(now - jwtExpiration);
+
+        if (deleted > 0) {
+            System.out.println("Purged " + deleted + " expired tokens");
+        }
+    }
+
+    /**
+     * Rows written before tokens carried jti/expires_at get them from their JWT so they can be purged
+     */
+    private void backfillExpiry() {
+        List<Token> legacy;
+        while (!(legacy = tokenRepository.findWithoutExpiry(PageRequest.of(0, flushBatchSize))).isEmpty()) {
+            for (Token token : legacy) {
+                Claims claims;
+                try {
+                    claims = jwtService.extractClaim(token.getToken(), c -> c);
+                } catch (ExpiredJwtException e) {
+                    claims = e.getClaims();
+                } catch (Exception e) {
+                    // Unparseable token, it can never authenticate again
+                    claims = null;
+                }
+                token.setExpiresAt(claims != null && claims.getExpiration() != null
+                        ? LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault())
+                        : LocalDateTime.now());
+            }
+            tokenRepository.saveAll(legacy);
+        }
+    }
+
+    private static UUID parseJti(String jti) {
+        if (jti == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(jti);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
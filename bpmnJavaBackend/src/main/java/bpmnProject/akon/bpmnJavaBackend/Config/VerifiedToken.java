@@ -0,0 +1,26 @@
+package bpmnProject.akon.bpmnJavaBackend.Config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Claims of a JWT whose signature has already been verified, parsed once per request
+ */
+@Getter
+@AllArgsConstructor
+public class VerifiedToken {
+    private final String jti;
+    private final String username;
+    private final String email;
+    private final Integer userId;
+    private final List<String> roles;
+    private final Date issuedAt;
+    private final Date expiration;
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+}
@@ -0,0 +1,19 @@
+package bpmnProject.akon.bpmnJavaBackend.Diff;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One attribute of a matched element that differs. Values are as written in each diagram;
+ * references are compared after mapping matched ids, so a renamed id alone is not a change.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AttributeChange {
+    // e.g. name, type, condition, sourceRef, parent, lane, position, size, waypoints
+    private final String attribute;
+    private final String before;
+    private final String after;
+}
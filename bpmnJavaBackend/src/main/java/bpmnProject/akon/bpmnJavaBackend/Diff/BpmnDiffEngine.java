@@ -0,0 +1,459 @@
+package bpmnProject.akon.bpmnJavaBackend.Diff;
+
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.BpmnModel;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Computes the semantic differences between two parsed diagrams.
+ *
+ * Elements are paired in passes, each only over what is still unpaired: by id; then nodes by
+ * type and name; then nodes by type and their already paired neighbours; then connections by
+ * type and paired endpoints. Every pass is a hash lookup per element, so a diff is linear in
+ * the size of both models apart from sorting each node's neighbours. Paired elements are then
+ * compared attribute by attribute, with references translated through the pairing.
+ */
+final class BpmnDiffEngine {
+
+    private static final double POSITION_TOLERANCE = 0.5;
+
+    private final BpmnModel base;
+    private final BpmnModel other;
+    private final Map<BpmnModel.Element, BpmnModel.Element> forward = new IdentityHashMap<>();
+    private final Map<BpmnModel.Element, BpmnModel.Element> backward = new IdentityHashMap<>();
+    private final Map<BpmnModel.Element, String> matchedBy = new IdentityHashMap<>();
+
+    private BpmnDiffEngine(BpmnModel base, BpmnModel other) {
+        this.base = base;
+        this.other = other;
+    }
+
+    static Result diff(BpmnModel base, BpmnModel other) {
+        BpmnDiffEngine engine = new BpmnDiffEngine(base, other);
+        engine.matchById();
+        engine.matchByName();
+        engine.matchByNeighbours();
+        engine.matchConnections();
+        return engine.compare();
+    }
+
+    /**
+     * Differences with their counts; immutable, so it can be cached and shared
+     */
+    static final class Result {
+        final List<ElementChange> changes;
+        final int added;
+        final int removed;
+        final int renamed;
+        final int moved;
+        final int changed;
+        final int unchanged;
+
+        private Result(List<ElementChange> changes, int added, int removed, int renamed, int moved, int changed,
+                       int unchanged) {
+            this.changes = Collections.unmodifiableList(changes);
+            this.added = added;
+            this.removed = removed;
+            this.renamed = renamed;
+            this.moved = moved;
+            this.changed = changed;
+            this.unchanged = unchanged;
+        }
+    }
+
+    private void pair(BpmnModel.Element from, BpmnModel.Element to, String how) {
+        forward.put(from, to);
+        backward.put(to, from);
+        matchedBy.put(from, how);
+    }
+
+    private void matchById() {
+        for (BpmnModel.Element element : base.getElements()) {
+            BpmnModel.Element counterpart = other.lookup(element.getId());
+            if (counterpart.getId() != null) {
+                pair(element, counterpart, "id");
+            }
+        }
+    }
+
+    /**
+     * Nodes re-created with a new id but the same type and name; duplicates pair in document order
+     */
+    private void matchByName() {
+        Map<String, ArrayDeque<BpmnModel.Element>> candidates = new HashMap<>();
+        for (BpmnModel.Element element : other.getElements()) {
+            if (!backward.containsKey(element) && !isConnection(element) && hasName(element)) {
+                candidates.computeIfAbsent(element.getType() + '\0' + normalize(element.getName()),
+                        key -> new ArrayDeque<>()).add(element);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+        for (BpmnModel.Element element : base.getElements()) {
+            if (!forward.containsKey(element) && !isConnection(element) && hasName(element)) {
+                ArrayDeque<BpmnModel.Element> queue =
+                        candidates.get(element.getType() + '\0' + normalize(element.getName()));
+                if (queue != null && !queue.isEmpty()) {
+                    pair(element, queue.poll(), "name");
+                }
+            }
+        }
+    }
+
+    /**
+     * Unnamed nodes re-created with a new id, recognised by type and paired neighbours. Only
+     * signatures that are unique on both sides are trusted.
+     */
+    private void matchByNeighbours() {
+        Map<String, List<String>> baseNeighbours = neighbours(base, true);
+        Map<String, List<String>> otherNeighbours = neighbours(other, false);
+
+        Map<String, BpmnModel.Element> candidates = new HashMap<>();
+        Map<String, Boolean> ambiguous = new HashMap<>();
+        for (BpmnModel.Element element : other.getElements()) {
+            if (!backward.containsKey(element) && !isConnection(element)) {
+                String signature = signature(element, otherNeighbours.get(element.getId()), element.getAttachedTo());
+                if (signature != null && candidates.put(signature, element) != null) {
+                    ambiguous.put(signature, Boolean.TRUE);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        Map<String, BpmnModel.Element> sources = new HashMap<>();
+        for (BpmnModel.Element element : base.getElements()) {
+            if (!forward.containsKey(element) && !isConnection(element)) {
+                String signature = signature(element, baseNeighbours.get(element.getId()),
+                        translate(element.getAttachedTo()));
+                if (signature != null && sources.put(signature, element) != null) {
+                    ambiguous.put(signature, Boolean.TRUE);
+                }
+            }
+        }
+        sources.forEach((signature, element) -> {
+            BpmnModel.Element counterpart = candidates.get(signature);
+            if (counterpart != null && !ambiguous.containsKey(signature)) {
+                pair(element, counterpart, "structure");
+            }
+        });
+    }
+
+    /**
+     * Connections re-created with a new id between the same (paired) endpoints
+     */
+    private void matchConnections() {
+        Map<String, ArrayDeque<BpmnModel.Element>> candidates = new HashMap<>();
+        for (BpmnModel.Element element : other.getElements()) {
+            if (!backward.containsKey(element) && isConnection(element)) {
+                candidates.computeIfAbsent(element.getType() + '\0' + element.getSourceRef() + '\0' + element.getTargetRef(),
+                        key -> new ArrayDeque<>()).add(element);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+        for (BpmnModel.Element element : base.getElements()) {
+            if (!forward.containsKey(element) && isConnection(element)) {
+                ArrayDeque<BpmnModel.Element> queue = candidates.get(element.getType() + '\0'
+                        + translate(element.getSourceRef()) + '\0' + translate(element.getTargetRef()));
+                if (queue != null && !queue.isEmpty()) {
+                    pair(element, queue.poll(), "structure");
+                }
+            }
+        }
+    }
+
+    /**
+     * Paired neighbours of every node, as ids of the other diagram so both sides compare directly
+     */
+    private Map<String, List<String>> neighbours(BpmnModel model, boolean translate) {
+        Map<String, List<String>> neighbours = new HashMap<>();
+        for (BpmnModel.Element element : model.getElements()) {
+            if (!isConnection(element)) {
+                continue;
+            }
+            BpmnModel.Element source = model.lookup(element.getSourceRef());
+            BpmnModel.Element target = model.lookup(element.getTargetRef());
+            String sourceId = pairedId(source, translate);
+            String targetId = pairedId(target, translate);
+            if (targetId != null && source.getId() != null) {
+                neighbours.computeIfAbsent(source.getId(), key -> new ArrayList<>())
+                        .add(element.getType() + ">" + targetId);
+            }
+            if (sourceId != null && target.getId() != null) {
+                neighbours.computeIfAbsent(target.getId(), key -> new ArrayList<>())
+                        .add(element.getType() + "<" + sourceId);
+            }
+        }
+        return neighbours;
+    }
+
+    private String pairedId(BpmnModel.Element element, boolean translate) {
+        if (element.getId() == null) {
+            return null;
+        }
+        if (translate) {
+            BpmnModel.Element counterpart = forward.get(element);
+            return counterpart != null ? counterpart.getId() : null;
+        }
+        return backward.containsKey(element) ? element.getId() : null;
+    }
+
+    private static String signature(BpmnModel.Element element, List<String> neighbours, String attachedTo) {
+        if (neighbours == null && attachedTo == null) {
+            return null;
+        }
+        StringBuilder signature = new StringBuilder(element.getType());
+        if (attachedTo != null) {
+            signature.append('\0').append('@').append(attachedTo);
+        }
+        if (neighbours != null) {
+            Collections.sort(neighbours);
+            for (String neighbour : neighbours) {
+                signature.append('\0').append(neighbour);
+            }
+        }
+        return signature.toString();
+    }
+
+    /**
+     * Id in the other diagram of the element a base reference points at, or the reference itself
+     */
+    private String translate(String id) {
+        if (id == null) {
+            return null;
+        }
+        BpmnModel.Element counterpart = forward.get(base.lookup(id));
+        return counterpart != null ? counterpart.getId() : id;
+    }
+
+    private Result compare() {
+        Map<String, BpmnModel.DiagramItem> baseItems = diagramItems(base);
+        Map<String, BpmnModel.DiagramItem> otherItems = diagramItems(other);
+
+        List<ElementChange> changes = new ArrayList<>();
+        int added = 0;
+        int removed = 0;
+        int renamed = 0;
+        int moved = 0;
+        int changed = 0;
+        int unchanged = 0;
+
+        for (BpmnModel.Element element : base.getElements()) {
+            if (!forward.containsKey(element)) {
+                removed++;
+                changes.add(ElementChange.builder()
+                        .elementId(element.getId())
+                        .type(element.getType())
+                        .name(element.getName())
+                        .kinds(List.of(ChangeKind.REMOVED))
+                        .build());
+            }
+        }
+
+        for (BpmnModel.Element element : other.getElements()) {
+            BpmnModel.Element previous = backward.get(element);
+            if (previous == null) {
+                added++;
+                changes.add(ElementChange.builder()
+                        .otherElementId(element.getId())
+                        .type(element.getType())
+                        .otherName(element.getName())
+                        .kinds(List.of(ChangeKind.ADDED))
+                        .build());
+                continue;
+            }
+
+            List<AttributeChange> attributes = new ArrayList<>();
+            boolean isRenamed = !Objects.equals(normalize(previous.getName()), normalize(element.getName()));
+            if (isRenamed) {
+                attributes.add(new AttributeChange("name", previous.getName(), element.getName()));
+            }
+            boolean isMoved = compareReference(attributes, "parent", previous.getParentId(), element.getParentId());
+            isMoved |= compareReference(attributes, "lane", previous.getLane(), element.getLane());
+            isMoved |= compareLayout(attributes, baseItems.get(previous.getId()), otherItems.get(element.getId()));
+            boolean isChanged = compareAttributes(attributes, previous, element);
+
+            if (attributes.isEmpty()) {
+                unchanged++;
+                continue;
+            }
+            List<ChangeKind> kinds = new ArrayList<>(3);
+            if (isRenamed) {
+                kinds.add(ChangeKind.RENAMED);
+                renamed++;
+            }
+            if (isMoved) {
+                kinds.add(ChangeKind.MOVED);
+                moved++;
+            }
+            if (isChanged) {
+                kinds.add(ChangeKind.CHANGED);
+                changed++;
+            }
+            String how = matchedBy.get(previous);
+            changes.add(ElementChange.builder()
+                    .elementId(previous.getId())
+                    .otherElementId(element.getId().equals(previous.getId()) ? null : element.getId())
+                    .type(element.getType())
+                    .name(previous.getName())
+                    .otherName(isRenamed ? element.getName() : null)
+                    .matchedBy(how)
+                    .kinds(kinds)
+                    .attributes(attributes)
+                    .build());
+        }
+        return new Result(changes, added, removed, renamed, moved, changed, unchanged);
+    }
+
+    private boolean compareAttributes(List<AttributeChange> attributes, BpmnModel.Element before,
+                                      BpmnModel.Element after) {
+        int count = attributes.size();
+        compareValue(attributes, "id", before.getId(), after.getId());
+        compareValue(attributes, "type", before.getType(), after.getType());
+        compareReference(attributes, "sourceRef", before.getSourceRef(), after.getSourceRef());
+        compareReference(attributes, "targetRef", before.getTargetRef(), after.getTargetRef());
+        compareReference(attributes, "default", before.getDefaultFlow(), after.getDefaultFlow());
+        compareReference(attributes, "attachedToRef", before.getAttachedTo(), after.getAttachedTo());
+        compareValue(attributes, "eventDefinition", before.getEventDefinition(), after.getEventDefinition());
+        compareValue(attributes, "condition", trim(before.getCondition()), trim(after.getCondition()));
+        compareValue(attributes, "documentation", trim(before.getDocumentation()), trim(after.getDocumentation()));
+        compareFlag(attributes, "nonInterrupting", before.isNonInterrupting(), after.isNonInterrupting());
+        compareFlag(attributes, "triggeredByEvent", before.isTriggeredByEvent(), after.isTriggeredByEvent());
+        compareFlag(attributes, "isForCompensation", before.isForCompensation(), after.isForCompensation());
+        compareFlag(attributes, "instantiate", before.isInstantiate(), after.isInstantiate());
+        return attributes.size() > count;
+    }
+
+    private static boolean compareValue(List<AttributeChange> attributes, String attribute, String before, String after) {
+        if (Objects.equals(before, after)) {
+            return false;
+        }
+        attributes.add(new AttributeChange(attribute, before, after));
+        return true;
+    }
+
+    private static void compareFlag(List<AttributeChange> attributes, String attribute, boolean before, boolean after) {
+        if (before != after) {
+            attributes.add(new AttributeChange(attribute, String.valueOf(before), String.valueOf(after)));
+        }
+    }
+
+    private boolean compareReference(List<AttributeChange> attributes, String attribute, String before, String after) {
+        if (Objects.equals(translate(before), after)) {
+            return false;
+        }
+        attributes.add(new AttributeChange(attribute, before, after));
+        return true;
+    }
+
+    /**
+     * Position and waypoint changes count as moves; a resized shape is a change
+     */
+    private static boolean compareLayout(List<AttributeChange> attributes, BpmnModel.DiagramItem before,
+                                         BpmnModel.DiagramItem after) {
+        if (before instanceof BpmnModel.Shape && after instanceof BpmnModel.Shape) {
+            double[] from = ((BpmnModel.Shape) before).getBounds();
+            double[] to = ((BpmnModel.Shape) after).getBounds();
+            if (from == null || to == null) {
+                return false;
+            }
+            if (!close(from[2], to[2]) || !close(from[3], to[3])) {
+                attributes.add(new AttributeChange("size", format(from, 2, 4), format(to, 2, 4)));
+            }
+            if (!close(from[0], to[0]) || !close(from[1], to[1])) {
+                attributes.add(new AttributeChange("position", format(from, 0, 2), format(to, 0, 2)));
+                return true;
+            }
+            return false;
+        }
+        if (before instanceof BpmnModel.Edge && after instanceof BpmnModel.Edge) {
+            double[] from = ((BpmnModel.Edge) before).getPoints();
+            double[] to = ((BpmnModel.Edge) after).getPoints();
+            if (from == null || to == null) {
+                return false;
+            }
+            boolean same = from.length == to.length;
+            for (int i = 0; same && i < from.length; i++) {
+                same = close(from[i], to[i]);
+            }
+            if (!same) {
+                attributes.add(new AttributeChange("waypoints", format(from, 0, from.length), format(to, 0, to.length)));
+                return true;
+            }
+            return false;
+        }
+        if ((before == null) != (after == null)) {
+            attributes.add(new AttributeChange("shown", String.valueOf(before != null), String.valueOf(after != null)));
+            return true;
+        }
+        return false;
+    }
+
+    private static Map<String, BpmnModel.DiagramItem> diagramItems(BpmnModel model) {
+        Map<String, BpmnModel.DiagramItem> items = new HashMap<>();
+        for (BpmnModel.DiagramItem item : model.getDiagram()) {
+            if (item.getElement().getId() != null) {
+                items.putIfAbsent(item.getElement().getId(), item);
+            }
+        }
+        return items;
+    }
+
+    private static boolean isConnection(BpmnModel.Element element) {
+        return element.getSourceRef() != null && element.getTargetRef() != null;
+    }
+
+    private static boolean hasName(BpmnModel.Element element) {
+        return normalize(element.getName()) != null;
+    }
+
+    /**
+     * Names compare case-sensitively but ignore surrounding and repeated whitespace
+     */
+    private static String normalize(String name) {
+        if (name == null) {
+            return null;
+        }
+        String normalized = name.trim().replaceAll("\\s+", " ");
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    private static String trim(String text) {
+        if (text == null) {
+            return null;
+        }
+        String trimmed = text.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static boolean close(double a, double b) {
+        return Math.abs(a - b) <= POSITION_TOLERANCE;
+    }
+
+    private static String format(double[] values, int from, int to) {
+        StringBuilder out = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                out.append((i - from) % 2 == 0 ? " " : ",");
+            }
+            double value = values[i];
+            if (value == Math.rint(value)) {
+                out.append((long) value);
+            } else {
+                out.append(value);
+            }
+        }
+        return out.toString();
+    }
+}
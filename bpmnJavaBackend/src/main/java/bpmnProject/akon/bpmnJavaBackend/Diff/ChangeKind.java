@@ -0,0 +1,15 @@
+package bpmnProject.akon.bpmnJavaBackend.Diff;
+
+/**
+ * What happened to an element between two diagrams
+ */
+public enum ChangeKind {
+    ADDED,
+    REMOVED,
+    // The name differs
+    RENAMED,
+    // The shape or edge sits elsewhere on the canvas, or the element changed parent or lane
+    MOVED,
+    // Any other attribute differs, e.g. id, type, condition, source or target
+    CHANGED
+}
@@ -0,0 +1,35 @@
+package bpmnProject.akon.bpmnJavaBackend.Diff;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Semantic differences between two stored diagrams, from the first to the other
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DiagramDiff {
+    private Long fileId;
+    private Long otherFileId;
+    // Set when revisions of one file were compared
+    private Integer revision;
+    private Integer otherRevision;
+    private String contentHash;
+    private String otherContentHash;
+    private int added;
+    private int removed;
+    private int renamed;
+    private int moved;
+    private int changed;
+    private int unchanged;
+    // Removed elements in the order of the first diagram, then the rest in the order of the other
+    private List<ElementChange> changes;
+}
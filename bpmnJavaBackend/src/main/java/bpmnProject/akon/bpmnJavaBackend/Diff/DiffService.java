@@ -0,0 +1,149 @@
+package bpmnProject.akon.bpmnJavaBackend.Diff;
+
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.BpmnModel;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.BpmnModelCache;
+import bpmnProject.akon.bpmnJavaBackend.File.BpmnPdfService;
+import bpmnProject.akon.bpmnJavaBackend.File.File;
+import bpmnProject.akon.bpmnJavaBackend.File.FileService;
+import bpmnProject.akon.bpmnJavaBackend.Version.FileRevision;
+import bpmnProject.akon.bpmnJavaBackend.Version.FileVersionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Semantic diffs between stored files or between revisions of one file.
+ *
+ * Both sides come from the shared {@link BpmnModelCache}, so comparing diagrams that were
+ * recently rendered, validated or indexed parses nothing. Results are cached per ordered
+ * pair of content hashes; content hashes never change meaning, so entries are only evicted.
+ */
+@Service
+public class DiffService {
+
+    private final FileService fileService;
+    private final BpmnPdfService bpmnPdfService;
+    private final FileVersionService fileVersionService;
+    private final BpmnModelCache modelCache;
+    private final int cacheSize;
+    private final Map<String, BpmnDiffEngine.Result> cache;
+
+    @Autowired
+    public DiffService(FileService fileService, BpmnPdfService bpmnPdfService, FileVersionService fileVersionService,
+                       BpmnModelCache modelCache,
+                       @Value("${application.diff.cache.max-entries:500}") int cacheSize) {
+        this.fileService = fileService;
+        this.bpmnPdfService = bpmnPdfService;
+        this.fileVersionService = fileVersionService;
+        this.modelCache = modelCache;
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BpmnDiffEngine.Result> eldest) {
+                return size() > DiffService.this.cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Differences from one file to another
+     *
+     * @throws IllegalArgumentException when either file is not a readable BPMN diagram
+     */
+    public DiagramDiff diffFiles(Long id, Long otherId) {
+        File file = fileService.findFileById(id);
+        File otherFile = fileService.findFileById(otherId);
+        BpmnDiffEngine.Result result = diff(file.getContentHash(), otherFile.getContentHash(),
+                () -> bpmnPdfService.modelOf(file), () -> bpmnPdfService.modelOf(otherFile));
+        return toDiff(result)
+                .fileId(id)
+                .otherFileId(otherId)
+                .contentHash(file.getContentHash())
+                .otherContentHash(otherFile.getContentHash())
+                .build();
+    }
+
+    /**
+     * Differences from one revision of a file to another
+     *
+     * @throws IllegalArgumentException when either revision is not a readable BPMN diagram
+     */
+    public DiagramDiff diffRevisions(Long fileId, int revision, int otherRevision) {
+        FileRevision from = fileVersionService.getRevision(fileId, revision);
+        FileRevision to = fileVersionService.getRevision(fileId, otherRevision);
+        BpmnDiffEngine.Result result = diff(from.getContentHash(), to.getContentHash(),
+                () -> modelOf(from), () -> modelOf(to));
+        return toDiff(result)
+                .fileId(fileId)
+                .otherFileId(fileId)
+                .revision(revision)
+                .otherRevision(otherRevision)
+                .contentHash(from.getContentHash())
+                .otherContentHash(to.getContentHash())
+                .build();
+    }
+
+    public Map<String, Object> stats() {
+        synchronized (cache) {
+            return Map.of("entries", cache.size(), "maxEntries", cacheSize);
+        }
+    }
+
+    private BpmnDiffEngine.Result diff(String hash, String otherHash, ModelLoader loader, ModelLoader otherLoader) {
+        String key = hash != null && otherHash != null ? hash + ":" + otherHash : null;
+        if (key != null) {
+            synchronized (cache) {
+                BpmnDiffEngine.Result cached = cache.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+        }
+
+        BpmnDiffEngine.Result result;
+        try {
+            result = BpmnDiffEngine.diff(loader.load(), otherLoader.load());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Not a readable BPMN diagram: " + e.getMessage(), e);
+        }
+        if (key != null) {
+            synchronized (cache) {
+                cache.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Model of a revision; its content is only reconstructed when the model is not cached
+     */
+    private BpmnModel modelOf(FileRevision revision) throws IOException {
+        BpmnModel cached = revision.getContentHash() != null ? modelCache.peek(revision.getContentHash()) : null;
+        if (cached != null) {
+            return cached;
+        }
+        byte[] content = fileVersionService.reconstruct(revision.getFileId(), revision.getRevision());
+        return modelCache.get(revision.getContentHash(), () -> new ByteArrayInputStream(content));
+    }
+
+    private static DiagramDiff.DiagramDiffBuilder toDiff(BpmnDiffEngine.Result result) {
+        return DiagramDiff.builder()
+                .added(result.added)
+                .removed(result.removed)
+                .renamed(result.renamed)
+                .moved(result.moved)
+                .changed(result.changed)
+                .unchanged(result.unchanged)
+                .changes(result.changes);
+    }
+
+    @FunctionalInterface
+    private interface ModelLoader {
+        BpmnModel load() throws IOException;
+    }
+}
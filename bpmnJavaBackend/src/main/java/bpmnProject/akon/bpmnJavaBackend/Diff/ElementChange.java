@@ -0,0 +1,30 @@
+package bpmnProject.akon.bpmnJavaBackend.Diff;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * An element that was added, removed or changed. Ids and names prefixed "other" are those
+ * in the diagram compared against.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ElementChange {
+    private String elementId;
+    private String otherElementId;
+    private String type;
+    private String name;
+    private String otherName;
+    // How the two sides were paired: id, name or structure; null for added and removed elements
+    private String matchedBy;
+    private List<ChangeKind> kinds;
+    private List<AttributeChange> attributes;
+}
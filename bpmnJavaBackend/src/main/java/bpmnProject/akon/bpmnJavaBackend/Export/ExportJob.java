@@ -0,0 +1,69 @@
+package bpmnProject.akon.bpmnJavaBackend.Export;
+
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.RenderKey;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One queued render of a file into an export format. The result itself lives in the
+ * render cache; the job only tracks state.
+ */
+@Getter
+public class ExportJob {
+
+    private final String id;
+    private final Long fileId;
+    private final String fileName;
+    private final String format;
+    private final LocalDateTime createdAt;
+
+    @JsonIgnore
+    private final String owner;
+    @JsonIgnore
+    private final String dedupKey;
+    // Content and options as of submission, so later edits or renames of the file do not change the result
+    @JsonIgnore
+    private final RenderKey resultKey;
+
+    private volatile ExportJobStatus status = ExportJobStatus.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile Long resultSize;
+    private volatile String error;
+
+    public ExportJob(String id, Long fileId, String fileName, String format, String owner, String dedupKey,
+                     RenderKey resultKey) {
+        this.id = id;
+        this.fileId = fileId;
+        this.fileName = fileName;
+        this.format = format;
+        this.owner = owner;
+        this.dedupKey = dedupKey;
+        this.resultKey = resultKey;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    void markRunning() {
+        startedAt = LocalDateTime.now();
+        status = ExportJobStatus.RUNNING;
+    }
+
+    void markDone(long size) {
+        resultSize = size;
+        finishedAt = LocalDateTime.now();
+        status = ExportJobStatus.DONE;
+    }
+
+    void markFailed(String message) {
+        error = message;
+        finishedAt = LocalDateTime.now();
+        status = ExportJobStatus.FAILED;
+    }
+
+    @JsonIgnore
+    public boolean isActive() {
+        return status == ExportJobStatus.QUEUED || status == ExportJobStatus.RUNNING;
+    }
+}
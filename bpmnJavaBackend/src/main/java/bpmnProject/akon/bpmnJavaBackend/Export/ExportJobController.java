@@ -0,0 +1,114 @@
+package bpmnProject.akon.bpmnJavaBackend.Export;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/export/jobs")
+public class ExportJobController {
+
+    private final ExportJobService exportJobService;
+
+    @Autowired
+    public ExportJobController(ExportJobService exportJobService) {
+        this.exportJobService = exportJobService;
+    }
+
+    /**
+     * Body: {"fileId": 1, "format": "pdf|svg|png"}
+     */
+    @PostMapping
+    @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
+    public ResponseEntity<?> submit(@RequestBody Map<String, Object> request, Principal connectedUser) {
+        Object fileId = request.get("fileId");
+        Object format = request.get("format");
+        if (!(fileId instanceof Number) || format == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "fileId and format are required"));
+        }
+        try {
+            ExportJob job = exportJobService.submit(((Number) fileId).longValue(), format.toString(),
+                    connectedUser.getName());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/v1/export/jobs/" + job.getId()))
+                    .body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (ExportJobRejectedException e) {
+            HttpStatus status = e.getReason() == ExportJobRejectedException.Reason.USER_LIMIT
+                    ? HttpStatus.TOO_MANY_REQUESTS
+                    : HttpStatus.SERVICE_UNAVAILABLE;
+            return ResponseEntity.status(status)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "File not found"));
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
+    public ResponseEntity<ExportJob> getStatus(@PathVariable String jobId) {
+        ExportJob job = exportJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    @GetMapping("/{jobId}/result")
+    @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getResult(@PathVariable String jobId) {
+        ExportJob job = exportJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.getStatus() == ExportJobStatus.FAILED) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", job.getError()));
+        }
+        if (job.getStatus() != ExportJobStatus.DONE) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header(HttpHeaders.RETRY_AFTER, "2")
+                    .body(Map.of("status", job.getStatus()));
+        }
+
+        byte[] result = exportJobService.getResult(job);
+        if (result == null) {
+            // Evicted from the render cache since the job finished; the client has to resubmit
+            return ResponseEntity.status(HttpStatus.GONE).body(Map.of("error", "Export result expired, submit the job again"));
+        }
+
+        String baseName = job.getFileName() != null ? job.getFileName().replaceAll("\\.(bpmn|xml)$", "") : "diagram";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(mediaType(job.getFormat()));
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(baseName + "." + job.getFormat(), StandardCharsets.UTF_8)
+                .build());
+        headers.setContentLength(result.length);
+        return new ResponseEntity<>(result, headers, HttpStatus.OK);
+    }
+
+    private static MediaType mediaType(String format) {
+        switch (format) {
+            case "pdf":
+                return MediaType.APPLICATION_PDF;
+            case "png":
+                return MediaType.IMAGE_PNG;
+            case "svg":
+                return MediaType.valueOf("image/svg+xml");
+            default:
+                return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package bpmnProject.akon.bpmnJavaBackend.Export;
+
+/**
+ * Thrown when an export job cannot be accepted right now
+ */
+public class ExportJobRejectedException extends RuntimeException {
+
+    public enum Reason {
+        USER_LIMIT,
+        QUEUE_FULL
+    }
+
+    private final Reason reason;
+
+    public ExportJobRejectedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
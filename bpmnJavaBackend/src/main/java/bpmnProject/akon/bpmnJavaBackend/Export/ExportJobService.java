@@ -0,0 +1,166 @@
+package bpmnProject.akon.bpmnJavaBackend.Export;
+
+import bpmnProject.akon.bpmnJavaBackend.File.BpmnPdfService;
+import bpmnProject.akon.bpmnJavaBackend.File.File;
+import bpmnProject.akon.bpmnJavaBackend.File.FileService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs PDF/SVG/PNG exports off the request threads.
+ *
+ * Jobs go to a fixed pool with a bounded queue. Each user may only have a limited number of
+ * jobs queued or running, and a request identical to a job already in flight (same content,
+ * format and name) is answered with that job instead of a second render. Results are parked
+ * in the render cache and fetched from there; job records are kept in memory and dropped a
+ * while after they finish.
+ */
+@Service
+public class ExportJobService {
+
+    public static final Set<String> FORMATS = Set.of("pdf", "svg", "png");
+
+    private final FileService fileService;
+    private final BpmnPdfService bpmnPdfService;
+    private final int perUserLimit;
+    private final long retentionMillis;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, ExportJob> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> activePerUser = new ConcurrentHashMap<>();
+
+    public ExportJobService(FileService fileService,
+                            BpmnPdfService bpmnPdfService,
+                            @Value("${application.export.jobs.threads:2}") int threads,
+                            @Value("${application.export.jobs.queue-capacity:100}") int queueCapacity,
+                            @Value("${application.export.jobs.per-user-limit:5}") int perUserLimit,
+                            @Value("${application.export.jobs.retention:3600000}") long retentionMillis) {
+        this.fileService = fileService;
+        this.bpmnPdfService = bpmnPdfService;
+        this.perUserLimit = perUserLimit;
+        this.retentionMillis = retentionMillis;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "export-job-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Queue an export, or return the identical job already in flight
+     */
+    public ExportJob submit(Long fileId, String format, String username) {
+        String normalizedFormat = format == null ? "" : format.toLowerCase(Locale.ROOT);
+        if (!FORMATS.contains(normalizedFormat)) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+        File file = fileService.findFileById(fileId);
+
+        // The PDF page header carries the file name, other formats depend on content only
+        String dedupKey = file.getContentHash() + "|" + normalizedFormat
+                + ("pdf".equals(normalizedFormat) ? "|" + file.getFileName() : "");
+        ExportJob running = inFlight.get(dedupKey);
+        if (running != null && running.isActive()) {
+            return running;
+        }
+
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), file.getId(), file.getFileName(),
+                normalizedFormat, username, dedupKey, bpmnPdfService.exportKey(file, normalizedFormat));
+
+        // Already rendered: finish immediately without touching the queue
+        byte[] cached = bpmnPdfService.findCachedExport(job.getResultKey());
+        if (cached != null) {
+            job.markDone(cached.length);
+            jobs.put(job.getId(), job);
+            return job;
+        }
+
+        ExportJob existing = inFlight.putIfAbsent(dedupKey, job);
+        if (existing != null) {
+            return existing;
+        }
+
+        AtomicInteger active = activePerUser.computeIfAbsent(username, key -> new AtomicInteger());
+        if (active.incrementAndGet() > perUserLimit) {
+            active.decrementAndGet();
+            inFlight.remove(dedupKey, job);
+            throw new ExportJobRejectedException(ExportJobRejectedException.Reason.USER_LIMIT,
+                    "At most " + perUserLimit + " export jobs may be pending per user");
+        }
+
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, file));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            inFlight.remove(dedupKey, job);
+            active.decrementAndGet();
+            throw new ExportJobRejectedException(ExportJobRejectedException.Reason.QUEUE_FULL,
+                    "Export queue is full, try again later");
+        }
+        return job;
+    }
+
+    public ExportJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * Result bytes of a finished job, or null if the render cache no longer holds them. Looked up
+     * by the content and options the job was submitted with, not the file's current state.
+     */
+    public byte[] getResult(ExportJob job) {
+        return bpmnPdfService.findCachedExport(job.getResultKey());
+    }
+
+    private void run(ExportJob job, File file) {
+        job.markRunning();
+        try {
+            byte[] result = bpmnPdfService.export(file, job.getFormat());
+            job.markDone(result.length);
+        } catch (Exception e) {
+            System.err.println("Export job " + job.getId() + " failed: " + e.getMessage());
+            job.markFailed(e.getMessage());
+        } finally {
+            inFlight.remove(job.getDedupKey(), job);
+            AtomicInteger active = activePerUser.get(job.getOwner());
+            if (active != null) {
+                active.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Forget finished jobs after the retention period
+     */
+    @Scheduled(fixedDelayString = "${application.export.jobs.purge-interval:60000}")
+    public void purgeFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(retentionMillis));
+        jobs.values().removeIf(job -> !job.isActive()
+                && job.getFinishedAt() != null
+                && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,8 @@
+package bpmnProject.akon.bpmnJavaBackend.Export;
+
+public enum ExportJobStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
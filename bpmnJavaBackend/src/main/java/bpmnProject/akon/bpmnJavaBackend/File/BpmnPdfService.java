@@ -1,177 +1,293 @@
 package bpmnProject.akon.bpmnJavaBackend.File;
 
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.BpmnDiagramRenderer;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.BpmnModel;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.BpmnModelCache;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.BpmnSource;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.BpmnValidator;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.PdfDiagramWriter;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.PngRasterizer;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.RenderCache;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.RenderKey;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.SvgDiagramCanvas;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.ValidationReport;
+import bpmnProject.akon.bpmnJavaBackend.Storage.BlobStore;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfWriter;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.element.Paragraph;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.StringWriter;
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
 public class BpmnPdfService {
 
+    private final BlobStore blobStore;
+    private final BpmnDiagramRenderer diagramRenderer;
+    private final RenderCache renderCache;
+    private final BpmnModelCache modelCache;
+    private final PngRasterizer pngRasterizer;
+    private final PdfDiagramWriter pdfDiagramWriter;
+    private final BpmnValidator bpmnValidator;
+    private final PdfDiagramWriter.Layout pdfLayout;
+    private final float pngDpi;
+    private final int thumbnailWidth;
+    private final int thumbnailHeight;
+    private final ThreadPoolExecutor previewExecutor;
+
+    @Autowired
+    public BpmnPdfService(BlobStore blobStore, BpmnDiagramRenderer diagramRenderer, RenderCache renderCache,
+                          BpmnModelCache modelCache,
+                          PngRasterizer pngRasterizer, PdfDiagramWriter pdfDiagramWriter, BpmnValidator bpmnValidator,
+                          @Value("${application.render.pdf.layout:auto}") String pdfLayout,
+                          @Value("${application.render.png.dpi:96}") float pngDpi,
+                          @Value("${application.render.thumbnail.width:320}") int thumbnailWidth,
+                          @Value("${application.render.thumbnail.height:240}") int thumbnailHeight,
+                          @Value("${application.render.thumbnail.pregenerate-queue:100}") int pregenerateQueue) {
+        this.blobStore = blobStore;
+        this.diagramRenderer = diagramRenderer;
+        this.renderCache = renderCache;
+        this.modelCache = modelCache;
+        this.pngRasterizer = pngRasterizer;
+        this.pdfDiagramWriter = pdfDiagramWriter;
+        this.bpmnValidator = bpmnValidator;
+        this.pdfLayout = PdfDiagramWriter.Layout.parse(pdfLayout, PdfDiagramWriter.Layout.AUTO);
+        this.pngDpi = pngDpi;
+        this.thumbnailWidth = thumbnailWidth;
+        this.thumbnailHeight = thumbnailHeight;
+        // One background thread; when uploads outpace it the oldest pending preview is dropped
+        // and simply rendered on first request instead
+        this.previewExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, pregenerateQueue)), runnable -> {
+                    Thread thread = new Thread(runnable, "preview-pregenerate");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardOldestPolicy());
+    }
+
     /**
-     * Convert BPMN file to PDF
+     * Convert BPMN file to a vector PDF of the diagram
      */
     public byte[] convertBpmnToPdf(File file) {
-        try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            PdfWriter writer = new PdfWriter(baos);
-            PdfDocument pdfDoc = new PdfDocument(writer);
-            Document document = new Document(pdfDoc);
-
-            // Add title
-            document.add(new Paragraph("BPMN Diagram: " + file.getFileName())
-                    .setFontSize(16)
-                    .setBold());
-
-            // Add diagram content info
-            document.add(new Paragraph("File Type: " + file.getFileType()));
-            document.add(new Paragraph("Upload Time: " + file.getUploadTime()));
-            document.add(new Paragraph("File Size: " + formatFileSize(file.getFileSize())));
-
-            // Add XML content (truncated for display)
-            String xmlContent = new String(file.getData());
-            if (xmlContent.length() > 1000) {
-                xmlContent = xmlContent.substring(0, 1000) + "...";
-            }
-            document.add(new Paragraph("BPMN XML Content (preview):"));
-            document.add(new Paragraph(xmlContent).setFontSize(8));
+        return convertBpmnToPdfWithMetadata(file, Map.of());
+    }
 
-            document.close();
+    /**
+     * Convert BPMN file to PDF with custom metadata in the document info
+     */
+    public byte[] convertBpmnToPdfWithMetadata(File file, Map<String, Object> metadata) {
+        return cached(file, "pdf", pdfOptions(file, metadata, pdfLayout), () -> {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            renderPdf(file, metadata, pdfLayout, baos);
             return baos.toByteArray();
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new RuntimeException("Failed to convert BPMN to PDF", e);
-        }
+        });
     }
 
     /**
-     * Convert BPMN file to PDF with custom metadata
+     * Write the PDF to the given stream; a cached copy is replayed, otherwise the document is
+     * streamed as it is rendered and captured for the cache on the way
      */
-    public byte[] convertBpmnToPdfWithMetadata(File file, Map<String, Object> metadata) {
+    public void writePdf(File file, Map<String, Object> metadata, String layout, OutputStream out) throws IOException {
+        PdfDiagramWriter.Layout pageLayout = PdfDiagramWriter.Layout.parse(layout, pdfLayout);
+        if (file.getContentHash() == null) {
+            renderPdf(file, metadata, pageLayout, out);
+            return;
+        }
+
+        RenderKey key = new RenderKey(file.getContentHash(), "pdf", pdfOptions(file, metadata, pageLayout));
+        if (renderCache.writeTo(key, out)) {
+            out.flush();
+            return;
+        }
+        RenderCache.Capture capture = renderCache.capture(key, out);
         try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            PdfWriter writer = new PdfWriter(baos);
-            PdfDocument pdfDoc = new PdfDocument(writer);
-            Document document = new Document(pdfDoc);
+            renderPdf(file, metadata, pageLayout, capture);
+            capture.commit();
+        } finally {
+            capture.discard();
+        }
+    }
 
-            // Add metadata to PDF info
-            if (metadata.containsKey("title")) {
-                pdfDoc.getDocumentInfo().setTitle(metadata.get("title").toString());
-            }
-            if (metadata.containsKey("author")) {
-                pdfDoc.getDocumentInfo().setAuthor(metadata.get("author").toString());
-            }
+    private void renderPdf(File file, Map<String, Object> metadata, PdfDiagramWriter.Layout layout, OutputStream out) {
+        try {
+            pdfDiagramWriter.write(modelOf(file), "BPMN Diagram: " + file.getFileName(), metadata, layout, out);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to convert BPMN to PDF", e);
+        }
+    }
 
-            // Add title
-            document.add(new Paragraph("BPMN Diagram: " + file.getFileName())
-                    .setFontSize(16)
-                    .setBold());
-
-            // Add metadata info
-            metadata.forEach((key, value) -> {
-                document.add(new Paragraph(key + ": " + value.toString()));
-            });
-
-            // Add file info
-            document.add(new Paragraph("File Type: " + file.getFileType()));
-            document.add(new Paragraph("Upload Time: " + file.getUploadTime()));
-            document.add(new Paragraph("File Size: " + formatFileSize(file.getFileSize())));
-
-            // Add XML content
-            String xmlContent = new String(file.getData());
-            if (xmlContent.length() > 1000) {
-                xmlContent = xmlContent.substring(0, 1000) + "...";
-            }
-            document.add(new Paragraph("BPMN XML Content (preview):"));
-            document.add(new Paragraph(xmlContent).setFontSize(8));
+    /**
+     * The page header shows the file name, so it is part of the cache key
+     */
+    private static String pdfOptions(File file, Map<String, Object> metadata, PdfDiagramWriter.Layout layout) {
+        return "layout=" + layout + "&name=" + file.getFileName() + "&metadata=" + new TreeMap<>(metadata);
+    }
 
-            document.close();
+    /**
+     * Convert BPMN to SVG from the diagram interchange (BPMNDI) shapes and edges
+     */
+    public byte[] convertBpmnToSvg(File file) {
+        return cached(file, "svg", "", () -> {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            renderSvg(file, baos);
             return baos.toByteArray();
+        });
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new RuntimeException("Failed to convert BPMN to PDF with metadata", e);
+    /**
+     * Render the SVG straight to the given stream without buffering the whole document
+     */
+    public void renderSvg(File file, OutputStream out) {
+        try {
+            diagramRenderer.render(modelOf(file), new SvgDiagramCanvas(out));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to convert BPMN to SVG", e);
         }
     }
 
     /**
-     * Convert BPMN to SVG (placeholder implementation)
+     * Render one of the export formats (pdf, svg, png) through the render cache
      */
-    public byte[] convertBpmnToSvg(File file) {
-        String svg = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
-                "<svg width=\"400\" height=\"200\" xmlns=\"http://www.w3.org/2000/svg\">\n" +
-                "  <rect x=\"10\" y=\"10\" width=\"380\" height=\"180\" fill=\"lightblue\" stroke=\"black\"/>\n" +
-                "  <text x=\"200\" y=\"100\" text-anchor=\"middle\" font-size=\"16\">" + file.getFileName() + "</text>\n" +
-                "  <text x=\"200\" y=\"130\" text-anchor=\"middle\" font-size=\"12\">BPMN Diagram SVG Placeholder</text>\n" +
-                "</svg>";
-        return svg.getBytes();
+    public byte[] export(File file, String format) {
+        switch (format) {
+            case "pdf":
+                return convertBpmnToPdf(file);
+            case "svg":
+                return convertBpmnToSvg(file);
+            case "png":
+                return convertBpmnToPng(file);
+            default:
+                throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
     }
 
     /**
-     * Convert BPMN to PNG (placeholder implementation)
+     * Already rendered export from the render cache, or null without rendering anything
      */
-    public byte[] convertBpmnToPng(File file) {
-        // This would require additional libraries like batik for SVG to PNG conversion
-        // For now, return empty array
-        return new byte[0];
+    public byte[] findCachedExport(File file, String format) {
+        return findCachedExport(exportKey(file, format));
     }
 
     /**
-     * Validate BPMN file
+     * Already rendered export under a key from {@link #exportKey}, or null
      */
-    public Map<String, Object> validateBpmnFile(File file) {
-        Map<String, Object> result = new HashMap<>();
-
-        try {
-            String xmlContent = new String(file.getData());
+    public byte[] findCachedExport(RenderKey key) {
+        return key != null ? renderCache.peek(key) : null;
+    }
 
-            boolean isValidXml = xmlContent.contains("<?xml") && xmlContent.contains("bpmn:");
-            boolean hasDefinitions = xmlContent.contains("bpmn:definitions");
-            boolean hasProcess = xmlContent.contains("bpmn:process");
+    /**
+     * Render cache key {@link #export} stores the file's current rendering under, or null
+     * when the content is not addressable
+     */
+    public RenderKey exportKey(File file, String format) {
+        if (file.getContentHash() == null) {
+            return null;
+        }
+        String options;
+        switch (format) {
+            case "pdf":
+                options = pdfOptions(file, Map.of(), pdfLayout);
+                break;
+            case "png":
+                options = "dpi=" + pngDpi;
+                break;
+            default:
+                options = "";
+        }
+        return new RenderKey(file.getContentHash(), format, options);
+    }
 
-            result.put("valid", isValidXml && hasDefinitions);
+    /**
+     * Serve from the render cache when the content is addressable, render directly otherwise
+     */
+    private byte[] cached(File file, String format, String options, Supplier<byte[]> renderer) {
+        if (file.getContentHash() == null) {
+            return renderer.get();
+        }
+        return renderCache.get(new RenderKey(file.getContentHash(), format, options), renderer);
+    }
 
-            if (!isValidXml) {
-                result.put("errors", java.util.Arrays.asList("Invalid XML format or missing BPMN namespace"));
-            } else if (!hasDefinitions) {
-                result.put("errors", java.util.Arrays.asList("Missing BPMN definitions element"));
-            } else if (!hasProcess) {
-                result.put("warnings", java.util.Arrays.asList("No process definition found"));
-            }
+    /**
+     * Parsed model of the file's content, shared through the model cache
+     */
+    public BpmnModel modelOf(File file) throws IOException {
+        return modelCache.get(file.getContentHash(), sourceOf(file));
+    }
 
-        } catch (Exception e) {
-            result.put("valid", false);
-            result.put("errors", java.util.Arrays.asList("Failed to parse file: " + e.getMessage()));
+    /**
+     * Read the XML from memory when already loaded, otherwise from the blob store on each pass
+     */
+    private BpmnSource sourceOf(File file) {
+        byte[] data = file.getData();
+        if (data != null) {
+            return () -> new ByteArrayInputStream(data);
         }
+        String contentHash = file.getContentHash();
+        if (contentHash == null) {
+            throw new IllegalStateException("File " + file.getId() + " has no stored content");
+        }
+        return () -> blobStore.open(contentHash);
+    }
+
+    /**
+     * Convert BPMN to PNG by rasterizing the rendered SVG at the configured DPI
+     */
+    public byte[] convertBpmnToPng(File file) {
+        return cached(file, "png", "dpi=" + pngDpi,
+                () -> pngRasterizer.rasterize(convertBpmnToSvg(file), pngDpi));
+    }
 
-        return result;
+    /**
+     * Validate BPMN file against the schema and the structural rules, streaming it from the blob store
+     */
+    public ValidationReport validateBpmnFile(File file, boolean fullParse) {
+        try {
+            return bpmnValidator.validate(file.getContentHash(), sourceOf(file), fullParse);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read BPMN file " + file.getId(), e);
+        }
     }
 
     /**
      * Generate preview/thumbnail
      */
     public byte[] generatePreview(File file) {
-        // Return a simple placeholder image for now
-        // In a real implementation, you'd generate an actual preview
-        return new byte[0];
+        return cached(file, "preview", "size=" + thumbnailWidth + "x" + thumbnailHeight,
+                () -> pngRasterizer.thumbnail(convertBpmnToSvg(file), thumbnailWidth, thumbnailHeight));
     }
 
     /**
-     * Format file size for display
+     * Render the thumbnail in the background so the first preview request is a cache read
      */
-    private String formatFileSize(Long bytes) {
-        if (bytes == null || bytes == 0) return "0 Bytes";
-        String[] sizes = {"Bytes", "KB", "MB", "GB"};
-        int i = (int) Math.floor(Math.log(bytes) / Math.log(1024));
-        return Math.round(bytes / Math.pow(1024, i) * 100.0) / 100.0 + " " + sizes[i];
+    public void pregeneratePreview(File file) {
+        if (file.getContentHash() == null) {
+            return;
+        }
+        // Detached copy: the entity may still be attached to the uploading transaction
+        File snapshot = new File();
+        snapshot.setId(file.getId());
+        snapshot.setFileName(file.getFileName());
+        snapshot.setContentHash(file.getContentHash());
+        previewExecutor.execute(() -> {
+            try {
+                generatePreview(snapshot);
+            } catch (Exception e) {
+                System.err.println("Failed to pregenerate preview for file " + snapshot.getId() + ": " + e.getMessage());
+            }
+        });
     }
 
-
-}
\ No newline at end of file
+    @PreDestroy
+    public void shutdown() {
+        previewExecutor.shutdownNow();
+    }
+}
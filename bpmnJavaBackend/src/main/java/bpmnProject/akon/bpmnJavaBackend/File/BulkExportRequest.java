@@ -0,0 +1,23 @@
+package bpmnProject.akon.bpmnJavaBackend.File;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Selection for a bulk ZIP export: explicit ids, or a name/type filter when ids is empty.
+ * Formats are any of xml (the original), svg, pdf and png; xml only by default.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkExportRequest {
+    private List<Long> ids;
+    private String name;
+    private String type;
+    private List<String> formats;
+}
@@ -0,0 +1,250 @@
+package bpmnProject.akon.bpmnJavaBackend.File;
+
+import bpmnProject.akon.bpmnJavaBackend.Storage.BlobStore;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams many diagrams into one ZIP archive.
+ *
+ * Metadata is read in batches, originals are copied from the blob store straight into the
+ * archive, and renders are produced on a small pool a bounded number of entries ahead of the
+ * writer. At most that window of rendered artifacts is in memory at any time, however many
+ * files are selected. Entries are written in selection order; a file that fails to render gets
+ * an error note in its folder instead of aborting the archive.
+ */
+@Service
+public class BulkExportService {
+
+    public static final Set<String> FORMATS = Set.of("xml", "svg", "pdf", "png");
+    private static final int BATCH_SIZE = 100;
+
+    private final FileService fileService;
+    private final BpmnPdfService bpmnPdfService;
+    private final BlobStore blobStore;
+    private final int maxFiles;
+    private final int window;
+    private final ExecutorService renderPool;
+
+    @Autowired
+    public BulkExportService(FileService fileService,
+                             BpmnPdfService bpmnPdfService,
+                             BlobStore blobStore,
+                             @Value("${application.export.bulk.parallelism:4}") int parallelism,
+                             @Value("${application.export.bulk.max-files:5000}") int maxFiles) {
+        this.fileService = fileService;
+        this.bpmnPdfService = bpmnPdfService;
+        this.blobStore = blobStore;
+        this.maxFiles = maxFiles;
+        this.window = Math.max(1, parallelism) * 2;
+        AtomicInteger counter = new AtomicInteger();
+        this.renderPool = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "bulk-export-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Normalized, de-duplicated format list; rejects anything unknown
+     */
+    public List<String> resolveFormats(List<String> formats) {
+        if (formats == null || formats.isEmpty()) {
+            return List.of("xml");
+        }
+        Set<String> resolved = new LinkedHashSet<>();
+        for (String format : formats) {
+            String normalized = format == null ? "" : format.trim().toLowerCase(Locale.ROOT);
+            if (!FORMATS.contains(normalized)) {
+                throw new IllegalArgumentException("Unsupported export format: " + format);
+            }
+            resolved.add(normalized);
+        }
+        return new ArrayList<>(resolved);
+    }
+
+    public void writeZip(BulkExportRequest request, List<String> formats, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        Deque<Future<Entry>> pending = new ArrayDeque<>();
+        Set<String> usedFolders = new HashSet<>();
+        int[] exported = {0};
+        try {
+            forEachBatch(request, batch -> {
+                for (File file : batch) {
+                    if (exported[0]++ >= maxFiles) {
+                        return false;
+                    }
+                    String folder = uniqueFolder(file, usedFolders);
+                    for (String format : formats) {
+                        pending.addLast(schedule(file, folder, format));
+                        while (pending.size() >= window) {
+                            write(zip, pending.removeFirst());
+                        }
+                    }
+                }
+                return true;
+            });
+            while (!pending.isEmpty()) {
+                write(zip, pending.removeFirst());
+            }
+            zip.finish();
+            zip.flush();
+        } finally {
+            // Client went away or writing failed: stop rendering what nobody will read
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private Future<Entry> schedule(File file, String folder, String format) {
+        if ("xml".equals(format)) {
+            // Originals are copied from the blob store while writing, nothing to prepare
+            String name = folder + "/" + safeName(file.getFileName() != null ? file.getFileName() : "diagram.bpmn");
+            return CompletableFuture.completedFuture(new Entry(name, file, null, null));
+        }
+        String name = folder + "/" + baseName(file) + "." + format;
+        return renderPool.submit(() -> {
+            try {
+                return new Entry(name, file, bpmnPdfService.export(file, format), null);
+            } catch (Exception e) {
+                return new Entry(name, file, null, e.getMessage());
+            }
+        });
+    }
+
+    private void write(ZipOutputStream zip, Future<Entry> future) throws IOException {
+        Entry entry;
+        try {
+            entry = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Bulk export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Bulk export failed", e.getCause());
+        }
+
+        if (entry.error != null) {
+            writeError(zip, entry.name, entry.error);
+            return;
+        }
+        if (entry.data != null) {
+            zip.putNextEntry(new ZipEntry(entry.name));
+            zip.write(entry.data);
+            zip.closeEntry();
+            return;
+        }
+
+        String hash = entry.file.getContentHash();
+        if (hash == null || !blobStore.exists(hash)) {
+            writeError(zip, entry.name, "Content not found");
+            return;
+        }
+        zip.putNextEntry(new ZipEntry(entry.name));
+        try (InputStream in = blobStore.open(hash)) {
+            in.transferTo(zip);
+        }
+        zip.closeEntry();
+    }
+
+    private static void writeError(ZipOutputStream zip, String name, String error) throws IOException {
+        zip.putNextEntry(new ZipEntry(name + ".error.txt"));
+        zip.write(("Export failed: " + error).getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    /**
+     * Feed the selection to the consumer a batch at a time; the consumer returns false to stop
+     */
+    private void forEachBatch(BulkExportRequest request, BatchConsumer consumer) throws IOException {
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            List<Long> ids = new ArrayList<>(new LinkedHashSet<>(request.getIds()));
+            for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+                List<File> batch = fileService.findFilesByIds(ids.subList(i, Math.min(ids.size(), i + BATCH_SIZE)));
+                if (!consumer.accept(batch)) {
+                    return;
+                }
+            }
+            return;
+        }
+
+        String cursor = null;
+        do {
+            FilePage page = fileService.listFiles(cursor, BATCH_SIZE, true, request.getName(), request.getType());
+            List<Long> ids = new ArrayList<>(page.getItems().size());
+            page.getItems().forEach(summary -> ids.add(summary.getId()));
+            if (!consumer.accept(fileService.findFilesByIds(ids))) {
+                return;
+            }
+            cursor = page.isHasMore() ? page.getNextCursor() : null;
+        } while (cursor != null);
+    }
+
+    private static String uniqueFolder(File file, Set<String> used) {
+        String folder = file.getId() + "-" + baseName(file);
+        // Ids are unique, but keep the guard in case sanitizing collapses names
+        String candidate = folder;
+        for (int i = 2; !used.add(candidate); i++) {
+            candidate = folder + "-" + i;
+        }
+        return candidate;
+    }
+
+    private static String baseName(File file) {
+        String name = file.getFileName() != null ? file.getFileName() : "diagram";
+        return safeName(name.replaceAll("\\.(bpmn|xml)$", ""));
+    }
+
+    /**
+     * Strip path separators and other characters that would escape the entry folder
+     */
+    private static String safeName(String name) {
+        String cleaned = name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").replace("..", "_").trim();
+        return cleaned.isEmpty() ? "diagram" : cleaned;
+    }
+
+    @FunctionalInterface
+    private interface BatchConsumer {
+        boolean accept(List<File> batch) throws IOException;
+    }
+
+    private static final class Entry {
+        private final String name;
+        private final File file;
+        private final byte[] data;
+        private final String error;
+
+        private Entry(String name, File file, byte[] data, String error) {
+            this.name = name;
+            this.file = file;
+            this.data = data;
+            this.error = error;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdownNow();
+    }
+}
@@ -0,0 +1,23 @@
+package bpmnProject.akon.bpmnJavaBackend.File;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Per-entry report of a bulk import. Truncated is set when entries beyond the limit were ignored.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportReport {
+    private int imported;
+    private int rejected;
+    private int failed;
+    private boolean truncated;
+    private List<BulkImportResult> entries;
+}
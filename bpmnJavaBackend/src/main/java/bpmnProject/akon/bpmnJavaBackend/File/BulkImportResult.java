@@ -0,0 +1,30 @@
+package bpmnProject.akon.bpmnJavaBackend.File;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one entry of a bulk import: a multipart part or a file inside an uploaded ZIP
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResult {
+
+    public enum Status {
+        IMPORTED,
+        REJECTED,
+        FAILED
+    }
+
+    private String name;
+    private Status status;
+    // Set for rejected entries, one of UploadRejectedException.Reason
+    private String reason;
+    private String message;
+    private Long fileId;
+    private Long fileSize;
+}
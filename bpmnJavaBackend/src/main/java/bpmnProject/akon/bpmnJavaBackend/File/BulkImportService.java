@@ -0,0 +1,285 @@
+package bpmnProject.akon.bpmnJavaBackend.File;
+
+import bpmnProject.akon.bpmnJavaBackend.Storage.BlobStore;
+import bpmnProject.akon.bpmnJavaBackend.Storage.StoredBlob;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Imports many diagrams in one request, from several multipart parts and/or ZIP archives.
+ *
+ * Entries are read one after another and handed to a small pool that runs the upload guard,
+ * writes the blob and validates it, a bounded number of entries ahead of the reader. Accepted entries are
+ * then saved together through {@link FileService#importFiles}, so the whole request costs one
+ * transaction and a handful of batched inserts instead of one commit per file.
+ */
+@Service
+public class BulkImportService {
+
+    private static final String BPMN_CONTENT_TYPE = "application/xml";
+
+    private final FileService fileService;
+    private final BpmnPdfService bpmnPdfService;
+    private final UploadGuard uploadGuard;
+    private final BlobStore blobStore;
+    private final int maxEntries;
+    private final int window;
+    private final ExecutorService validationPool;
+
+    @Autowired
+    public BulkImportService(FileService fileService,
+                             BpmnPdfService bpmnPdfService,
+                             UploadGuard uploadGuard,
+                             BlobStore blobStore,
+                             @Value("${application.upload.bulk.parallelism:4}") int parallelism,
+                             @Value("${application.upload.bulk.max-entries:1000}") int maxEntries) {
+        this.fileService = fileService;
+        this.bpmnPdfService = bpmnPdfService;
+        this.uploadGuard = uploadGuard;
+        this.blobStore = blobStore;
+        this.maxEntries = maxEntries;
+        this.window = Math.max(1, parallelism) * 2;
+        AtomicInteger counter = new AtomicInteger();
+        this.validationPool = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "bulk-import-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public BulkImportReport importParts(List<MultipartFile> parts) {
+        List<BulkImportResult> results = new ArrayList<>();
+        List<File> accepted = new ArrayList<>();
+        List<BulkImportResult> acceptedResults = new ArrayList<>();
+        Deque<Future<Staged>> pending = new ArrayDeque<>();
+        int entries = 0;
+        boolean truncated = false;
+
+        try {
+            for (MultipartFile part : parts) {
+                if (entries >= maxEntries) {
+                    truncated = true;
+                    break;
+                }
+                String partName = part.getOriginalFilename() != null ? part.getOriginalFilename() : part.getName();
+                if (!isZip(part)) {
+                    entries++;
+                    // Parts are already spooled to disk by the multipart resolver, so workers can read them directly
+                    pending.addLast(validationPool.submit(() -> {
+                        try (InputStream in = part.getInputStream()) {
+                            return stage(partName, part.getContentType(), in);
+                        }
+                    }));
+                    drain(pending, window - 1, results, accepted, acceptedResults);
+                    continue;
+                }
+
+                try (ZipInputStream zip = new ZipInputStream(part.getInputStream())) {
+                    ZipEntry entry;
+                    while ((entry = zip.getNextEntry()) != null) {
+                        if (entry.isDirectory() || isHidden(entry.getName())) {
+                            continue;
+                        }
+                        if (entries >= maxEntries) {
+                            truncated = true;
+                            break;
+                        }
+                        entries++;
+                        pending.addLast(readEntry(partName + "!/" + entry.getName(), zip));
+                        drain(pending, window - 1, results, accepted, acceptedResults);
+                    }
+                } catch (IOException e) {
+                    // Corrupt archive: keep what was read so far and report the rest of it as failed
+                    results.add(failed(partName, "Could not read ZIP archive: " + e.getMessage()));
+                }
+            }
+            drain(pending, 0, results, accepted, acceptedResults);
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+
+        try {
+            fileService.importFiles(accepted);
+            for (int i = 0; i < accepted.size(); i++) {
+                acceptedResults.get(i).setFileId(accepted.get(i).getId());
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Bulk import failed to save metadata: " + e.getMessage());
+            for (BulkImportResult result : acceptedResults) {
+                result.setStatus(BulkImportResult.Status.FAILED);
+                result.setMessage("Failed to save file metadata");
+            }
+        }
+
+        int imported = 0;
+        int rejected = 0;
+        int failed = 0;
+        for (BulkImportResult result : results) {
+            switch (result.getStatus()) {
+                case IMPORTED:
+                    imported++;
+                    break;
+                case REJECTED:
+                    rejected++;
+                    break;
+                default:
+                    failed++;
+                    break;
+            }
+        }
+        return BulkImportReport.builder()
+                .imported(imported)
+                .rejected(rejected)
+                .failed(failed)
+                .truncated(truncated)
+                .entries(results)
+                .build();
+    }
+
+    /**
+     * Buffer one ZIP entry so the archive stream can move on, reading at most one byte past the upload limit
+     */
+    private Future<Staged> readEntry(String name, ZipInputStream zip) throws IOException {
+        long limit = uploadGuard.getMaxUploadSize();
+        byte[] bytes = zip.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, limit + 1));
+        if (bytes.length > limit) {
+            // The rest of the entry is skipped by the next getNextEntry call
+            return CompletableFuture.completedFuture(new Staged(BulkImportResult.builder()
+                    .name(name)
+                    .status(BulkImportResult.Status.REJECTED)
+                    .reason(UploadRejectedException.Reason.TOO_LARGE.name())
+                    .message("File exceeds the maximum upload size")
+                    .build(), null));
+        }
+        return validationPool.submit(() -> stage(name, BPMN_CONTENT_TYPE, new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Guard and store one entry; the metadata row is written later with the rest of the batch
+     */
+    private Staged stage(String name, String contentType, InputStream content) {
+        try {
+            StoredBlob blob = blobStore.put(uploadGuard.guard(content));
+            File file = new File();
+            file.setFileName(fileName(name));
+            file.setFileType(contentType);
+            file.setContentHash(blob.getHash());
+            file.setFileSize(blob.getSize());
+            file.setStoredSize(blob.getStoredSize());
+            validate(file);
+            return new Staged(BulkImportResult.builder()
+                    .name(name)
+                    .status(BulkImportResult.Status.IMPORTED)
+                    .fileSize(blob.getSize())
+                    .build(), file);
+        } catch (UploadRejectedException e) {
+            return new Staged(BulkImportResult.builder()
+                    .name(name)
+                    .status(BulkImportResult.Status.REJECTED)
+                    .reason(e.getReason().name())
+                    .message(e.getMessage())
+                    .build(), null);
+        } catch (IOException e) {
+            return new Staged(failed(name, "Failed to store file: " + e.getMessage()), null);
+        }
+    }
+
+    /**
+     * Record the validation summary while still on the worker; a validator failure leaves it empty
+     */
+    private void validate(File file) {
+        try {
+            file.recordValidation(bpmnPdfService.validateBpmnFile(file, false));
+        } catch (RuntimeException e) {
+            System.err.println("Could not validate " + file.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Collect finished entries in order until at most {@code keep} are still pending
+     */
+    private void drain(Deque<Future<Staged>> pending, int keep, List<BulkImportResult> results,
+                       List<File> accepted, List<BulkImportResult> acceptedResults) {
+        while (pending.size() > Math.max(0, keep)) {
+            Staged staged;
+            try {
+                staged = pending.removeFirst().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Bulk import interrupted", e);
+            } catch (ExecutionException e) {
+                results.add(failed("unknown", "Failed to read entry: " + e.getCause().getMessage()));
+                continue;
+            }
+            results.add(staged.result);
+            if (staged.file != null) {
+                accepted.add(staged.file);
+                acceptedResults.add(staged.result);
+            }
+        }
+    }
+
+    private static BulkImportResult failed(String name, String message) {
+        return BulkImportResult.builder()
+                .name(name)
+                .status(BulkImportResult.Status.FAILED)
+                .message(message)
+                .build();
+    }
+
+    private static boolean isZip(MultipartFile part) {
+        String name = part.getOriginalFilename();
+        String type = part.getContentType();
+        return (name != null && name.toLowerCase(Locale.ROOT).endsWith(".zip"))
+                || "application/zip".equals(type)
+                || "application/x-zip-compressed".equals(type);
+    }
+
+    /**
+     * Archive metadata that OS zip tools add, e.g. __MACOSX/ folders and dot files
+     */
+    private static boolean isHidden(String entryName) {
+        String name = fileName(entryName);
+        return entryName.startsWith("__MACOSX/") || name.startsWith(".");
+    }
+
+    private static String fileName(String entryName) {
+        String name = entryName.substring(Math.max(entryName.lastIndexOf('/'), entryName.lastIndexOf('\\')) + 1);
+        return name.isBlank() ? "unnamed_file_" + System.currentTimeMillis() : name;
+    }
+
+    private static final class Staged {
+        private final BulkImportResult result;
+        private final File file;
+
+        private Staged(BulkImportResult result, File file) {
+            this.result = result;
+            this.file = file;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        validationPool.shutdownNow();
+    }
+}
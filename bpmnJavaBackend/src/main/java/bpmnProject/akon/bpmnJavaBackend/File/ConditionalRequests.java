@@ -0,0 +1,114 @@
+package bpmnProject.akon.bpmnJavaBackend.File;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.zip.CRC32;
+
+/**
+ * Validators for file read responses, computed from the file row alone so a conditional
+ * request can be answered with 304 before any content is read from the blob store.
+ *
+ * ETags are strong and built from the content hash: the hash itself for the stored bytes,
+ * the hash plus a variant name for renditions (SVG, PNG, PDF), and the hash plus a checksum
+ * of the metadata for JSON that carries the file's metadata. Last-Modified is the time of
+ * the last change to the file, which falls back to the upload time.
+ */
+final class ConditionalRequests {
+
+    // Cache, but ask every time; responses depend on the caller's authorisation
+    static final String CACHE_CONTROL = "private, no-cache";
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * ETag of the stored content, or null for a row without a content hash
+     */
+    static String contentETag(File file) {
+        return file.getContentHash() != null ? quote(file.getContentHash()) : null;
+    }
+
+    /**
+     * ETag of a representation derived from the content, e.g. {@code svg} or {@code preview}
+     */
+    static String renditionETag(File file, String variant) {
+        return file.getContentHash() != null ? quote(file.getContentHash() + "-" + variant) : null;
+    }
+
+    /**
+     * ETag of the PDF export, which prints the file name in its title
+     */
+    static String pdfETag(File file, String layout) {
+        return renditionETag(file, "pdf-" + (layout != null ? layout : "default") + "-" + checksum(file.getFileName()));
+    }
+
+    /**
+     * ETag of a representation that includes the file's metadata
+     */
+    static String metadataETag(File file) {
+        if (file.getContentHash() == null) {
+            return null;
+        }
+        String metadata = file.getId() + "|" + file.getFileName() + "|" + file.getFileType() + "|"
+                + file.getFileSize() + "|" + file.getStoredSize() + "|" + file.getUploadTime() + "|"
+                + file.getModifiedTime() + "|" + file.getShortLink() + "|" + file.getUploadedBy() + "|"
+                + file.getBpmnValid() + "|" + file.getValidationErrors() + "|" + file.getValidationWarnings() + "|"
+                + file.getFlowNodeCount() + "|" + file.getSequenceFlowCount();
+        return quote(file.getContentHash() + "-" + checksum(metadata));
+    }
+
+    /**
+     * Last-Modified in epoch milliseconds, or -1 when unknown
+     */
+    static long lastModified(File file) {
+        LocalDateTime time = file.getLastModified();
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+
+    /**
+     * Set ETag, Last-Modified and Cache-Control on the response and evaluate the request's
+     * preconditions against them. Returns true when the response is complete: 304 for a
+     * matching If-None-Match / If-Modified-Since, 412 for a failed If-Match / If-Unmodified-Since.
+     */
+    static boolean checkNotModified(File file, String eTag, HttpServletRequest request, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        return new ServletWebRequest(request, response).checkNotModified(eTag, lastModified(file));
+    }
+
+    /**
+     * Whether a Range request may be served partially: without If-Range, or when If-Range
+     * names the current ETag or Last-Modified exactly
+     */
+    static boolean rangeApplies(File file, String eTag, HttpServletRequest request) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return eTag != null && ifRange.equals(eTag);
+        }
+        long lastModified = lastModified(file);
+        try {
+            long since = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return lastModified > 0 && since >= 0 && lastModified / 1000 == since / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String checksum(String value) {
+        CRC32 crc = new CRC32();
+        crc.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        return String.format("%08x", crc.getValue());
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+}
@@ -1,21 +1,35 @@
 package bpmnProject.akon.bpmnJavaBackend.File;
+import bpmnProject.akon.bpmnJavaBackend.Storage.BlobStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class DownloadService {
 
     private final FileService fileService;
     private final BpmnPdfService bpmnPdfService;
+    private final BlobStore blobStore;
 
     @Autowired
-    public DownloadService(FileService fileService, BpmnPdfService bpmnPdfService) {
+    public DownloadService(FileService fileService, BpmnPdfService bpmnPdfService, BlobStore blobStore) {
         this.fileService = fileService;
         this.bpmnPdfService = bpmnPdfService;
+        this.blobStore = blobStore;
     }
 
     /**
@@ -28,13 +42,14 @@ public class DownloadService {
                 return ResponseEntity.notFound().build();
             }
 
-            byte[] pdfData = bpmnPdfService.convertBpmnToSvg(file);
+            byte[] pdfData = bpmnPdfService.convertBpmnToPdf(file);
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
             headers.setContentDispositionFormData("attachment",
                     generatePdfFileName(file.getFileName()));
             headers.setContentLength(pdfData.length);
+            setValidators(headers, file, ConditionalRequests.pdfETag(file, null));
 
             return new ResponseEntity<>(pdfData, headers, HttpStatus.OK);
 
@@ -45,26 +60,162 @@ public class DownloadService {
     }
 
     /**
-     * Download original file
+     * Stream the original file straight from the blob store into the response
      */
-    public ResponseEntity<byte[]> downloadOriginalFile(Long fileId) {
+    public void downloadOriginalFile(Long fileId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        File file;
         try {
-            File file = fileService.findFileById(fileId);
-            if (file == null) {
-                return ResponseEntity.notFound().build();
+            file = fileService.findFileById(fileId);
+        } catch (RuntimeException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        streamContent(file, determineMediaType(file.getFileType()), file.getFileName(), request, response);
+    }
+
+    /**
+     * Stream a file's stored content to the response without materializing it in memory.
+     * A single byte range from the Range header is honoured with a 206 response; multiple
+     * ranges are answered with the full content. Whole-file requests from clients accepting
+     * gzip get gzip-compressed blobs exactly as stored, without decompressing them.
+     * Conditional requests are answered from the file row before the blob is opened.
+     */
+    public void streamContent(File file, MediaType mediaType, String downloadName,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String hash = file.getContentHash();
+        if (hash == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String eTag = ConditionalRequests.contentETag(file);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (ConditionalRequests.checkNotModified(file, eTag, request, response)) {
+            return;
+        }
+        if (!blobStore.exists(hash)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        String rangeHeader = ConditionalRequests.rangeApplies(file, eTag, request)
+                ? request.getHeader(HttpHeaders.RANGE)
+                : null;
+        if (rangeHeader == null && acceptsGzip(request) && "gzip".equals(blobStore.storedEncoding(hash))) {
+            response.setContentType(mediaType.toString());
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            // Different bytes than the identity response for the same content, so the tag is weak
+            response.setHeader(HttpHeaders.ETAG, "W/" + eTag);
+            response.setContentLengthLong(blobStore.storedSize(hash));
+            setAttachment(response, downloadName);
+            blobStore.transferStoredTo(hash, Channels.newChannel(response.getOutputStream()));
+            response.flushBuffer();
+            return;
+        }
+
+        long length = blobStore.size(hash);
+        long start = 0;
+        long end = length - 1;
+        if (rangeHeader != null) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                try {
+                    start = range.getRangeStart(length);
+                    end = range.getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    start = length;
+                }
+                if (start >= length || start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
             }
+        }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(determineMediaType(file.getFileType()));
-            headers.setContentDispositionFormData("attachment", file.getFileName());
-            headers.setContentLength(file.getData().length);
+        long count = Math.max(0, end - start + 1);
+        response.setContentType(mediaType.toString());
+        response.setContentLengthLong(count);
+        setAttachment(response, downloadName);
 
-            return new ResponseEntity<>(file.getData(), headers, HttpStatus.OK);
+        WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+        blobStore.transferTo(hash, start, count, target);
+        response.flushBuffer();
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    /**
+     * ETag and Last-Modified for a buffered response; Spring answers matching conditional
+     * requests with 304 when it writes the entity
+     */
+    private static void setValidators(HttpHeaders headers, File file, String eTag) {
+        if (eTag != null) {
+            headers.setETag(eTag);
         }
+        long lastModified = ConditionalRequests.lastModified(file);
+        if (lastModified > 0) {
+            headers.setLastModified(lastModified);
+        }
+        headers.setCacheControl(ConditionalRequests.CACHE_CONTROL);
+    }
+
+    private static void setAttachment(HttpServletResponse response, String downloadName) {
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(downloadName != null ? downloadName : "diagram", StandardCharsets.UTF_8)
+                .build()
+                .toString());
+    }
+
+    /**
+     * Whether Accept-Encoding lists gzip (or *) without q=0
+     */
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (header == null) {
+            return false;
+        }
+        for (String coding : header.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim().toLowerCase();
+            if (!name.equals("gzip") && !name.equals("x-gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().replace(" ", "");
+                if (parameter.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(parameter.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            if (!refused) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stream the vector PDF export to the response as iText produces it
+     */
+    public void streamPdf(File file, Map<String, Object> metadata, String layout,
+                          HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(generatePdfFileName(file.getFileName()), StandardCharsets.UTF_8)
+                .build()
+                .toString());
+        bpmnPdfService.writePdf(file, metadata, layout, response.getOutputStream());
     }
 
     /**
@@ -72,7 +223,7 @@ public class DownloadService {
      */
     public ResponseEntity<byte[]> downloadFileInFormat(Long fileId, String format) {
         try {
-            File file = fileService.findFileById(fileId);
+            File file = fileService.findFileWithData(fileId);
             if (file == null) {
                 return ResponseEntity.notFound().build();
             }
@@ -80,23 +231,27 @@ public class DownloadService {
             byte[] data;
             MediaType mediaType;
             String fileName;
+            String eTag;
 
             switch (format.toLowerCase()) {
                 case "pdf":
-                    data = bpmnPdfService.convertBpmnToSvg(file);
+                    data = bpmnPdfService.convertBpmnToPdf(file);
                     mediaType = MediaType.APPLICATION_PDF;
                     fileName = generatePdfFileName(file.getFileName());
+                    eTag = ConditionalRequests.pdfETag(file, null);
                     break;
                 case "svg":
                     data = bpmnPdfService.convertBpmnToSvg(file);
                     mediaType = MediaType.valueOf("image/svg+xml");
                     fileName = generateFileName(file.getFileName(), ".svg");
+                    eTag = ConditionalRequests.renditionETag(file, "svg");
                     break;
                 case "xml":
                 default:
                     data = file.getData();
                     mediaType = MediaType.APPLICATION_XML;
                     fileName = file.getFileName();
+                    eTag = ConditionalRequests.contentETag(file);
                     break;
             }
 
@@ -104,6 +259,7 @@ public class DownloadService {
             headers.setContentType(mediaType);
             headers.setContentDispositionFormData("attachment", fileName);
             headers.setContentLength(data.length);
+            setValidators(headers, file, eTag);
 
             return new ResponseEntity<>(data, headers, HttpStatus.OK);
 
@@ -1,5 +1,6 @@
 package bpmnProject.akon.bpmnJavaBackend.File;
 
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.ValidationReport;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -8,8 +9,12 @@ import lombok.Setter;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.util.Objects;
 
-@Table(name = "files")
+@Table(name = "files", indexes = {
+        @Index(name = "idx_files_content_hash", columnList = "content_hash"),
+        @Index(name = "idx_files_upload_time_id", columnList = "upload_time, id")
+})
 @Entity
 @Getter
 @Setter
@@ -26,15 +31,27 @@ public class File implements Serializable {
     @Column(name = "file_type")
     private String fileType;
 
+    // Length of the content in bytes
     @Column(name = "file_size")
     private Long fileSize;
 
+    // Bytes the content occupies in the blob store after compression; null until measured
+    @Column(name = "stored_size")
+    private Long storedSize;
+
     @Column(name = "upload_time")
     private LocalDateTime uploadTime;
 
-    // Store file data as binary in database
-    @Lob
-    @Column(name = "file_data", columnDefinition = "LONGBLOB")
+    // Last change to the content or metadata; null while the file is as uploaded
+    @Column(name = "modified_time")
+    private LocalDateTime modifiedTime;
+
+    // SHA-256 of the content; the bytes themselves live in the BlobStore
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // File bytes, only populated when a caller explicitly loads them (not stored in DB)
+    @Transient
     @JsonIgnore // Don't serialize raw data in JSON
     private byte[] data;
 
@@ -46,6 +63,26 @@ public class File implements Serializable {
     @Column(name = "short_link")
     private String shortLink;
 
+    // Validation summary recorded when the content was stored; null until the file has been validated
+    @Column(name = "bpmn_valid")
+    private Boolean bpmnValid;
+
+    @Column(name = "validation_errors")
+    private Integer validationErrors;
+
+    @Column(name = "validation_warnings")
+    private Integer validationWarnings;
+
+    @Column(name = "flow_node_count")
+    private Integer flowNodeCount;
+
+    @Column(name = "sequence_flow_count")
+    private Integer sequenceFlowCount;
+
+    // Id of the user who uploaded the file; null for files stored before uploads were attributed
+    @Column(name = "uploaded_by")
+    private Integer uploadedBy;
+
     // Content preview for frontend (transient)
     @Transient
     private String content;
@@ -83,11 +120,44 @@ public class File implements Serializable {
     }
 
     // Helper methods
+
+    /**
+     * Keep the validation summary of the report; returns whether it differed from the stored one
+     */
+    public boolean recordValidation(ValidationReport report) {
+        boolean changed = !Objects.equals(bpmnValid, report.isValid())
+                || !Objects.equals(validationErrors, report.getErrorCount())
+                || !Objects.equals(validationWarnings, report.getWarningCount())
+                || !Objects.equals(flowNodeCount, report.getFlowNodeCount())
+                || !Objects.equals(sequenceFlowCount, report.getSequenceFlowCount());
+        this.bpmnValid = report.isValid();
+        this.validationErrors = report.getErrorCount();
+        this.validationWarnings = report.getWarningCount();
+        this.flowNodeCount = report.getFlowNodeCount();
+        this.sequenceFlowCount = report.getSequenceFlowCount();
+        return changed;
+    }
+
+    /**
+     * Time of the last change, for Last-Modified: the modification time, else the upload time
+     */
+    @JsonIgnore
+    public LocalDateTime getLastModified() {
+        return modifiedTime != null ? modifiedTime : uploadTime;
+    }
+
     public boolean isBpmnFile() {
         return fileName != null && (fileName.endsWith(".bpmn") || fileName.endsWith(".xml")) ||
                 fileType != null && fileType.contains("xml");
     }
 
+    /**
+     * Whether the file statistics count this file as BPMN
+     */
+    public boolean isBpmnCounted() {
+        return fileType != null && (fileType.contains("xml") || (fileName != null && fileName.endsWith(".bpmn")));
+    }
+
     public String getFormattedFileSize() {
         if (fileSize == null || fileSize == 0) return "0 Bytes";
         String[] sizes = {"Bytes", "KB", "MB", "GB"};
@@ -1,8 +1,17 @@
 package bpmnProject.akon.bpmnJavaBackend.File;
 
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.BpmnModelCache;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.RenderCache;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.ValidationReport;
+import bpmnProject.akon.bpmnJavaBackend.Diff.DiffService;
+import bpmnProject.akon.bpmnJavaBackend.Search.SearchResult;
+import bpmnProject.akon.bpmnJavaBackend.Search.SearchService;
+import bpmnProject.akon.bpmnJavaBackend.Storage.BlobCompressionService;
+import bpmnProject.akon.bpmnJavaBackend.Stats.FileStatsReport;
+import bpmnProject.akon.bpmnJavaBackend.Stats.FileStatsService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -12,9 +21,12 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @CrossOrigin(origins = "http://localhost:4200")
 @RestController
@@ -23,11 +35,33 @@ public class FileController {
 
     private final FileService fileService;
     private final BpmnPdfService bpmnPdfService;
+    private final DownloadService downloadService;
+    private final RenderCache renderCache;
+    private final BpmnModelCache modelCache;
+    private final BulkExportService bulkExportService;
+    private final BulkImportService bulkImportService;
+    private final SearchService searchService;
+    private final FileStatsService fileStatsService;
+    private final DiffService diffService;
+    private final BlobCompressionService blobCompressionService;
 
     @Autowired
-    public FileController(FileService fileService, BpmnPdfService bpmnPdfService) {
+    public FileController(FileService fileService, BpmnPdfService bpmnPdfService, DownloadService downloadService,
+                          RenderCache renderCache, BpmnModelCache modelCache, BulkExportService bulkExportService,
+                          BulkImportService bulkImportService, SearchService searchService,
+                          FileStatsService fileStatsService, DiffService diffService,
+                          BlobCompressionService blobCompressionService) {
         this.fileService = fileService;
         this.bpmnPdfService = bpmnPdfService;
+        this.downloadService = downloadService;
+        this.renderCache = renderCache;
+        this.modelCache = modelCache;
+        this.bulkExportService = bulkExportService;
+        this.bulkImportService = bulkImportService;
+        this.searchService = searchService;
+        this.fileStatsService = fileStatsService;
+        this.diffService = diffService;
+        this.blobCompressionService = blobCompressionService;
     }
 
     @PostMapping("/upload")
@@ -36,16 +70,33 @@ public class FileController {
         try {
             System.out.println("Upload endpoint reached. File: " + multipartFile.getOriginalFilename());
 
-            File file = new File();
-            file.setFileName(multipartFile.getOriginalFilename());
-            file.setFileType(multipartFile.getContentType());
-            file.setFileSize(multipartFile.getSize());
-            file.setData(multipartFile.getBytes());
-            file.setUploadTime(LocalDateTime.now());
-
-            File saved = fileService.uploadFile(file);
+            // The part is streamed into the blob store rather than read into memory
+            File saved;
+            try (InputStream content = multipartFile.getInputStream()) {
+                saved = fileService.uploadFile(multipartFile.getOriginalFilename(), multipartFile.getContentType(), content);
+            }
             System.out.println("File uploaded successfully: " + saved.getFileName());
             return new ResponseEntity<>(saved, HttpStatus.CREATED);
+        } catch (UploadRejectedException e) {
+            System.err.println("Upload rejected: " + e.getMessage());
+            return new ResponseEntity<>(statusFor(e));
+        } catch (Exception e) {
+            System.err.println("Error uploading file: " + e.getMessage());
+            e.printStackTrace();
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PostMapping(value = "/upload/stream", consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @PreAuthorize("hasRole('MODELER') or hasRole('ADMIN')")
+    public ResponseEntity<File> uploadFileStream(@RequestParam("fileName") String fileName, HttpServletRequest request) {
+        try {
+            // Raw request body goes straight to the blob store, no multipart buffering
+            File saved = fileService.uploadFile(fileName, request.getContentType(), request.getInputStream());
+            return new ResponseEntity<>(saved, HttpStatus.CREATED);
+        } catch (UploadRejectedException e) {
+            System.err.println("Upload rejected: " + e.getMessage());
+            return new ResponseEntity<>(statusFor(e));
         } catch (Exception e) {
             System.err.println("Error uploading file: " + e.getMessage());
             e.printStackTrace();
@@ -53,19 +104,31 @@ public class FileController {
         }
     }
 
+    @PostMapping(value = "/upload/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('MODELER') or hasRole('ADMIN')")
+    public ResponseEntity<BulkImportReport> uploadFilesBulk(@RequestParam("files") List<MultipartFile> files) {
+        if (files == null || files.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            // Individual entries can be rejected; the report says which, the request itself still succeeds
+            BulkImportReport report = bulkImportService.importParts(files);
+            System.out.println("Bulk upload: " + report.getImported() + " imported, " + report.getRejected()
+                    + " rejected, " + report.getFailed() + " failed");
+            return new ResponseEntity<>(report, HttpStatus.OK);
+        } catch (Exception e) {
+            System.err.println("Error in bulk upload: " + e.getMessage());
+            e.printStackTrace();
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @GetMapping("/all")
     @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
     public ResponseEntity<List<File>> getAllFiles() {
         try {
+            // Content lives in the blob store and is never loaded for the list view
             List<File> files = fileService.getAllFiles();
-            // Convert binary data to base64 for JSON serialization
-            files.forEach(file -> {
-                if (file.getData() != null) {
-                    file.setBase64Data(java.util.Base64.getEncoder().encodeToString(file.getData()));
-                    // Don't send raw data in the list view
-                    file.setData(null);
-                }
-            });
             return new ResponseEntity<>(files, HttpStatus.OK);
         } catch (Exception e) {
             e.printStackTrace();
@@ -73,11 +136,132 @@ public class FileController {
         }
     }
 
+    @GetMapping("/list")
+    @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
+    public ResponseEntity<FilePage> listFiles(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "50") int limit,
+            @RequestParam(value = "direction", defaultValue = "desc") String direction,
+            @RequestParam(value = "name", required = false) String name,
+            @RequestParam(value = "type", required = false) String type) {
+        try {
+            boolean ascending = "asc".equalsIgnoreCase(direction);
+            FilePage page = fileService.listFiles(cursor, limit, ascending, name, type);
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Ranked search over file names and diagram elements (ids, names, types, documentation, lanes).
+     * With elementType, every word must match one element of that type.
+     */
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
+    public ResponseEntity<SearchResult> search(
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(value = "elementType", required = false) String elementType,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        if ((query == null || query.isBlank()) && (elementType == null || elementType.isBlank())) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(searchService.search(query, elementType, page, size));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PostMapping("/search/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildSearchIndex() {
+        if (!searchService.rebuild()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(searchService.stats());
+        }
+        return ResponseEntity.accepted().body(searchService.stats());
+    }
+
+    @GetMapping("/search/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getSearchIndexStats() {
+        return ResponseEntity.ok(searchService.stats());
+    }
+
+    /**
+     * Totals, per-type and per-user breakdowns and the daily growth series of the last {@code days} days
+     */
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
+    public ResponseEntity<FileStatsReport> getFileStats(@RequestParam(value = "days", defaultValue = "30") int days) {
+        try {
+            return ResponseEntity.ok(fileStatsService.getReport(days));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PostMapping("/stats/recompute")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<FileStatsReport> recomputeFileStats() {
+        fileStatsService.recompute();
+        return ResponseEntity.ok(fileStatsService.getReport(30));
+    }
+
+    /**
+     * Logical against stored bytes and the active compression dictionary
+     */
+    @GetMapping("/storage/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getStorageStats() {
+        return ResponseEntity.ok(blobCompressionService.stats());
+    }
+
+    @PostMapping("/storage/recompress")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> recompressStorage() {
+        if (!blobCompressionService.recompress(true)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(blobCompressionService.stats());
+        }
+        return ResponseEntity.accepted().body(blobCompressionService.stats());
+    }
+
+    /**
+     * Train a compression dictionary from the stored small documents and switch to it
+     */
+    @PostMapping("/storage/dictionary/train")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> trainCompressionDictionary() {
+        try {
+            return ResponseEntity.ok(blobCompressionService.trainDictionary());
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * The file with its whole content inlined as Base64 and as text. Kept for existing clients;
+     * {@code /{id}/details} returns the metadata without that and streams content on request.
+     */
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
-    public ResponseEntity<File> getFileById(@PathVariable("id") Long id) {
+    public ResponseEntity<File> getFileById(@PathVariable("id") Long id,
+                                            HttpServletRequest request, HttpServletResponse response) {
         try {
             File file = fileService.findFileById(id);
+            if (ConditionalRequests.checkNotModified(file, ConditionalRequests.metadataETag(file), request, response)) {
+                return null;
+            }
+            fileService.loadData(file);
             // Include content for file viewing
             if (file.getData() != null) {
                 file.setBase64Data(java.util.Base64.getEncoder().encodeToString(file.getData()));
@@ -91,9 +275,14 @@ public class FileController {
 
     @GetMapping("/file/{filename}")
     @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
-    public ResponseEntity<File> getFileByFilename(@PathVariable("filename") String filename) {
+    public ResponseEntity<File> getFileByFilename(@PathVariable("filename") String filename,
+                                                  HttpServletRequest request, HttpServletResponse response) {
         try {
             File file = fileService.findFileByFilename(filename);
+            if (ConditionalRequests.checkNotModified(file, ConditionalRequests.metadataETag(file), request, response)) {
+                return null;
+            }
+            fileService.loadData(file);
             if (file.getData() != null) {
                 file.setBase64Data(java.util.Base64.getEncoder().encodeToString(file.getData()));
             }
@@ -104,6 +293,52 @@ public class FileController {
         }
     }
 
+    /**
+     * Metadata of a file and links to its content. With {@code content=text} or
+     * {@code content=base64} the content is included too, streamed from the blob store into
+     * the response as it is written.
+     */
+    @GetMapping("/{id}/details")
+    @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
+    public ResponseEntity<FileDetails> getFileDetails(@PathVariable Long id,
+                                                      @RequestParam(value = "content", defaultValue = "none") String content,
+                                                      HttpServletRequest request, HttpServletResponse response) {
+        return fileDetails(() -> fileService.findFileById(id), content, request, response);
+    }
+
+    @GetMapping("/file/{filename}/details")
+    @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
+    public ResponseEntity<FileDetails> getFileDetailsByFilename(@PathVariable("filename") String filename,
+                                                                @RequestParam(value = "content", defaultValue = "none") String content,
+                                                                HttpServletRequest request, HttpServletResponse response) {
+        return fileDetails(() -> fileService.findFileByFilename(filename), content, request, response);
+    }
+
+    private ResponseEntity<FileDetails> fileDetails(Supplier<File> lookup, String content,
+                                                    HttpServletRequest request, HttpServletResponse response) {
+        StreamedContent.Encoding encoding;
+        try {
+            encoding = StreamedContent.Encoding.fromParameter(content);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            File file = lookup.get();
+            if (ConditionalRequests.checkNotModified(file, ConditionalRequests.metadataETag(file), request, response)) {
+                return null;
+            }
+            FileDetails details = FileDetails.of(file);
+            if (encoding != null) {
+                details.setContentEncoding(encoding);
+                details.setContent(fileService.streamedContent(file, encoding));
+            }
+            return ResponseEntity.ok(details);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
     @DeleteMapping("/delete/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> deleteFile(@PathVariable Long id) {
@@ -118,65 +353,103 @@ public class FileController {
 
     @GetMapping("/{id}/export/pdf")
     @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
-    public ResponseEntity<byte[]> exportFileToPdf(@PathVariable Long id) {
+    public void exportFileToPdf(@PathVariable Long id,
+                                @RequestParam(required = false) String layout,
+                                HttpServletRequest request, HttpServletResponse response) {
+        writePdf(id, Map.of(), layout, request, response);
+    }
+
+    @PostMapping("/{id}/export/pdf")
+    @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
+    public void exportFileToPdfWithMetadata(
+            @PathVariable Long id,
+            @RequestParam(required = false) String layout,
+            @RequestBody Map<String, Object> metadata,
+            HttpServletResponse response) {
+        writePdf(id, metadata, layout, null, response);
+    }
+
+    /**
+     * @param request the GET request to evaluate preconditions against; null when the body
+     *                carries metadata, which the validators do not cover
+     */
+    private void writePdf(Long id, Map<String, Object> metadata, String layout,
+                          HttpServletRequest request, HttpServletResponse response) {
         try {
             File file = fileService.findFileById(id);
-            if (file == null) {
-                return ResponseEntity.notFound().build();
+            if (request != null && ConditionalRequests.checkNotModified(file,
+                    ConditionalRequests.pdfETag(file, layout), request, response)) {
+                return;
+            }
+            downloadService.streamPdf(file, metadata, layout, response);
+        } catch (IllegalArgumentException e) {
+            // Unknown layout name
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpStatus.BAD_REQUEST.value());
             }
-
-            byte[] pdfBytes = bpmnPdfService.convertBpmnToPdf(file);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment",
-                    (file.getFileName() != null ? file.getFileName().replace(".bpmn", "").replace(".xml", "") : "diagram") + ".pdf");
-            headers.setContentLength(pdfBytes.length);
-
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
-
         } catch (Exception e) {
             e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Error exporting to PDF: " + e.getMessage()).getBytes());
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
         }
     }
 
-    @PostMapping("/{id}/export/pdf")
+    @PostMapping("/export/bulk")
     @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
-    public ResponseEntity<byte[]> exportFileToPdfWithMetadata(
-            @PathVariable Long id,
-            @RequestBody Map<String, Object> metadata) {
+    public void exportBulk(@RequestBody BulkExportRequest request, HttpServletResponse response) {
+        List<String> formats;
         try {
-            File file = fileService.findFileById(id);
-            if (file == null) {
-                return ResponseEntity.notFound().build();
+            formats = bulkExportService.resolveFormats(request.getFormats());
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        try {
+            response.setContentType("application/zip");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"diagrams.zip\"");
+            // Entries are written as they are ready, so the archive size is not known up front
+            bulkExportService.writeZip(request, formats, response.getOutputStream());
+            response.flushBuffer();
+        } catch (Exception e) {
+            System.err.println("Bulk export failed: " + e.getMessage());
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
             }
+        }
+    }
 
-            byte[] pdfBytes = bpmnPdfService.convertBpmnToPdfWithMetadata(file, metadata);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment",
-                    (file.getFileName() != null ? file.getFileName().replace(".bpmn", "").replace(".xml", "") : "diagram") + ".pdf");
-            headers.setContentLength(pdfBytes.length);
-
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
-
+    @GetMapping("/{id}/export/xml")
+    @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
+    public void exportFileAsXml(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) {
+        try {
+            File file = fileService.findFileById(id);
+            String fileName = (file.getFileName() != null ?
+                    file.getFileName().replaceAll("\\.(bpmn|xml)$", "") :
+                    "diagram") + ".xml";
+            downloadService.streamContent(file, MediaType.APPLICATION_XML, fileName, request, response);
         } catch (Exception e) {
             e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Error exporting to PDF: " + e.getMessage()).getBytes());
+            if (!response.isCommitted()) {
+                response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
         }
     }
 
     @GetMapping("/{id}/export/{format}")
-    public ResponseEntity<byte[]> exportFile(@PathVariable Long id, @PathVariable String format){
+    public ResponseEntity<byte[]> exportFile(@PathVariable Long id, @PathVariable String format,
+                                             HttpServletRequest request, HttpServletResponse response){
         try {
             File file = fileService.findFileById(id);
             if (file == null) {
                 return ResponseEntity.notFound().build();
             }
+            if (ConditionalRequests.checkNotModified(file, exportETag(file, format), request, response)) {
+                return null;
+            }
 
             byte[] exportedData;
             MediaType mediaType;
@@ -200,7 +473,7 @@ public class FileController {
                     break;
                 case "xml":
                 default:
-                    exportedData = file.getData();
+                    exportedData = fileService.loadData(file).getData();
                     mediaType = MediaType.APPLICATION_XML;
                     fileExtension = ".xml";
                     break;
@@ -216,6 +489,8 @@ public class FileController {
 
             return new ResponseEntity<>(exportedData, headers, HttpStatus.OK);
 
+        } catch (RejectedExecutionException e) {
+            return rasterizerBusy();
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -223,16 +498,26 @@ public class FileController {
         }
     }
 
+    private static String exportETag(File file, String format) {
+        switch (format.toLowerCase()) {
+            case "pdf":
+                return ConditionalRequests.pdfETag(file, null);
+            case "svg":
+            case "png":
+                return ConditionalRequests.renditionETag(file, format.toLowerCase());
+            case "xml":
+            default:
+                return ConditionalRequests.contentETag(file);
+        }
+    }
+
     @PostMapping("/{id}/validate")
     @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
-    public ResponseEntity<Map<String, Object>> validateBpmnFile(@PathVariable Long id) {
+    public ResponseEntity<?> validateBpmnFile(@PathVariable Long id,
+                                              @RequestParam(value = "full", defaultValue = "false") boolean full) {
         try {
-            File file = fileService.findFileById(id);
-            if (file == null) {
-                return ResponseEntity.notFound().build();
-            }
-
-            Map<String, Object> validationResult = bpmnPdfService.validateBpmnFile(file);
+            // Content is streamed from the blob store; repeat validations of the same content hit the cache
+            ValidationReport validationResult = fileService.validateFile(id, full);
             return new ResponseEntity<>(validationResult, HttpStatus.OK);
 
         } catch (Exception e) {
@@ -244,12 +529,17 @@ public class FileController {
 
     @GetMapping("/{id}/preview")
     @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
-    public ResponseEntity<byte[]> getFilePreview(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getFilePreview(@PathVariable Long id,
+                                                 HttpServletRequest request, HttpServletResponse response) {
         try {
             File file = fileService.findFileById(id);
             if (file == null) {
                 return ResponseEntity.notFound().build();
             }
+            if (ConditionalRequests.checkNotModified(file, ConditionalRequests.renditionETag(file, "preview"),
+                    request, response)) {
+                return null;
+            }
 
             byte[] previewData = bpmnPdfService.generatePreview(file);
 
@@ -259,47 +549,72 @@ public class FileController {
 
             return new ResponseEntity<>(previewData, headers, HttpStatus.OK);
 
+        } catch (RejectedExecutionException e) {
+            return rasterizerBusy();
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * The PNG worker queue is full; ask the client to come back shortly
+     */
+    private ResponseEntity<byte[]> rasterizerBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "2")
+                .build();
+    }
+
+    @GetMapping("/render-cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getRenderCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(renderCache.stats());
+        stats.put("models", modelCache.stats());
+        stats.put("diffs", diffService.stats());
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Added, removed, renamed, moved and changed elements from this file to the other
+     */
+    @GetMapping("/{id}/diff/{otherId}")
+    @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
+    public ResponseEntity<?> diffFiles(@PathVariable Long id, @PathVariable Long otherId) {
+        try {
+            return ResponseEntity.ok(diffService.diffFiles(id, otherId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "File not found"));
+        }
+    }
+
     @GetMapping("/{id}/download")
     @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
-    public ResponseEntity<Resource> downloadFile(@PathVariable Long id) {
+    public void downloadFile(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) {
         try {
             File file = fileService.findFileById(id);
-            if (file == null) {
-                return ResponseEntity.notFound().build();
-            }
-
-            ByteArrayResource resource = new ByteArrayResource(file.getData());
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.add(HttpHeaders.CONTENT_DISPOSITION,
-                    "attachment; filename=\"" + file.getFileName() + "\"");
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentLength(file.getData().length);
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(resource);
-
+            downloadService.streamContent(file, MediaType.APPLICATION_OCTET_STREAM, file.getFileName(), request, response);
         } catch (Exception e) {
             e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            if (!response.isCommitted()) {
+                response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
         }
     }
 
     @GetMapping("/{id}/content")
     @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
-    public ResponseEntity<String> getFileContent(@PathVariable Long id) {
+    public ResponseEntity<String> getFileContent(@PathVariable Long id,
+                                                 HttpServletRequest request, HttpServletResponse response) {
         try {
             File file = fileService.findFileById(id);
-            if (file == null) {
-                return ResponseEntity.notFound().build();
+            if (ConditionalRequests.checkNotModified(file, ConditionalRequests.contentETag(file), request, response)) {
+                return null;
             }
+            fileService.loadData(file);
 
             String content = new String(file.getData());
             return ResponseEntity.ok()
@@ -317,23 +632,31 @@ public class FileController {
     @PreAuthorize("hasRole('MODELER') or hasRole('ADMIN')")
     public ResponseEntity<File> updateFile(@PathVariable Long id, @RequestParam("file") MultipartFile multipartFile) {
         try {
-            File existingFile = fileService.findFileById(id);
-            if (existingFile == null) {
-                return ResponseEntity.notFound().build();
+            File updatedFile;
+            try (InputStream content = multipartFile.getInputStream()) {
+                updatedFile = fileService.updateFileContent(id, multipartFile.getOriginalFilename(),
+                        multipartFile.getContentType(), content);
             }
-
-            existingFile.setFileName(multipartFile.getOriginalFilename());
-            existingFile.setFileType(multipartFile.getContentType());
-            existingFile.setFileSize(multipartFile.getSize());
-            existingFile.setData(multipartFile.getBytes());
-            existingFile.setUploadTime(LocalDateTime.now());
-
-            File updatedFile = fileService.updateFile(existingFile);
             return new ResponseEntity<>(updatedFile, HttpStatus.OK);
 
+        } catch (UploadRejectedException e) {
+            System.err.println("Update rejected: " + e.getMessage());
+            return new ResponseEntity<>(statusFor(e));
         } catch (Exception e) {
             e.printStackTrace();
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
\ No newline at end of file
+
+    private HttpStatus statusFor(UploadRejectedException e) {
+        switch (e.getReason()) {
+            case TOO_LARGE:
+                return HttpStatus.PAYLOAD_TOO_LARGE;
+            case NOT_BPMN:
+                return HttpStatus.UNSUPPORTED_MEDIA_TYPE;
+            case EMPTY:
+            default:
+                return HttpStatus.BAD_REQUEST;
+        }
+    }
+}
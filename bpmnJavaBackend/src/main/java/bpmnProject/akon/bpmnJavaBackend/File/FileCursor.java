@@ -0,0 +1,38 @@
+package bpmnProject.akon.bpmnJavaBackend.File;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor over (upload_time, id), encoded as URL-safe Base64
+ */
+public class FileCursor {
+
+    private final LocalDateTime uploadTime;
+    private final Long id;
+
+    public FileCursor(LocalDateTime uploadTime, Long id) {
+        this.uploadTime = uploadTime;
+        this.id = id;
+    }
+
+    public LocalDateTime getUploadTime() { return uploadTime; }
+    public Long getId() { return id; }
+
+    public String encode() {
+        String raw = uploadTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static FileCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new FileCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package bpmnProject.akon.bpmnJavaBackend.File;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Metadata of a file with links to its content. The content itself is only present when
+ * it was asked for, and is then streamed into the JSON (see {@link StreamedContent}).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FileDetails {
+    private Long id;
+    private String fileName;
+    private String fileType;
+    private Long fileSize;
+    private String formattedFileSize;
+    private LocalDateTime uploadTime;
+    private LocalDateTime modifiedTime;
+    private Integer uploadedBy;
+    private String contentHash;
+    private String shortLink;
+    private Boolean bpmnValid;
+    private Integer validationErrors;
+    private Integer validationWarnings;
+    private Integer flowNodeCount;
+    private Integer sequenceFlowCount;
+    // Raw bytes, with Range, gzip and conditional request support
+    private String contentUrl;
+    private String revisionsUrl;
+    // TEXT or BASE64; set together with content
+    private StreamedContent.Encoding contentEncoding;
+    private StreamedContent content;
+
+    public static FileDetails of(File file) {
+        return FileDetails.builder()
+                .id(file.getId())
+                .fileName(file.getFileName())
+                .fileType(file.getFileType())
+                .fileSize(file.getFileSize())
+                .formattedFileSize(file.getFormattedFileSize())
+                .uploadTime(file.getUploadTime())
+                .modifiedTime(file.getModifiedTime())
+                .uploadedBy(file.getUploadedBy())
+                .contentHash(file.getContentHash())
+                .shortLink(file.getShortLink())
+                .bpmnValid(file.getBpmnValid())
+                .validationErrors(file.getValidationErrors())
+                .validationWarnings(file.getValidationWarnings())
+                .flowNodeCount(file.getFlowNodeCount())
+                .sequenceFlowCount(file.getSequenceFlowCount())
+                .contentUrl("/api/v1/file/" + file.getId() + "/download")
+                .revisionsUrl("/api/v1/file/" + file.getId() + "/revisions")
+                .build();
+    }
+}
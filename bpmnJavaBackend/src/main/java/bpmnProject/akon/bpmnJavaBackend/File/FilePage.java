@@ -0,0 +1,21 @@
+package bpmnProject.akon.bpmnJavaBackend.File;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated file listing. Pass nextCursor back to get the following page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilePage {
+    private List<FileSummary> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
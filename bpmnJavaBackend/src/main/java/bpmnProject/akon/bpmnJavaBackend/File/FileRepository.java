@@ -1,10 +1,88 @@
 package bpmnProject.akon.bpmnJavaBackend.File;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface FileRepository extends JpaRepository<File,Long> {
     Optional<File> findByFileName(String fileName);
     void deleteByFileName(String fileName);
-}
\ No newline at end of file
+    long countByContentHash(String contentHash);
+
+    // Keyset listing over (uploadTime, id); only metadata columns are selected
+
+    @Query("""
+            SELECT f.id AS id, f.fileName AS fileName, f.fileType AS fileType, f.fileSize AS fileSize,
+                   f.uploadTime AS uploadTime, f.shortLink AS shortLink,
+                   f.bpmnValid AS bpmnValid, f.validationErrors AS validationErrors,
+                   f.validationWarnings AS validationWarnings, f.flowNodeCount AS flowNodeCount,
+                   f.sequenceFlowCount AS sequenceFlowCount
+            FROM File f
+            WHERE (:name IS NULL OR LOWER(f.fileName) LIKE LOWER(CONCAT('%', :name, '%')))
+              AND (:type IS NULL OR f.fileType = :type)
+            ORDER BY f.uploadTime DESC, f.id DESC
+            """)
+    List<FileSummary> findSummariesDesc(@Param("name") String name, @Param("type") String type, Pageable pageable);
+
+    @Query("""
+            SELECT f.id AS id, f.fileName AS fileName, f.fileType AS fileType, f.fileSize AS fileSize,
+                   f.uploadTime AS uploadTime, f.shortLink AS shortLink,
+                   f.bpmnValid AS bpmnValid, f.validationErrors AS validationErrors,
+                   f.validationWarnings AS validationWarnings, f.flowNodeCount AS flowNodeCount,
+                   f.sequenceFlowCount AS sequenceFlowCount
+            FROM File f
+            WHERE (:name IS NULL OR LOWER(f.fileName) LIKE LOWER(CONCAT('%', :name, '%')))
+              AND (:type IS NULL OR f.fileType = :type)
+              AND (f.uploadTime < :uploadTime OR (f.uploadTime = :uploadTime AND f.id < :id))
+            ORDER BY f.uploadTime DESC, f.id DESC
+            """)
+    List<FileSummary> findSummariesDescAfter(@Param("name") String name, @Param("type") String type,
+                                             @Param("uploadTime") LocalDateTime uploadTime, @Param("id") Long id,
+                                             Pageable pageable);
+
+    @Query("""
+            SELECT f.id AS id, f.fileName AS fileName, f.fileType AS fileType, f.fileSize AS fileSize,
+                   f.uploadTime AS uploadTime, f.shortLink AS shortLink,
+                   f.bpmnValid AS bpmnValid, f.validationErrors AS validationErrors,
+                   f.validationWarnings AS validationWarnings, f.flowNodeCount AS flowNodeCount,
+                   f.sequenceFlowCount AS sequenceFlowCount
+            FROM File f
+            WHERE (:name IS NULL OR LOWER(f.fileName) LIKE LOWER(CONCAT('%', :name, '%')))
+              AND (:type IS NULL OR f.fileType = :type)
+            ORDER BY f.uploadTime ASC, f.id ASC
+            """)
+    List<FileSummary> findSummariesAsc(@Param("name") String name, @Param("type") String type, Pageable pageable);
+
+    @Query("""
+            SELECT f.id AS id, f.fileName AS fileName, f.fileType AS fileType, f.fileSize AS fileSize,
+                   f.uploadTime AS uploadTime, f.shortLink AS shortLink,
+                   f.bpmnValid AS bpmnValid, f.validationErrors AS validationErrors,
+                   f.validationWarnings AS validationWarnings, f.flowNodeCount AS flowNodeCount,
+                   f.sequenceFlowCount AS sequenceFlowCount
+            FROM File f
+            WHERE (:name IS NULL OR LOWER(f.fileName) LIKE LOWER(CONCAT('%', :name, '%')))
+              AND (:type IS NULL OR f.fileType = :type)
+              AND (f.uploadTime > :uploadTime OR (f.uploadTime = :uploadTime AND f.id > :id))
+            ORDER BY f.uploadTime ASC, f.id ASC
+            """)
+    List<FileSummary> findSummariesAscAfter(@Param("name") String name, @Param("type") String type,
+                                            @Param("uploadTime") LocalDateTime uploadTime, @Param("id") Long id,
+                                            Pageable pageable);
+
+    @Query("""
+            SELECT f.id AS id, f.fileName AS fileName, f.fileType AS fileType, f.fileSize AS fileSize,
+                   f.uploadTime AS uploadTime, f.shortLink AS shortLink,
+                   f.bpmnValid AS bpmnValid, f.validationErrors AS validationErrors,
+                   f.validationWarnings AS validationWarnings, f.flowNodeCount AS flowNodeCount,
+                   f.sequenceFlowCount AS sequenceFlowCount
+            FROM File f
+            WHERE f.id IN :ids
+            """)
+    List<FileSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+}
@@ -1,32 +1,307 @@
 package bpmnProject.akon.bpmnJavaBackend.File;
 
 
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.BpmnModelCache;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.RenderCache;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.ValidationReport;
+import bpmnProject.akon.bpmnJavaBackend.Search.SearchService;
+import bpmnProject.akon.bpmnJavaBackend.Stats.FileStatsBucket;
+import bpmnProject.akon.bpmnJavaBackend.Stats.FileStatsService;
+import bpmnProject.akon.bpmnJavaBackend.Storage.BlobStore;
+import bpmnProject.akon.bpmnJavaBackend.Storage.StoredBlob;
+import bpmnProject.akon.bpmnJavaBackend.Version.FileVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Transactional
 public class FileService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final String INSERT_SQL =
+            "INSERT INTO files (file_name, file_type, file_size, upload_time, content_hash, bpmn_valid, "
+                    + "validation_errors, validation_warnings, flow_node_count, sequence_flow_count, uploaded_by, "
+                    + "stored_size) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     private final FileRepository fileRepo;
     private final BpmnPdfService bpmnPdfService;
+    private final BlobStore blobStore;
+    private final UploadGuard uploadGuard;
+    private final RenderCache renderCache;
+    private final BpmnModelCache modelCache;
+    private final SearchService searchService;
+    private final FileStatsService fileStatsService;
+    private final FileVersionService fileVersionService;
+    private final AuditorAware<Integer> auditorAware;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int insertBatchSize;
+    // Blobs stored by transactions that have not completed yet, with the number of such transactions
+    private final Map<String, Integer> pinnedBlobs = new ConcurrentHashMap<>();
+    // Pinning and deleting a blob are serialised per hash, so a pin only waits for a delete of the same stripe
+    private final Object[] blobLocks = new Object[64];
 
     @Autowired
-    public FileService(FileRepository fileRepo, BpmnPdfService bpmnPdfService) {
+    public FileService(FileRepository fileRepo, BpmnPdfService bpmnPdfService, BlobStore blobStore,
+                       UploadGuard uploadGuard, RenderCache renderCache, BpmnModelCache modelCache,
+                       SearchService searchService, FileStatsService fileStatsService,
+                       FileVersionService fileVersionService,
+                       AuditorAware<Integer> auditorAware, JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:20}") int insertBatchSize) {
         this.fileRepo = fileRepo;
         this.bpmnPdfService = bpmnPdfService;
+        this.blobStore = blobStore;
+        this.uploadGuard = uploadGuard;
+        this.renderCache = renderCache;
+        this.modelCache = modelCache;
+        this.searchService = searchService;
+        this.fileStatsService = fileStatsService;
+        this.fileVersionService = fileVersionService;
+        this.auditorAware = auditorAware;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.insertBatchSize = Math.max(1, insertBatchSize);
+        Arrays.setAll(blobLocks, i -> new Object());
+    }
+
+    /**
+     * Stream an upload into the blob store, hashing, size-checking and validating it on the way,
+     * and only then commit the metadata row. The slow part runs without a transaction, so an
+     * upload holds a database connection only for the insert.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public File uploadFile(String fileName, String fileType, InputStream content) {
+        File file = new File();
+        file.setFileName(fileName == null || fileName.trim().isEmpty()
+                ? "unnamed_file_" + System.currentTimeMillis()
+                : fileName);
+        file.setFileType(fileType);
+        StoredBlob blob = storeGuarded(content);
+        try {
+            file.setContentHash(blob.getHash());
+            file.setFileSize(blob.getSize());
+            file.setStoredSize(blob.getStoredSize());
+            file.setUploadedBy(currentUserId());
+            validateContent(file);
+
+            return transactionTemplate.execute(status -> {
+                pin(blob.getHash());
+                file.setUploadTime(LocalDateTime.now());
+                File savedFile = fileRepo.save(file);
+                fileStatsService.recordAdded(savedFile);
+                System.out.println("File saved to database with ID: " + savedFile.getId());
+                pregeneratePreview(savedFile);
+                indexAfterCommit(savedFile);
+                return savedFile;
+            });
+        } catch (RuntimeException e) {
+            releaseBlob(blob.getHash());
+            System.err.println("Error uploading file: " + e.getMessage());
+            throw new RuntimeException("Failed to upload file", e);
+        }
+    }
+
+    /**
+     * Replace a file's content with a streamed upload
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public File updateFileContent(Long id, String fileName, String fileType, InputStream content) {
+        return updateFileContent(id, fileName, fileType, content, null);
+    }
+
+    /**
+     * Replace a file's content with a streamed upload, recording a revision with the given note.
+     * Like {@link #uploadFile(String, String, InputStream)}, the content is stored and validated
+     * before the transaction that updates the row starts.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public File updateFileContent(Long id, String fileName, String fileType, InputStream content, String revisionNote) {
+        if (!fileRepo.existsById(id)) {
+            throw new RuntimeException("File with ID " + id + " not found");
+        }
+        StoredBlob blob = storeGuarded(content);
+        try {
+            File staged = new File();
+            staged.setId(id);
+            staged.setFileName(fileName);
+            staged.setContentHash(blob.getHash());
+            ValidationReport report = validateContent(staged);
+
+            return transactionTemplate.execute(status -> {
+                pin(blob.getHash());
+                File existingFile = findFileById(id);
+                String previousHash = existingFile.getContentHash();
+                FileStatsService.Snapshot before = FileStatsService.snapshot(existingFile);
+                FileVersionService.State previous = FileVersionService.stateOf(existingFile);
+                existingFile.setFileName(fileName);
+                existingFile.setFileType(fileType);
+                existingFile.setContentHash(blob.getHash());
+                existingFile.setFileSize(blob.getSize());
+                existingFile.setStoredSize(blob.getStoredSize());
+                existingFile.setModifiedTime(LocalDateTime.now());
+                if (report != null) {
+                    existingFile.recordValidation(report);
+                }
+
+                File saved = fileRepo.saveAndFlush(existingFile);
+                fileStatsService.recordChanged(before, saved);
+                fileVersionService.recordUpdate(previous, saved, revisionNote);
+                if (previousHash != null && !previousHash.equals(saved.getContentHash())) {
+                    releaseBlob(previousHash);
+                }
+                pregeneratePreview(saved);
+                indexAfterCommit(saved);
+                return saved;
+            });
+        } catch (RuntimeException e) {
+            releaseBlob(blob.getHash());
+            System.err.println("Error updating file: " + e.getMessage());
+            throw new RuntimeException("Failed to update file", e);
+        }
+    }
+
+    /**
+     * Insert metadata rows for content that is already in the blob store, in one transaction.
+     * The id column is IDENTITY, which keeps Hibernate from batching inserts, so the rows go
+     * through JDBC in batches of hibernate.jdbc.batch_size and the generated ids are read back.
+     * If the transaction rolls back, blobs no other file references are released.
+     */
+    public List<File> importFiles(List<File> files) {
+        if (files.isEmpty()) {
+            return files;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Integer uploadedBy = currentUserId();
+        for (File file : files) {
+            file.setUploadTime(now);
+            file.setUploadedBy(uploadedBy);
+        }
+        // Staged before this transaction; pinned so a concurrent release cannot remove them before the rows commit
+        files.forEach(file -> pin(file.getContentHash()));
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int start = 0; start < files.size(); start += insertBatchSize) {
+                    List<File> batch = files.subList(start, Math.min(files.size(), start + insertBatchSize));
+                    for (File file : batch) {
+                        statement.setString(1, file.getFileName());
+                        if (file.getFileType() != null) {
+                            statement.setString(2, file.getFileType());
+                        } else {
+                            statement.setNull(2, Types.VARCHAR);
+                        }
+                        statement.setLong(3, file.getFileSize());
+                        statement.setTimestamp(4, Timestamp.valueOf(file.getUploadTime()));
+                        statement.setString(5, file.getContentHash());
+                        statement.setObject(6, file.getBpmnValid(), Types.BOOLEAN);
+                        statement.setObject(7, file.getValidationErrors(), Types.INTEGER);
+                        statement.setObject(8, file.getValidationWarnings(), Types.INTEGER);
+                        statement.setObject(9, file.getFlowNodeCount(), Types.INTEGER);
+                        statement.setObject(10, file.getSequenceFlowCount(), Types.INTEGER);
+                        statement.setObject(11, file.getUploadedBy(), Types.INTEGER);
+                        statement.setObject(12, file.getStoredSize(), Types.BIGINT);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (File file : batch) {
+                            if (!keys.next()) {
+                                throw new SQLException("Missing generated id for " + file.getFileName());
+                            }
+                            file.setId(keys.getLong(1));
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+
+        fileStatsService.recordAdded(files);
+        System.out.println("Imported " + files.size() + " files in batches of " + insertBatchSize);
+        for (File file : files) {
+            pregeneratePreview(file);
+            indexAfterCommit(file);
+        }
+        return files;
+    }
+
+    /**
+     * Validate a file (streaming its content) and keep the summary on its row up to date
+     */
+    public ValidationReport validateFile(Long id, boolean fullParse) {
+        File file = findFileById(id);
+        ValidationReport report = bpmnPdfService.validateBpmnFile(file, fullParse);
+        // Rows stored before validation ran at ingest get their summary here; unchanged rows are not written
+        if (file.recordValidation(report)) {
+            file.setModifiedTime(LocalDateTime.now());
+        }
+        return report;
     }
 
     /**
-     * Upload and save file to database
+     * Validate freshly stored content once, at ingest, so listings can show validity without
+     * reparsing. A validator failure leaves the summary empty instead of failing the upload.
+     *
+     * @return the report, or null when the validator failed
+     */
+    private ValidationReport validateContent(File file) {
+        try {
+            ValidationReport report = bpmnPdfService.validateBpmnFile(file, false);
+            file.recordValidation(report);
+            return report;
+        } catch (RuntimeException e) {
+            System.err.println("Could not validate " + file.getFileName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Guard and store an upload outside any transaction; the caller pins the blob in the
+     * transaction that references it and releases it if that never commits
+     */
+    private StoredBlob storeGuarded(InputStream content) {
+        try {
+            return blobStore.put(uploadGuard.guard(content));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store upload", e);
+        }
+    }
+
+    /**
+     * Upload file: bytes go to the blob store, metadata and content hash to the database
      */
     public File uploadFile(File file) {
         try {
             file.setUploadTime(LocalDateTime.now());
+            file.setUploadedBy(currentUserId());
 
             // Validate file
             if (file.getData() == null || file.getData().length == 0) {
@@ -37,14 +312,19 @@ public class FileService {
                 file.setFileName("unnamed_file_" + System.currentTimeMillis());
             }
 
-            // Set file size if not set
-            if (file.getFileSize() == null) {
-                file.setFileSize((long) file.getData().length);
-            }
+            // Write content through the blob store; identical uploads share one blob
+            StoredBlob blob = pin(blobStore.put(file.getData()));
+            file.setContentHash(blob.getHash());
+            file.setFileSize(blob.getSize());
+            file.setStoredSize(blob.getStoredSize());
+            validateContent(file);
 
-            // Save to database
+            // Save metadata to database
             File savedFile = fileRepo.save(file);
+            fileStatsService.recordAdded(savedFile);
             System.out.println("File saved to database with ID: " + savedFile.getId());
+            pregeneratePreview(savedFile);
+            indexAfterCommit(savedFile);
 
             return savedFile;
 
@@ -71,6 +351,64 @@ public class FileService {
         }
     }
 
+    /**
+     * Metadata of the given files in the order of the ids; unknown ids are skipped
+     */
+    @Transactional(readOnly = true)
+    public List<File> findFilesByIds(List<Long> ids) {
+        Map<Long, File> byId = new HashMap<>();
+        for (File file : fileRepo.findAllById(ids)) {
+            byId.put(file.getId(), file);
+        }
+        List<File> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            File file = byId.get(id);
+            if (file != null) {
+                ordered.add(file);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * List file metadata one page at a time using a keyset cursor over (uploadTime, id).
+     * Content is never touched.
+     */
+    @Transactional(readOnly = true)
+    public FilePage listFiles(String cursor, int limit, boolean ascending, String name, String type) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether another page exists
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        String nameFilter = (name == null || name.isBlank()) ? null : name.trim();
+        String typeFilter = (type == null || type.isBlank()) ? null : type.trim();
+
+        List<FileSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = ascending
+                    ? fileRepo.findSummariesAsc(nameFilter, typeFilter, pageable)
+                    : fileRepo.findSummariesDesc(nameFilter, typeFilter, pageable);
+        } else {
+            FileCursor position = FileCursor.decode(cursor);
+            rows = ascending
+                    ? fileRepo.findSummariesAscAfter(nameFilter, typeFilter, position.getUploadTime(), position.getId(), pageable)
+                    : fileRepo.findSummariesDescAfter(nameFilter, typeFilter, position.getUploadTime(), position.getId(), pageable);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<FileSummary> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            FileSummary last = items.get(items.size() - 1);
+            nextCursor = new FileCursor(last.getUploadTime(), last.getId()).encode();
+        }
+
+        return FilePage.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
     /**
      * Find file by filename
      */
@@ -99,15 +437,60 @@ public class FileService {
         }
     }
 
+    /**
+     * Find file by ID and load its content from the blob store
+     */
+    @Transactional(readOnly = true)
+    public File findFileWithData(Long id) {
+        return loadData(findFileById(id));
+    }
+
+    /**
+     * Find file by filename and load its content from the blob store
+     */
+    @Transactional(readOnly = true)
+    public File findFileByFilenameWithData(String filename) {
+        return loadData(findFileByFilename(filename));
+    }
+
+    /**
+     * Populate the transient data field of a file from the blob store
+     */
+    public File loadData(File file) {
+        if (file.getData() != null || file.getContentHash() == null) {
+            return file;
+        }
+        try {
+            file.setData(blobStore.read(file.getContentHash()));
+            return file;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read content of file " + file.getId(), e);
+        }
+    }
+
+    /**
+     * The file's content for a JSON response, read from the blob store only while it is written
+     */
+    public StreamedContent streamedContent(File file, StreamedContent.Encoding encoding) {
+        if (file.getContentHash() == null) {
+            throw new RuntimeException("File " + file.getId() + " has no stored content");
+        }
+        return new StreamedContent(blobStore, file.getContentHash(), encoding);
+    }
+
     /**
      * Delete file by ID
      */
     public void deleteByFile(Long id) {
         try {
-            if (!fileRepo.existsById(id)) {
-                throw new RuntimeException("File with ID " + id + " not found");
-            }
-            fileRepo.deleteById(id);
+            File file = fileRepo.findById(id)
+                    .orElseThrow(() -> new RuntimeException("File with ID " + id + " not found"));
+            fileRepo.delete(file);
+            fileRepo.flush();
+            fileStatsService.recordRemoved(file);
+            fileVersionService.deleteRevisions(id);
+            releaseBlob(file.getContentHash());
+            removeFromIndexAfterCommit(id);
             System.out.println("File with ID " + id + " deleted successfully");
         } catch (Exception e) {
             System.err.println("Error deleting file: " + e.getMessage());
@@ -126,17 +509,33 @@ public class FileService {
 
             // Check if file exists
             File existingFile = findFileById(file.getId());
+            FileStatsService.Snapshot before = FileStatsService.snapshot(existingFile);
+            FileVersionService.State previous = FileVersionService.stateOf(existingFile);
 
             // Update fields
             existingFile.setFileName(file.getFileName());
             existingFile.setFileType(file.getFileType());
+            existingFile.setModifiedTime(LocalDateTime.now());
 
+            String previousHash = existingFile.getContentHash();
             if (file.getData() != null) {
+                StoredBlob blob = pin(blobStore.put(file.getData()));
                 existingFile.setData(file.getData());
-                existingFile.setFileSize((long) file.getData().length);
+                existingFile.setContentHash(blob.getHash());
+                existingFile.setFileSize(blob.getSize());
+                existingFile.setStoredSize(blob.getStoredSize());
+                validateContent(existingFile);
             }
 
-            return fileRepo.save(existingFile);
+            File saved = fileRepo.saveAndFlush(existingFile);
+            fileStatsService.recordChanged(before, saved);
+            fileVersionService.recordUpdate(previous, saved, null);
+            if (previousHash != null && !previousHash.equals(saved.getContentHash())) {
+                releaseBlob(previousHash);
+            }
+            pregeneratePreview(saved);
+            indexAfterCommit(saved);
+            return saved;
 
         } catch (Exception e) {
             System.err.println("Error updating file: " + e.getMessage());
@@ -144,16 +543,150 @@ public class FileService {
         }
     }
 
+    /**
+     * Queue the thumbnail once the row is committed, so /preview is a cache read
+     */
+    private void pregeneratePreview(File file) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bpmnPdfService.pregeneratePreview(file);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bpmnPdfService.pregeneratePreview(file);
+            }
+        });
+    }
+
+    /**
+     * Index the file once the row is committed, so search never returns an uncommitted file
+     */
+    private void indexAfterCommit(File file) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            searchService.index(file);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                searchService.index(file);
+            }
+        });
+    }
+
+    private void removeFromIndexAfterCommit(Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            searchService.remove(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                searchService.remove(id);
+            }
+        });
+    }
+
+    private StoredBlob pin(StoredBlob blob) {
+        pin(blob.getHash());
+        return blob;
+    }
+
+    /**
+     * Keep a blob the current transaction is about to reference from being released until the
+     * transaction completes; if it rolls back, the blob is released then.
+     *
+     * The blob store does not rewrite content it already holds, so a release that ran between
+     * the put and this pin may have deleted the blob the new row would point to. That is
+     * checked here and fails the store instead of committing a row without content.
+     */
+    private void pin(String contentHash) {
+        synchronized (blobLock(contentHash)) {
+            pinnedBlobs.merge(contentHash, 1, Integer::sum);
+            if (!blobStore.exists(contentHash)) {
+                unpin(contentHash);
+                throw new RuntimeException("Content " + contentHash + " was released concurrently, retry the upload");
+            }
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            unpin(contentHash);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                unpin(contentHash);
+                if (status != STATUS_COMMITTED) {
+                    releaseBlob(contentHash);
+                }
+            }
+        });
+    }
+
+    private void unpin(String contentHash) {
+        pinnedBlobs.computeIfPresent(contentHash, (hash, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private Object blobLock(String contentHash) {
+        return blobLocks[Math.floorMod(contentHash.hashCode(), blobLocks.length)];
+    }
+
+    /**
+     * Delete a blob and its cached renderings once no file or revision references it any more.
+     * Inside a transaction this waits for it to complete, so a rollback never finds its
+     * content gone and the reference count only sees committed rows.
+     */
+    private void releaseBlob(String contentHash) {
+        if (contentHash == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    deleteIfUnreferenced(contentHash);
+                }
+            });
+            return;
+        }
+        deleteIfUnreferenced(contentHash);
+    }
+
+    /**
+     * Runs under the hash's lock so a concurrent pin either sees the blob gone or keeps it, while
+     * pins of other content never wait for the reference queries below.
+     */
+    private void deleteIfUnreferenced(String contentHash) {
+        synchronized (blobLock(contentHash)) {
+            if (pinnedBlobs.containsKey(contentHash) || fileRepo.countByContentHash(contentHash) > 0
+                    || fileVersionService.referencesBlob(contentHash)) {
+                return;
+            }
+            renderCache.invalidate(contentHash);
+            modelCache.invalidate(contentHash);
+            try {
+                blobStore.delete(contentHash);
+            } catch (IOException e) {
+                System.err.println("Failed to delete unreferenced blob " + contentHash + ": " + e.getMessage());
+            }
+        }
+    }
+
     /**
      * Convert BPMN file to PDF using BpmnPdfService
      */
     public byte[] convertBpmnToPdf(File file) {
         try {
-            if (file == null || file.getData() == null) {
-                throw new RuntimeException("File or file data is null");
+            if (file == null) {
+                throw new RuntimeException("File is null");
+            }
+            loadData(file);
+            if (file.getData() == null) {
+                throw new RuntimeException("File data is null");
             }
 
-            return bpmnPdfService.convertBpmnToSvg(file);
+            return bpmnPdfService.convertBpmnToPdf(file);
 
         } catch (Exception e) {
             System.err.println("Error converting BPMN to PDF: " + e.getMessage());
@@ -170,29 +703,22 @@ public class FileService {
     }
 
     /**
-     * Get file statistics
+     * Get file statistics from the incrementally maintained counters; see {@link FileStatsService}
      */
     @Transactional(readOnly = true)
     public FileStats getFileStats() {
-        try {
-            List<File> allFiles = fileRepo.findAll();
-
-            long totalFiles = allFiles.size();
-            long totalSize = allFiles.stream()
-                    .mapToLong(file -> file.getFileSize() != null ? file.getFileSize() : 0)
-                    .sum();
-
-            long bpmnFiles = allFiles.stream()
-                    .filter(file -> file.getFileType() != null &&
-                            (file.getFileType().contains("xml") ||
-                                    file.getFileName().endsWith(".bpmn")))
-                    .count();
-
-            return new FileStats(totalFiles, totalSize, bpmnFiles);
+        FileStatsBucket totals = fileStatsService.getTotals();
+        return new FileStats(totals.getFileCount(), totals.getTotalSize(), totals.getBpmnCount());
+    }
 
-        } catch (Exception e) {
-            System.err.println("Error getting file stats: " + e.getMessage());
-            return new FileStats(0, 0, 0);
+    /**
+     * Id of the authenticated user, or null outside a request
+     */
+    private Integer currentUserId() {
+        try {
+            return auditorAware.getCurrentAuditor().orElse(null);
+        } catch (RuntimeException e) {
+            return null;
         }
     }
 
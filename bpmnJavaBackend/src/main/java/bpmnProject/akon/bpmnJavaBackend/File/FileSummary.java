@@ -0,0 +1,20 @@
+package bpmnProject.akon.bpmnJavaBackend.File;
+
+import java.time.LocalDateTime;
+
+/**
+ * Metadata-only projection of a file, used by listings so no content is loaded
+ */
+public interface FileSummary {
+    Long getId();
+    String getFileName();
+    String getFileType();
+    Long getFileSize();
+    LocalDateTime getUploadTime();
+    String getShortLink();
+    Boolean getBpmnValid();
+    Integer getValidationErrors();
+    Integer getValidationWarnings();
+    Integer getFlowNodeCount();
+    Integer getSequenceFlowCount();
+}
@@ -0,0 +1,78 @@
+package bpmnProject.akon.bpmnJavaBackend.File;
+
+import bpmnProject.akon.bpmnJavaBackend.Storage.BlobStore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A file's content as a JSON string value, read from the blob store while the response is
+ * written: Jackson encodes it chunk by chunk into the output, so neither the content nor its
+ * encoded form is ever held in memory as a whole.
+ */
+@JsonSerialize(using = StreamedContent.Serializer.class)
+public class StreamedContent {
+
+    public enum Encoding {
+        // UTF-8 text, escaped as a JSON string
+        TEXT,
+        // Base64 of the bytes, for content that is not text
+        BASE64;
+
+        /**
+         * Encoding for a request parameter value; null for {@code none}
+         */
+        public static Encoding fromParameter(String value) {
+            switch (value.toLowerCase()) {
+                case "none":
+                    return null;
+                case "text":
+                    return TEXT;
+                case "base64":
+                    return BASE64;
+                default:
+                    throw new IllegalArgumentException("Unknown content encoding: " + value);
+            }
+        }
+    }
+
+    private final BlobStore blobStore;
+    private final String contentHash;
+    private final Encoding encoding;
+
+    public StreamedContent(BlobStore blobStore, String contentHash, Encoding encoding) {
+        this.blobStore = blobStore;
+        this.contentHash = contentHash;
+        this.encoding = encoding;
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    public static class Serializer extends StdSerializer<StreamedContent> {
+
+        public Serializer() {
+            super(StreamedContent.class);
+        }
+
+        @Override
+        public void serialize(StreamedContent value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            try (InputStream in = value.blobStore.open(value.contentHash)) {
+                if (value.encoding == Encoding.BASE64) {
+                    gen.writeBinary(in, -1);
+                } else {
+                    Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+                    gen.writeString(reader, -1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package bpmnProject.akon.bpmnJavaBackend.File;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+/**
+ * Wraps an incoming upload stream so that it is checked while it is being stored:
+ * the first bytes are sniffed for a BPMN definitions root element and the total
+ * length is capped. Both checks fail before the content reaches its final location.
+ */
+@Component
+public class UploadGuard {
+
+    public static final String BPMN_MODEL_NAMESPACE = "http://www.omg.org/spec/BPMN/20100524/MODEL";
+
+    private static final int SNIFF_SIZE = 8192;
+
+    private final long maxUploadSize;
+    private final boolean requireBpmn;
+    private final XMLInputFactory xmlInputFactory;
+
+    public UploadGuard(@Value("${application.upload.max-size:${spring.servlet.multipart.max-file-size:10MB}}") DataSize maxUploadSize,
+                       @Value("${application.upload.require-bpmn:true}") boolean requireBpmn) {
+        this.maxUploadSize = maxUploadSize.toBytes();
+        this.requireBpmn = requireBpmn;
+        this.xmlInputFactory = XMLInputFactory.newFactory();
+        this.xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        this.xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Sniff the head of the stream and return a stream that replays it and enforces the size limit
+     */
+    public InputStream guard(InputStream content) throws IOException {
+        byte[] head = content.readNBytes(SNIFF_SIZE);
+        if (head.length == 0) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.EMPTY, "File data is empty");
+        }
+        if (head.length > maxUploadSize) {
+            throw tooLarge();
+        }
+        if (requireBpmn && !hasBpmnRoot(head)) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.NOT_BPMN,
+                    "Content is not a BPMN 2.0 definitions document");
+        }
+
+        InputStream replay = new SequenceInputStream(new ByteArrayInputStream(head), content);
+        return new LimitedInputStream(replay, maxUploadSize);
+    }
+
+    public long getMaxUploadSize() {
+        return maxUploadSize;
+    }
+
+    private boolean hasBpmnRoot(byte[] head) {
+        XMLStreamReader reader = null;
+        try {
+            reader = xmlInputFactory.createXMLStreamReader(new ByteArrayInputStream(head));
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    return "definitions".equals(reader.getLocalName())
+                            && BPMN_MODEL_NAMESPACE.equals(reader.getNamespaceURI());
+                }
+            }
+            return false;
+        } catch (XMLStreamException e) {
+            return false;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // nothing to release
+                }
+            }
+        }
+    }
+
+    private UploadRejectedException tooLarge() {
+        return new UploadRejectedException(UploadRejectedException.Reason.TOO_LARGE,
+                "File exceeds the maximum upload size of " + DataSize.ofBytes(maxUploadSize).toMegabytes() + "MB");
+    }
+
+    /**
+     * Fails as soon as more than the allowed number of bytes has been read
+     */
+    private class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                checkLimit(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                checkLimit(read);
+            }
+            return read;
+        }
+
+        private void checkLimit(int read) {
+            count += read;
+            if (count > limit) {
+                throw tooLarge();
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package bpmnProject.akon.bpmnJavaBackend.File;
+
+/**
+ * Thrown while an upload is being streamed when its content is not acceptable
+ */
+public class UploadRejectedException extends RuntimeException {
+
+    public enum Reason {
+        EMPTY,
+        TOO_LARGE,
+        NOT_BPMN
+    }
+
+    private final Reason reason;
+
+    public UploadRejectedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,78 @@
+package bpmnProject.akon.bpmnJavaBackend.Search;
+
+import java.util.List;
+
+/**
+ * What the search index keeps about one file: its name, the content it was built from and
+ * the searchable fields of each element. Also the unit written to the index log.
+ */
+public final class IndexedDiagram {
+
+    private final long fileId;
+    private final String fileName;
+    private final String contentHash;
+    private final List<IndexedElement> elements;
+
+    public IndexedDiagram(long fileId, String fileName, String contentHash, List<IndexedElement> elements) {
+        this.fileId = fileId;
+        this.fileName = fileName;
+        this.contentHash = contentHash;
+        this.elements = List.copyOf(elements);
+    }
+
+    public long getFileId() {
+        return fileId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public List<IndexedElement> getElements() {
+        return elements;
+    }
+
+    public static final class IndexedElement {
+
+        private final String id;
+        private final String type;
+        private final String name;
+        private final String lane;
+        private final String documentation;
+
+        public IndexedElement(String id, String type, String name, String lane, String documentation) {
+            this.id = id;
+            this.type = type;
+            this.name = name;
+            this.lane = lane;
+            this.documentation = documentation;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Name of the lane the element is assigned to, or null
+         */
+        public String getLane() {
+            return lane;
+        }
+
+        public String getDocumentation() {
+            return documentation;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package bpmnProject.akon.bpmnJavaBackend.Search;
+
+import bpmnProject.akon.bpmnJavaBackend.File.FileSummary;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One ranked file: its metadata, the score and the elements that matched
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHit {
+    private FileSummary file;
+    private double score;
+    private List<SearchMatch> matches;
+}
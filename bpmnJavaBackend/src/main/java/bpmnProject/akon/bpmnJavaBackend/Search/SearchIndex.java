@@ -0,0 +1,798 @@
+package bpmnProject.akon.bpmnJavaBackend.Search;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded inverted index over file names and diagram elements.
+ *
+ * Terms map to postings per file; each posting records which element (0 for the file itself)
+ * and which field the term came from, so a query can be answered per document or per element
+ * ("a userTask whose name mentions invoice"). The index lives in memory and is persisted as a
+ * snapshot plus an append-only log of puts and deletes. Every log record carries its length and
+ * a CRC, so a torn write at the tail is cut off on startup instead of corrupting the index. The
+ * log is folded into a new snapshot once it grows past {@code compact-after} records.
+ *
+ * The index is derived data: whatever is lost can be rebuilt from the database and blob store.
+ */
+@Component
+public class SearchIndex {
+
+    private static final int MAGIC = 0x42504958;
+    private static final int VERSION = 1;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    static final int FIELD_FILE_NAME = 0;
+    static final int FIELD_NAME = 1;
+    static final int FIELD_ID = 2;
+    static final int FIELD_TYPE = 3;
+    static final int FIELD_LANE = 4;
+    static final int FIELD_DOCUMENTATION = 5;
+    private static final double[] FIELD_WEIGHTS = {3.0, 3.0, 1.5, 1.0, 2.0, 1.0};
+
+    private static final int MAX_TERM_LENGTH = 64;
+    private static final int MAX_PREFIX_EXPANSION = 200;
+    private static final int MAX_MATCHES = 5;
+    // BM25 term frequency saturation
+    private static final double K1 = 1.2;
+
+    private final Path root;
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final int compactAfter;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> documents = new HashMap<>();
+    private final TreeMap<String, Map<Long, int[]>> postings = new TreeMap<>();
+    private DataOutputStream log;
+    private long logRecords;
+
+    public SearchIndex(@Value("${application.search.index.root:data/search-index}") String root,
+                       @Value("${application.search.index.compact-after:10000}") int compactAfter) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.snapshotFile = this.root.resolve("index.snap");
+        this.logFile = this.root.resolve("index.log");
+        this.compactAfter = Math.max(1, compactAfter);
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        Files.createDirectories(root);
+        lock.writeLock().lock();
+        try {
+            // Whatever cannot be read here is put back by the startup reconcile
+            if (Files.exists(snapshotFile) && replay(snapshotFile) < 0) {
+                System.err.println("Search index snapshot is unreadable, starting empty");
+                clearMemory();
+            }
+            if (Files.exists(logFile) && Files.size(logFile) > 0) {
+                long valid = replay(logFile);
+                if (valid < 0) {
+                    System.err.println("Search index log is unreadable, discarding it");
+                    Files.delete(logFile);
+                } else if (valid < Files.size(logFile)) {
+                    System.err.println("Search index log has a torn tail, truncating it at " + valid + " bytes");
+                    try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                        channel.truncate(valid);
+                    }
+                }
+            }
+            openLog();
+            System.out.println("Search index opened with " + documents.size() + " documents and "
+                    + postings.size() + " terms");
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        lock.writeLock().lock();
+        try {
+            if (log != null) {
+                log.close();
+                log = null;
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to close search index log: " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace the entry for a file. Unchanged entries are not rewritten.
+     */
+    public void put(IndexedDiagram diagram) {
+        lock.writeLock().lock();
+        try {
+            Entry existing = documents.get(diagram.getFileId());
+            if (existing != null && sameSource(existing.diagram, diagram)) {
+                return;
+            }
+            removeFromMemory(diagram.getFileId());
+            addToMemory(diagram);
+            append(encodePut(diagram));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long fileId) {
+        lock.writeLock().lock();
+        try {
+            if (removeFromMemory(fileId)) {
+                append(encodeDelete(fileId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexed entry of a file, or null
+     */
+    public IndexedDiagram get(long fileId) {
+        lock.readLock().lock();
+        try {
+            Entry entry = documents.get(fileId);
+            return entry != null ? entry.diagram : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Set<Long> fileIds() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(documents.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drop everything, in memory and on disk, ahead of a rebuild
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            clearMemory();
+            if (log != null) {
+                log.close();
+                log = null;
+            }
+            Files.deleteIfExists(snapshotFile);
+            Files.deleteIfExists(logFile);
+            openLog();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to clear search index", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rank files against the query. Every query word must match (a trailing * matches by
+     * prefix). With an element type, the words must all match one element of that type.
+     */
+    public Result search(String query, String elementType, int offset, int limit) {
+        List<String> words = new ArrayList<>();
+        List<Boolean> prefixes = new ArrayList<>();
+        parseQuery(query, words, prefixes);
+        String type = elementType != null && !elementType.isBlank() ? elementType.trim() : null;
+        if (words.isEmpty() && type == null) {
+            return new Result(0, List.of());
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Map<Long, int[]>> termPostings = new ArrayList<>(words.size());
+            for (int i = 0; i < words.size(); i++) {
+                Map<Long, int[]> matches = prefixes.get(i) ? expandPrefix(words.get(i)) : postings.get(words.get(i));
+                if (matches == null || matches.isEmpty()) {
+                    return new Result(0, List.of());
+                }
+                termPostings.add(matches);
+            }
+            Map<Long, int[]> typePostings = null;
+            if (type != null) {
+                typePostings = postings.get(type.toLowerCase(Locale.ROOT));
+                if (typePostings == null) {
+                    return new Result(0, List.of());
+                }
+            }
+
+            // Drive the intersection from the rarest term
+            Map<Long, int[]> driver = typePostings;
+            for (Map<Long, int[]> candidate : termPostings) {
+                if (driver == null || candidate.size() < driver.size()) {
+                    driver = candidate;
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>();
+            for (Long fileId : driver.keySet()) {
+                Hit hit = type != null
+                        ? scoreElements(fileId, type, typePostings, termPostings)
+                        : scoreDocument(fileId, termPostings);
+                if (hit != null) {
+                    hits.add(hit);
+                }
+            }
+            hits.sort(Comparator.comparingDouble(Hit::getScore).reversed()
+                    .thenComparing(Hit::getFileId, Comparator.reverseOrder()));
+            int from = Math.min(hits.size(), Math.max(0, offset));
+            int to = Math.min(hits.size(), from + Math.max(0, limit));
+            return new Result(hits.size(), new ArrayList<>(hits.subList(from, to)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("documents", documents.size());
+            stats.put("terms", postings.size());
+            stats.put("logRecords", logRecords);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("root", root.toString());
+        return stats;
+    }
+
+    // ---------------------------------------------------------------- scoring
+
+    /**
+     * All words must occur somewhere in the file
+     */
+    private Hit scoreDocument(Long fileId, List<Map<Long, int[]>> termPostings) {
+        double score = 0;
+        Map<Integer, Double> elementScores = new HashMap<>();
+        for (Map<Long, int[]> term : termPostings) {
+            int[] refs = term.get(fileId);
+            if (refs == null) {
+                return null;
+            }
+            double idf = idf(term.size());
+            double weight = 0;
+            for (int ref : refs) {
+                double w = FIELD_WEIGHTS[ref & 7];
+                weight += w;
+                int ordinal = ref >>> 3;
+                if (ordinal > 0) {
+                    elementScores.merge(ordinal, w * idf, Double::sum);
+                }
+            }
+            score += idf * saturate(weight);
+        }
+        List<Integer> best = new ArrayList<>(elementScores.keySet());
+        best.sort(Comparator.comparing(elementScores::get, Comparator.reverseOrder()));
+        return new Hit(fileId, score, elements(fileId, best));
+    }
+
+    /**
+     * All words must occur on one element of the given type
+     */
+    private Hit scoreElements(Long fileId, String type, Map<Long, int[]> typePostings, List<Map<Long, int[]>> termPostings) {
+        int[] typeRefs = typePostings.get(fileId);
+        Entry entry = documents.get(fileId);
+        if (typeRefs == null || entry == null) {
+            return null;
+        }
+        Set<Integer> eligible = new LinkedHashSet<>();
+        for (int ref : typeRefs) {
+            int ordinal = ref >>> 3;
+            if ((ref & 7) == FIELD_TYPE && ordinal > 0
+                    && type.equalsIgnoreCase(entry.diagram.getElements().get(ordinal - 1).getType())) {
+                eligible.add(ordinal);
+            }
+        }
+
+        double score = 0;
+        for (Map<Long, int[]> term : termPostings) {
+            int[] refs = term.get(fileId);
+            if (refs == null) {
+                return null;
+            }
+            Map<Integer, Double> weights = new HashMap<>();
+            for (int ref : refs) {
+                weights.merge(ref >>> 3, FIELD_WEIGHTS[ref & 7], Double::sum);
+            }
+            eligible.retainAll(weights.keySet());
+            if (eligible.isEmpty()) {
+                return null;
+            }
+            double weight = 0;
+            for (Integer ordinal : eligible) {
+                weight += weights.get(ordinal);
+            }
+            score += idf(term.size()) * saturate(weight);
+        }
+        if (eligible.isEmpty()) {
+            return null;
+        }
+        if (termPostings.isEmpty()) {
+            score = idf(typePostings.size()) * saturate(eligible.size());
+        }
+        return new Hit(fileId, score, elements(fileId, new ArrayList<>(eligible)));
+    }
+
+    private List<IndexedDiagram.IndexedElement> elements(Long fileId, List<Integer> ordinals) {
+        List<IndexedDiagram.IndexedElement> all = documents.get(fileId).diagram.getElements();
+        List<IndexedDiagram.IndexedElement> matches = new ArrayList<>(Math.min(MAX_MATCHES, ordinals.size()));
+        for (Integer ordinal : ordinals) {
+            if (matches.size() == MAX_MATCHES) {
+                break;
+            }
+            matches.add(all.get(ordinal - 1));
+        }
+        return matches;
+    }
+
+    private double idf(int documentFrequency) {
+        return Math.log(1 + (documents.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private static double saturate(double weight) {
+        return weight * (K1 + 1) / (weight + K1);
+    }
+
+    /**
+     * Union of the postings of every term starting with the prefix
+     */
+    private Map<Long, int[]> expandPrefix(String prefix) {
+        Map<Long, int[]> merged = new HashMap<>();
+        int expanded = 0;
+        for (Map<Long, int[]> term : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            if (++expanded > MAX_PREFIX_EXPANSION) {
+                break;
+            }
+            for (Map.Entry<Long, int[]> posting : term.entrySet()) {
+                merged.merge(posting.getKey(), posting.getValue(), SearchIndex::concat);
+            }
+        }
+        return merged;
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] joined = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, joined, a.length, b.length);
+        return joined;
+    }
+
+    // ---------------------------------------------------------------- terms
+
+    private void addToMemory(IndexedDiagram diagram) {
+        Map<String, IntList> terms = new HashMap<>();
+        addField(terms, diagram.getFileName(), 0, FIELD_FILE_NAME);
+        List<IndexedDiagram.IndexedElement> elements = diagram.getElements();
+        for (int i = 0; i < elements.size(); i++) {
+            IndexedDiagram.IndexedElement element = elements.get(i);
+            int ordinal = i + 1;
+            addField(terms, element.getName(), ordinal, FIELD_NAME);
+            addField(terms, element.getId(), ordinal, FIELD_ID);
+            addField(terms, element.getType(), ordinal, FIELD_TYPE);
+            addField(terms, element.getLane(), ordinal, FIELD_LANE);
+            addField(terms, element.getDocumentation(), ordinal, FIELD_DOCUMENTATION);
+        }
+
+        String[] keys = new String[terms.size()];
+        int k = 0;
+        for (Map.Entry<String, IntList> term : terms.entrySet()) {
+            Map<Long, int[]> byFile = postings.computeIfAbsent(term.getKey(), t -> new HashMap<>(4));
+            byFile.put(diagram.getFileId(), term.getValue().toArray());
+            keys[k++] = term.getKey();
+        }
+        documents.put(diagram.getFileId(), new Entry(diagram, keys));
+    }
+
+    private boolean removeFromMemory(long fileId) {
+        Entry entry = documents.remove(fileId);
+        if (entry == null) {
+            return false;
+        }
+        for (String term : entry.terms) {
+            Map<Long, int[]> byFile = postings.get(term);
+            if (byFile != null) {
+                byFile.remove(fileId);
+                if (byFile.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void clearMemory() {
+        documents.clear();
+        postings.clear();
+    }
+
+    private static void addField(Map<String, IntList> terms, String text, int ordinal, int field) {
+        int ref = ordinal << 3 | field;
+        tokenize(text, true, term -> terms.computeIfAbsent(term, t -> new IntList()).add(ref));
+    }
+
+    /**
+     * Split the query into lower-case words; a trailing * makes the last word of a token a prefix
+     */
+    private static void parseQuery(String query, List<String> words, List<Boolean> prefixes) {
+        if (query == null) {
+            return;
+        }
+        for (String token : query.trim().split("\\s+")) {
+            List<String> parts = new ArrayList<>();
+            tokenize(token, false, parts::add);
+            for (int i = 0; i < parts.size(); i++) {
+                boolean prefix = i == parts.size() - 1 && token.endsWith("*");
+                if (!words.contains(parts.get(i))) {
+                    words.add(parts.get(i));
+                    prefixes.add(prefix);
+                }
+            }
+        }
+    }
+
+    /**
+     * Emit each run of letters and digits in lower case. With parts, camelCase and
+     * letter/digit boundaries inside a run are emitted as well, so userTask also
+     * yields user and task.
+     */
+    static void tokenize(String text, boolean parts, Consumer<String> sink) {
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                int end = Math.min(i, start + MAX_TERM_LENGTH);
+                sink.accept(text.substring(start, end).toLowerCase(Locale.ROOT));
+                if (parts) {
+                    emitParts(text, start, end, sink);
+                }
+            }
+        }
+    }
+
+    private static void emitParts(String text, int start, int end, Consumer<String> sink) {
+        int partStart = start;
+        for (int j = start + 1; j < end; j++) {
+            char previous = text.charAt(j - 1);
+            char current = text.charAt(j);
+            boolean boundary = (Character.isLowerCase(previous) && Character.isUpperCase(current))
+                    || Character.isLetter(previous) != Character.isLetter(current)
+                    // XMLParser splits as XML, Parser
+                    || (Character.isUpperCase(previous) && Character.isUpperCase(current)
+                        && j + 1 < end && Character.isLowerCase(text.charAt(j + 1)));
+            if (boundary) {
+                sink.accept(text.substring(partStart, j).toLowerCase(Locale.ROOT));
+                partStart = j;
+            }
+        }
+        if (partStart > start) {
+            sink.accept(text.substring(partStart, end).toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private static boolean sameSource(IndexedDiagram a, IndexedDiagram b) {
+        return Objects.equals(a.getFileName(), b.getFileName())
+                && Objects.equals(a.getContentHash(), b.getContentHash())
+                && a.getElements().size() == b.getElements().size();
+    }
+
+    // ---------------------------------------------------------------- persistence
+
+    private void openLog() throws IOException {
+        boolean fresh = !Files.exists(logFile) || Files.size(logFile) == 0;
+        log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile.toFile(), true)));
+        if (fresh) {
+            log.writeInt(MAGIC);
+            log.writeInt(VERSION);
+            log.flush();
+            logRecords = 0;
+        }
+    }
+
+    /**
+     * Write one record to the log; a failed write leaves the in-memory index ahead of the
+     * disk until the next rebuild or reconcile
+     */
+    private void append(byte[] record) {
+        if (log == null) {
+            return;
+        }
+        try {
+            writeRecord(log, record);
+            log.flush();
+            logRecords++;
+        } catch (IOException e) {
+            System.err.println("Failed to append to search index log: " + e.getMessage());
+            return;
+        }
+        if (logRecords > compactAfter && logRecords > documents.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Write all documents to a new snapshot and start an empty log
+     */
+    private void compact() {
+        Path tmp = root.resolve("index.snap.tmp");
+        try {
+            try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                for (Entry entry : documents.values()) {
+                    writeRecord(out, encodePut(entry.diagram));
+                }
+                out.flush();
+                file.getChannel().force(true);
+            }
+            try {
+                Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // Replaying the old log over the new snapshot is harmless if we stop here
+            log.close();
+            Files.delete(logFile);
+            openLog();
+            System.out.println("Search index compacted to " + documents.size() + " documents");
+        } catch (IOException e) {
+            System.err.println("Failed to compact search index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Apply every intact record of the file to memory. Returns the length of the intact prefix,
+     * or -1 when the file is not an index file of this version.
+     */
+    private long replay(Path file) throws IOException {
+        long offset = 0;
+        try (InputStream raw = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return -1;
+            }
+            offset = 8;
+            while (true) {
+                int length;
+                int crc;
+                byte[] record;
+                try {
+                    length = in.readInt();
+                    crc = in.readInt();
+                    if (length <= 0) {
+                        break;
+                    }
+                    record = new byte[length];
+                    in.readFully(record);
+                } catch (EOFException e) {
+                    break;
+                }
+                if (crc != crc(record)) {
+                    break;
+                }
+                apply(record);
+                offset += 8 + length;
+                if (file.equals(logFile)) {
+                    logRecords++;
+                }
+            }
+        } catch (EOFException e) {
+            return -1;
+        }
+        return offset;
+    }
+
+    private void apply(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte op = in.readByte();
+        long fileId = in.readLong();
+        removeFromMemory(fileId);
+        if (op == PUT) {
+            String fileName = readString(in);
+            String contentHash = readString(in);
+            int count = in.readInt();
+            List<IndexedDiagram.IndexedElement> elements = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                elements.add(new IndexedDiagram.IndexedElement(readString(in), readString(in), readString(in),
+                        readString(in), readString(in)));
+            }
+            addToMemory(new IndexedDiagram(fileId, fileName, contentHash, elements));
+        }
+    }
+
+    private static byte[] encodePut(IndexedDiagram diagram) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(PUT);
+            out.writeLong(diagram.getFileId());
+            writeString(out, diagram.getFileName());
+            writeString(out, diagram.getContentHash());
+            out.writeInt(diagram.getElements().size());
+            for (IndexedDiagram.IndexedElement element : diagram.getElements()) {
+                writeString(out, element.getId());
+                writeString(out, element.getType());
+                writeString(out, element.getName());
+                writeString(out, element.getLane());
+                writeString(out, element.getDocumentation());
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] encodeDelete(long fileId) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(9);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(DELETE);
+            out.writeLong(fileId);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, byte[] record) throws IOException {
+        out.writeInt(record.length);
+        out.writeInt(crc(record));
+        out.write(record);
+    }
+
+    private static int crc(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ---------------------------------------------------------------- types
+
+    private static final class Entry {
+        private final IndexedDiagram diagram;
+        // Distinct terms of the document, to find its postings again on removal
+        private final String[] terms;
+
+        Entry(IndexedDiagram diagram, String[] terms) {
+            this.diagram = diagram;
+            this.terms = terms;
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[2];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    public static final class Result {
+        private final int total;
+        private final List<Hit> hits;
+
+        Result(int total, List<Hit> hits) {
+            this.total = total;
+            this.hits = hits;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public List<Hit> getHits() {
+            return hits;
+        }
+    }
+
+    public static final class Hit {
+        private final long fileId;
+        private final double score;
+        private final List<IndexedDiagram.IndexedElement> matches;
+
+        Hit(long fileId, double score, List<IndexedDiagram.IndexedElement> matches) {
+            this.fileId = fileId;
+            this.score = score;
+            this.matches = matches;
+        }
+
+        public long getFileId() {
+            return fileId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * Best-matching elements, at most a handful
+         */
+        public List<IndexedDiagram.IndexedElement> getMatches() {
+            return matches;
+        }
+    }
+}
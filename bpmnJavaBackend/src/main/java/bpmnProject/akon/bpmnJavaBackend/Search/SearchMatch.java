@@ -0,0 +1,22 @@
+package bpmnProject.akon.bpmnJavaBackend.Search;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A diagram element that matched the query
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SearchMatch {
+    private String elementId;
+    private String type;
+    private String name;
+    private String lane;
+}
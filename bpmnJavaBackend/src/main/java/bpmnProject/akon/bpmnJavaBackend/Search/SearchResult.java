@@ -0,0 +1,24 @@
+package bpmnProject.akon.bpmnJavaBackend.Search;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of ranked search hits
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResult {
+    private String query;
+    private String elementType;
+    private int page;
+    private int size;
+    private int total;
+    private List<SearchHit> hits;
+}
@@ -0,0 +1,278 @@
+package bpmnProject.akon.bpmnJavaBackend.Search;
+
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.BpmnModel;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.BpmnModelCache;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.BpmnModelReader;
+import bpmnProject.akon.bpmnJavaBackend.File.File;
+import bpmnProject.akon.bpmnJavaBackend.File.FileRepository;
+import bpmnProject.akon.bpmnJavaBackend.File.FileSummary;
+import bpmnProject.akon.bpmnJavaBackend.Storage.BlobStore;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the {@link SearchIndex} in step with the files table and answers searches.
+ *
+ * Files are indexed from their parsed model when they are saved. At startup, and on demand,
+ * the index is reconciled against the table in the background: missing or stale entries are
+ * indexed, entries of deleted files dropped. Search results carry metadata from the table
+ * only; no content is read to answer a query.
+ */
+@Service
+public class SearchService implements CommandLineRunner {
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_DOCUMENTATION_LENGTH = 2000;
+
+    private final SearchIndex searchIndex;
+    private final BpmnModelCache modelCache;
+    private final BlobStore blobStore;
+    private final FileRepository fileRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService maintenance;
+    private final AtomicBoolean busy = new AtomicBoolean();
+    // Orders index writes against the reconcile's check of the table, see reconcile()
+    private final Object indexLock = new Object();
+
+    @Autowired
+    public SearchService(SearchIndex searchIndex, BpmnModelCache modelCache, BlobStore blobStore,
+                         FileRepository fileRepo, JdbcTemplate jdbcTemplate) {
+        this.searchIndex = searchIndex;
+        this.modelCache = modelCache;
+        this.blobStore = blobStore;
+        this.fileRepo = fileRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maintenance = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void run(String... args) {
+        submit(false);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        maintenance.shutdownNow();
+    }
+
+    /**
+     * Index or re-index a saved file. Failures are logged; the next reconcile retries.
+     */
+    public void index(File file) {
+        try {
+            IndexedDiagram diagram = toDiagram(file.getId(), file.getFileName(), file.getContentHash());
+            synchronized (indexLock) {
+                searchIndex.put(diagram);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Could not index file " + file.getId() + ": " + e.getMessage());
+        }
+    }
+
+    public void remove(Long fileId) {
+        synchronized (indexLock) {
+            searchIndex.remove(fileId);
+        }
+    }
+
+    /**
+     * Drop the index and build it again from the table, in the background.
+     * Returns false when a rebuild or reconcile is already running.
+     */
+    public boolean rebuild() {
+        return submit(true);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = searchIndex.stats();
+        stats.put("maintenanceRunning", busy.get());
+        return stats;
+    }
+
+    /**
+     * Ranked, paginated hits with file metadata
+     *
+     * @param elementType only count matches on elements of this BPMN type, e.g. userTask
+     */
+    public SearchResult search(String query, String elementType, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageIndex = Math.max(0, page);
+        SearchIndex.Result result = searchIndex.search(query, elementType, pageIndex * pageSize, pageSize);
+
+        Map<Long, FileSummary> summaries = new HashMap<>();
+        if (!result.getHits().isEmpty()) {
+            List<Long> ids = new ArrayList<>(result.getHits().size());
+            result.getHits().forEach(hit -> ids.add(hit.getFileId()));
+            for (FileSummary summary : fileRepo.findSummariesByIds(ids)) {
+                summaries.put(summary.getId(), summary);
+            }
+        }
+
+        List<SearchHit> hits = new ArrayList<>(result.getHits().size());
+        for (SearchIndex.Hit hit : result.getHits()) {
+            FileSummary summary = summaries.get(hit.getFileId());
+            if (summary == null) {
+                // Deleted since it was indexed
+                continue;
+            }
+            List<SearchMatch> matches = new ArrayList<>(hit.getMatches().size());
+            for (IndexedDiagram.IndexedElement element : hit.getMatches()) {
+                matches.add(SearchMatch.builder()
+                        .elementId(element.getId())
+                        .type(element.getType())
+                        .name(element.getName())
+                        .lane(element.getLane())
+                        .build());
+            }
+            hits.add(SearchHit.builder()
+                    .file(summary)
+                    .score(hit.getScore())
+                    .matches(matches)
+                    .build());
+        }
+
+        return SearchResult.builder()
+                .query(query)
+                .elementType(elementType)
+                .page(pageIndex)
+                .size(pageSize)
+                .total(result.getTotal())
+                .hits(hits)
+                .build();
+    }
+
+    private boolean submit(boolean clearFirst) {
+        if (!busy.compareAndSet(false, true)) {
+            return false;
+        }
+        maintenance.execute(() -> {
+            try {
+                if (clearFirst) {
+                    searchIndex.clear();
+                }
+                reconcile();
+            } catch (RuntimeException e) {
+                System.err.println("Search index maintenance failed: " + e.getMessage());
+            } finally {
+                busy.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Bring the index in line with the files table. Only rows whose name or content changed
+     * since they were indexed are parsed.
+     *
+     * Files keep being saved and deleted while this runs, and those changes index themselves.
+     * So a parsed row is only written if the table still holds it as read, and an entry missing
+     * from the snapshot is only dropped if its row is still absent; both checks happen under the
+     * lock that index() and remove() write under, so a newer change always lands last.
+     */
+    private void reconcile() {
+        Set<Long> present = new HashSet<>();
+        int[] indexed = {0};
+        jdbcTemplate.query("SELECT id, file_name, content_hash FROM files", rs -> {
+            long id = rs.getLong(1);
+            String fileName = rs.getString(2);
+            String contentHash = rs.getString(3);
+            present.add(id);
+            IndexedDiagram current = searchIndex.get(id);
+            if (current == null || !Objects.equals(current.getFileName(), fileName)
+                    || !Objects.equals(current.getContentHash(), contentHash)) {
+                try {
+                    IndexedDiagram diagram = toDiagram(id, fileName, contentHash);
+                    synchronized (indexLock) {
+                        if (isCurrent(id, fileName, contentHash)) {
+                            searchIndex.put(diagram);
+                            indexed[0]++;
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("Could not index file " + id + ": " + e.getMessage());
+                }
+            }
+        });
+
+        int removed = 0;
+        for (Long id : searchIndex.fileIds()) {
+            if (present.contains(id)) {
+                continue;
+            }
+            synchronized (indexLock) {
+                // Committed and indexed after the snapshot was taken
+                if (!fileRepo.existsById(id)) {
+                    searchIndex.remove(id);
+                    removed++;
+                }
+            }
+        }
+        System.out.println("Search index reconciled: " + indexed[0] + " files indexed, " + removed + " removed");
+    }
+
+    private boolean isCurrent(long id, String fileName, String contentHash) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT file_name, content_hash FROM files WHERE id = ?", id);
+        return !rows.isEmpty() && Objects.equals(rows.get(0).get("file_name"), fileName)
+                && Objects.equals(rows.get(0).get("content_hash"), contentHash);
+    }
+
+    private IndexedDiagram toDiagram(long fileId, String fileName, String contentHash) {
+        List<IndexedDiagram.IndexedElement> elements = new ArrayList<>();
+        BpmnModel model = modelOf(contentHash);
+        if (model != null) {
+            for (BpmnModel.Element element : model.getElements()) {
+                String lane = null;
+                if (element.getLane() != null) {
+                    BpmnModel.Element laneElement = model.lookup(element.getLane());
+                    lane = laneElement.getName() != null ? laneElement.getName() : element.getLane();
+                }
+                String documentation = element.getDocumentation();
+                if (documentation != null && documentation.length() > MAX_DOCUMENTATION_LENGTH) {
+                    documentation = documentation.substring(0, MAX_DOCUMENTATION_LENGTH);
+                }
+                elements.add(new IndexedDiagram.IndexedElement(element.getId(), element.getType(),
+                        element.getName(), lane, documentation));
+            }
+        }
+        return new IndexedDiagram(fileId, fileName, contentHash, elements);
+    }
+
+    /**
+     * The cached model when there is one, otherwise a one-off parse that does not displace
+     * hot entries. Content that is not BPMN is indexed by file name only.
+     */
+    private BpmnModel modelOf(String contentHash) {
+        if (contentHash == null) {
+            return null;
+        }
+        BpmnModel cached = modelCache.peek(contentHash);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            return BpmnModelReader.read(() -> blobStore.open(contentHash));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
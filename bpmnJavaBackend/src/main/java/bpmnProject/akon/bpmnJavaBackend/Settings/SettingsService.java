@@ -1,5 +1,6 @@
 package bpmnProject.akon.bpmnJavaBackend.Settings;
 
+import bpmnProject.akon.bpmnJavaBackend.Config.TokenInvalidationService;
 import bpmnProject.akon.bpmnJavaBackend.DtoClasses.*;
 import bpmnProject.akon.bpmnJavaBackend.User.User;
 import bpmnProject.akon.bpmnJavaBackend.User.UserRepository;
@@ -22,6 +23,7 @@ public class SettingsService {
     private final UserPreferenceRepository userPreferencesRepository;
     private final UserSecuritySettingsRepository userSecuritySettingsRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenInvalidationService tokenInvalidationService;
 
     // Current user operations (existing methods)
     @Transactional(readOnly = true)
@@ -128,6 +130,7 @@ public class SettingsService {
         // Update password
         userToUpdate.setPassword(passwordEncoder.encode(passwordDto.getNewPassword()));
         userRepository.save(userToUpdate);
+        tokenInvalidationService.userChanged(userToUpdate.getUsername());
     }
 
     // Admin operations for other users
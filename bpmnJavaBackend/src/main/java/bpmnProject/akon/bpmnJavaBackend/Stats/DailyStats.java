@@ -0,0 +1,23 @@
+package bpmnProject.akon.bpmnJavaBackend.Stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Activity of one day and the totals at the end of it
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyStats {
+    private String day;
+    private long uploads;
+    private long deletions;
+    private long netFiles;
+    private long netSize;
+    private long totalFiles;
+    private long totalSize;
+}
@@ -0,0 +1,47 @@
+package bpmnProject.akon.bpmnJavaBackend.Stats;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One counter row of the file statistics summary. Rows are only ever changed by adding
+ * deltas in SQL (see {@link FileStatsService}), never by saving the entity.
+ */
+@Entity
+@Table(name = "file_stats", indexes = {
+        @Index(name = "idx_file_stats_dimension_bucket", columnList = "dimension, bucket")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class FileStatsBucket {
+
+    // dimension:bucket
+    @Id
+    @Column(name = "bucket_key", length = 120)
+    private String key;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "dimension", length = 10, nullable = false)
+    private StatsDimension dimension;
+
+    @Column(name = "bucket", length = 100, nullable = false)
+    private String bucket;
+
+    @Column(name = "file_count", nullable = false)
+    private long fileCount;
+
+    @Column(name = "total_size", nullable = false)
+    private long totalSize;
+
+    @Column(name = "bpmn_count", nullable = false)
+    private long bpmnCount;
+
+    @Column(name = "uploads", nullable = false)
+    private long uploads;
+
+    @Column(name = "deletions", nullable = false)
+    private long deletions;
+}
@@ -0,0 +1,27 @@
+package bpmnProject.akon.bpmnJavaBackend.Stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Current totals, breakdowns by type and user, and a daily growth series
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileStatsReport {
+    private long totalFiles;
+    private long totalSize;
+    private long bpmnFiles;
+    private long uploads;
+    private long deletions;
+    private List<StatsBreakdown> byType;
+    private List<StatsBreakdown> byUser;
+    // Most recent day last
+    private List<DailyStats> daily;
+}
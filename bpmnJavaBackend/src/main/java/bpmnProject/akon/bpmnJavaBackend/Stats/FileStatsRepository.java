@@ -0,0 +1,12 @@
+package bpmnProject.akon.bpmnJavaBackend.Stats;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface FileStatsRepository extends JpaRepository<FileStatsBucket, String> {
+    List<FileStatsBucket> findByDimensionOrderByBucketAsc(StatsDimension dimension);
+
+    // Day buckets are ISO dates, so string order is date order
+    List<FileStatsBucket> findByDimensionAndBucketGreaterThanOrderByBucketDesc(StatsDimension dimension, String bucket);
+}
@@ -0,0 +1,350 @@
+package bpmnProject.akon.bpmnJavaBackend.Stats;
+
+import bpmnProject.akon.bpmnJavaBackend.File.File;
+import bpmnProject.akon.bpmnJavaBackend.User.User;
+import bpmnProject.akon.bpmnJavaBackend.User.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * File statistics kept as counters in the small file_stats table instead of being computed
+ * from the files table on every request.
+ *
+ * Every upload, update and delete adds its deltas to the TOTAL row, the row of the file's
+ * type, the row of the uploading user and the row of the current day, in the transaction
+ * that changes the file, so the counters commit or roll back with it. Reading statistics
+ * touches a handful of rows regardless of how many files exist. {@link #recompute} rebuilds
+ * the counters from the files table with SQL aggregates and runs on startup when the table
+ * is empty.
+ */
+@Service
+@Transactional
+public class FileStatsService implements CommandLineRunner {
+
+    private static final String UNKNOWN = "unknown";
+    private static final int MAX_BUCKET_LENGTH = 100;
+    private static final int MAX_DAYS = 366;
+
+    // Counters are only ever added to, so concurrent writers cannot lose each other's updates
+    private static final String UPSERT_SQL =
+            "INSERT INTO file_stats (bucket_key, dimension, bucket, file_count, total_size, bpmn_count, uploads, deletions) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE file_count = file_count + VALUES(file_count), "
+                    + "total_size = total_size + VALUES(total_size), bpmn_count = bpmn_count + VALUES(bpmn_count), "
+                    + "uploads = uploads + VALUES(uploads), deletions = deletions + VALUES(deletions)";
+
+    // Same BPMN rule as File.isBpmnCounted, in SQL
+    private static final String BPMN_CASE =
+            "SUM(CASE WHEN file_type IS NOT NULL AND (file_type LIKE '%xml%' OR file_name LIKE '%.bpmn') THEN 1 ELSE 0 END)";
+
+    private static final String RECOMPUTE_TOTAL_SQL =
+            "INSERT INTO file_stats (bucket_key, dimension, bucket, file_count, total_size, bpmn_count, uploads, deletions) "
+                    + "SELECT 'TOTAL:all', 'TOTAL', 'all', COUNT(*), COALESCE(SUM(file_size), 0), COALESCE(" + BPMN_CASE + ", 0), COUNT(*), 0 "
+                    + "FROM files";
+
+    private static final String RECOMPUTE_TYPE_SQL =
+            "INSERT INTO file_stats (bucket_key, dimension, bucket, file_count, total_size, bpmn_count, uploads, deletions) "
+                    + "SELECT CONCAT('TYPE:', t.bucket), 'TYPE', t.bucket, t.files, t.size, t.bpmn, t.files, 0 FROM ("
+                    + "SELECT COALESCE(LEFT(file_type, 100), 'unknown') AS bucket, COUNT(*) AS files, "
+                    + "COALESCE(SUM(file_size), 0) AS size, " + BPMN_CASE + " AS bpmn "
+                    + "FROM files GROUP BY COALESCE(LEFT(file_type, 100), 'unknown')) t";
+
+    private static final String RECOMPUTE_USER_SQL =
+            "INSERT INTO file_stats (bucket_key, dimension, bucket, file_count, total_size, bpmn_count, uploads, deletions) "
+                    + "SELECT CONCAT('USER:', t.bucket), 'USER', t.bucket, t.files, t.size, t.bpmn, t.files, 0 FROM ("
+                    + "SELECT COALESCE(CAST(uploaded_by AS CHAR), 'unknown') AS bucket, COUNT(*) AS files, "
+                    + "COALESCE(SUM(file_size), 0) AS size, " + BPMN_CASE + " AS bpmn "
+                    + "FROM files GROUP BY COALESCE(CAST(uploaded_by AS CHAR), 'unknown')) t";
+
+    // Deleted files leave no trace in the files table, so recomputed days only count surviving uploads
+    private static final String RECOMPUTE_DAY_SQL =
+            "INSERT INTO file_stats (bucket_key, dimension, bucket, file_count, total_size, bpmn_count, uploads, deletions) "
+                    + "SELECT CONCAT('DAY:', t.bucket), 'DAY', t.bucket, t.files, t.size, t.bpmn, t.files, 0 FROM ("
+                    + "SELECT DATE_FORMAT(upload_time, '%Y-%m-%d') AS bucket, COUNT(*) AS files, "
+                    + "COALESCE(SUM(file_size), 0) AS size, " + BPMN_CASE + " AS bpmn "
+                    + "FROM files WHERE upload_time IS NOT NULL GROUP BY DATE_FORMAT(upload_time, '%Y-%m-%d')) t";
+
+    private final FileStatsRepository statsRepo;
+    private final UserRepository userRepo;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public FileStatsService(FileStatsRepository statsRepo, UserRepository userRepo, JdbcTemplate jdbcTemplate) {
+        this.statsRepo = statsRepo;
+        this.userRepo = userRepo;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!statsRepo.existsById(key(StatsDimension.TOTAL, "all"))) {
+            recompute();
+        }
+    }
+
+    /**
+     * What a file contributes to the counters, taken before it is changed
+     */
+    public static Snapshot snapshot(File file) {
+        return new Snapshot(file);
+    }
+
+    public void recordAdded(File file) {
+        recordAdded(List.of(file));
+    }
+
+    public void recordAdded(List<File> files) {
+        Map<String, Delta> deltas = new TreeMap<>();
+        String today = LocalDate.now().toString();
+        for (File file : files) {
+            Snapshot snapshot = new Snapshot(file);
+            contribute(deltas, snapshot, today, 1);
+            each(deltas, snapshot, today, delta -> delta.uploads++);
+        }
+        apply(deltas);
+    }
+
+    public void recordChanged(Snapshot before, File after) {
+        Snapshot now = new Snapshot(after);
+        if (now.equals(before)) {
+            return;
+        }
+        Map<String, Delta> deltas = new TreeMap<>();
+        String today = LocalDate.now().toString();
+        contribute(deltas, before, today, -1);
+        contribute(deltas, now, today, 1);
+        apply(deltas);
+    }
+
+    public void recordRemoved(File file) {
+        Map<String, Delta> deltas = new TreeMap<>();
+        String today = LocalDate.now().toString();
+        Snapshot snapshot = new Snapshot(file);
+        contribute(deltas, snapshot, today, -1);
+        each(deltas, snapshot, today, delta -> delta.deletions++);
+        apply(deltas);
+    }
+
+    /**
+     * Throw the counters away and rebuild them from the files table
+     */
+    public void recompute() {
+        jdbcTemplate.update("DELETE FROM file_stats");
+        jdbcTemplate.update(RECOMPUTE_TOTAL_SQL);
+        jdbcTemplate.update(RECOMPUTE_TYPE_SQL);
+        jdbcTemplate.update(RECOMPUTE_USER_SQL);
+        jdbcTemplate.update(RECOMPUTE_DAY_SQL);
+        System.out.println("File statistics recomputed from the files table");
+    }
+
+    /**
+     * The TOTAL row, or zeros when nothing has been counted yet
+     */
+    @Transactional(readOnly = true)
+    public FileStatsBucket getTotals() {
+        return statsRepo.findById(key(StatsDimension.TOTAL, "all")).orElseGet(() -> {
+            FileStatsBucket empty = new FileStatsBucket();
+            empty.setDimension(StatsDimension.TOTAL);
+            empty.setBucket("all");
+            return empty;
+        });
+    }
+
+    /**
+     * Totals, breakdowns and the growth series over the last {@code days} days
+     */
+    @Transactional(readOnly = true)
+    public FileStatsReport getReport(int days) {
+        FileStatsBucket totals = getTotals();
+        List<StatsBreakdown> byType = new ArrayList<>();
+        for (FileStatsBucket bucket : statsRepo.findByDimensionOrderByBucketAsc(StatsDimension.TYPE)) {
+            byType.add(breakdown(bucket, bucket.getBucket()));
+        }
+        return FileStatsReport.builder()
+                .totalFiles(totals.getFileCount())
+                .totalSize(totals.getTotalSize())
+                .bpmnFiles(totals.getBpmnCount())
+                .uploads(totals.getUploads())
+                .deletions(totals.getDeletions())
+                .byType(byType)
+                .byUser(byUser())
+                .daily(daily(totals, Math.max(1, Math.min(days, MAX_DAYS))))
+                .build();
+    }
+
+    private List<StatsBreakdown> byUser() {
+        List<FileStatsBucket> buckets = statsRepo.findByDimensionOrderByBucketAsc(StatsDimension.USER);
+        List<Integer> ids = new ArrayList<>();
+        for (FileStatsBucket bucket : buckets) {
+            if (!UNKNOWN.equals(bucket.getBucket())) {
+                ids.add(Integer.valueOf(bucket.getBucket()));
+            }
+        }
+        Map<String, String> names = new HashMap<>();
+        for (User user : userRepo.findAllById(ids)) {
+            names.put(String.valueOf(user.getId()), user.getUsername());
+        }
+        List<StatsBreakdown> byUser = new ArrayList<>(buckets.size());
+        for (FileStatsBucket bucket : buckets) {
+            byUser.add(breakdown(bucket, names.getOrDefault(bucket.getBucket(), bucket.getBucket())));
+        }
+        return byUser;
+    }
+
+    /**
+     * Walk back from today's totals through the daily net changes, so the series ends at the
+     * current totals without summing the whole history
+     */
+    private List<DailyStats> daily(FileStatsBucket totals, int days) {
+        LocalDate today = LocalDate.now();
+        String since = today.minusDays(days).toString();
+        Map<String, FileStatsBucket> recorded = new HashMap<>();
+        for (FileStatsBucket bucket : statsRepo.findByDimensionAndBucketGreaterThanOrderByBucketDesc(StatsDimension.DAY, since)) {
+            recorded.put(bucket.getBucket(), bucket);
+        }
+
+        List<DailyStats> series = new ArrayList<>(days);
+        long files = totals.getFileCount();
+        long size = totals.getTotalSize();
+        for (int i = 0; i < days; i++) {
+            String day = today.minusDays(i).toString();
+            FileStatsBucket bucket = recorded.get(day);
+            DailyStats stats = DailyStats.builder()
+                    .day(day)
+                    .uploads(bucket != null ? bucket.getUploads() : 0)
+                    .deletions(bucket != null ? bucket.getDeletions() : 0)
+                    .netFiles(bucket != null ? bucket.getFileCount() : 0)
+                    .netSize(bucket != null ? bucket.getTotalSize() : 0)
+                    .totalFiles(files)
+                    .totalSize(size)
+                    .build();
+            series.add(stats);
+            files -= stats.getNetFiles();
+            size -= stats.getNetSize();
+        }
+        Collections.reverse(series);
+        return series;
+    }
+
+    private static StatsBreakdown breakdown(FileStatsBucket bucket, String label) {
+        return StatsBreakdown.builder()
+                .key(bucket.getBucket())
+                .label(label)
+                .files(bucket.getFileCount())
+                .totalSize(bucket.getTotalSize())
+                .bpmnFiles(bucket.getBpmnCount())
+                .uploads(bucket.getUploads())
+                .deletions(bucket.getDeletions())
+                .build();
+    }
+
+    // ---------------------------------------------------------------- deltas
+
+    private static void contribute(Map<String, Delta> deltas, Snapshot snapshot, String day, int sign) {
+        each(deltas, snapshot, day, delta -> {
+            delta.files += sign;
+            delta.size += sign * snapshot.size;
+            delta.bpmn += snapshot.bpmn ? sign : 0;
+        });
+    }
+
+    private static void each(Map<String, Delta> deltas, Snapshot snapshot, String day, Consumer<Delta> change) {
+        change.accept(delta(deltas, StatsDimension.TOTAL, "all"));
+        change.accept(delta(deltas, StatsDimension.TYPE, snapshot.type));
+        change.accept(delta(deltas, StatsDimension.USER, snapshot.user));
+        change.accept(delta(deltas, StatsDimension.DAY, day));
+    }
+
+    private static Delta delta(Map<String, Delta> deltas, StatsDimension dimension, String bucket) {
+        return deltas.computeIfAbsent(key(dimension, bucket), k -> new Delta(dimension, bucket));
+    }
+
+    /**
+     * Add the deltas in one batch. Keys are applied in sorted order so concurrent transactions
+     * lock counter rows in the same order and cannot deadlock on each other.
+     */
+    private void apply(Map<String, Delta> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        for (Map.Entry<String, Delta> entry : deltas.entrySet()) {
+            Delta delta = entry.getValue();
+            if (delta.isZero()) {
+                continue;
+            }
+            rows.add(new Object[]{entry.getKey(), delta.dimension.name(), delta.bucket,
+                    delta.files, delta.size, delta.bpmn, delta.uploads, delta.deletions});
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+        }
+    }
+
+    private static String key(StatsDimension dimension, String bucket) {
+        return dimension.name() + ":" + bucket;
+    }
+
+    private static String bucket(String value) {
+        if (value == null) {
+            return UNKNOWN;
+        }
+        return value.length() > MAX_BUCKET_LENGTH ? value.substring(0, MAX_BUCKET_LENGTH) : value;
+    }
+
+    private static final class Delta {
+        private final StatsDimension dimension;
+        private final String bucket;
+        private long files;
+        private long size;
+        private long bpmn;
+        private long uploads;
+        private long deletions;
+
+        Delta(StatsDimension dimension, String bucket) {
+            this.dimension = dimension;
+            this.bucket = bucket;
+        }
+
+        boolean isZero() {
+            return files == 0 && size == 0 && bpmn == 0 && uploads == 0 && deletions == 0;
+        }
+    }
+
+    public static final class Snapshot {
+        private final String type;
+        private final String user;
+        private final long size;
+        private final boolean bpmn;
+
+        private Snapshot(File file) {
+            this.type = bucket(file.getFileType());
+            this.user = file.getUploadedBy() != null ? String.valueOf(file.getUploadedBy()) : UNKNOWN;
+            this.size = file.getFileSize() != null ? file.getFileSize() : 0;
+            this.bpmn = file.isBpmnCounted();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Snapshot)) return false;
+            Snapshot other = (Snapshot) o;
+            return size == other.size && bpmn == other.bpmn && type.equals(other.type) && user.equals(other.user);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, user, size, bpmn);
+        }
+    }
+}
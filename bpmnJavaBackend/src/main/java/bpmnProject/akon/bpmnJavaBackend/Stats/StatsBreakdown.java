@@ -0,0 +1,23 @@
+package bpmnProject.akon.bpmnJavaBackend.Stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Totals of one file type or one user
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsBreakdown {
+    private String key;
+    private String label;
+    private long files;
+    private long totalSize;
+    private long bpmnFiles;
+    private long uploads;
+    private long deletions;
+}
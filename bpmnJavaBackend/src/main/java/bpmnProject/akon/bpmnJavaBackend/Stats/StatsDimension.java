@@ -0,0 +1,15 @@
+package bpmnProject.akon.bpmnJavaBackend.Stats;
+
+/**
+ * How a row of the file_stats table slices the files
+ */
+public enum StatsDimension {
+    // A single row over all files
+    TOTAL,
+    // One row per file type
+    TYPE,
+    // One row per uploading user
+    USER,
+    // One row per day, holding the net change made that day
+    DAY
+}
@@ -0,0 +1,228 @@
+package bpmnProject.akon.bpmnJavaBackend.Storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.function.IntFunction;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * On-disk encodings of blob content. A stored blob is one of:
+ * <ul>
+ *     <li>a gzip stream of the content, used for documents above the small-document threshold,
+ *     so downloads can send the stored bytes as-is with {@code Content-Encoding: gzip};</li>
+ *     <li>a framed blob: {@link #MAGIC}, a codec byte, the dictionary id and the content length,
+ *     followed by raw deflate against a shared {@link CompressionDictionary} (small documents)
+ *     or by the content itself;</li>
+ *     <li>anything else: the content as-is, as written before compression existed.</li>
+ * </ul>
+ * New writes frame any content that starts like gzip or {@link #MAGIC} (see {@link #unencoded}),
+ * so only blobs from before compression can be ambiguous: {@link #readHeader} and
+ * {@link #decode} take such a legacy blob for an encoded one. The blob store's recompress
+ * detects these by their hash and re-writes them framed.
+ * The content hash is always that of the uncompressed content, so encodings can change
+ * without touching a single reference.
+ */
+final class BlobCodec {
+
+    static final byte[] MAGIC = {0, 'B', 'P', 'Z'};
+    static final byte FRAMED_DEFLATE = 1;
+    static final byte FRAMED_STORED = 2;
+    // Magic, codec, dictionary id, content length
+    static final int FRAME_HEADER = MAGIC.length + 1 + 4 + 8;
+
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+
+    enum Encoding {
+        RAW,
+        GZIP,
+        DEFLATE,
+        STORED
+    }
+
+    /**
+     * Encoding and content length of a stored blob, read from its first and last bytes
+     */
+    static final class Header {
+        final Encoding encoding;
+        final int dictionaryId;
+        final long contentLength;
+        final long storedLength;
+
+        private Header(Encoding encoding, int dictionaryId, long contentLength, long storedLength) {
+            this.encoding = encoding;
+            this.dictionaryId = dictionaryId;
+            this.contentLength = contentLength;
+            this.storedLength = storedLength;
+        }
+
+        /**
+         * Where the content starts in the stored bytes when it is kept unencoded, else -1
+         */
+        long contentOffset() {
+            switch (encoding) {
+                case RAW:
+                    return 0;
+                case STORED:
+                    return FRAME_HEADER;
+                default:
+                    return -1;
+            }
+        }
+    }
+
+    private BlobCodec() {
+    }
+
+    static Header readHeader(FileChannel channel) throws IOException {
+        long storedLength = channel.size();
+        ByteBuffer head = ByteBuffer.allocate(FRAME_HEADER).order(ByteOrder.BIG_ENDIAN);
+        while (head.hasRemaining() && channel.read(head, head.position()) > 0) {
+            // read until full or end of file
+        }
+        head.flip();
+        if (isGzip(head)) {
+            // ISIZE trailer: content length modulo 2^32, exact for anything the upload guard admits
+            ByteBuffer trailer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(trailer, storedLength - 4);
+            trailer.flip();
+            return new Header(Encoding.GZIP, 0, Integer.toUnsignedLong(trailer.getInt()), storedLength);
+        }
+        if (isFramed(head)) {
+            if (head.get(MAGIC.length) == FRAMED_STORED) {
+                // Streamed writes do not know the length up front; the rest of the file is the content
+                return new Header(Encoding.STORED, 0, storedLength - FRAME_HEADER, storedLength);
+            }
+            return new Header(Encoding.DEFLATE, head.getInt(MAGIC.length + 1), head.getLong(MAGIC.length + 5),
+                    storedLength);
+        }
+        return new Header(Encoding.RAW, 0, storedLength, storedLength);
+    }
+
+    /**
+     * Decoding stream over the stored bytes
+     *
+     * @param dictionaries dictionary by id, or null when it is unknown
+     */
+    static InputStream decode(InputStream stored, IntFunction<CompressionDictionary> dictionaries) throws IOException {
+        byte[] head = stored.readNBytes(FRAME_HEADER);
+        ByteBuffer buffer = ByteBuffer.wrap(head);
+        InputStream whole = new SequenceInputStream(new ByteArrayInputStream(head), stored);
+        if (isGzip(buffer)) {
+            return new GZIPInputStream(whole, 8192);
+        }
+        if (!isFramed(buffer)) {
+            return whole;
+        }
+        if (head[MAGIC.length] == FRAMED_STORED) {
+            return stored;
+        }
+        int dictionaryId = buffer.getInt(MAGIC.length + 1);
+        Inflater inflater = new Inflater(true);
+        if (dictionaryId != 0) {
+            CompressionDictionary dictionary = dictionaries.apply(dictionaryId);
+            if (dictionary == null) {
+                inflater.end();
+                throw new IOException("Compression dictionary " + Integer.toHexString(dictionaryId) + " is not installed");
+            }
+            inflater.setDictionary(dictionary.getBytes());
+        }
+        return new InflaterInputStream(stored, inflater, 8192) {
+            private boolean ended;
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                if (!ended) {
+                    ended = true;
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Stored form of a small document held in memory: deflated against the dictionary when
+     * that saves at least an eighth, otherwise the content itself
+     */
+    static byte[] encodeSmall(byte[] content, CompressionDictionary dictionary) {
+        if (content.length > FRAME_HEADER * 2) {
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+            try {
+                if (dictionary != null) {
+                    deflater.setDictionary(dictionary.getBytes());
+                }
+                deflater.setInput(content);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + FRAME_HEADER);
+                out.writeBytes(frameHeader(FRAMED_DEFLATE, dictionary != null ? dictionary.getId() : 0, content.length));
+                byte[] buffer = new byte[4096];
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+                if (out.size() <= content.length - content.length / 8) {
+                    return out.toByteArray();
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+        return unencoded(content);
+    }
+
+    /**
+     * The content as-is, framed only when it would otherwise be mistaken for an encoded blob
+     */
+    static byte[] unencoded(byte[] content) {
+        if (!looksEncoded(content)) {
+            return content;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length + FRAME_HEADER);
+        out.writeBytes(frameHeader(FRAMED_STORED, 0, content.length));
+        out.writeBytes(content);
+        return out.toByteArray();
+    }
+
+    static byte[] frameHeader(byte codec, int dictionaryId, long contentLength) {
+        return ByteBuffer.allocate(FRAME_HEADER)
+                .put(MAGIC)
+                .put(codec)
+                .putInt(dictionaryId)
+                .putLong(contentLength)
+                .array();
+    }
+
+    static boolean looksEncoded(byte[] content) {
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        return isGzip(buffer) || startsWithMagic(buffer);
+    }
+
+    private static boolean isGzip(ByteBuffer head) {
+        return head.limit() >= 2 && (head.get(0) & 0xff) == GZIP_MAGIC_1 && (head.get(1) & 0xff) == GZIP_MAGIC_2;
+    }
+
+    private static boolean isFramed(ByteBuffer head) {
+        return head.limit() >= FRAME_HEADER && startsWithMagic(head);
+    }
+
+    private static boolean startsWithMagic(ByteBuffer head) {
+        if (head.limit() < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (head.get(i) != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,182 @@
+package bpmnProject.akon.bpmnJavaBackend.Storage;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Maintenance of compressed storage: measuring and compressing blobs stored before
+ * compression existed, training the shared dictionary from the stored small documents,
+ * and reporting logical against physical sizes.
+ *
+ * Blobs keep their hash when re-encoded, so all of this runs in the background on a
+ * single thread without touching references; only {@code files.stored_size} is updated.
+ */
+@Service
+public class BlobCompressionService implements CommandLineRunner {
+
+    private static final int BATCH_SIZE = 200;
+
+    private final BlobStore blobStore;
+    private final CompressionDictionaries dictionaries;
+    private final JdbcTemplate jdbcTemplate;
+    private final int smallThreshold;
+    private final int dictionarySamples;
+    private final ExecutorService maintenance;
+    private final AtomicBoolean busy = new AtomicBoolean();
+
+    @Autowired
+    public BlobCompressionService(BlobStore blobStore, CompressionDictionaries dictionaries, JdbcTemplate jdbcTemplate,
+                                  @Value("${application.storage.compression.small-threshold:16384}") int smallThreshold,
+                                  @Value("${application.storage.compression.dictionary-samples:500}") int dictionarySamples) {
+        this.blobStore = blobStore;
+        this.dictionaries = dictionaries;
+        this.jdbcTemplate = jdbcTemplate;
+        this.smallThreshold = smallThreshold;
+        this.dictionarySamples = Math.max(2, dictionarySamples);
+        this.maintenance = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "blob-compression");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Compress blobs that have never been measured, i.e. those stored before compression
+     */
+    @Override
+    public void run(String... args) {
+        submit(false);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        maintenance.shutdownNow();
+    }
+
+    /**
+     * Re-encode blobs in the background. Returns false when a pass is already running.
+     *
+     * @param all every blob rather than only the unmeasured ones
+     */
+    public boolean recompress(boolean all) {
+        return submit(all);
+    }
+
+    /**
+     * Train a dictionary from a sample of the stored small documents, make it the active one and
+     * re-encode the small documents with it in the background
+     */
+    public Map<String, Object> trainDictionary() throws IOException {
+        List<String> hashes = jdbcTemplate.queryForList(
+                "SELECT DISTINCT content_hash FROM files WHERE content_hash IS NOT NULL AND file_size <= ? "
+                        + "ORDER BY content_hash LIMIT ?",
+                String.class, smallThreshold, dictionarySamples);
+        List<byte[]> samples = new ArrayList<>(hashes.size());
+        for (String hash : hashes) {
+            try {
+                samples.add(blobStore.read(hash));
+            } catch (IOException e) {
+                System.err.println("Skipping blob " + hash + " as dictionary sample: " + e.getMessage());
+            }
+        }
+        if (samples.size() < 2) {
+            throw new IllegalStateException("Not enough small documents to train a dictionary");
+        }
+
+        CompressionDictionary dictionary = CompressionDictionary.train(samples, CompressionDictionary.MAX_SIZE);
+        dictionaries.install(dictionary);
+        System.out.println("Installed compression dictionary " + CompressionDictionaries.hex(dictionary.getId())
+                + " (" + dictionary.size() + " bytes) trained on " + samples.size() + " documents");
+        submit(true);
+
+        Map<String, Object> result = new LinkedHashMap<>(dictionaries.stats());
+        result.put("samples", samples.size());
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT COUNT(*), COALESCE(SUM(file_size), 0), COUNT(stored_size), "
+                + "COALESCE(SUM(CASE WHEN stored_size IS NOT NULL THEN file_size END), 0), "
+                + "COALESCE(SUM(stored_size), 0) FROM files", rs -> {
+            long measuredLogical = rs.getLong(4);
+            long measuredStored = rs.getLong(5);
+            stats.put("files", rs.getLong(1));
+            stats.put("logicalBytes", rs.getLong(2));
+            stats.put("measuredFiles", rs.getLong(3));
+            stats.put("measuredLogicalBytes", measuredLogical);
+            stats.put("storedBytes", measuredStored);
+            stats.put("compressionRatio", measuredStored > 0 ? (double) measuredLogical / measuredStored : null);
+        });
+        stats.putAll(dictionaries.stats());
+        stats.put("maintenanceRunning", busy.get());
+        return stats;
+    }
+
+    private boolean submit(boolean all) {
+        if (!busy.compareAndSet(false, true)) {
+            return false;
+        }
+        maintenance.execute(() -> {
+            try {
+                recompressAll(all);
+            } catch (RuntimeException e) {
+                System.err.println("Blob compression pass failed: " + e.getMessage());
+            } finally {
+                busy.set(false);
+            }
+        });
+        return true;
+    }
+
+    private void recompressAll(boolean all) {
+        String sql = all
+                ? "SELECT id, content_hash FROM files WHERE id > ? AND content_hash IS NOT NULL ORDER BY id LIMIT ?"
+                : "SELECT id, content_hash FROM files WHERE id > ? AND content_hash IS NOT NULL AND stored_size IS NULL ORDER BY id LIMIT ?";
+        long lastId = 0;
+        long processed = 0;
+        long saved = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql, lastId, BATCH_SIZE);
+            if (rows.isEmpty()) {
+                break;
+            }
+            Set<String> done = new HashSet<>();
+            for (Map<String, Object> row : rows) {
+                lastId = ((Number) row.get("id")).longValue();
+                String hash = (String) row.get("content_hash");
+                if (!done.add(hash)) {
+                    continue;
+                }
+                try {
+                    long before = blobStore.storedSize(hash);
+                    StoredBlob blob = blobStore.recompress(hash);
+                    jdbcTemplate.update("UPDATE files SET stored_size = ? WHERE content_hash = ?",
+                            blob.getStoredSize(), hash);
+                    saved += Math.max(0, before - blob.getStoredSize());
+                    processed++;
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Could not recompress blob " + hash + ": " + e.getMessage());
+                }
+            }
+        }
+        if (processed > 0) {
+            System.out.println("Blob compression pass finished: " + processed + " blobs, " + saved + " bytes saved");
+        }
+    }
+}
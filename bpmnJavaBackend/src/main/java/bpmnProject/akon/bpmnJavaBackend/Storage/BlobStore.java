@@ -0,0 +1,102 @@
+package bpmnProject.akon.bpmnJavaBackend.Storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Content-addressed storage for diagram bytes.
+ * Blobs are identified by the hex SHA-256 of their content, so writing the
+ * same bytes twice yields the same hash and only one stored copy. Implementations
+ * may compress what they store; every read returns the original content.
+ */
+public interface BlobStore {
+
+    /**
+     * Store the stream and return its hash and size. The stream is read to the end but not closed.
+     */
+    StoredBlob put(InputStream content) throws IOException;
+
+    /**
+     * Store a byte array (convenience for callers that already hold the bytes)
+     */
+    StoredBlob put(byte[] content) throws IOException;
+
+    /**
+     * Open a stream over the blob. The caller must close it.
+     */
+    InputStream open(String hash) throws IOException;
+
+    /**
+     * Read the whole blob into memory
+     */
+    byte[] read(String hash) throws IOException;
+
+    boolean exists(String hash);
+
+    /**
+     * Length of the blob's content in bytes, or -1 if it does not exist
+     */
+    long size(String hash);
+
+    /**
+     * Bytes the blob occupies in storage, or -1 if it does not exist
+     */
+    default long storedSize(String hash) {
+        return size(hash);
+    }
+
+    /**
+     * HTTP content coding of the stored bytes, e.g. gzip, when they can be sent as they are
+     * to a client accepting that coding; null when only the decoded content can be served
+     */
+    default String storedEncoding(String hash) {
+        return null;
+    }
+
+    /**
+     * Copy the stored bytes, still encoded, into the target channel
+     */
+    default long transferStoredTo(String hash, WritableByteChannel target) throws IOException {
+        return transferTo(hash, 0, Long.MAX_VALUE, target);
+    }
+
+    /**
+     * Rewrite the blob with the current compression settings. The hash never changes.
+     */
+    default StoredBlob recompress(String hash) throws IOException {
+        return new StoredBlob(hash, size(hash), storedSize(hash));
+    }
+
+    void delete(String hash) throws IOException;
+
+    /**
+     * Copy {@code count} bytes starting at {@code position} into the target channel,
+     * using a fixed-size buffer. Implementations backed by files may override this
+     * with a zero-copy transfer. Returns the number of bytes written.
+     */
+    default long transferTo(String hash, long position, long count, WritableByteChannel target) throws IOException {
+        try (InputStream in = open(hash)) {
+            in.skipNBytes(position);
+            ReadableByteChannel source = Channels.newChannel(in);
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            long written = 0;
+            while (written < count) {
+                buffer.limit((int) Math.min(buffer.capacity(), count - written));
+                int read = source.read(buffer);
+                if (read == -1) {
+                    break;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    written += target.write(buffer);
+                }
+                buffer.clear();
+            }
+            return written;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package bpmnProject.akon.bpmnJavaBackend.Storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionaries known to the blob store: the built-in one shipped on the classpath and any
+ * trained since, all kept under {@code <root>/dictionaries} as {@code <id>.dict}.
+ *
+ * New small blobs are compressed with the active dictionary; every installed dictionary
+ * stays available for reading, since blobs name the dictionary they were written with.
+ */
+@Component
+public class CompressionDictionaries {
+
+    private static final String BUILT_IN = "storage/bpmn-dictionary.xml";
+    private static final String ACTIVE_FILE = "active";
+
+    private final Path directory;
+    private final Map<Integer, CompressionDictionary> dictionaries = new ConcurrentHashMap<>();
+    private final CompressionDictionary builtIn;
+    private volatile CompressionDictionary active;
+
+    public CompressionDictionaries(@Value("${application.storage.local.root:data/blobs}") String root) throws IOException {
+        this.directory = Paths.get(root).toAbsolutePath().normalize().resolve("dictionaries");
+        Files.createDirectories(directory);
+
+        this.builtIn = loadBuiltIn();
+        if (builtIn != null) {
+            // Kept on disk too, so blobs stay readable if a later build ships a different one
+            Path copy = directory.resolve(hex(builtIn.getId()) + ".dict");
+            if (!Files.exists(copy)) {
+                writeAtomically(copy, builtIn.getBytes());
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.dict")) {
+            for (Path file : files) {
+                CompressionDictionary dictionary = new CompressionDictionary(Files.readAllBytes(file));
+                dictionaries.put(dictionary.getId(), dictionary);
+            }
+        }
+
+        CompressionDictionary selected = builtIn;
+        Path activeFile = directory.resolve(ACTIVE_FILE);
+        if (Files.exists(activeFile)) {
+            String id = Files.readString(activeFile, StandardCharsets.US_ASCII).trim();
+            CompressionDictionary installed = dictionaries.get(Integer.parseUnsignedInt(id, 16));
+            if (installed != null) {
+                selected = installed;
+            } else {
+                System.err.println("Active compression dictionary " + id + " is missing, using the built-in one");
+            }
+        }
+        this.active = selected;
+    }
+
+    /**
+     * Dictionary for new small blobs, or null when none is available
+     */
+    public CompressionDictionary active() {
+        return active;
+    }
+
+    /**
+     * Installed dictionary with the given id, or null
+     */
+    public CompressionDictionary get(int id) {
+        return dictionaries.get(id);
+    }
+
+    /**
+     * Persist the dictionary and use it for new blobs from now on
+     */
+    public synchronized void install(CompressionDictionary dictionary) throws IOException {
+        String id = hex(dictionary.getId());
+        if (!dictionaries.containsKey(dictionary.getId())) {
+            writeAtomically(directory.resolve(id + ".dict"), dictionary.getBytes());
+            dictionaries.put(dictionary.getId(), dictionary);
+        }
+        writeAtomically(directory.resolve(ACTIVE_FILE), id.getBytes(StandardCharsets.US_ASCII));
+        active = dictionary;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        CompressionDictionary current = active;
+        stats.put("activeDictionary", current != null ? hex(current.getId()) : null);
+        stats.put("activeDictionarySize", current != null ? current.size() : 0);
+        stats.put("builtIn", current != null && builtIn != null && current.getId() == builtIn.getId());
+        stats.put("installedDictionaries", dictionaries.size());
+        return stats;
+    }
+
+    static String hex(int id) {
+        return String.format("%08x", id);
+    }
+
+    private static CompressionDictionary loadBuiltIn() throws IOException {
+        try (InputStream in = CompressionDictionaries.class.getClassLoader().getResourceAsStream(BUILT_IN)) {
+            return in != null ? new CompressionDictionary(in.readAllBytes()) : null;
+        }
+    }
+
+    private void writeAtomically(Path target, byte[] content) throws IOException {
+        Path tmp = Files.createTempFile(directory, "dictionary-", ".part");
+        try {
+            Files.write(tmp, content);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
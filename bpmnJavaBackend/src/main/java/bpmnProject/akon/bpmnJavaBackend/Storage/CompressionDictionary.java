@@ -0,0 +1,119 @@
+package bpmnProject.akon.bpmnJavaBackend.Storage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Adler32;
+
+/**
+ * A preset deflate dictionary shared by small documents. Small BPMN files are mostly
+ * namespace declarations, element names and DI boilerplate that deflate cannot exploit
+ * within a few kilobytes; priming the compressor with that text is what makes them shrink.
+ *
+ * The id is the Adler-32 of the bytes, as zlib uses, and is written into every blob
+ * compressed with the dictionary. A dictionary must therefore never change once used.
+ */
+public final class CompressionDictionary {
+
+    // Deflate only looks back 32 KiB, so a larger dictionary is never referenced in full
+    public static final int MAX_SIZE = 32 * 1024;
+
+    private static final int MIN_PIECE = 4;
+
+    private final byte[] bytes;
+    private final int id;
+
+    public CompressionDictionary(byte[] bytes) {
+        if (bytes.length == 0 || bytes.length > MAX_SIZE) {
+            throw new IllegalArgumentException("Dictionary must hold 1 to " + MAX_SIZE + " bytes");
+        }
+        this.bytes = bytes.clone();
+        Adler32 adler = new Adler32();
+        adler.update(bytes);
+        int value = (int) adler.getValue();
+        // 0 marks "no dictionary" in blob headers
+        this.id = value != 0 ? value : 1;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int size() {
+        return bytes.length;
+    }
+
+    /**
+     * Build a dictionary from sample documents.
+     *
+     * Each sample is cut into pieces at tag starts and attribute quotes, so markup and values
+     * become separate pieces. Pieces are scored by the number of samples containing them
+     * times their length; only pieces found in at least a twentieth of the samples (and two)
+     * qualify, which drops ids and other one-off values. The best pieces are placed last, as
+     * deflate encodes nearer matches more cheaply.
+     */
+    public static CompressionDictionary train(List<byte[]> samples, int maxSize) {
+        int limit = Math.max(1, Math.min(maxSize, MAX_SIZE));
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        for (byte[] sample : samples) {
+            Set<String> seen = new HashSet<>();
+            String text = new String(sample, StandardCharsets.UTF_8);
+            int start = 0;
+            for (int i = 1; i <= text.length(); i++) {
+                boolean boundary = i == text.length() || text.charAt(i) == '<' || text.charAt(i - 1) == '"';
+                if (!boundary) {
+                    continue;
+                }
+                String piece = text.substring(start, i);
+                if (piece.trim().length() >= MIN_PIECE && seen.add(piece)) {
+                    documentFrequency.merge(piece, 1, Integer::sum);
+                }
+                start = i;
+            }
+        }
+
+        int threshold = Math.max(2, samples.size() / 20);
+        List<Map.Entry<String, Integer>> candidates = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : documentFrequency.entrySet()) {
+            if (entry.getValue() >= threshold) {
+                candidates.add(entry);
+            }
+        }
+        candidates.sort((a, b) -> {
+            long scoreA = (long) a.getValue() * a.getKey().length();
+            long scoreB = (long) b.getValue() * b.getKey().length();
+            return scoreA != scoreB ? Long.compare(scoreB, scoreA) : a.getKey().compareTo(b.getKey());
+        });
+
+        List<byte[]> chosen = new ArrayList<>();
+        int size = 0;
+        for (Map.Entry<String, Integer> candidate : candidates) {
+            byte[] piece = candidate.getKey().getBytes(StandardCharsets.UTF_8);
+            if (size + piece.length > limit) {
+                continue;
+            }
+            chosen.add(piece);
+            size += piece.length;
+        }
+        if (chosen.isEmpty()) {
+            throw new IllegalArgumentException("Samples have too little in common to train a dictionary");
+        }
+
+        byte[] dictionary = new byte[size];
+        int position = 0;
+        for (int i = chosen.size() - 1; i >= 0; i--) {
+            byte[] piece = chosen.get(i);
+            System.arraycopy(piece, 0, dictionary, position, piece.length);
+            position += piece.length;
+        }
+        return new CompressionDictionary(dictionary);
+    }
+}
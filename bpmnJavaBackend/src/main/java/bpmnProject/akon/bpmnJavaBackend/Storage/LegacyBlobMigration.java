@@ -0,0 +1,115 @@
+package bpmnProject.akon.bpmnJavaBackend.Storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * One-shot migration that moves diagram bytes out of the legacy {@code files.file_data}
+ * LONGBLOB column into the {@link BlobStore}.
+ *
+ * Rows are processed in batches of ids and each blob is streamed individually, so only
+ * one row's content is ever in flight. Migrated rows get their {@code content_hash} set
+ * and {@code file_data} cleared; once no rows are left the run is a no-op and the
+ * column can be dropped manually.
+ */
+@Component
+public class LegacyBlobMigration implements CommandLineRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlobStore blobStore;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public LegacyBlobMigration(JdbcTemplate jdbcTemplate,
+                               BlobStore blobStore,
+                               @Value("${application.storage.migrate-legacy-blobs:true}") boolean enabled,
+                               @Value("${application.storage.migration-batch-size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blobStore = blobStore;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!enabled) {
+            return;
+        }
+        if (!legacyColumnExists()) {
+            System.out.println("No legacy file_data column found, skipping blob migration");
+            return;
+        }
+
+        long migrated = 0;
+        long lastId = 0;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM files WHERE id > ? AND content_hash IS NULL AND file_data IS NOT NULL ORDER BY id LIMIT ?",
+                    Long.class, lastId, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            for (Long id : ids) {
+                try {
+                    migrateRow(id);
+                    migrated++;
+                } catch (Exception e) {
+                    System.err.println("Failed to migrate blob for file " + id + ": " + e.getMessage());
+                }
+                lastId = id;
+            }
+            System.out.println("Migrated " + migrated + " legacy blobs so far");
+        }
+
+        if (migrated > 0) {
+            System.out.println("Legacy blob migration finished, " + migrated + " files moved to the blob store");
+        }
+    }
+
+    private void migrateRow(Long id) {
+        StoredBlob blob = jdbcTemplate.query(connection -> {
+            // Forward-only and read-only with MySQL's streaming fetch size, so the driver hands the
+            // row over as it arrives instead of buffering the whole result set first
+            PreparedStatement statement = connection.prepareStatement("SELECT file_data FROM files WHERE id = ?",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(Integer.MIN_VALUE);
+            statement.setLong(1, id);
+            return statement;
+        }, (ResultSet rs) -> {
+            if (!rs.next()) {
+                return null;
+            }
+            try (InputStream in = rs.getBinaryStream(1)) {
+                return in != null ? blobStore.put(in) : null;
+            } catch (java.io.IOException e) {
+                throw new IllegalStateException("Could not write blob for file " + id, e);
+            }
+        });
+
+        if (blob == null) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE files SET content_hash = ?, file_size = ?, stored_size = ?, file_data = NULL WHERE id = ?",
+                blob.getHash(), blob.getSize(), blob.getStoredSize(), id);
+    }
+
+    private boolean legacyColumnExists() {
+        Boolean exists = jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, "files", "file_data")) {
+                return columns.next();
+            }
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
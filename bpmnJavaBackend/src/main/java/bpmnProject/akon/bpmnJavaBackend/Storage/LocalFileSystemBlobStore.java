@@ -0,0 +1,326 @@
+package bpmnProject.akon.bpmnJavaBackend.Storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores blobs on the local filesystem, sharded by the first two bytes of the hash:
+ * {@code <root>/ab/cd/abcd...}. Writes go to a temp file first and are moved into place,
+ * so a blob path only ever contains complete content.
+ *
+ * Content is compressed on write (see {@link BlobCodec}): documents up to the small-document
+ * threshold are deflated in memory against the shared dictionary, larger ones are gzipped as
+ * they stream in. Content that does not shrink by an eighth is kept as it is. Blobs written
+ * before compression was enabled stay readable unchanged, with one exception: a legacy blob
+ * whose content itself starts like an encoded one (gzip or the frame magic, only possible
+ * with {@code require-bpmn=false}) is misread until {@link #recompress} has re-written it
+ * with an explicit frame, which the startup compression pass does for every unmeasured blob.
+ */
+@Service
+@ConditionalOnProperty(name = "application.storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalFileSystemBlobStore implements BlobStore {
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Path root;
+    private final Path tmpDir;
+    private final CompressionDictionaries dictionaries;
+    private final boolean compressionEnabled;
+    private final int smallThreshold;
+
+    public LocalFileSystemBlobStore(@Value("${application.storage.local.root:data/blobs}") String root,
+                                    CompressionDictionaries dictionaries,
+                                    @Value("${application.storage.compression.enabled:true}") boolean compressionEnabled,
+                                    @Value("${application.storage.compression.small-threshold:16384}") int smallThreshold) throws IOException {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.tmpDir = this.root.resolve("tmp");
+        this.dictionaries = dictionaries;
+        this.compressionEnabled = compressionEnabled;
+        this.smallThreshold = Math.max(0, smallThreshold);
+        Files.createDirectories(this.tmpDir);
+        System.out.println("Blob store initialised at " + this.root
+                + (compressionEnabled ? " with compression" : " without compression"));
+    }
+
+    @Override
+    public StoredBlob put(InputStream content) throws IOException {
+        MessageDigest digest = newDigest();
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            long size = encode(new DigestInputStream(content, digest), tmp);
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(hash);
+            if (Files.exists(target)) {
+                // Identical content already stored, keep the existing copy
+                return new StoredBlob(hash, size, Files.size(target));
+            }
+
+            Files.createDirectories(target.getParent());
+            moveIntoPlace(tmp, target);
+            return new StoredBlob(hash, size, Files.size(target));
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public StoredBlob put(byte[] content) throws IOException {
+        return put(new ByteArrayInputStream(content));
+    }
+
+    @Override
+    public InputStream open(String hash) throws IOException {
+        return BlobCodec.decode(Files.newInputStream(resolve(hash)), dictionaries::get);
+    }
+
+    @Override
+    public byte[] read(String hash) throws IOException {
+        byte[] stored = Files.readAllBytes(resolve(hash));
+        if (!BlobCodec.looksEncoded(stored)) {
+            return stored;
+        }
+        try (InputStream in = BlobCodec.decode(new ByteArrayInputStream(stored), dictionaries::get)) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        return Files.exists(resolve(hash));
+    }
+
+    @Override
+    public long size(String hash) {
+        try (FileChannel channel = FileChannel.open(resolve(hash), StandardOpenOption.READ)) {
+            return BlobCodec.readHeader(channel).contentLength;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public long storedSize(String hash) {
+        try {
+            return Files.size(resolve(hash));
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public String storedEncoding(String hash) {
+        try (FileChannel channel = FileChannel.open(resolve(hash), StandardOpenOption.READ)) {
+            return BlobCodec.readHeader(channel).encoding == BlobCodec.Encoding.GZIP ? "gzip" : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void delete(String hash) throws IOException {
+        Files.deleteIfExists(resolve(hash));
+    }
+
+    /**
+     * Zero-copy transfer from the blob file via {@link FileChannel#transferTo} when the content
+     * is stored unencoded; compressed blobs are decoded on the way
+     */
+    @Override
+    public long transferTo(String hash, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(hash), StandardOpenOption.READ)) {
+            BlobCodec.Header header = BlobCodec.readHeader(channel);
+            long offset = header.contentOffset();
+            if (offset < 0) {
+                return BlobStore.super.transferTo(hash, position, count, target);
+            }
+            return transfer(channel, offset + position, offset + Math.min(position + count, header.contentLength), target);
+        }
+    }
+
+    @Override
+    public long transferStoredTo(String hash, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(hash), StandardOpenOption.READ)) {
+            return transfer(channel, 0, channel.size(), target);
+        }
+    }
+
+    /**
+     * Re-encode a blob with the current settings and dictionary, replacing it only when the
+     * result is smaller. The content is verified against the hash on the way. A legacy blob
+     * that only looks encoded fails that check when decoded; its stored bytes are then the
+     * content, and it is always replaced so that it is read as such from now on.
+     */
+    @Override
+    public StoredBlob recompress(String hash) throws IOException {
+        Path target = resolve(hash);
+        long before = storedSize(hash);
+        if (before < 0) {
+            throw new FileNotFoundException("Blob " + hash + " does not exist");
+        }
+        Path tmp = Files.createTempFile(tmpDir, "recompress-", ".part");
+        try {
+            long size;
+            boolean reframe = false;
+            try {
+                size = encodeVerified(open(hash), hash, tmp);
+            } catch (IOException e) {
+                if (!looksEncoded(target)) {
+                    throw e;
+                }
+                // Written as-is before compression, with content that starts like an encoded blob
+                size = encodeVerified(Files.newInputStream(target), hash, tmp);
+                reframe = true;
+            }
+            long after = Files.size(tmp);
+            if ((after >= before && !reframe) || !Files.exists(target)) {
+                // Not smaller, or deleted meanwhile; never resurrect a released blob
+                return new StoredBlob(hash, size, before);
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new StoredBlob(hash, size, after);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Path of the blob for the given hash. Only well-formed hashes are accepted so a
+     * caller-supplied value can never escape the store root.
+     */
+    Path resolve(String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Invalid blob hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    /**
+     * Write the stored form of the content to the file and return the content length
+     */
+    private long encode(InputStream content, Path file) throws IOException {
+        byte[] head = content.readNBytes(Math.max(smallThreshold, BlobCodec.FRAME_HEADER) + 1);
+        if (head.length <= smallThreshold) {
+            Files.write(file, compressionEnabled
+                    ? BlobCodec.encodeSmall(head, dictionaries.active())
+                    : BlobCodec.unencoded(head));
+            return head.length;
+        }
+        if (!compressionEnabled) {
+            return writeUnencoded(file, head, content);
+        }
+
+        long size = head.length;
+        try (GZIPOutputStream out = new GZIPOutputStream(Files.newOutputStream(file), BUFFER_SIZE)) {
+            out.write(head);
+            size += content.transferTo(out);
+        }
+        if (Files.size(file) > size - size / 8) {
+            // Does not compress (already packed, or random data); keep the content as it is
+            Path plain = Files.createTempFile(tmpDir, "plain-", ".part");
+            try {
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+                    writeUnencoded(plain, in.readNBytes(BlobCodec.FRAME_HEADER), in);
+                }
+                Files.move(plain, file, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(plain);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * {@link #encode} that fails when the content does not match the hash
+     */
+    private long encodeVerified(InputStream content, String hash, Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        long size;
+        try (InputStream in = new DigestInputStream(content, digest)) {
+            size = encode(in, file);
+        }
+        if (!hash.equals(HexFormat.of().formatHex(digest.digest()))) {
+            throw new IOException("Blob " + hash + " does not match its hash");
+        }
+        return size;
+    }
+
+    private static boolean looksEncoded(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return BlobCodec.looksEncoded(in.readNBytes(BlobCodec.FRAME_HEADER));
+        }
+    }
+
+    private static long writeUnencoded(Path file, byte[] head, InputStream rest) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            if (BlobCodec.looksEncoded(head)) {
+                out.write(BlobCodec.frameHeader(BlobCodec.FRAMED_STORED, 0, -1));
+            }
+            out.write(head);
+            return head.length + rest.transferTo(out);
+        }
+    }
+
+    private static long transfer(FileChannel channel, long from, long to, WritableByteChannel target) throws IOException {
+        long end = Math.min(to, channel.size());
+        long current = from;
+        while (current < end) {
+            long transferred = channel.transferTo(current, end - current, target);
+            if (transferred <= 0) {
+                break;
+            }
+            current += transferred;
+        }
+        return Math.max(0, current - from);
+    }
+
+    private void moveIntoPlace(Path tmp, Path target) throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(tmp, target);
+            } catch (FileAlreadyExistsException ignored) {
+                // A concurrent upload of the same content won the race
+            }
+        } catch (FileAlreadyExistsException ignored) {
+            // A concurrent upload of the same content won the race
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
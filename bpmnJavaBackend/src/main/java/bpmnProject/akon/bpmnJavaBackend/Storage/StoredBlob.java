@@ -0,0 +1,16 @@
+package bpmnProject.akon.bpmnJavaBackend.Storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Result of writing a blob: its content hash, the content length in bytes and the
+ * number of bytes it occupies in storage after compression
+ */
+@Data
+@AllArgsConstructor
+public class StoredBlob {
+    private String hash;
+    private long size;
+    private long storedSize;
+}
@@ -0,0 +1,202 @@
+package bpmnProject.akon.bpmnJavaBackend.Version;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary deltas between two versions of a document, plus the deflate wrapping used for
+ * stored revisions.
+ *
+ * A delta is the target length followed by COPY (offset, length from the base) and INSERT
+ * (literal bytes) instructions. Blocks of the base are indexed by a rolling hash; the target
+ * is scanned with the same hash and every verified block match is extended in both
+ * directions, so an edit anywhere in a large XML document costs roughly the size of the
+ * edit. The instruction stream is deflated before it is stored.
+ */
+final class DeltaCodec {
+
+    private static final int BLOCK = 16;
+    private static final int PRIME = 0x01000193;
+    private static final byte COPY = 0;
+    private static final byte INSERT = 1;
+
+    private DeltaCodec() {
+    }
+
+    static byte[] encode(byte[] base, byte[] target) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, target.length / 16));
+        writeVarint(out, target.length);
+        if (base.length < BLOCK || target.length < BLOCK) {
+            insert(out, target, 0, target.length);
+            return out.toByteArray();
+        }
+
+        // Power of two with room for every aligned block of the base; slots hold position + 1
+        int slots = Integer.highestOneBit(Math.max(16, base.length / BLOCK) * 2 - 1) << 1;
+        int mask = slots - 1;
+        int[] table = new int[slots];
+        for (int position = base.length - BLOCK - (base.length % BLOCK); position >= 0; position -= BLOCK) {
+            // Filled backwards so the earliest block wins a slot
+            table[mix(hash(base, position)) & mask] = position + 1;
+        }
+
+        int highPower = 1;
+        for (int i = 1; i < BLOCK; i++) {
+            highPower *= PRIME;
+        }
+
+        int literalStart = 0;
+        int i = 0;
+        int h = hash(target, 0);
+        while (i + BLOCK <= target.length) {
+            int candidate = table[mix(h) & mask] - 1;
+            if (candidate >= 0 && Arrays.equals(base, candidate, candidate + BLOCK, target, i, i + BLOCK)) {
+                int start = i;
+                int from = candidate;
+                while (start > literalStart && from > 0 && base[from - 1] == target[start - 1]) {
+                    start--;
+                    from--;
+                }
+                int end = i + BLOCK;
+                int baseEnd = candidate + BLOCK;
+                while (end < target.length && baseEnd < base.length && base[baseEnd] == target[end]) {
+                    end++;
+                    baseEnd++;
+                }
+                insert(out, target, literalStart, start);
+                out.write(COPY);
+                writeVarint(out, from);
+                writeVarint(out, end - start);
+                i = end;
+                literalStart = end;
+                if (i + BLOCK <= target.length) {
+                    h = hash(target, i);
+                }
+                continue;
+            }
+            if (i + BLOCK < target.length) {
+                h = (h - target[i] * highPower) * PRIME + target[i + BLOCK];
+            }
+            i++;
+        }
+        insert(out, target, literalStart, target.length);
+        return out.toByteArray();
+    }
+
+    static byte[] apply(byte[] base, byte[] delta) throws IOException {
+        int[] position = {0};
+        int length = readVarint(delta, position);
+        byte[] target = new byte[length];
+        int written = 0;
+        while (position[0] < delta.length) {
+            byte op = delta[position[0]++];
+            if (op == COPY) {
+                int from = readVarint(delta, position);
+                int count = readVarint(delta, position);
+                if (from < 0 || count < 0 || from + count > base.length || written + count > length) {
+                    throw new IOException("Corrupt delta: copy out of range");
+                }
+                System.arraycopy(base, from, target, written, count);
+                written += count;
+            } else if (op == INSERT) {
+                int count = readVarint(delta, position);
+                if (count < 0 || position[0] + count > delta.length || written + count > length) {
+                    throw new IOException("Corrupt delta: insert out of range");
+                }
+                System.arraycopy(delta, position[0], target, written, count);
+                position[0] += count;
+                written += count;
+            } else {
+                throw new IOException("Corrupt delta: unknown instruction " + op);
+            }
+        }
+        if (written != length) {
+            throw new IOException("Corrupt delta: expected " + length + " bytes, got " + written);
+        }
+        return target;
+    }
+
+    static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static byte[] inflate(byte[] data) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length * 4));
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated revision payload");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt revision payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void insert(ByteArrayOutputStream out, byte[] data, int from, int to) {
+        if (to > from) {
+            out.write(INSERT);
+            writeVarint(out, to - from);
+            out.write(data, from, to - from);
+        }
+    }
+
+    private static int hash(byte[] data, int offset) {
+        int h = 0;
+        for (int i = 0; i < BLOCK; i++) {
+            h = h * PRIME + data[offset + i];
+        }
+        return h;
+    }
+
+    private static int mix(int h) {
+        return (h * 0x9E3779B9) ^ (h >>> 16);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] data, int[] position) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (position[0] >= data.length) {
+                throw new IOException("Corrupt delta: truncated number");
+            }
+            byte b = data[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt delta: number too long");
+    }
+}
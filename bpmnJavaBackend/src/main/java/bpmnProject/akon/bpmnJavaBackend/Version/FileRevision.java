@@ -0,0 +1,68 @@
+package bpmnProject.akon.bpmnJavaBackend.Version;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One immutable revision of a file: its name, type and content as of a save. The content is
+ * kept as a payload blob that is either a snapshot or a delta against the previous revision.
+ */
+@Table(name = "file_revisions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_file_revisions_file_revision", columnNames = {"file_id", "revision"}),
+        indexes = @Index(name = "idx_file_revisions_payload_hash", columnList = "payload_hash"))
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class FileRevision {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "file_id", nullable = false)
+    private Long fileId;
+
+    // 1 for the oldest revision of the file
+    @Column(name = "revision", nullable = false)
+    private int revision;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "file_type")
+    private String fileType;
+
+    @Column(name = "file_size")
+    private long fileSize;
+
+    // SHA-256 of the reconstructed content, checked on every reconstruction
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "storage", length = 10, nullable = false)
+    private RevisionStorage storage;
+
+    // Blob holding the deflated snapshot or delta
+    @JsonIgnore
+    @Column(name = "payload_hash", length = 64, nullable = false)
+    private String payloadHash;
+
+    @Column(name = "payload_size")
+    private long payloadSize;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "created_by")
+    private Integer createdBy;
+
+    @Column(name = "note")
+    private String note;
+}
@@ -0,0 +1,125 @@
+package bpmnProject.akon.bpmnJavaBackend.Version;
+
+import bpmnProject.akon.bpmnJavaBackend.Diff.DiffService;
+import bpmnProject.akon.bpmnJavaBackend.File.File;
+import bpmnProject.akon.bpmnJavaBackend.File.FileService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+@CrossOrigin(origins = "http://localhost:4200")
+@RestController
+@RequestMapping("/api/v1/file/{id}/revisions")
+public class FileRevisionController {
+
+    private final FileVersionService fileVersionService;
+    private final FileService fileService;
+    private final DiffService diffService;
+
+    @Autowired
+    public FileRevisionController(FileVersionService fileVersionService, FileService fileService,
+                                  DiffService diffService) {
+        this.fileVersionService = fileVersionService;
+        this.fileService = fileService;
+        this.diffService = diffService;
+    }
+
+    /**
+     * Revisions of a file, newest first. Empty until the file is first updated.
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
+    public ResponseEntity<List<FileRevision>> listRevisions(@PathVariable Long id) {
+        try {
+            fileService.findFileById(id);
+            return ResponseEntity.ok(fileVersionService.listRevisions(id));
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    @GetMapping("/{revision}")
+    @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
+    public ResponseEntity<FileRevision> getRevision(@PathVariable Long id, @PathVariable int revision) {
+        try {
+            return ResponseEntity.ok(fileVersionService.getRevision(id, revision));
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    @GetMapping("/{revision}/content")
+    @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
+    public ResponseEntity<byte[]> getRevisionContent(@PathVariable Long id, @PathVariable int revision) {
+        FileRevision fileRevision;
+        try {
+            fileRevision = fileVersionService.getRevision(id, revision);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        try {
+            byte[] content = fileVersionService.reconstruct(id, revision);
+            String baseName = fileRevision.getFileName() != null
+                    ? fileRevision.getFileName().replaceAll("\\.(bpmn|xml)$", "")
+                    : "diagram";
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_XML);
+            headers.setContentDisposition(ContentDisposition.attachment()
+                    .filename(baseName + "-r" + revision + ".bpmn", StandardCharsets.UTF_8)
+                    .build());
+            headers.setContentLength(content.length);
+            return new ResponseEntity<>(content, headers, HttpStatus.OK);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping("/{revision}/diff/{otherRevision}")
+    @PreAuthorize("hasRole('VIEWER') or hasRole('MODELER') or hasRole('ADMIN')")
+    public ResponseEntity<?> diffRevisions(@PathVariable Long id, @PathVariable int revision,
+                                           @PathVariable int otherRevision) {
+        try {
+            return ResponseEntity.ok(diffService.diffRevisions(id, revision, otherRevision));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Revision not found"));
+        }
+    }
+
+    /**
+     * Make a revision current again. The restore is itself recorded as a new revision, so
+     * nothing in the history is lost.
+     */
+    @PostMapping("/{revision}/restore")
+    @PreAuthorize("hasRole('MODELER') or hasRole('ADMIN')")
+    public ResponseEntity<?> restoreRevision(@PathVariable Long id, @PathVariable int revision) {
+        FileRevision fileRevision;
+        try {
+            fileRevision = fileVersionService.getRevision(id, revision);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Revision not found"));
+        }
+        try {
+            byte[] content = fileVersionService.reconstruct(id, revision);
+            File restored = fileService.updateFileContent(id, fileRevision.getFileName(), fileRevision.getFileType(),
+                    new ByteArrayInputStream(content), "Restored from revision " + revision);
+            return ResponseEntity.ok(restored);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Failed to restore revision"));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package bpmnProject.akon.bpmnJavaBackend.Version;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface FileRevisionRepository extends JpaRepository<FileRevision, Long> {
+    List<FileRevision> findByFileIdOrderByRevisionDesc(Long fileId);
+
+    Optional<FileRevision> findByFileIdAndRevision(Long fileId, int revision);
+
+    Optional<FileRevision> findFirstByFileIdOrderByRevisionDesc(Long fileId);
+
+    /**
+     * The revision itself and every revision back to the nearest snapshot, newest first
+     */
+    @Query("""
+            SELECT r FROM FileRevision r
+            WHERE r.fileId = :fileId AND r.revision <= :revision
+              AND r.revision >= (SELECT COALESCE(MAX(s.revision), 1) FROM FileRevision s
+                                 WHERE s.fileId = :fileId AND s.revision <= :revision
+                                   AND s.storage = bpmnProject.akon.bpmnJavaBackend.Version.RevisionStorage.SNAPSHOT)
+            ORDER BY r.revision DESC
+            """)
+    List<FileRevision> findChain(@Param("fileId") Long fileId, @Param("revision") int revision);
+
+    long countByPayloadHash(String payloadHash);
+
+    void deleteByFileId(Long fileId);
+}
@@ -0,0 +1,283 @@
+package bpmnProject.akon.bpmnJavaBackend.Version;
+
+import bpmnProject.akon.bpmnJavaBackend.File.File;
+import bpmnProject.akon.bpmnJavaBackend.File.FileRepository;
+import bpmnProject.akon.bpmnJavaBackend.Storage.BlobStore;
+import bpmnProject.akon.bpmnJavaBackend.Storage.StoredBlob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Revision history of files.
+ *
+ * Every update through {@link bpmnProject.akon.bpmnJavaBackend.File.FileService} appends an
+ * immutable revision. Its payload is a deflated delta against the previous revision, or a
+ * deflated snapshot of the whole content every {@code snapshot-interval} revisions and
+ * whenever a delta would not be much smaller than the content. Reconstructing a revision
+ * therefore inflates one snapshot and applies fewer than {@code snapshot-interval} deltas.
+ *
+ * Payloads live in the blob store next to the current content. A file that was never
+ * updated has no revisions; its first update records the original content as revision 1.
+ */
+@Service
+@Transactional
+public class FileVersionService {
+
+    private final FileRevisionRepository revisionRepo;
+    private final FileRepository fileRepo;
+    private final BlobStore blobStore;
+    private final AuditorAware<Integer> auditorAware;
+    private final int snapshotInterval;
+
+    @Autowired
+    public FileVersionService(FileRevisionRepository revisionRepo, FileRepository fileRepo, BlobStore blobStore,
+                              AuditorAware<Integer> auditorAware,
+                              @Value("${application.versions.snapshot-interval:10}") int snapshotInterval) {
+        this.revisionRepo = revisionRepo;
+        this.fileRepo = fileRepo;
+        this.blobStore = blobStore;
+        this.auditorAware = auditorAware;
+        this.snapshotInterval = Math.max(1, snapshotInterval);
+    }
+
+    /**
+     * The parts of a file a revision records, taken before the file is changed
+     */
+    public static State stateOf(File file) {
+        return new State(file);
+    }
+
+    /**
+     * Append a revision for a file that changed from {@code before} to {@code after}. Must run
+     * before the previous content is released from the blob store.
+     */
+    public void recordUpdate(State before, File after, String note) {
+        State now = new State(after);
+        if (now.equals(before)) {
+            return;
+        }
+        try {
+            byte[] previous = read(before.contentHash);
+            FileRevision head = revisionRepo.findFirstByFileIdOrderByRevisionDesc(after.getId()).orElse(null);
+            if (head == null || !Objects.equals(head.getContentHash(), before.contentHash)) {
+                // First update, or the content was changed without a revision: start from what was there
+                head = save(after.getId(), head != null ? head.getRevision() + 1 : 1, before, previous,
+                        RevisionStorage.SNAPSHOT, snapshot(previous), head == null ? "Original upload" : null,
+                        before.uploadTime, before.uploadedBy);
+            }
+
+            byte[] content = read(now.contentHash);
+            int number = head.getRevision() + 1;
+            int chainLength = revisionRepo.findChain(after.getId(), head.getRevision()).size();
+            if (chainLength >= snapshotInterval) {
+                save(after.getId(), number, now, content, RevisionStorage.SNAPSHOT, snapshot(content), note,
+                        LocalDateTime.now(), currentUserId());
+                return;
+            }
+            byte[] delta = DeltaCodec.encode(previous, content);
+            if (delta.length > content.length / 2) {
+                // Mostly new content; a snapshot costs about the same and shortens the chain
+                save(after.getId(), number, now, content, RevisionStorage.SNAPSHOT, snapshot(content), note,
+                        LocalDateTime.now(), currentUserId());
+            } else {
+                save(after.getId(), number, now, content, RevisionStorage.DELTA, DeltaCodec.deflate(delta), note,
+                        LocalDateTime.now(), currentUserId());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to record revision of file " + after.getId(), e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<FileRevision> listRevisions(Long fileId) {
+        return revisionRepo.findByFileIdOrderByRevisionDesc(fileId);
+    }
+
+    @Transactional(readOnly = true)
+    public FileRevision getRevision(Long fileId, int revision) {
+        return revisionRepo.findByFileIdAndRevision(fileId, revision)
+                .orElseThrow(() -> new RuntimeException("Revision " + revision + " of file " + fileId + " not found"));
+    }
+
+    /**
+     * Content of a revision, rebuilt from the nearest snapshot and verified against its hash
+     */
+    @Transactional(readOnly = true)
+    public byte[] reconstruct(Long fileId, int revision) {
+        List<FileRevision> chain = revisionRepo.findChain(fileId, revision);
+        if (chain.isEmpty() || chain.get(0).getRevision() != revision) {
+            throw new RuntimeException("Revision " + revision + " of file " + fileId + " not found");
+        }
+        try {
+            FileRevision base = chain.get(chain.size() - 1);
+            if (base.getStorage() != RevisionStorage.SNAPSHOT) {
+                throw new IOException("Revision chain of file " + fileId + " does not start with a snapshot");
+            }
+            byte[] content = DeltaCodec.inflate(blobStore.read(base.getPayloadHash()));
+            for (int i = chain.size() - 2; i >= 0; i--) {
+                content = DeltaCodec.apply(content, DeltaCodec.inflate(blobStore.read(chain.get(i).getPayloadHash())));
+            }
+            String expected = chain.get(0).getContentHash();
+            if (expected != null && !expected.equals(sha256(content))) {
+                throw new IOException("Revision " + revision + " of file " + fileId + " does not match its hash");
+            }
+            return content;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to reconstruct revision " + revision + " of file " + fileId, e);
+        }
+    }
+
+    /**
+     * Drop the history of a deleted file and, once the transaction has completed, every payload
+     * nothing else refers to. Deleting them earlier would leave a rolled-back history without
+     * its payloads.
+     */
+    public void deleteRevisions(Long fileId) {
+        Set<String> payloads = new LinkedHashSet<>();
+        for (FileRevision revision : revisionRepo.findByFileIdOrderByRevisionDesc(fileId)) {
+            payloads.add(revision.getPayloadHash());
+        }
+        if (payloads.isEmpty()) {
+            return;
+        }
+        revisionRepo.deleteByFileId(fileId);
+        revisionRepo.flush();
+        payloads.forEach(this::releaseAfterCompletion);
+    }
+
+    /**
+     * Whether a blob is still needed as a revision payload
+     */
+    @Transactional(readOnly = true)
+    public boolean referencesBlob(String hash) {
+        return revisionRepo.countByPayloadHash(hash) > 0;
+    }
+
+    private FileRevision save(Long fileId, int number, State state, byte[] content, RevisionStorage storage,
+                              byte[] payload, String note, LocalDateTime createdAt, Integer createdBy) throws IOException {
+        StoredBlob blob = blobStore.put(payload);
+        releaseOnRollback(blob.getHash());
+
+        FileRevision revision = new FileRevision();
+        revision.setFileId(fileId);
+        revision.setRevision(number);
+        revision.setFileName(state.fileName);
+        revision.setFileType(state.fileType);
+        revision.setFileSize(content.length);
+        revision.setContentHash(state.contentHash != null ? state.contentHash : sha256(content));
+        revision.setStorage(storage);
+        revision.setPayloadHash(blob.getHash());
+        revision.setPayloadSize(blob.getSize());
+        revision.setCreatedAt(createdAt);
+        revision.setCreatedBy(createdBy);
+        revision.setNote(note);
+        return revisionRepo.save(revision);
+    }
+
+    private static byte[] snapshot(byte[] content) {
+        return DeltaCodec.deflate(content);
+    }
+
+    private byte[] read(String hash) throws IOException {
+        return hash != null ? blobStore.read(hash) : new byte[0];
+    }
+
+    private void releaseOnRollback(String hash) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    releasePayload(hash);
+                }
+            }
+        });
+    }
+
+    private void releaseAfterCompletion(String hash) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            releasePayload(hash);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                releasePayload(hash);
+            }
+        });
+    }
+
+    private void releasePayload(String hash) {
+        if (revisionRepo.countByPayloadHash(hash) > 0 || fileRepo.countByContentHash(hash) > 0) {
+            return;
+        }
+        try {
+            blobStore.delete(hash);
+        } catch (IOException e) {
+            System.err.println("Failed to delete unreferenced revision payload " + hash + ": " + e.getMessage());
+        }
+    }
+
+    private Integer currentUserId() {
+        try {
+            return auditorAware.getCurrentAuditor().orElse(null);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static final class State {
+        private final String fileName;
+        private final String fileType;
+        private final String contentHash;
+        private final LocalDateTime uploadTime;
+        private final Integer uploadedBy;
+
+        private State(File file) {
+            this.fileName = file.getFileName();
+            this.fileType = file.getFileType();
+            this.contentHash = file.getContentHash();
+            this.uploadTime = file.getUploadTime();
+            this.uploadedBy = file.getUploadedBy();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof State)) return false;
+            State other = (State) o;
+            return Objects.equals(fileName, other.fileName) && Objects.equals(fileType, other.fileType)
+                    && Objects.equals(contentHash, other.contentHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fileName, fileType, contentHash);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package bpmnProject.akon.bpmnJavaBackend.Version;
+
+/**
+ * How a revision's payload is stored
+ */
+public enum RevisionStorage {
+    // The whole content, deflated
+    SNAPSHOT,
+    // A deflated delta against the previous revision
+    DELTA
+}
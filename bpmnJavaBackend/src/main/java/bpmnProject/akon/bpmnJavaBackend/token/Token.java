@@ -4,12 +4,16 @@ import bpmnProject.akon.bpmnJavaBackend.User.User;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
+
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "tokens")
+@Table(name = "tokens", indexes = {
+        @Index(name = "idx_tokens_expires_at", columnList = "expires_at")
+})
 public class Token {
 
     @Id
@@ -19,6 +23,14 @@ public class Token {
     @Column(unique = true)
     private String token;
 
+    // JWT ID claim, the short key used for lookups and revocation
+    @Column(name = "jti", unique = true, length = 36)
+    private String jti;
+
+    // JWT exp claim, lets expired rows be purged without parsing the token
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
     @Enumerated(EnumType.STRING)
     private TokenType tokenType = TokenType.BEARER;
 
@@ -1,11 +1,14 @@
 package bpmnProject.akon.bpmnJavaBackend.Token;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +23,29 @@ public interface TokenRepository extends JpaRepository<Token, Integer> {
 
     Optional<Token> findByToken(String token);
 
+    Optional<Token> findByJti(String jti);
+
+    @Query("SELECT t.jti, t.expiresAt FROM Token t WHERE t.revoked = true AND t.jti IS NOT NULL AND t.expiresAt > :now")
+    List<Object[]> findActiveRevokedJtis(@Param("now") LocalDateTime now);
+
+    @Query("SELECT t FROM Token t WHERE t.expiresAt IS NULL")
+    List<Token> findWithoutExpiry(Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Token t SET t.expired = true, t.revoked = true WHERE t.jti IN :jtis")
+    int revokeByJtiIn(@Param("jtis") Collection<String> jtis);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Token t SET t.expired = true, t.revoked = true WHERE t.token = :token")
+    int revokeByToken(@Param("token") String token);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Token t WHERE t.expiresAt < :now")
+    int deleteExpiredBefore(@Param("now") LocalDateTime now);
+
     @Query("SELECT t FROM Token t WHERE t.user.id = :userId")
     List<Token> findAllByUserId(@Param("userId") Integer userId);
 
@@ -0,0 +1,25 @@
+package bpmnProject.akon.bpmnJavaBackend.Token;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Tokens of the user issued up to this time are revoked: their role or credential claims are
+ * stale. Keyed by username so the cutoff outlives a deleted user row.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "user_token_cutoffs")
+public class UserTokenCutoff {
+
+    @Id
+    @Column(name = "username")
+    private String username;
+
+    // Epoch millis of the change
+    @Column(name = "issued_before", nullable = false)
+    private long issuedBefore;
+}
@@ -0,0 +1,19 @@
+package bpmnProject.akon.bpmnJavaBackend.Token;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface UserTokenCutoffRepository extends JpaRepository<UserTokenCutoff, String> {
+
+    List<UserTokenCutoff> findByIssuedBeforeGreaterThan(long epochMillis);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UserTokenCutoff c WHERE c.issuedBefore <= :epochMillis")
+    int deleteIssuedBeforeUpTo(@Param("epochMillis") long epochMillis);
+}
@@ -1,6 +1,7 @@
 package bpmnProject.akon.bpmnJavaBackend.User;
 
 import bpmnProject.akon.bpmnJavaBackend.Auth.RegisterRequest;
+import bpmnProject.akon.bpmnJavaBackend.Config.TokenInvalidationService;
 import bpmnProject.akon.bpmnJavaBackend.DtoClasses.RoleDto;
 import bpmnProject.akon.bpmnJavaBackend.DtoClasses.UserDto;
 import lombok.RequiredArgsConstructor;
@@ -28,6 +29,7 @@ public class UserService implements UserDetailsService {
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final TokenInvalidationService tokenInvalidationService;
 
     @Override
     @Transactional(readOnly = true)
@@ -68,6 +70,7 @@ public class UserService implements UserDetailsService {
 
         // save the new password
         userRepository.save(user);
+        tokenInvalidationService.userChanged(user.getUsername());
     }
 
     @Transactional(readOnly = true)
@@ -108,6 +111,8 @@ public class UserService implements UserDetailsService {
 
         user.setRoles(roles);
         User savedUser = userRepository.save(user);
+        // Cached principals still carry the old authorities
+        tokenInvalidationService.userChanged(user.getUsername());
 
         System.out.println("Updated user roles for " + user.getUsername() + ": " + savedUser.getRoleNames());
 
@@ -125,6 +130,7 @@ public class UserService implements UserDetailsService {
 
         user.getRoles().add(role);
         User savedUser = userRepository.save(user);
+        tokenInvalidationService.userChanged(user.getUsername());
 
         System.out.println("Added role " + role.getName() + " to user " + user.getUsername());
 
@@ -142,15 +148,16 @@ public class UserService implements UserDetailsService {
 
         user.getRoles().remove(role);
         User savedUser = userRepository.save(user);
+        tokenInvalidationService.userChanged(user.getUsername());
         System.out.println("Removed role " + role.getName() + " from user " + user.getUsername());
         return convertToDto(savedUser);
     }
 
     public void deleteUser(Integer userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new RuntimeException("User not found");
-        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
         userRepository.deleteById(userId);
+        tokenInvalidationService.userChanged(user.getUsername());
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,260 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BpmnValidatorTest {
+
+    private static final String HASH = "cd".repeat(32);
+
+    private static final String START_TO_END = """
+            <bpmn:startEvent id="Start"/>
+            <bpmn:task id="Task_1" name="Check order"/>
+            <bpmn:endEvent id="End"/>
+            <bpmn:sequenceFlow id="Flow_1" sourceRef="Start" targetRef="Task_1"/>
+            <bpmn:sequenceFlow id="Flow_2" sourceRef="Task_1" targetRef="End"/>
+            """;
+
+    private final BpmnModelCache modelCache = new BpmnModelCache(1 << 20);
+
+    static String document(String prefix, String process) {
+        String p = prefix.isEmpty() ? "" : prefix + ":";
+        String xmlns = prefix.isEmpty() ? "xmlns" : "xmlns:" + prefix;
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<" + p + "definitions " + xmlns + "=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+                + " id=\"Definitions_1\" targetNamespace=\"http://bpmn.io/schema/bpmn\">\n"
+                + "<" + p + "process id=\"Process_1\" isExecutable=\"false\">\n"
+                + process.replace("bpmn:", p)
+                + "</" + p + "process>\n"
+                + "</" + p + "definitions>\n";
+    }
+
+    static String document(String process) {
+        return document("bpmn", process);
+    }
+
+    @Test
+    void wellFormedProcessPassesTheSchema() throws IOException {
+        ValidationReport report = validate(validator(true), document(START_TO_END), true);
+
+        assertTrue(report.isValid(), report.getDiagnostics().toString());
+        assertTrue(report.getDiagnostics().isEmpty(), report.getDiagnostics().toString());
+        assertTrue(report.isFullParse());
+        assertEquals(1, report.getProcessCount());
+        assertEquals(3, report.getFlowNodeCount());
+        assertEquals(2, report.getSequenceFlowCount());
+    }
+
+    @Test
+    void schemaViolationsAreReportedAtTheirElement() throws IOException {
+        String xml = document(START_TO_END + "<bpmn:task id=\"not an id\"/>\n");
+
+        ValidationReport report = validate(validator(true), xml, true);
+
+        assertFalse(report.isValid());
+        assertFalse(report.isFullParse(), "no full parse after errors");
+        ValidationDiagnostic schema = diagnostic(report, "SCHEMA");
+        assertEquals(lineOf(xml, "not an id"), schema.getLine());
+        assertTrue(schema.getColumn() > 0);
+    }
+
+    @Test
+    void reportsNodesNoStartEventReaches() throws IOException {
+        ValidationReport report = validate(validator(false), document(START_TO_END + """
+                <bpmn:task id="Orphan"/>
+                <bpmn:boundaryEvent id="Timeout" attachedToRef="Task_1"/>
+                <bpmn:task id="Compensate" isForCompensation="true"/>
+                """), false);
+
+        assertTrue(report.isValid());
+        assertEquals(List.of("Orphan"), elementIds(report, "UNREACHABLE_NODE"));
+    }
+
+    @Test
+    void reportsFlowsToUnknownElements() throws IOException {
+        String xml = document(START_TO_END + "<bpmn:sequenceFlow id=\"Flow_lost\" sourceRef=\"Task_1\" targetRef=\"Missing\"/>\n");
+
+        ValidationReport report = validate(validator(false), xml, false);
+
+        assertFalse(report.isValid());
+        ValidationDiagnostic dangling = diagnostic(report, "DANGLING_SEQUENCE_FLOW");
+        assertEquals("Flow_lost", dangling.getElementId());
+        assertTrue(dangling.getMessage().contains("target 'Missing'"), dangling.getMessage());
+    }
+
+    @Test
+    void reportsFlowsLeavingTheirScope() throws IOException {
+        ValidationReport report = validate(validator(false), document("""
+                <bpmn:startEvent id="Start"/>
+                <bpmn:subProcess id="Sub">
+                  <bpmn:task id="Inner"/>
+                </bpmn:subProcess>
+                <bpmn:endEvent id="End"/>
+                <bpmn:sequenceFlow id="Flow_in" sourceRef="Start" targetRef="Inner"/>
+                <bpmn:sequenceFlow id="Flow_1" sourceRef="Start" targetRef="Sub"/>
+                <bpmn:sequenceFlow id="Flow_2" sourceRef="Sub" targetRef="End"/>
+                """), false);
+
+        assertFalse(report.isValid());
+        assertEquals(List.of("Flow_in"), elementIds(report, "SEQUENCE_FLOW_CROSSES_SCOPE"));
+        assertEquals(List.of(), elementIds(report, "UNREACHABLE_NODE"), "sub-processes start implicitly");
+    }
+
+    @Test
+    void warnsAboutProcessesWithoutStartOrEndEvents() throws IOException {
+        ValidationReport report = validate(validator(false), document("""
+                <bpmn:task id="Task_1"/>
+                <bpmn:subProcess id="Sub">
+                  <bpmn:task id="Inner"/>
+                </bpmn:subProcess>
+                <bpmn:sequenceFlow id="Flow_1" sourceRef="Task_1" targetRef="Sub"/>
+                """), false);
+
+        assertTrue(report.isValid());
+        assertEquals(List.of("Process_1"), elementIds(report, "MISSING_START_EVENT"));
+        assertEquals(List.of("Process_1"), elementIds(report, "MISSING_END_EVENT"));
+        assertEquals(List.of(), elementIds(report, "UNREACHABLE_NODE"), "nodes without incoming flows are entry points");
+    }
+
+    @Test
+    void checksGatewayFanInAndFanOut() throws IOException {
+        ValidationReport report = validate(validator(false), document("""
+                <bpmn:startEvent id="Start"/>
+                <bpmn:parallelGateway id="Split"/>
+                <bpmn:exclusiveGateway id="PassThrough"/>
+                <bpmn:eventBasedGateway id="Wait"/>
+                <bpmn:intermediateCatchEvent id="Message"/>
+                <bpmn:exclusiveGateway id="DeadEnd"/>
+                <bpmn:endEvent id="End"/>
+                <bpmn:sequenceFlow id="Flow_1" sourceRef="Start" targetRef="Split"/>
+                <bpmn:sequenceFlow id="Flow_2" sourceRef="Split" targetRef="PassThrough"/>
+                <bpmn:sequenceFlow id="Flow_3" sourceRef="Split" targetRef="Wait"/>
+                <bpmn:sequenceFlow id="Flow_4" sourceRef="Split" targetRef="DeadEnd"/>
+                <bpmn:sequenceFlow id="Flow_5" sourceRef="PassThrough" targetRef="End"/>
+                <bpmn:sequenceFlow id="Flow_6" sourceRef="Wait" targetRef="Message"/>
+                <bpmn:sequenceFlow id="Flow_7" sourceRef="Message" targetRef="End"/>
+                """), false);
+
+        assertEquals(List.of("PassThrough"), elementIds(report, "GATEWAY_PASS_THROUGH"));
+        assertEquals(List.of("Wait"), elementIds(report, "GATEWAY_FAN_OUT"));
+        assertEquals(List.of("DeadEnd"), elementIds(report, "GATEWAY_DISCONNECTED"));
+        assertEquals(2, report.getErrorCount());
+    }
+
+    @Test
+    void defaultFlowMustLeaveItsOwner() throws IOException {
+        String body = """
+                <bpmn:startEvent id="Start"/>
+                <bpmn:exclusiveGateway id="Choice" default="%s"/>
+                <bpmn:endEvent id="Approved"/>
+                <bpmn:endEvent id="Rejected"/>
+                <bpmn:sequenceFlow id="Flow_1" sourceRef="Start" targetRef="Choice"/>
+                <bpmn:sequenceFlow id="Flow_yes" sourceRef="Choice" targetRef="Approved"/>
+                <bpmn:sequenceFlow id="Flow_no" sourceRef="Choice" targetRef="Rejected"/>
+                """;
+
+        ValidationReport valid = validate(validator(false), document(body.formatted("Flow_no")), false);
+        ValidationReport invalid = validate(validator(false), document(body.formatted("Flow_1")), false);
+
+        assertTrue(valid.isValid(), valid.getDiagnostics().toString());
+        assertFalse(invalid.isValid());
+        assertEquals(List.of("Choice"), elementIds(invalid, "INVALID_DEFAULT_FLOW"));
+    }
+
+    @Test
+    void diagnosticsCarryTheLineAndColumnOfTheElement() throws IOException {
+        String xml = document(START_TO_END + "<bpmn:sequenceFlow id=\"Flow_lost\" sourceRef=\"Nowhere\" targetRef=\"End\"/>\n");
+        int line = lineOf(xml, "Flow_lost");
+
+        ValidationReport report = validate(validator(false), xml, false);
+
+        ValidationDiagnostic dangling = diagnostic(report, "DANGLING_SEQUENCE_FLOW");
+        assertEquals(line, dangling.getLine());
+        assertTrue(dangling.getColumn() > 0);
+        assertTrue(report.getErrors().get(0).startsWith("Line " + line + ", column " + dangling.getColumn() + ": "),
+                report.getErrors().get(0));
+
+        ValidationReport malformed = validate(validator(false), "<bpmn:definitions xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\">\n<a></b>", false);
+        assertEquals("XML", malformed.getDiagnostics().get(0).getCode());
+        assertEquals(2, malformed.getDiagnostics().get(0).getLine());
+    }
+
+    @Test
+    void reportsAreCachedPerContentHash() throws IOException {
+        BpmnValidator validator = validator(false);
+        byte[] xml = document(START_TO_END).getBytes(StandardCharsets.UTF_8);
+        AtomicInteger opened = new AtomicInteger();
+        BpmnSource source = () -> {
+            opened.incrementAndGet();
+            return new ByteArrayInputStream(xml);
+        };
+
+        ValidationReport first = validator.validate(HASH, source, false);
+        ValidationReport second = validator.validate(HASH, () -> {
+            throw new IOException("cached reports are not read again");
+        }, false);
+        validator.validate(null, source, false);
+        validator.validate(null, source, false);
+
+        assertSame(first, second);
+        assertEquals(HASH, first.getContentHash());
+        assertEquals(3, opened.get(), "content without a hash is not cached");
+        assertNotNull(modelCache.peek(HASH), "the pass also builds the model");
+        assertNotSame(first, validator.validate(HASH, source, true), "full parses are cached separately");
+    }
+
+    @Test
+    void acceptsAnyPrefixForTheBpmnNamespace() throws IOException {
+        for (String prefix : List.of("", "semantic", "model")) {
+            ValidationReport report = validate(validator(true), document(prefix, START_TO_END), true);
+
+            assertTrue(report.isValid(), prefix + ": " + report.getDiagnostics());
+            assertEquals(3, report.getFlowNodeCount(), prefix);
+            assertEquals(2, report.getSequenceFlowCount(), prefix);
+        }
+    }
+
+    @Test
+    void rejectsDocumentsOutsideTheBpmnNamespace() throws IOException {
+        ValidationReport report = validate(validator(true),
+                "<definitions xmlns=\"http://example.com/not-bpmn\"><process/></definitions>", false);
+
+        assertFalse(report.isValid());
+        assertEquals(List.of("NOT_BPMN"), report.getDiagnostics().stream().map(ValidationDiagnostic::getCode).toList());
+    }
+
+    private BpmnValidator validator(boolean schemaEnabled) {
+        return new BpmnValidator(modelCache, schemaEnabled, 200, 100);
+    }
+
+    private static ValidationReport validate(BpmnValidator validator, String xml, boolean fullParse) throws IOException {
+        byte[] content = xml.getBytes(StandardCharsets.UTF_8);
+        return validator.validate(null, () -> new ByteArrayInputStream(content), fullParse);
+    }
+
+    private static ValidationDiagnostic diagnostic(ValidationReport report, String code) {
+        return report.getDiagnostics().stream()
+                .filter(diagnostic -> code.equals(diagnostic.getCode()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no " + code + " in " + report.getDiagnostics()));
+    }
+
+    private static List<String> elementIds(ValidationReport report, String code) {
+        return report.getDiagnostics().stream()
+                .filter(diagnostic -> code.equals(diagnostic.getCode()))
+                .map(ValidationDiagnostic::getElementId)
+                .toList();
+    }
+
+    private static int lineOf(String xml, String fragment) {
+        String before = xml.substring(0, xml.indexOf(fragment));
+        return (int) before.chars().filter(c -> c == '\n').count() + 1;
+    }
+}
@@ -0,0 +1,117 @@
+package bpmnProject.akon.bpmnJavaBackend.Bpmn;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderCacheTest {
+
+    private static final String HASH = "ab".repeat(32);
+
+    @TempDir
+    Path root;
+
+    @Test
+    void capturedRenderIsCachedOnDiskAndInMemory() throws IOException {
+        RenderCache cache = new RenderCache(4096, true, root.toString(), 1 << 20, 1 << 20);
+        RenderKey key = new RenderKey(HASH, "pdf", "layout=A4");
+        byte[] pdf = bytes(500);
+
+        assertEquals(pdf.length, render(cache, key, pdf).length);
+
+        assertEquals(1, regularFiles().count());
+        assertArrayEquals(pdf, cache.peek(key));
+        assertEquals(1, cache.stats().get("memoryEntries"));
+    }
+
+    @Test
+    void largeCapturesStayOnDiskAndAreStreamedBack() throws IOException {
+        RenderCache cache = new RenderCache(4096, true, root.toString(), 1 << 20, 1 << 20);
+        RenderKey key = new RenderKey(HASH, "pdf", "layout=A3");
+        byte[] pdf = bytes(10_000);
+
+        render(cache, key, pdf);
+
+        assertEquals(0, cache.stats().get("memoryEntries"));
+        ByteArrayOutputStream replay = new ByteArrayOutputStream();
+        assertTrue(cache.writeTo(key, replay));
+        assertArrayEquals(pdf, replay.toByteArray());
+        assertEquals(0, cache.stats().get("memoryEntries"));
+        assertEquals(1L, cache.stats().get("diskHits"));
+    }
+
+    @Test
+    void capturesOverTheLimitAreStreamedButNotCached() throws IOException {
+        RenderCache cache = new RenderCache(1 << 20, true, root.toString(), 1 << 20, 1000);
+        RenderKey key = new RenderKey(HASH, "pdf", "");
+        byte[] pdf = bytes(5000);
+
+        assertArrayEquals(pdf, render(cache, key, pdf));
+
+        assertFalse(cache.writeTo(key, new ByteArrayOutputStream()));
+        assertEquals(0, regularFiles().count(), "no temp file left behind");
+    }
+
+    @Test
+    void discardedCapturesLeaveNothingBehind() throws IOException {
+        RenderCache cache = new RenderCache(1 << 20, true, root.toString(), 1 << 20, 1 << 20);
+        RenderKey key = new RenderKey(HASH, "pdf", "");
+
+        RenderCache.Capture capture = cache.capture(key, new ByteArrayOutputStream());
+        capture.write(bytes(100));
+        capture.discard();
+        capture.commit();
+
+        assertNull(cache.peek(key));
+        assertEquals(0, regularFiles().count());
+    }
+
+    @Test
+    void withoutDiskTierOnlyMemorySizedCapturesAreKept() throws IOException {
+        RenderCache cache = new RenderCache(4096, false, root.toString(), 0, 1 << 20);
+        RenderKey small = new RenderKey(HASH, "pdf", "small");
+        RenderKey large = new RenderKey(HASH, "pdf", "large");
+
+        render(cache, small, bytes(100));
+        render(cache, large, bytes(5000));
+
+        assertNotNull(cache.peek(small));
+        assertNull(cache.peek(large));
+    }
+
+    private static byte[] render(RenderCache cache, RenderKey key, byte[] content) throws IOException {
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        RenderCache.Capture capture = cache.capture(key, response);
+        try {
+            for (int i = 0; i < content.length; i += 333) {
+                capture.write(content, i, Math.min(333, content.length - i));
+            }
+            capture.commit();
+        } finally {
+            capture.discard();
+        }
+        assertArrayEquals(content, response.toByteArray());
+        return response.toByteArray();
+    }
+
+    private Stream<Path> regularFiles() throws IOException {
+        try (Stream<Path> walk = Files.walk(root)) {
+            return walk.filter(Files::isRegularFile).toList().stream();
+        }
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] content = new byte[length];
+        Arrays.fill(content, (byte) 'p');
+        content[length - 1] = 'e';
+        return content;
+    }
+}
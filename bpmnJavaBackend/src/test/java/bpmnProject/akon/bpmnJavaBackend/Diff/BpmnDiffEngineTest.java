@@ -0,0 +1,166 @@
+package bpmnProject.akon.bpmnJavaBackend.Diff;
+
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.BpmnModel;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.BpmnModelReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BpmnDiffEngineTest {
+
+    private static final String BASE = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <bpmn:definitions xmlns:bpmn="http://www.omg.org/spec/BPMN/20100524/MODEL"
+                              xmlns:bpmndi="http://www.omg.org/spec/BPMN/20100524/DI"
+                              xmlns:dc="http://www.omg.org/spec/DD/20100524/DC"
+                              xmlns:di="http://www.omg.org/spec/DD/20100524/DI"
+                              id="Definitions_1" targetNamespace="http://bpmn.io/schema/bpmn">
+              <bpmn:process id="Process_1">
+                <bpmn:startEvent id="Start" name="Order received"/>
+                <bpmn:task id="Task_1" name="Check order"/>
+                <bpmn:exclusiveGateway id="Gateway_1"/>
+                <bpmn:endEvent id="End" name="Done"/>
+                <bpmn:sequenceFlow id="Flow_1" sourceRef="Start" targetRef="Task_1"/>
+                <bpmn:sequenceFlow id="Flow_2" sourceRef="Task_1" targetRef="Gateway_1"/>
+                <bpmn:sequenceFlow id="Flow_3" sourceRef="Gateway_1" targetRef="End"/>
+              </bpmn:process>
+              <bpmndi:BPMNDiagram id="Diagram_1">
+                <bpmndi:BPMNPlane id="Plane_1" bpmnElement="Process_1">
+                  <bpmndi:BPMNShape id="Start_di" bpmnElement="Start"><dc:Bounds x="100" y="100" width="36" height="36"/></bpmndi:BPMNShape>
+                  <bpmndi:BPMNShape id="Task_1_di" bpmnElement="Task_1"><dc:Bounds x="200" y="80" width="100" height="80"/></bpmndi:BPMNShape>
+                  <bpmndi:BPMNShape id="Gateway_1_di" bpmnElement="Gateway_1"><dc:Bounds x="360" y="95" width="50" height="50"/></bpmndi:BPMNShape>
+                  <bpmndi:BPMNShape id="End_di" bpmnElement="End"><dc:Bounds x="470" y="100" width="36" height="36"/></bpmndi:BPMNShape>
+                  <bpmndi:BPMNEdge id="Flow_1_di" bpmnElement="Flow_1"><di:waypoint x="136" y="118"/><di:waypoint x="200" y="118"/></bpmndi:BPMNEdge>
+                  <bpmndi:BPMNEdge id="Flow_2_di" bpmnElement="Flow_2"><di:waypoint x="300" y="120"/><di:waypoint x="360" y="120"/></bpmndi:BPMNEdge>
+                  <bpmndi:BPMNEdge id="Flow_3_di" bpmnElement="Flow_3"><di:waypoint x="410" y="120"/><di:waypoint x="470" y="118"/></bpmndi:BPMNEdge>
+                </bpmndi:BPMNPlane>
+              </bpmndi:BPMNDiagram>
+            </bpmn:definitions>
+            """;
+
+    @Test
+    void identicalDiagramsHaveNoChanges() throws IOException {
+        BpmnDiffEngine.Result result = diff(BASE);
+
+        assertTrue(result.changes.isEmpty(), result.changes.toString());
+        assertEquals(9, result.unchanged);
+    }
+
+    @Test
+    void changedIdsDoNotCascadeIntoConnectedFlows() throws IOException {
+        BpmnDiffEngine.Result result = diff(BASE.replace("Task_1", "Activity_7").replace("Gateway_1", "Gateway_0x3"));
+
+        assertEquals(2, result.changes.size(), result.changes.toString());
+        ElementChange task = change(result, "Task_1");
+        assertEquals("Activity_7", task.getOtherElementId());
+        assertEquals("name", task.getMatchedBy());
+        assertEquals(List.of(ChangeKind.CHANGED), task.getKinds());
+        assertEquals(List.of("id: Task_1 -> Activity_7"), attributes(task));
+        ElementChange gateway = change(result, "Gateway_1");
+        assertEquals("Gateway_0x3", gateway.getOtherElementId());
+        assertEquals("structure", gateway.getMatchedBy(), "unnamed nodes pair through their neighbours");
+        assertEquals(0, result.added);
+        assertEquals(0, result.removed);
+        assertEquals(7, result.unchanged, "flows keep pointing at the same elements");
+    }
+
+    @Test
+    void reportsRenamedElements() throws IOException {
+        BpmnDiffEngine.Result result = diff(BASE.replace("name=\"Check order\"", "name=\"Verify  order\""));
+
+        ElementChange task = single(result);
+        assertEquals("Task_1", task.getElementId());
+        assertNull(task.getOtherElementId());
+        assertEquals("Verify  order", task.getOtherName());
+        assertEquals(List.of(ChangeKind.RENAMED), task.getKinds());
+        assertEquals(1, result.renamed);
+
+        assertTrue(diff(BASE.replace("name=\"Check order\"", "name=\" Check   order \"")).changes.isEmpty(),
+                "whitespace is not a rename");
+    }
+
+    @Test
+    void reportsMovedShapes() throws IOException {
+        BpmnDiffEngine.Result result = diff(BASE.replace("x=\"200\" y=\"80\"", "x=\"260\" y=\"80.2\""));
+
+        ElementChange task = single(result);
+        assertEquals("Task_1", task.getElementId());
+        assertEquals(List.of(ChangeKind.MOVED), task.getKinds());
+        assertEquals(List.of("position: 200,80 -> 260,80.2"), attributes(task));
+        assertEquals(1, result.moved);
+
+        assertTrue(diff(BASE.replace("x=\"200\" y=\"80\"", "x=\"200.3\" y=\"80\"")).changes.isEmpty(),
+                "sub-pixel nudges are ignored");
+    }
+
+    @Test
+    void reportsChangedAttributes() throws IOException {
+        BpmnDiffEngine.Result result = diff(BASE
+                .replace("<bpmn:task id=\"Task_1\" name=\"Check order\"/>",
+                        "<bpmn:task id=\"Task_1\" name=\"Check order\"><bpmn:documentation>Stock and payment</bpmn:documentation></bpmn:task>")
+                .replace("<bpmn:endEvent id=\"End\" name=\"Done\"/>",
+                        "<bpmn:endEvent id=\"End\" name=\"Done\"><bpmn:terminateEventDefinition/></bpmn:endEvent>"));
+
+        assertEquals(2, result.changed);
+        ElementChange task = change(result, "Task_1");
+        assertEquals(List.of(ChangeKind.CHANGED), task.getKinds());
+        assertEquals(List.of("documentation: null -> Stock and payment"), attributes(task));
+        ElementChange end = change(result, "End");
+        assertEquals(List.of("eventDefinition: null -> terminateEventDefinition"), attributes(end));
+    }
+
+    @Test
+    void reportsAddedAndRemovedElements() throws IOException {
+        String other = BASE
+                .replace("<bpmn:endEvent id=\"End\" name=\"Done\"/>", "<bpmn:task id=\"Task_2\" name=\"Ship order\"/>")
+                .replace("<bpmn:sequenceFlow id=\"Flow_3\" sourceRef=\"Gateway_1\" targetRef=\"End\"/>",
+                        "<bpmn:sequenceFlow id=\"Flow_4\" sourceRef=\"Gateway_1\" targetRef=\"Task_2\"/>");
+
+        BpmnDiffEngine.Result result = diff(other);
+
+        assertEquals(2, result.added);
+        assertEquals(2, result.removed);
+        assertEquals(List.of(ChangeKind.REMOVED), change(result, "End").getKinds());
+        assertEquals(List.of(ChangeKind.REMOVED), change(result, "Flow_3").getKinds());
+        List<String> added = result.changes.stream()
+                .filter(change -> change.getKinds().equals(List.of(ChangeKind.ADDED)))
+                .map(ElementChange::getOtherElementId)
+                .toList();
+        assertEquals(List.of("Task_2", "Flow_4"), added);
+        assertEquals("Ship order", result.changes.stream()
+                .filter(change -> "Task_2".equals(change.getOtherElementId()))
+                .findFirst().orElseThrow().getOtherName());
+    }
+
+    private static BpmnDiffEngine.Result diff(String other) throws IOException {
+        return BpmnDiffEngine.diff(model(BASE), model(other));
+    }
+
+    private static BpmnModel model(String xml) throws IOException {
+        byte[] content = xml.getBytes(StandardCharsets.UTF_8);
+        return BpmnModelReader.read(() -> new ByteArrayInputStream(content));
+    }
+
+    private static List<String> attributes(ElementChange change) {
+        return change.getAttributes().stream()
+                .map(attribute -> attribute.getAttribute() + ": " + attribute.getBefore() + " -> " + attribute.getAfter())
+                .toList();
+    }
+
+    private static ElementChange single(BpmnDiffEngine.Result result) {
+        assertEquals(1, result.changes.size(), result.changes.toString());
+        return result.changes.get(0);
+    }
+
+    private static ElementChange change(BpmnDiffEngine.Result result, String elementId) {
+        return result.changes.stream()
+                .filter(change -> elementId.equals(change.getElementId()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no change for " + elementId + " in " + result.changes));
+    }
+}
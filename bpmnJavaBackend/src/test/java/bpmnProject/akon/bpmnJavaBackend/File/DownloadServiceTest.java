@@ -0,0 +1,208 @@
+package bpmnProject.akon.bpmnJavaBackend.File;
+
+import bpmnProject.akon.bpmnJavaBackend.Storage.CompressionDictionaries;
+import bpmnProject.akon.bpmnJavaBackend.Storage.LocalFileSystemBlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownloadServiceTest {
+
+    private static final LocalDateTime MODIFIED = LocalDateTime.of(2024, 5, 1, 12, 0, 0);
+
+    @TempDir
+    Path root;
+
+    private LocalFileSystemBlobStore blobStore;
+    private DownloadService downloadService;
+    private byte[] content;
+    private File file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        blobStore = new LocalFileSystemBlobStore(root.toString(), new CompressionDictionaries(root.toString()), false, 0);
+        downloadService = new DownloadService(null, null, blobStore);
+        content = "0123456789abcdefghijklmnopqrstuvwxyz".repeat(10).getBytes(StandardCharsets.UTF_8);
+        file = fileFor(blobStore.put(content).getHash());
+    }
+
+    @Test
+    void streamsTheWholeContentWithValidators() throws IOException {
+        MockHttpServletResponse response = stream(new MockHttpServletRequest("GET", "/download"));
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(content, response.getContentAsByteArray());
+        assertEquals(content.length, response.getContentLengthLong());
+        assertEquals("\"" + file.getContentHash() + "\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals(ConditionalRequests.CACHE_CONTROL, response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).contains("diagram.bpmn"));
+    }
+
+    @Test
+    void answersMatchingConditionalRequestsWithNotModified() throws IOException {
+        MockHttpServletRequest byETag = new MockHttpServletRequest("GET", "/download");
+        byETag.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + file.getContentHash() + "\"");
+        MockHttpServletRequest byDate = new MockHttpServletRequest("GET", "/download");
+        byDate.addHeader(HttpHeaders.IF_MODIFIED_SINCE, httpDate(MODIFIED));
+
+        for (MockHttpServletRequest request : new MockHttpServletRequest[]{byETag, byDate}) {
+            MockHttpServletResponse response = stream(request);
+            assertEquals(304, response.getStatus());
+            assertEquals(0, response.getContentAsByteArray().length);
+        }
+    }
+
+    @Test
+    void answersStaleConditionalRequestsWithContent() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\"");
+
+        MockHttpServletResponse response = stream(request);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(content, response.getContentAsByteArray());
+    }
+
+    @Test
+    void servesASingleRangePartially() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+
+        MockHttpServletResponse response = stream(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 10-19/" + content.length, response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(content, 10, 20), response.getContentAsByteArray());
+    }
+
+    @Test
+    void servesASuffixRangeFromTheEnd() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+        request.addHeader(HttpHeaders.RANGE, "bytes=-5");
+
+        MockHttpServletResponse response = stream(request);
+
+        assertEquals(206, response.getStatus());
+        assertArrayEquals(Arrays.copyOfRange(content, content.length - 5, content.length), response.getContentAsByteArray());
+    }
+
+    @Test
+    void rejectsUnsatisfiableRanges() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+        request.addHeader(HttpHeaders.RANGE, "bytes=" + content.length + "-");
+
+        MockHttpServletResponse response = stream(request);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */" + content.length, response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void servesTheWholeContentForMultipleRanges() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,5-6");
+
+        MockHttpServletResponse response = stream(request);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(content, response.getContentAsByteArray());
+    }
+
+    @Test
+    void honoursRangeOnlyWhenIfRangeMatches() throws IOException {
+        MockHttpServletRequest current = new MockHttpServletRequest("GET", "/download");
+        current.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        current.addHeader(HttpHeaders.IF_RANGE, "\"" + file.getContentHash() + "\"");
+        MockHttpServletRequest currentDate = new MockHttpServletRequest("GET", "/download");
+        currentDate.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        currentDate.addHeader(HttpHeaders.IF_RANGE, httpDate(MODIFIED));
+        assertEquals(206, stream(current).getStatus());
+        assertEquals(206, stream(currentDate).getStatus());
+
+        MockHttpServletRequest stale = new MockHttpServletRequest("GET", "/download");
+        stale.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        stale.addHeader(HttpHeaders.IF_RANGE, "\"other\"");
+        MockHttpServletRequest staleDate = new MockHttpServletRequest("GET", "/download");
+        staleDate.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        staleDate.addHeader(HttpHeaders.IF_RANGE, httpDate(MODIFIED.minusDays(1)));
+        for (MockHttpServletRequest request : new MockHttpServletRequest[]{stale, staleDate}) {
+            MockHttpServletResponse response = stream(request);
+            assertEquals(200, response.getStatus());
+            assertArrayEquals(content, response.getContentAsByteArray());
+        }
+    }
+
+    @Test
+    void sendsGzippedBlobsAsStoredToClientsAcceptingGzip() throws IOException {
+        LocalFileSystemBlobStore compressing = new LocalFileSystemBlobStore(root.resolve("gzip").toString(),
+                new CompressionDictionaries(root.resolve("gzip").toString()), true, 0);
+        DownloadService service = new DownloadService(null, null, compressing);
+        File gzipped = fileFor(compressing.put(new ByteArrayInputStream(content)).getHash());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "br;q=1, gzip;q=0.5");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        service.streamContent(gzipped, MediaType.APPLICATION_XML, "diagram.bpmn", request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("W/\"" + gzipped.getContentHash() + "\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals(compressing.storedSize(gzipped.getContentHash()), response.getContentLengthLong());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+
+        request = new MockHttpServletRequest("GET", "/download");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0");
+        response = new MockHttpServletResponse();
+        service.streamContent(gzipped, MediaType.APPLICATION_XML, "diagram.bpmn", request, response);
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(content, response.getContentAsByteArray());
+    }
+
+    @Test
+    void answersNotFoundForAMissingBlob() throws IOException {
+        blobStore.delete(file.getContentHash());
+
+        assertEquals(404, stream(new MockHttpServletRequest("GET", "/download")).getStatus());
+    }
+
+    private MockHttpServletResponse stream(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        downloadService.streamContent(file, MediaType.APPLICATION_XML, "diagram.bpmn", request, response);
+        return response;
+    }
+
+    private static File fileFor(String hash) {
+        File file = new File();
+        file.setId(1L);
+        file.setFileName("diagram.bpmn");
+        file.setContentHash(hash);
+        file.setUploadTime(MODIFIED.minusDays(7));
+        file.setModifiedTime(MODIFIED);
+        return file;
+    }
+
+    private static String httpDate(LocalDateTime time) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                ZonedDateTime.of(time, ZoneId.systemDefault()).withZoneSameInstant(ZoneId.of("GMT")));
+    }
+}
@@ -0,0 +1,82 @@
+package bpmnProject.akon.bpmnJavaBackend.File;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadGuardTest {
+
+    private static final String DIAGRAM = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<bpmn:definitions xmlns:bpmn=\"" + UploadGuard.BPMN_MODEL_NAMESPACE + "\" id=\"Definitions_1\">\n"
+            + "  <bpmn:process id=\"Process_1\"/>\n"
+            + "</bpmn:definitions>\n";
+
+    @Test
+    void passesBpmnContentThroughUnchanged() throws IOException {
+        byte[] content = DIAGRAM.getBytes(StandardCharsets.UTF_8);
+        UploadGuard guard = new UploadGuard(DataSize.ofKilobytes(64), true);
+
+        try (InputStream in = guard.guard(new ByteArrayInputStream(content))) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void rejectsEmptyContent() {
+        UploadGuard guard = new UploadGuard(DataSize.ofKilobytes(64), true);
+
+        assertReason(UploadRejectedException.Reason.EMPTY, () -> guard.guard(new ByteArrayInputStream(new byte[0])));
+    }
+
+    @Test
+    void rejectsContentWithoutBpmnDefinitionsRoot() {
+        UploadGuard guard = new UploadGuard(DataSize.ofKilobytes(64), true);
+
+        assertReason(UploadRejectedException.Reason.NOT_BPMN, () -> guard.guard(stream("<definitions/>")));
+        assertReason(UploadRejectedException.Reason.NOT_BPMN, () -> guard.guard(stream("<html><body/></html>")));
+        assertReason(UploadRejectedException.Reason.NOT_BPMN, () -> guard.guard(stream("not xml at all")));
+    }
+
+    @Test
+    void acceptsAnyContentWhenBpmnIsNotRequired() throws IOException {
+        UploadGuard guard = new UploadGuard(DataSize.ofKilobytes(64), false);
+
+        try (InputStream in = guard.guard(stream("plain text"))) {
+            assertEquals("plain text", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void rejectsContentLargerThanTheSniffedHead() {
+        UploadGuard guard = new UploadGuard(DataSize.ofBytes(100), true);
+
+        assertReason(UploadRejectedException.Reason.TOO_LARGE, () -> guard.guard(stream(DIAGRAM + " ".repeat(100))));
+    }
+
+    @Test
+    void rejectsContentThatExceedsTheLimitWhileStreaming() throws IOException {
+        int limit = 20_000;
+        UploadGuard guard = new UploadGuard(DataSize.ofBytes(limit), true);
+        String padded = DIAGRAM.replace("</bpmn:definitions>", "<!--" + "x".repeat(limit) + "--></bpmn:definitions>");
+
+        InputStream in = guard.guard(stream(padded));
+        assertReason(UploadRejectedException.Reason.TOO_LARGE, in::readAllBytes);
+        assertEquals(limit, guard.getMaxUploadSize());
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertReason(UploadRejectedException.Reason reason, Executable upload) {
+        UploadRejectedException e = assertThrows(UploadRejectedException.class, upload);
+        assertEquals(reason, e.getReason());
+    }
+}
@@ -0,0 +1,165 @@
+package bpmnProject.akon.bpmnJavaBackend.Search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    @TempDir
+    Path root;
+
+    private SearchIndex index;
+
+    @AfterEach
+    void tearDown() {
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    @Test
+    void reopensFromTheLog() throws IOException {
+        index = open(100);
+        index.put(diagram(1, "order.bpmn", "v1", task("Task_1", "userTask", "Approve invoice", null)));
+        index.put(diagram(2, "shipping.bpmn", "v1", task("Task_1", "serviceTask", "Ship parcel", null)));
+        index.put(diagram(3, "returns.bpmn", "v1", task("Task_1", "userTask", "Refund order", null)));
+        index.remove(2);
+
+        index = reopen(100);
+
+        assertEquals(Set.of(1L, 3L), index.fileIds());
+        assertEquals(List.of(1L), fileIds(index.search("invoice", null, 0, 10)));
+        assertEquals(0, index.search("parcel", null, 0, 10).getTotal());
+    }
+
+    @Test
+    void dropsARecordTornMidWrite() throws IOException {
+        Path log = root.resolve("index.log");
+        index = open(100);
+        index.put(diagram(1, "order.bpmn", "v1", task("Task_1", "userTask", "Approve invoice", null)));
+        long intact = Files.size(log);
+        index.put(diagram(2, "shipping.bpmn", "v1", task("Task_1", "serviceTask", "Ship parcel", null)));
+        long full = Files.size(log);
+        index.close();
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(intact + (full - intact) / 2);
+        }
+
+        index = reopen(100);
+
+        assertEquals(Set.of(1L), index.fileIds());
+        assertEquals(intact, Files.size(log), "the torn tail is cut off");
+        assertEquals(List.of(1L), fileIds(index.search("invoice", null, 0, 10)));
+        assertEquals(0, index.search("parcel", null, 0, 10).getTotal());
+
+        index.put(diagram(3, "returns.bpmn", "v1", task("Task_1", "userTask", "Refund order", null)));
+        index = reopen(100);
+
+        assertEquals(Set.of(1L, 3L), index.fileIds(), "records appended after the cut replay");
+    }
+
+    @Test
+    void dropsARecordWithABadChecksum() throws IOException {
+        Path log = root.resolve("index.log");
+        index = open(100);
+        index.put(diagram(1, "order.bpmn", "v1", task("Task_1", "userTask", "Approve invoice", null)));
+        index.put(diagram(2, "shipping.bpmn", "v1", task("Task_1", "serviceTask", "Ship parcel", null)));
+        index.close();
+        byte[] bytes = Files.readAllBytes(log);
+        bytes[bytes.length - 3] ^= 0x5a;
+        Files.write(log, bytes);
+
+        index = reopen(100);
+
+        assertEquals(Set.of(1L), index.fileIds());
+    }
+
+    @Test
+    void compactsTheLogIntoASnapshot() throws IOException {
+        index = open(3);
+        index.put(diagram(1, "order.bpmn", "v1", task("Task_1", "userTask", "Approve invoice", null)));
+        index.put(diagram(2, "shipping.bpmn", "v1", task("Task_1", "serviceTask", "Ship parcel", null)));
+        for (int version = 2; version <= 4; version++) {
+            index.put(diagram(1, "order.bpmn", "v" + version,
+                    task("Task_1", "userTask", "Approve invoice " + version, null)));
+        }
+        index.remove(2);
+
+        assertTrue(Files.exists(root.resolve("index.snap")));
+        assertTrue((long) index.stats().get("logRecords") < 3, index.stats().toString());
+
+        index = reopen(3);
+
+        assertEquals(Set.of(1L), index.fileIds());
+        assertEquals("v4", index.get(1).getContentHash());
+        assertEquals(List.of(1L), fileIds(index.search("invoice 4", null, 0, 10)));
+        assertEquals(0, index.search("invoice 3", null, 0, 10).getTotal(), "replaced postings are gone");
+    }
+
+    @Test
+    void ranksElementsOfTheRequestedType() throws IOException {
+        index = open(100);
+        index.put(diagram(1, "billing.bpmn", "v1",
+                task("Task_1", "userTask", "Approve invoice", null),
+                task("Task_2", "serviceTask", "Send invoice", null)));
+        index.put(diagram(2, "archive.bpmn", "v1",
+                task("Task_1", "serviceTask", "Archive invoice", null)));
+        index.put(diagram(3, "review.bpmn", "v1",
+                task("Task_1", "userTask", "Review invoice", "Invoice desk")));
+        index.put(diagram(4, "mixed.bpmn", "v1",
+                task("Task_1", "userTask", "Check stock", null),
+                task("Task_2", "serviceTask", "Book invoice", null)));
+        index.put(diagram(5, "travel.bpmn", "v1",
+                task("Task_1", "userTask", "Approve trip", null)));
+
+        SearchIndex.Result result = index.search("invoice", "userTask", 0, 10);
+
+        assertEquals(2, result.getTotal());
+        assertEquals(List.of(3L, 1L), fileIds(result), "the name and lane match outranks the name alone");
+        assertTrue(result.getHits().get(0).getScore() > result.getHits().get(1).getScore());
+        assertEquals(List.of("Approve invoice"),
+                result.getHits().get(1).getMatches().stream().map(IndexedDiagram.IndexedElement::getName).toList());
+
+        assertEquals(List.of(1L), fileIds(index.search("approve inv*", "usertask", 0, 10)));
+        assertEquals(List.of(4L), fileIds(index.search("stock", "userTask", 0, 10)));
+        assertEquals(0, index.search("stock invoice", "userTask", 0, 10).getTotal(),
+                "all words must match the same element");
+        assertEquals(3, index.search(null, "serviceTask", 0, 10).getTotal(), "a type alone lists its files");
+        assertEquals(List.of(1L), fileIds(index.search("invoice", "userTask", 1, 10)));
+    }
+
+    private SearchIndex open(int compactAfter) throws IOException {
+        SearchIndex opened = new SearchIndex(root.toString(), compactAfter);
+        opened.open();
+        return opened;
+    }
+
+    private SearchIndex reopen(int compactAfter) throws IOException {
+        index.close();
+        return open(compactAfter);
+    }
+
+    private static IndexedDiagram diagram(long fileId, String fileName, String contentHash,
+                                          IndexedDiagram.IndexedElement... elements) {
+        return new IndexedDiagram(fileId, fileName, contentHash, List.of(elements));
+    }
+
+    private static IndexedDiagram.IndexedElement task(String id, String type, String name, String lane) {
+        return new IndexedDiagram.IndexedElement(id, type, name, lane, null);
+    }
+
+    private static List<Long> fileIds(SearchIndex.Result result) {
+        return result.getHits().stream().map(SearchIndex.Hit::getFileId).toList();
+    }
+}
@@ -0,0 +1,164 @@
+package bpmnProject.akon.bpmnJavaBackend.Storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlobCodecTest {
+
+    private static final byte[] CONTENT = document(40);
+    private static final CompressionDictionary DICTIONARY = CompressionDictionary.train(
+            List.of(document(30), document(50), document(20)), CompressionDictionary.MAX_SIZE);
+
+    @TempDir
+    Path dir;
+
+    static byte[] document(int tasks) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<bpmn:definitions>\n");
+        for (int i = 0; i < tasks; i++) {
+            xml.append("  <bpmn:task id=\"Task_").append(i).append("\" name=\"Check invoice ").append(i).append("\"/>\n");
+        }
+        return xml.append("</bpmn:definitions>\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void rawContentIsReadAsIs() throws IOException {
+        BlobCodec.Header header = header(CONTENT);
+
+        assertEquals(BlobCodec.Encoding.RAW, header.encoding);
+        assertEquals(CONTENT.length, header.contentLength);
+        assertEquals(0, header.contentOffset());
+        assertArrayEquals(CONTENT, decode(CONTENT));
+        assertSame(CONTENT, BlobCodec.unencoded(CONTENT));
+    }
+
+    @Test
+    void shortRawContentIsReadAsIs() throws IOException {
+        byte[] content = "<a/>".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(BlobCodec.Encoding.RAW, header(content).encoding);
+        assertArrayEquals(content, decode(content));
+        assertArrayEquals(content, decode(BlobCodec.encodeSmall(content, DICTIONARY)));
+        assertArrayEquals(new byte[0], decode(new byte[0]));
+    }
+
+    @Test
+    void gzipRoundTrips() throws IOException {
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(stored)) {
+            out.write(CONTENT);
+        }
+
+        BlobCodec.Header header = header(stored.toByteArray());
+
+        assertEquals(BlobCodec.Encoding.GZIP, header.encoding);
+        assertEquals(CONTENT.length, header.contentLength);
+        assertEquals(-1, header.contentOffset());
+        assertArrayEquals(CONTENT, decode(stored.toByteArray()));
+    }
+
+    @Test
+    void deflateWithDictionaryRoundTrips() throws IOException {
+        byte[] stored = BlobCodec.encodeSmall(CONTENT, DICTIONARY);
+
+        BlobCodec.Header header = header(stored);
+
+        assertEquals(BlobCodec.Encoding.DEFLATE, header.encoding);
+        assertEquals(DICTIONARY.getId(), header.dictionaryId);
+        assertEquals(CONTENT.length, header.contentLength);
+        assertTrue(stored.length < BlobCodec.encodeSmall(CONTENT, null).length, "dictionary helps");
+        try (InputStream in = BlobCodec.decode(new ByteArrayInputStream(stored),
+                id -> id == DICTIONARY.getId() ? DICTIONARY : null)) {
+            assertArrayEquals(CONTENT, in.readAllBytes());
+        }
+        assertThrows(IOException.class, () -> BlobCodec.decode(new ByteArrayInputStream(stored), id -> null));
+    }
+
+    @Test
+    void deflateWithoutDictionaryRoundTrips() throws IOException {
+        byte[] stored = BlobCodec.encodeSmall(CONTENT, null);
+
+        BlobCodec.Header header = header(stored);
+
+        assertEquals(BlobCodec.Encoding.DEFLATE, header.encoding);
+        assertEquals(0, header.dictionaryId);
+        assertEquals(CONTENT.length, header.contentLength);
+        assertArrayEquals(CONTENT, decode(stored));
+    }
+
+    @Test
+    void incompressibleContentIsKeptAsIs() throws IOException {
+        byte[] content = new byte[1000];
+        new Random(7).nextBytes(content);
+        content[0] = 'x';
+
+        byte[] stored = BlobCodec.encodeSmall(content, DICTIONARY);
+
+        assertArrayEquals(content, stored);
+        assertArrayEquals(content, decode(stored));
+    }
+
+    @Test
+    void contentThatLooksEncodedIsStoredFramed() throws IOException {
+        byte[] gzipLike = prefixed(new byte[]{0x1f, (byte) 0x8b});
+        byte[] magicLike = prefixed(BlobCodec.MAGIC);
+        byte[] headerLike = prefixed(BlobCodec.frameHeader(BlobCodec.FRAMED_DEFLATE, 0, 5));
+
+        for (byte[] content : List.of(gzipLike, magicLike, headerLike)) {
+            byte[] stored = BlobCodec.unencoded(content);
+            BlobCodec.Header header = header(stored);
+
+            assertEquals(BlobCodec.Encoding.STORED, header.encoding);
+            assertEquals(content.length, header.contentLength);
+            assertEquals(BlobCodec.FRAME_HEADER, header.contentOffset());
+            assertArrayEquals(content, Arrays.copyOfRange(stored, BlobCodec.FRAME_HEADER, stored.length));
+            assertArrayEquals(content, decode(stored));
+        }
+    }
+
+    @Test
+    void frameHeaderOfAStreamedWriteTakesTheLengthFromTheFile() throws IOException {
+        byte[] content = prefixed(new byte[]{0x1f, (byte) 0x8b});
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        stored.writeBytes(BlobCodec.frameHeader(BlobCodec.FRAMED_STORED, 0, -1));
+        stored.writeBytes(content);
+
+        assertEquals(content.length, header(stored.toByteArray()).contentLength);
+        assertArrayEquals(content, decode(stored.toByteArray()));
+    }
+
+    private BlobCodec.Header header(byte[] stored) throws IOException {
+        Path file = Files.write(Files.createTempFile(dir, "blob", ""), stored);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return BlobCodec.readHeader(channel);
+        }
+    }
+
+    private static byte[] decode(byte[] stored) throws IOException {
+        try (InputStream in = BlobCodec.decode(new ByteArrayInputStream(stored), id -> null)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] prefixed(byte[] prefix) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(prefix);
+        out.writeBytes(CONTENT);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,179 @@
+package bpmnProject.akon.bpmnJavaBackend.Storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalFileSystemBlobStoreTest {
+
+    private static final byte[] CONTENT = "<definitions>order process</definitions>".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path root;
+
+    private LocalFileSystemBlobStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new LocalFileSystemBlobStore(root.toString(), new CompressionDictionaries(root.toString()), true, 16384);
+    }
+
+    @Test
+    void storesContentUnderItsHash() throws Exception {
+        StoredBlob blob = store.put(CONTENT);
+
+        assertEquals(sha256(CONTENT), blob.getHash());
+        assertEquals(CONTENT.length, blob.getSize());
+        assertTrue(store.exists(blob.getHash()));
+        assertEquals(CONTENT.length, store.size(blob.getHash()));
+        assertArrayEquals(CONTENT, store.read(blob.getHash()));
+        try (InputStream in = store.open(blob.getHash())) {
+            assertArrayEquals(CONTENT, in.readAllBytes());
+        }
+        String hash = blob.getHash();
+        assertTrue(Files.isRegularFile(root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash)));
+    }
+
+    @Test
+    void streamedAndBufferedPutsOfTheSameContentShareOneBlob() throws Exception {
+        StoredBlob first = store.put(CONTENT);
+        StoredBlob second = store.put(new ByteArrayInputStream(CONTENT));
+
+        assertEquals(first.getHash(), second.getHash());
+        assertEquals(first.getStoredSize(), second.getStoredSize());
+        try (var files = Files.list(root.resolve("tmp"))) {
+            assertEquals(0, files.count(), "temp files are cleaned up");
+        }
+    }
+
+    @Test
+    void deleteRemovesTheBlob() throws Exception {
+        String hash = store.put(CONTENT).getHash();
+
+        store.delete(hash);
+
+        assertFalse(store.exists(hash));
+        assertEquals(-1, store.size(hash));
+        store.delete(hash);
+    }
+
+    @Test
+    void rejectsMalformedHashes() {
+        for (String hash : new String[]{null, "", "abc", "../../etc/passwd",
+                "../" + "a".repeat(61), "A".repeat(64), "g".repeat(64)}) {
+            assertThrows(IllegalArgumentException.class, () -> store.resolve(hash), String.valueOf(hash));
+        }
+        assertThrows(IllegalArgumentException.class, () -> store.open("../secret"));
+    }
+
+    @Test
+    void transfersRangesOfEveryEncoding() throws Exception {
+        byte[] large = BlobCodecTest.document(2000);
+        byte[] framed = prefixed(new byte[]{0x1f, (byte) 0x8b}, large);
+        LocalFileSystemBlobStore plain = new LocalFileSystemBlobStore(root.resolve("plain").toString(),
+                new CompressionDictionaries(root.resolve("plain").toString()), false, 16384);
+
+        List<String> hashes = List.of(
+                store.put(BlobCodecTest.document(40)).getHash(),
+                store.put(new ByteArrayInputStream(large)).getHash(),
+                plain.put(framed).getHash(),
+                plain.put(new ByteArrayInputStream(framed)).getHash(),
+                plain.put(prefixed(BlobCodec.MAGIC, BlobCodecTest.document(40))).getHash());
+        assertEquals("gzip", store.storedEncoding(hashes.get(1)));
+
+        for (String hash : hashes) {
+            LocalFileSystemBlobStore owner = store.exists(hash) ? store : plain;
+            assertRanges(owner, hash, owner.read(hash));
+        }
+    }
+
+    @Test
+    void transfersRangesOfLegacyBlobs() throws Exception {
+        byte[] content = BlobCodecTest.document(100);
+        String hash = writeLegacy(content);
+
+        assertEquals(content.length, store.size(hash));
+        assertNull(store.storedEncoding(hash));
+        assertArrayEquals(content, store.read(hash));
+        assertRanges(store, hash, content);
+    }
+
+    @Test
+    void recompressesLegacyBlobs() throws Exception {
+        byte[] content = BlobCodecTest.document(100);
+        String hash = writeLegacy(content);
+
+        StoredBlob blob = store.recompress(hash);
+
+        assertTrue(blob.getStoredSize() < content.length);
+        assertEquals(blob.getStoredSize(), store.storedSize(hash));
+        assertArrayEquals(content, store.read(hash));
+    }
+
+    @Test
+    void reframesLegacyBlobsThatOnlyLookEncoded() throws Exception {
+        for (byte[] prefix : List.of(new byte[]{0x1f, (byte) 0x8b}, BlobCodec.MAGIC,
+                BlobCodec.frameHeader(BlobCodec.FRAMED_STORED, 0, 0),
+                BlobCodec.frameHeader(BlobCodec.FRAMED_DEFLATE, 0, 40))) {
+            byte[] content = prefixed(prefix, "abcdefghijklmnop".getBytes(StandardCharsets.UTF_8));
+            String hash = writeLegacy(content);
+
+            store.recompress(hash);
+
+            assertEquals(BlobCodec.FRAME_HEADER + content.length, store.storedSize(hash), "written framed");
+            assertArrayEquals(content, store.read(hash));
+            assertEquals(content.length, store.size(hash));
+            assertRanges(store, hash, content);
+        }
+    }
+
+    private static void assertRanges(LocalFileSystemBlobStore store, String hash, byte[] content) throws IOException {
+        int length = content.length;
+        long[][] ranges = {{0, length}, {0, 1}, {1, 5}, {length / 2, 100}, {length - 3, 3}, {length - 3, 10}, {0, Long.MAX_VALUE}};
+        for (long[] range : ranges) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long written = store.transferTo(hash, range[0], range[1], Channels.newChannel(out));
+            int end = (int) Math.min(length, range[0] + Math.min(range[1], length));
+            assertArrayEquals(Arrays.copyOfRange(content, (int) range[0], end), out.toByteArray(),
+                    hash + " from " + range[0] + " count " + range[1]);
+            assertEquals(out.size(), written);
+        }
+    }
+
+    /**
+     * A blob as written before compression existed: the content itself, without a frame
+     */
+    private String writeLegacy(byte[] content) throws Exception {
+        String hash = sha256(content);
+        Path path = store.resolve(hash);
+        Files.createDirectories(path.getParent());
+        Files.write(path, content);
+        return hash;
+    }
+
+    private static byte[] prefixed(byte[] prefix, byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(prefix);
+        out.writeBytes(content);
+        return out.toByteArray();
+    }
+
+    static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
@@ -0,0 +1,119 @@
+package bpmnProject.akon.bpmnJavaBackend.Version;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeltaCodecTest {
+
+    static String document(int tasks) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<definitions>\n  <process id=\"Process_1\">\n");
+        for (int i = 0; i < tasks; i++) {
+            xml.append("    <task id=\"Task_").append(i).append("\" name=\"Review order ").append(i).append("\"/>\n");
+        }
+        return xml.append("  </process>\n</definitions>\n").toString();
+    }
+
+    @Test
+    void roundTripsAnEditAtTheStart() throws IOException {
+        String base = document(200);
+        assertRoundTrip(base, "<!-- edited -->\n" + base.substring(5));
+    }
+
+    @Test
+    void roundTripsAnEditInTheMiddle() throws IOException {
+        String base = document(200);
+        assertRoundTrip(base, base.replace("Review order 100\"", "Approve order 100\" default=\"true\""));
+    }
+
+    @Test
+    void roundTripsAnEditAtTheEnd() throws IOException {
+        String base = document(200);
+        assertRoundTrip(base, base.substring(0, base.length() - 20) + "</process><!-- end -->\n</definitions>\n");
+    }
+
+    @Test
+    void roundTripsInsertionsAndDeletionsThroughout() throws IOException {
+        String base = document(300);
+        String target = base.replace("Task_7\"", "Task_7\" extra=\"x\"")
+                .replace("    <task id=\"Task_150\" name=\"Review order 150\"/>\n", "")
+                .replace("Task_299", "Task_last");
+        assertRoundTrip(base, target);
+    }
+
+    @Test
+    void smallEditsCostRoughlyTheirSize() {
+        String base = document(500);
+        String target = base.replace("Review order 250\"", "Review order two hundred fifty\"");
+
+        byte[] delta = DeltaCodec.encode(bytes(base), bytes(target));
+
+        assertTrue(delta.length < 100, "delta of " + delta.length + " bytes");
+    }
+
+    @Test
+    void roundTripsInputsShorterThanABlock() throws IOException {
+        assertRoundTrip("short", "shorter");
+        assertRoundTrip("", "now with content");
+        assertRoundTrip(document(10), "tiny");
+        assertRoundTrip("tiny", document(10));
+        assertRoundTrip("", "");
+    }
+
+    @Test
+    void roundTripsIdenticalInputsAsOneCopy() throws IOException {
+        String base = document(200);
+
+        byte[] delta = DeltaCodec.encode(bytes(base), bytes(base));
+
+        assertTrue(delta.length < 16, "delta of " + delta.length + " bytes");
+        assertArrayEquals(bytes(base), DeltaCodec.apply(bytes(base), delta));
+    }
+
+    @Test
+    void roundTripsUnrelatedContent() throws IOException {
+        Random random = new Random(42);
+        byte[] base = new byte[5000];
+        byte[] target = new byte[4000];
+        random.nextBytes(base);
+        random.nextBytes(target);
+
+        assertArrayEquals(target, DeltaCodec.apply(base, DeltaCodec.encode(base, target)));
+    }
+
+    @Test
+    void rejectsCorruptDeltas() {
+        byte[] base = bytes(document(50));
+        byte[] delta = DeltaCodec.encode(base, bytes(document(51)));
+
+        assertThrows(IOException.class, () -> DeltaCodec.apply(base, new byte[]{10, 7}));
+        assertThrows(IOException.class, () -> DeltaCodec.apply(new byte[base.length / 2], delta));
+        byte[] truncated = Arrays.copyOf(delta, delta.length - 1);
+        assertThrows(IOException.class, () -> DeltaCodec.apply(base, truncated));
+    }
+
+    @Test
+    void deflateRoundTripsAndDetectsTruncation() throws IOException {
+        byte[] content = bytes(document(100));
+        byte[] deflated = DeltaCodec.deflate(content);
+
+        assertArrayEquals(content, DeltaCodec.inflate(deflated));
+        assertArrayEquals(new byte[0], DeltaCodec.inflate(DeltaCodec.deflate(new byte[0])));
+        assertThrows(IOException.class, () -> DeltaCodec.inflate(Arrays.copyOf(deflated, deflated.length / 2)));
+    }
+
+    private static void assertRoundTrip(String base, String target) throws IOException {
+        byte[] delta = DeltaCodec.encode(bytes(base), bytes(target));
+        assertArrayEquals(bytes(target), DeltaCodec.apply(bytes(base), delta));
+        assertArrayEquals(bytes(target), DeltaCodec.apply(bytes(base), DeltaCodec.inflate(DeltaCodec.deflate(delta))));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,131 @@
+package bpmnProject.akon.bpmnJavaBackend.Version;
+
+import bpmnProject.akon.bpmnJavaBackend.File.File;
+import bpmnProject.akon.bpmnJavaBackend.File.FileRepository;
+import bpmnProject.akon.bpmnJavaBackend.Storage.CompressionDictionaries;
+import bpmnProject.akon.bpmnJavaBackend.Storage.LocalFileSystemBlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Revision chains against a real blob store, with the revision table kept in memory
+ */
+class FileVersionServiceTest {
+
+    private static final int SNAPSHOT_INTERVAL = 4;
+    private static final long FILE_ID = 7L;
+
+    @TempDir
+    Path root;
+
+    private final List<FileRevision> revisions = new ArrayList<>();
+    private LocalFileSystemBlobStore blobStore;
+    private FileVersionService versionService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        blobStore = new LocalFileSystemBlobStore(root.toString(), new CompressionDictionaries(root.toString()), true, 16384);
+        FileRevisionRepository revisionRepo = mock(FileRevisionRepository.class);
+        when(revisionRepo.save(any(FileRevision.class))).thenAnswer(call -> {
+            FileRevision revision = call.getArgument(0);
+            revisions.add(revision);
+            return revision;
+        });
+        when(revisionRepo.findFirstByFileIdOrderByRevisionDesc(anyLong())).thenAnswer(call ->
+                revisions.stream().max(Comparator.comparingInt(FileRevision::getRevision)));
+        when(revisionRepo.findChain(anyLong(), anyInt())).thenAnswer(call -> chain(call.getArgument(1)));
+        versionService = new FileVersionService(revisionRepo, mock(FileRepository.class), blobStore,
+                Optional::empty, SNAPSHOT_INTERVAL);
+    }
+
+    @Test
+    void reconstructsEveryRevisionAcrossSnapshotIntervals() throws IOException {
+        List<String> contents = new ArrayList<>();
+        File file = file(store(contents, DeltaCodecTest.document(300)));
+        for (int edit = 1; edit <= SNAPSHOT_INTERVAL * 3; edit++) {
+            FileVersionService.State before = FileVersionService.stateOf(file);
+            String previous = contents.get(contents.size() - 1);
+            file.setContentHash(store(contents, previous.replace("Review order " + edit * 10 + "\"",
+                    "Review order " + edit * 10 + " (edit " + edit + ")\"")));
+            versionService.recordUpdate(before, file, "edit " + edit);
+        }
+
+        assertEquals(contents.size(), revisions.size());
+        for (int number = 1; number <= contents.size(); number++) {
+            assertEquals(contents.get(number - 1),
+                    new String(versionService.reconstruct(FILE_ID, number), StandardCharsets.UTF_8), "revision " + number);
+            assertTrue(chain(number).size() <= SNAPSHOT_INTERVAL, "chain of revision " + number);
+        }
+        assertEquals(RevisionStorage.SNAPSHOT, revisions.get(0).getStorage());
+        assertEquals(RevisionStorage.DELTA, revisions.get(1).getStorage());
+        assertEquals(RevisionStorage.SNAPSHOT, revisions.get(SNAPSHOT_INTERVAL).getStorage());
+        assertTrue(revisions.stream().filter(r -> r.getStorage() == RevisionStorage.SNAPSHOT).count() >= 3);
+    }
+
+    @Test
+    void storesMostlyNewContentAsASnapshot() throws IOException {
+        List<String> contents = new ArrayList<>();
+        File file = file(store(contents, DeltaCodecTest.document(50)));
+        FileVersionService.State before = FileVersionService.stateOf(file);
+        file.setContentHash(store(contents, DeltaCodecTest.document(50).replace("Review order", "Ship parcel")
+                .replace("Task_", "Activity_")));
+
+        versionService.recordUpdate(before, file, null);
+
+        assertEquals(RevisionStorage.SNAPSHOT, revisions.get(1).getStorage());
+        assertEquals(contents.get(1), new String(versionService.reconstruct(FILE_ID, 2), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void recordsNothingWhenTheFileIsUnchanged() throws IOException {
+        File file = file(store(new ArrayList<>(), DeltaCodecTest.document(10)));
+
+        versionService.recordUpdate(FileVersionService.stateOf(file), file, null);
+
+        assertTrue(revisions.isEmpty());
+    }
+
+    private String store(List<String> contents, String content) throws IOException {
+        contents.add(content);
+        return blobStore.put(content.getBytes(StandardCharsets.UTF_8)).getHash();
+    }
+
+    private List<FileRevision> chain(int revision) {
+        int snapshot = revisions.stream()
+                .filter(r -> r.getRevision() <= revision && r.getStorage() == RevisionStorage.SNAPSHOT)
+                .mapToInt(FileRevision::getRevision)
+                .max()
+                .orElse(1);
+        return revisions.stream()
+                .filter(r -> r.getRevision() <= revision && r.getRevision() >= snapshot)
+                .sorted(Comparator.comparingInt(FileRevision::getRevision).reversed())
+                .toList();
+    }
+
+    private static File file(String contentHash) {
+        File file = new File();
+        file.setId(FILE_ID);
+        file.setFileName("order.bpmn");
+        file.setFileType("application/xml");
+        file.setContentHash(contentHash);
+        file.setUploadTime(LocalDateTime.of(2024, 1, 1, 9, 0));
+        return file;
+    }
+}
@@ -0,0 +1,133 @@
+package bpmnProject.akon.bpmnJavaBackend.benchmark;
+
+import bpmnProject.akon.bpmnJavaBackend.Storage.CompressionDictionaries;
+import bpmnProject.akon.bpmnJavaBackend.Storage.LocalFileSystemBlobStore;
+import bpmnProject.akon.bpmnJavaBackend.Storage.StoredBlob;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Write and read cost of the blob store encodings over a document corpus, and the space
+ * they take (printed once per trial):
+ * <ul>
+ *     <li>{@code none}: content stored as-is;</li>
+ *     <li>{@code gzip}: every document gzipped, as large documents are;</li>
+ *     <li>{@code dictionary}: the default, small documents deflated against the built-in dictionary.</li>
+ * </ul>
+ * The corpus is every .bpmn/.xml file under {@code -Dcorpus.dir}, or generated diagrams of
+ * 5 to 2000 flow nodes when it is not set.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=bpmnProject.akon.bpmnJavaBackend.benchmark.BlobCompressionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx256m"})
+public class BlobCompressionBenchmark {
+
+    private static final int SMALL_THRESHOLD = 16384;
+
+    @Param({"none", "gzip", "dictionary"})
+    public String mode;
+
+    private Path root;
+    private LocalFileSystemBlobStore store;
+    private List<byte[]> corpus;
+    private List<String> hashes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        corpus = loadCorpus();
+        root = Files.createTempDirectory("blob-compression-benchmark");
+        String rootPath = root.toString();
+        store = new LocalFileSystemBlobStore(rootPath, new CompressionDictionaries(rootPath),
+                !"none".equals(mode), "gzip".equals(mode) ? 0 : SMALL_THRESHOLD);
+
+        hashes = new ArrayList<>(corpus.size());
+        long logical = 0;
+        long stored = 0;
+        for (byte[] document : corpus) {
+            StoredBlob blob = store.put(document);
+            hashes.add(blob.getHash());
+            logical += blob.getSize();
+            stored += blob.getStoredSize();
+        }
+        System.out.printf("%n%s: %d documents, %d bytes logical, %d bytes stored, ratio %.2f%n",
+                mode, corpus.size(), logical, stored, (double) logical / stored);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Encode and hash one document; identical content is already stored, so this measures the
+     * write path without the final move
+     */
+    @Benchmark
+    public StoredBlob put() throws IOException {
+        return store.put(corpus.get(nextIndex()));
+    }
+
+    @Benchmark
+    public byte[] read() throws IOException {
+        return store.read(hashes.get(nextIndex()));
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (index + 1) % corpus.size();
+        return index;
+    }
+
+    private static List<byte[]> loadCorpus() throws IOException {
+        List<byte[]> documents = new ArrayList<>();
+        String dir = System.getProperty("corpus.dir");
+        if (dir != null) {
+            try (Stream<Path> paths = Files.walk(Paths.get(dir))) {
+                for (Path path : (Iterable<Path>) paths::iterator) {
+                    String name = path.getFileName().toString().toLowerCase();
+                    if (Files.isRegularFile(path) && (name.endsWith(".bpmn") || name.endsWith(".xml"))) {
+                        documents.add(Files.readAllBytes(path));
+                    }
+                }
+            }
+            if (documents.isEmpty()) {
+                throw new IllegalStateException("No .bpmn or .xml files under " + dir);
+            }
+            return documents;
+        }
+        for (int nodes : new int[]{5, 10, 20, 40, 80, 150, 300, 2000}) {
+            documents.add(BpmnSvgRendererBenchmark.generate(nodes).getBytes(StandardCharsets.UTF_8));
+        }
+        return documents;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BlobCompressionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,168 @@
+package bpmnProject.akon.bpmnJavaBackend.benchmark;
+
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.BpmnDiagramRenderer;
+import bpmnProject.akon.bpmnJavaBackend.Bpmn.SvgDiagramCanvas;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SVG rendering time over generated collaboration diagrams from a handful of tasks up to
+ * ten thousand flow nodes. Each diagram has two pools with lanes, a mix of tasks, events and
+ * gateways, sequence flows between them and message flows across the pools. Output goes to
+ * a counting sink so only rendering is measured.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=bpmnProject.akon.bpmnJavaBackend.benchmark.BpmnSvgRendererBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx256m"})
+public class BpmnSvgRendererBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int elements;
+
+    private BpmnDiagramRenderer renderer;
+    private byte[] diagram;
+
+    @Setup
+    public void setUp() {
+        renderer = new BpmnDiagramRenderer();
+        diagram = generate(elements).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public long renderSvg() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        renderer.render(() -> new ByteArrayInputStream(diagram), new SvgDiagramCanvas(out));
+        return out.count;
+    }
+
+    /**
+     * Build a two-pool collaboration with the given number of flow nodes laid out on a grid
+     */
+    static String generate(int nodes) {
+        int perRow = 20;
+        int perPool = (nodes + 1) / 2;
+        StringBuilder semantic = new StringBuilder();
+        StringBuilder shapes = new StringBuilder();
+        StringBuilder edges = new StringBuilder();
+
+        semantic.append("<bpmn:collaboration id=\"Collaboration_1\">")
+                .append("<bpmn:participant id=\"Pool_0\" name=\"Customer\" processRef=\"Process_0\"/>")
+                .append("<bpmn:participant id=\"Pool_1\" name=\"Supplier\" processRef=\"Process_1\"/>");
+        for (int i = 0; i < perPool; i += 10) {
+            semantic.append("<bpmn:messageFlow id=\"Message_").append(i)
+                    .append("\" sourceRef=\"Node_0_").append(i).append("\" targetRef=\"Node_1_").append(i).append("\"/>");
+        }
+        semantic.append("</bpmn:collaboration>");
+
+        int rows = (perPool + perRow - 1) / perRow;
+        double poolHeight = rows * 120 + 40;
+        for (int pool = 0; pool < 2; pool++) {
+            double poolY = pool * (poolHeight + 60);
+            semantic.append("<bpmn:process id=\"Process_").append(pool).append("\">")
+                    .append("<bpmn:laneSet id=\"LaneSet_").append(pool).append("\">")
+                    .append("<bpmn:lane id=\"Lane_").append(pool).append("\" name=\"Lane ").append(pool).append("\"/>")
+                    .append("</bpmn:laneSet>");
+            shapes.append(shape("Pool_" + pool, 0, poolY, perRow * 150 + 60, poolHeight, " isHorizontal=\"true\""))
+                    .append(shape("Lane_" + pool, 30, poolY, perRow * 150 + 30, poolHeight, " isHorizontal=\"true\""));
+
+            for (int i = 0; i < perPool; i++) {
+                String id = "Node_" + pool + "_" + i;
+                double x = 80 + (i % perRow) * 150;
+                double y = poolY + 40 + (i / perRow) * 120;
+                if (i == 0) {
+                    semantic.append("<bpmn:startEvent id=\"").append(id).append("\" name=\"Start\"/>");
+                    shapes.append(shape(id, x, y + 22, 36, 36, ""));
+                } else if (i == perPool - 1) {
+                    semantic.append("<bpmn:endEvent id=\"").append(id).append("\" name=\"End\"/>");
+                    shapes.append(shape(id, x, y + 22, 36, 36, ""));
+                } else if (i % 7 == 3) {
+                    semantic.append("<bpmn:exclusiveGateway id=\"").append(id).append("\" name=\"Approved?\"/>");
+                    shapes.append(shape(id, x, y + 15, 50, 50, ""));
+                } else if (i % 11 == 5) {
+                    semantic.append("<bpmn:intermediateCatchEvent id=\"").append(id).append("\" name=\"Wait\">")
+                            .append("<bpmn:timerEventDefinition/></bpmn:intermediateCatchEvent>");
+                    shapes.append(shape(id, x, y + 22, 36, 36, ""));
+                } else {
+                    String type = i % 3 == 0 ? "userTask" : i % 3 == 1 ? "serviceTask" : "task";
+                    semantic.append("<bpmn:").append(type).append(" id=\"").append(id)
+                            .append("\" name=\"Review the submitted order number ").append(i).append("\"/>");
+                    shapes.append(shape(id, x, y, 100, 80, ""));
+                }
+
+                if (i > 0) {
+                    String flowId = "Flow_" + pool + "_" + i;
+                    semantic.append("<bpmn:sequenceFlow id=\"").append(flowId).append("\" sourceRef=\"Node_")
+                            .append(pool).append('_').append(i - 1).append("\" targetRef=\"").append(id).append("\"/>");
+                    double px = 80 + ((i - 1) % perRow) * 150 + 100;
+                    double py = poolY + 40 + ((i - 1) / perRow) * 120 + 40;
+                    edges.append("<bpmndi:BPMNEdge id=\"").append(flowId).append("_di\" bpmnElement=\"").append(flowId).append("\">")
+                            .append(waypoint(px, py)).append(waypoint(px + 25, py)).append(waypoint(px + 25, y + 40))
+                            .append(waypoint(x, y + 40)).append("</bpmndi:BPMNEdge>");
+                }
+            }
+            semantic.append("</bpmn:process>");
+        }
+        for (int i = 0; i < perPool; i += 10) {
+            double x = 80 + (i % perRow) * 150 + 50;
+            double y = 40 + (i / perRow) * 120 + 80;
+            edges.append("<bpmndi:BPMNEdge id=\"Message_").append(i).append("_di\" bpmnElement=\"Message_").append(i).append("\">")
+                    .append(waypoint(x, y)).append(waypoint(x, y + poolHeight + 60)).append("</bpmndi:BPMNEdge>");
+        }
+
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<bpmn:definitions xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+                + " xmlns:bpmndi=\"http://www.omg.org/spec/BPMN/20100524/DI\""
+                + " xmlns:dc=\"http://www.omg.org/spec/DD/20100524/DC\""
+                + " xmlns:di=\"http://www.omg.org/spec/DD/20100524/DI\" id=\"Definitions_1\">"
+                + semantic
+                + "<bpmndi:BPMNDiagram id=\"Diagram_1\"><bpmndi:BPMNPlane id=\"Plane_1\" bpmnElement=\"Collaboration_1\">"
+                + shapes + edges
+                + "</bpmndi:BPMNPlane></bpmndi:BPMNDiagram></bpmn:definitions>";
+    }
+
+    private static String shape(String id, double x, double y, double w, double h, String extra) {
+        return "<bpmndi:BPMNShape id=\"" + id + "_di\" bpmnElement=\"" + id + "\"" + extra + ">"
+                + "<dc:Bounds x=\"" + x + "\" y=\"" + y + "\" width=\"" + w + "\" height=\"" + h + "\"/>"
+                + "</bpmndi:BPMNShape>";
+    }
+
+    private static String waypoint(double x, double y) {
+        return "<di:waypoint x=\"" + x + "\" y=\"" + y + "\"/>";
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BpmnSvgRendererBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
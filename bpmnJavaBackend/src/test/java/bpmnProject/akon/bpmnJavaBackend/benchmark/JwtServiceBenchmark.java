@@ -0,0 +1,109 @@
+package bpmnProject.akon.bpmnJavaBackend.benchmark;
+
+import bpmnProject.akon.bpmnJavaBackend.Config.JwtService;
+import bpmnProject.akon.bpmnJavaBackend.Config.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issue/verify throughput of JwtService against the previous implementation, which
+ * decoded the secret and built a new parser on every call and parsed the token three
+ * times per request (extractUsername, then isTokenValid).
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=bpmnProject.akon.bpmnJavaBackend.benchmark.JwtServiceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "yZ9Vyj7orA1W37pqaIbqjEcgxOOGNy6oIdK5fW0sPh8nAiviaVZS3qFmJVWgnPfY";
+
+    private JwtService jwtService;
+    private UserDetails user;
+    private Map<String, Object> claims;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 600000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", 10000L);
+        jwtService.init();
+
+        user = User.withUsername("modeler").password("x").roles("MODELER").build();
+        claims = Map.of("roles", List.of("ROLE_MODELER"), "userId", 42, "email", "modeler@example.com");
+        token = jwtService.generateToken(claims, user);
+    }
+
+    @Benchmark
+    public String issueCurrent() {
+        return jwtService.generateToken(claims, user);
+    }
+
+    @Benchmark
+    public String issueLegacy() {
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject(user.getUsername())
+                .setIssuedAt(new Date(System.currentTimeMillis()))
+                .setExpiration(new Date(System.currentTimeMillis() + 600000L))
+                .signWith(legacyKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public boolean verifyCurrent() {
+        VerifiedToken verified = jwtService.parseToken(token);
+        return jwtService.isTokenValid(verified, user);
+    }
+
+    @Benchmark
+    public boolean verifyLegacy() {
+        String username = legacyClaims(token).getSubject();
+        boolean sameUser = legacyClaims(token).getSubject().equals(user.getUsername());
+        boolean expired = legacyClaims(token).getExpiration().before(new Date());
+        return username != null && sameUser && !expired;
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(legacyKey())
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    private static Key legacyKey() {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtServiceBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}